@@ -0,0 +1,24 @@
+package savetheking.game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of an asset loaded from disk, such as a map or a texture.
+ */
+@Name("savetheking.game.AssetLoad")
+@Label("Asset Load")
+@Category({"Solo Chess", "Assets"})
+@Description("An asset loaded from disk")
+public class AssetLoadEvent extends jdk.jfr.Event {
+    @Label("Path")
+    String path;
+
+    @Label("Asset Type")
+    String assetType;
+
+    @Label("Success")
+    boolean success;
+}
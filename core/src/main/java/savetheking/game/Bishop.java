@@ -6,8 +6,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class Bishop extends Piece {
-    public Bishop(String color, Point position, Texture texture) {
-        super(color, position, texture);
+    private static final int[][] DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    public Bishop(PieceColor color, Point position, Texture texture) {
+        super(PieceKind.BISHOP, color, position, texture);
     }
 
     @Override
@@ -32,4 +34,9 @@ public class Bishop extends Piece {
         }
         return possibleMoves;
     }
+
+    @Override
+    protected void collectMoves(Board board, List<Point> moves, boolean quiet) {
+        collectSlidingMoves(board, DIRECTIONS, moves, quiet);
+    }
 }
@@ -13,6 +13,11 @@ import java.util.List;
  * The Board class represents a chessboard for the Solo Chess game.
  */
 public class Board implements Observable {
+    // Piece kinds in tileset order, once for the black pieces then once for the white ones
+    private static final PieceKind[] TILE_KINDS = {
+        PieceKind.BISHOP, PieceKind.KING, PieceKind.KNIGHT, PieceKind.PAWN, PieceKind.QUEEN, PieceKind.ROOK
+    };
+
     private final Tile[][] tiles;
     private final int rowCount;
     private final int columnCount;
@@ -21,25 +26,122 @@ public class Board implements Observable {
     private final boolean pieceDebug = false; // Toggle this to enable/disable debug mode
     private final int tileSize; // Size of each tile in pixels
     private final PieceFactory pieceFactory; // Reference to the shared PieceFactory
+    private final Position initialPosition; // Starting position of a headless board, null when loaded from a TiledMap
+    private final RuleSet rules; // Rules followed by every piece of this board
+    private boolean verbose = true; // Whether moves are printed on the console, turned off for headless sessions
 
     public Board(TiledMap tiledMap, int tileSize, PieceFactory pieceFactory) {
+        this(tiledMap, tileSize, pieceFactory, RuleSet.STANDARD);
+    }
+
+    /**
+     * Creates a board from a TiledMap, played under the given rules.
+     *
+     * @param tiledMap     The map holding the board and piece layers.
+     * @param tileSize     The size of a tile in pixels.
+     * @param pieceFactory The factory creating the textured pieces.
+     * @param rules        The rules of the game, e.g. a variant with a longer move limit.
+     */
+    public Board(TiledMap tiledMap, int tileSize, PieceFactory pieceFactory, RuleSet rules) {
         this.tiledMap = tiledMap;
+        this.rules = rules;
         this.tileSize = tileSize;
         this.rowCount = tiledMap.getProperties().get("height", Integer.class);
         this.columnCount = tiledMap.getProperties().get("width", Integer.class);
         this.tiles = new Tile[rowCount][columnCount];
         this.pieceFactory = pieceFactory; // Set the shared PieceFactory
+        this.initialPosition = null;
+        initializeBoard();
+    }
+
+    /**
+     * Creates a headless board, without map, textures or renderer, set up from a position.
+     * Used to run games on a server or in tests; pieces have no texture and
+     * {@link #initializeBoard()} restores the given position. The board follows the rules of the position.
+     *
+     * @param position The starting position.
+     */
+    public Board(Position position) {
+        this.tiledMap = null;
+        this.rules = position.getRules();
+        this.tileSize = 0;
+        this.rowCount = position.getRows();
+        this.columnCount = position.getColumns();
+        this.tiles = new Tile[rowCount][columnCount];
+        this.pieceFactory = null;
+        this.initialPosition = position;
         initializeBoard();
     }
 
     public void initializeBoard() {
         if (tiledMap != null) {
             initializeFromTiledMap();
+        } else if (initialPosition != null) {
+            loadPosition(initialPosition, null);
         } else {
             clearBoard();
         }
     }
 
+    /**
+     * Replaces every piece of the board with the pieces of a position, e.g. to restore a saved game.
+     * Pieces get a texture when the board was created with a {@link PieceFactory}, and follow the rules of this board.
+     *
+     * @param position The position to set up; it must have the size of this board.
+     * @param colors   The colour of each piece in square order, or null to derive it from the pawn direction.
+     * @throws IllegalArgumentException if the position does not fit this board.
+     */
+    public void loadPosition(Position position, PieceColor[] colors) {
+        if (position.getRows() != rowCount || position.getColumns() != columnCount) {
+            throw new IllegalArgumentException("Position is " + position.getRows() + "x" + position.getColumns()
+                + " but the board is " + rowCount + "x" + columnCount);
+        }
+        // Pawns move towards row 0 when white; a pawn keeps the direction of the colour it is created with
+        PieceColor defaultColor = position.getPawnDirection() < 0 ? PieceColor.WHITE : PieceColor.BLACK;
+        int pieceIndex = 0;
+        for (int x = 0; x < rowCount; x++) {
+            for (int y = 0; y < columnCount; y++) {
+                byte cell = position.getCell(x * columnCount + y);
+                Point point = new Point(x, y);
+                if (cell == Position.EMPTY) {
+                    tiles[x][y] = new EmptyTile(point, 0);
+                    continue;
+                }
+                PieceKind kind = PieceKind.fromCode(Position.kind(cell));
+                Piece piece = pieceFactory != null
+                    ? pieceFactory.createPiece(kind, defaultColor, point)
+                    : createHeadlessPiece(kind, defaultColor, point);
+                adopt(piece);
+                piece.restoreMoveCount(Position.moves(cell));
+                if (colors != null) {
+                    piece.setColor(colors[pieceIndex]); // Keep the saved colour over the one implied by the move count
+                }
+                tiles[x][y] = new OccupiedTile(point, 0, piece);
+                pieceIndex++;
+            }
+        }
+        notifyObservers();
+    }
+
+    private static Piece createHeadlessPiece(PieceKind kind, PieceColor color, Point point) {
+        switch (kind) {
+            case PAWN:
+                return new Pawn(color, point, null);
+            case KNIGHT:
+                return new Knight(color, point, null);
+            case BISHOP:
+                return new Bishop(color, point, null);
+            case ROOK:
+                return new Rook(color, point, null);
+            case QUEEN:
+                return new Queen(color, point, null);
+            case KING:
+                return new King(color, point, null);
+            default:
+                throw new IllegalArgumentException("Unknown piece kind: " + kind);
+        }
+    }
+
     private void clearBoard() {
         for (int x = 0; x < rowCount; x++) {
             for (int y = 0; y < columnCount; y++) {
@@ -62,21 +164,21 @@ public class Board implements Observable {
             for (MapObject object : pieceLayer.getObjects()) {
                 MapProperties properties = object.getProperties();
 
-                // Extract position and properties from Piece Layer
+                // Extract position and properties from Piece Layer; map y grows upwards from the bottom row
                 float x = properties.get("x", Float.class);
                 float y = properties.get("y", Float.class);
-                int gridX = Math.round(x / tileSize);
-                int gridY = (rowCount - 1) - Math.round(y / tileSize);
+                int row = (rowCount - 1) - Math.round(y / tileSize);
+                int column = Math.round(x / tileSize);
 
                 // Extract tile ID directly from the object (GID is the key)
                 int tileId = properties.get("gid", Integer.class);
 
                 if (pieceDebug) {
-                    System.out.printf("Debug: Found object at (%d, %d) with Tile ID: %d%n", gridX, gridY, tileId);
+                    System.out.printf("Debug: Found object at (%d, %d) with Tile ID: %d%n", row, column, tileId);
                 }
 
-                if (tileId > 0) { // Ensure tileId is valid
-                    initializePieceTile(gridX, gridY, tileId); // Pass to initializePieceTile
+                if (tileId > 0 && isWithinBounds(row, column)) { // Ensure tileId and square are valid
+                    initializePieceTile(row, column, tileId); // Pass to initializePieceTile
                 }
             }
         } else {
@@ -87,9 +189,9 @@ public class Board implements Observable {
         for (int x = 0; x < rowCount; x++) {
             for (int y = 0; y < columnCount; y++) {
                 if (tiles[x][y] == null) {
-                    int tileId = boardLayer != null && boardLayer.getCell(x, y) != null
-                        ? boardLayer.getCell(x, y).getTile().getId()
-                        : 0;
+                    // Layer cells are addressed by column, then row counted from the bottom
+                    TiledMapTileLayer.Cell cell = boardLayer != null ? boardLayer.getCell(y, rowCount - 1 - x) : null;
+                    int tileId = cell != null ? cell.getTile().getId() : 0;
 
                     tiles[x][y] = new EmptyTile(new Point(x, y), tileId);
                     if (pieceDebug) {
@@ -108,12 +210,13 @@ public class Board implements Observable {
         }
 
         // Retrieve the piece type and color
-        String type = getTypeFromTileId(tileId);
-        String color = getColorFromTileId(tileId);
+        PieceKind type = getTypeFromTileId(tileId);
+        PieceColor color = getColorFromTileId(tileId);
 
         // Check if there's a piece associated with the tile ID
         if (type != null && color != null) {
             Piece piece = pieceFactory.createPiece(type, color, new Point(x, y));
+            adopt(piece);
             tiles[x][y] = new OccupiedTile(new Point(x, y), tileId, piece);
             if (pieceDebug) {
                 System.out.printf("Debug: Created %s %s at (%d, %d)%n", color, type, x, y);
@@ -125,38 +228,24 @@ public class Board implements Observable {
         }
     }
 
-    private String getTypeFromTileId(int tileId) {
-        switch (tileId) {
-            case 0:
-            case 6:
-                return "bishop";
-            case 1:
-            case 7:
-                return "king";
-            case 2:
-            case 8:
-                return "knight";
-            case 3:
-            case 9:
-                return "pawn";
-            case 4:
-            case 10:
-                return "queen";
-            case 5:
-            case 11:
-                return "rook";
-            default:
-                return null;
+    /**
+     * Maps a piece tile ID of the tileset to its kind: IDs 0 to 5 are the black pieces
+     * and 6 to 11 the white ones, both in the order of {@link #TILE_KINDS}.
+     *
+     * @return The kind, or null if the tile is not a piece.
+     */
+    private static PieceKind getTypeFromTileId(int tileId) {
+        if (tileId < 0 || tileId >= 2 * TILE_KINDS.length) {
+            return null;
         }
+        return TILE_KINDS[tileId % TILE_KINDS.length];
     }
 
-    private String getColorFromTileId(int tileId) {
-        if (tileId >= 0 && tileId <= 5) {
-            return "black";
-        } else if (tileId >= 6 && tileId <= 11) {
-            return "white";
+    private static PieceColor getColorFromTileId(int tileId) {
+        if (tileId < 0 || tileId >= 2 * TILE_KINDS.length) {
+            return null;
         }
-        return null;
+        return tileId < TILE_KINDS.length ? PieceColor.BLACK : PieceColor.WHITE;
     }
 
     public Tile getTileAt(Point position) {
@@ -168,13 +257,34 @@ public class Board implements Observable {
     }
 
     public boolean isWithinBounds(Point position) {
-        return position.x >= 0 && position.x < rowCount && position.y >= 0 && position.y < columnCount;
+        return isWithinBounds(position.x, position.y);
+    }
+
+    public boolean isWithinBounds(int x, int y) {
+        return x >= 0 && x < rowCount && y >= 0 && y < columnCount;
+    }
+
+    /**
+     * Gets the piece standing on a square without allocating a {@link Point}.
+     * Intended for move generation, where it is called for every square a piece looks at.
+     *
+     * @param x The row of the square.
+     * @param y The column of the square.
+     * @return The piece on the square, or null if the square is empty or out of bounds.
+     */
+    public Piece getPieceAt(int x, int y) {
+        if (!isWithinBounds(x, y)) {
+            return null;
+        }
+        Tile tile = tiles[x][y];
+        return tile != null ? tile.getPiece() : null;
     }
 
     public void placePiece(Piece piece, Point position) {
         if (!isWithinBounds(position)) {
             throw new IllegalArgumentException("Position out of bounds: " + position);
         }
+        adopt(piece);
         tiles[position.x][position.y] = new OccupiedTile(position, 0, piece);
         notifyObservers();
     }
@@ -205,6 +315,24 @@ public class Board implements Observable {
         return columnCount;
     }
 
+    /**
+     * Gets the rules the game on this board is played under.
+     *
+     * @return The rules, {@link RuleSet#STANDARD} unless a variant was chosen.
+     */
+    public RuleSet getRuleSet() {
+        return rules;
+    }
+
+    /**
+     * Gets the size of a tile in pixels.
+     *
+     * @return The tile size, or 0 for a headless board.
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
+
     public void dispose() {
         if (tiledMap != null) {
             tiledMap.dispose();
@@ -231,18 +359,24 @@ public class Board implements Observable {
             Piece piece = ((OccupiedTile) startTile).getPiece();
 
             // Debug: Log details of the move
-            System.out.printf("Moving piece: %s from %s to %s%n", piece, start, end);
+            if (verbose) {
+                System.out.printf("Moving piece: %s from %s to %s%n", piece, start, end);
+            }
 
             // Remove the piece from the start tile
             tiles[start.x][start.y] = new EmptyTile(start, 0);
-            System.out.println("Start tile set to empty.");
+            if (verbose) {
+                System.out.println("Start tile set to empty.");
+            }
 
             // Place the piece on the end tile
             tiles[end.x][end.y] = new OccupiedTile(end, 0, piece);
-            System.out.printf("End tile updated with piece: %s at position %s%n", piece, end);
+            if (verbose) {
+                System.out.printf("End tile updated with piece: %s at position %s%n", piece, end);
+            }
 
             // Update the piece's position
-            piece.move(end, rowCount);
+            piece.move(end, rowCount, columnCount);
         } else {
             System.err.printf("Error: No piece found at start tile (%s)%n", start);
         }
@@ -251,6 +385,37 @@ public class Board implements Observable {
         notifyObservers();
     }
 
+    /**
+     * Turns the console messages about moves on or off, for this board, its pieces and its {@link Controller}.
+     * Headless sessions turn them off: {@code System.out} is synchronized, so thousands of games printing
+     * every move would wait on each other.
+     *
+     * @param verbose true to print the moves, the default.
+     */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+        for (Piece piece : getRemainingPieces()) {
+            piece.setVerbose(verbose);
+        }
+    }
+
+    /**
+     * Indicates whether moves are printed on the console.
+     *
+     * @return true unless turned off with {@link #setVerbose(boolean)}.
+     */
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    /**
+     * Makes a piece follow the rules and the console settings of this board.
+     */
+    private void adopt(Piece piece) {
+        piece.setRuleSet(rules);
+        piece.setVerbose(verbose);
+    }
+
     public List<Piece> getRemainingPieces() {
         List<Piece> remainingPieces = new ArrayList<Piece>();
         for (Tile[] row : tiles) {
@@ -263,6 +428,14 @@ public class Board implements Observable {
         return remainingPieces;
     }
 
+    /**
+     * Checks whether moving the piece at start to end is legal under the rules of this board,
+     * i.e. whether it is one of the piece's legal moves.
+     *
+     * @param start The position of the piece to move.
+     * @param end   The destination position.
+     * @return true if the move is legal.
+     */
     public boolean isValidMove(Point start, Point end) {
         if (!isWithinBounds(start) || !isWithinBounds(end)) {
             return false;
@@ -271,7 +444,7 @@ public class Board implements Observable {
         if (startTile instanceof OccupiedTile) {
             Piece piece = ((OccupiedTile) startTile).getPiece();
             if (piece != null) {
-                return piece.getPossibleMoves(this).contains(end);
+                return piece.getLegalMoves(this).contains(end);
             }
         }
         return false;
@@ -1,5 +1,6 @@
 package savetheking.game;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -7,13 +8,27 @@ import java.util.List;
  */
 public class Controller {
     private final Board board;
-    private final GameState gameState; // Singleton instance for managing the game state
+    private final GameState gameState; // State of the game played on this board, owned by this controller
     private Piece selectedPiece = null; // Currently selected piece
     private boolean isGameFinished = false;
+    private final Solver solver = new Solver(); // Keeps its proofs between frames, so analysis can resume
+    private MoveJournal journal; // Optional write-ahead journal of the moves, for crash recovery
+    private IOException journalError; // Failure that stopped journaling, reported through getJournalError()
+    private Tablebase tablebase; // Optional verdicts of the positions with few pieces
 
     public Controller(Board board) {
+        this(board, new GameState());
+    }
+
+    /**
+     * Creates a controller updating the given game state, e.g. one owned by a session.
+     *
+     * @param board     The board to play on.
+     * @param gameState The game state updated by this controller.
+     */
+    public Controller(Board board, GameState gameState) {
         this.board = board;
-        this.gameState = GameState.getInstance();
+        this.gameState = gameState;
     }
 
     /**
@@ -22,12 +37,12 @@ public class Controller {
      */
     public void handleInput(Point clickedPoint) {
         if (isGameFinished) {
-            System.out.println("Game is finished. Reset to play again.");
+            log("Game is finished. Reset to play again.");
             return;
         }
 
         if (!board.isWithinBounds(clickedPoint)) {
-            System.out.println("Clicked outside the board: " + clickedPoint);
+            log("Clicked outside the board: %s", clickedPoint);
             return;
         }
 
@@ -43,69 +58,93 @@ public class Controller {
 
     public void handleSelection(Tile clickedTile) {
         if (clickedTile instanceof OccupiedTile) {
-            selectedPiece = ((OccupiedTile) clickedTile).getPiece();
-            System.out.printf("Selected piece: %s%n", selectedPiece);
+            Piece piece = ((OccupiedTile) clickedTile).getPiece();
+            if (piece.isExhausted()) {
+                log("Piece %s has no moves left.", piece);
+                return;
+            }
+            selectedPiece = piece;
+            log("Selected piece: %s", selectedPiece);
         } else {
             selectedPiece = null;
-            System.out.println("No piece found on the clicked tile.");
+            log("No piece found on the clicked tile.");
         }
     }
 
     /**
-     * Handles piece movement logic.
+     * Handles piece movement logic. Only the moves allowed by the rules of the board are accepted,
+     * which under the standard Solo Chess rules means captures only.
      * @param clickedPoint The point where the piece is being moved.
      * @param clickedTile  The tile at the clicked point.
      */
     private void handleMove(Point clickedPoint, Tile clickedTile) {
-        List<Point> validMoves = selectedPiece.getPossibleMoves(board);
+        List<Point> validMoves = selectedPiece.getLegalMoves(board);
         //System.out.println("Valid moves for the selected piece: " + validMoves + "the selected piece: " + selectedPiece + "that is an instance of " + selectedPiece.getClass().getSimpleName());
 
         if (validMoves.contains(clickedPoint)) {
-            performMove(clickedPoint, clickedTile);
+            performMove(selectedPiece, clickedPoint, clickedTile);
         } else {
-            System.out.println("Invalid move for the selected piece.");
+            log("Invalid move for the selected piece.");
         }
     }
 
     /**
-     * Performs the actual move of a selected piece.
+     * Performs the actual move of a piece, already checked to be legal.
      * Updates the board state, piece state, game state, and handles rendering updates.
      *
+     * @param piece        The piece to move.
      * @param clickedPoint The destination point for the piece.
      * @param clickedTile  The tile at the destination point.
      */
-    private void performMove(Point clickedPoint, Tile clickedTile) {
-        System.out.printf("Performing move for piece: %s from %s to %s%n", selectedPiece, selectedPiece.getPosition(), clickedPoint);
-
-        // Step 1: Update the board's state
-        board.movePiece(selectedPiece.getPosition(), clickedPoint);
-        System.out.println("Board updated: Piece moved to new position.");
+    private void performMove(Piece piece, Point clickedPoint, Tile clickedTile) {
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        Point start = piece.getPosition();
+        log("Performing move for piece: %s from %s to %s", piece, start, clickedPoint);
 
-        // Step 2: Update the piece's internal state
-        selectedPiece.move(clickedPoint, board.getRowCount());
-        System.out.printf("Piece state updated: New position = %s, Move count = %d%n", selectedPiece.getPosition(), selectedPiece.getMoveCount());
-
-        // Step 3: Handle color change for two-move rule
-        if (selectedPiece.getMoveCount() >= 2 && "White".equalsIgnoreCase(selectedPiece.getColor())) {
-            selectedPiece.setColor("Black");
-            System.out.println("Piece color changed to Black after two moves.");
+        // Step 1: Record the move in the game state, while the move counts are still those before the move
+        Piece captured = clickedTile instanceof OccupiedTile ? ((OccupiedTile) clickedTile).getPiece() : null;
+        gameState.recordMove(piece, start, clickedPoint, captured);
+        log("Game state updated: Move recorded.");
+        if (journal != null) {
+            try {
+                journal.append(gameState.getLastMove());
+            } catch (IOException e) {
+                stopJournaling(e);
+            }
         }
 
-        // Step 4: Record the move in the game state
-        boolean isCapture = clickedTile instanceof OccupiedTile;
-        gameState.recordMove(selectedPiece, selectedPiece.getPosition(), clickedPoint, isCapture);
-        System.out.println("Game state updated: Move recorded.");
+        // Step 2: Update the board's state (this also updates the piece's position,
+        // move count and two-move colour change, so the piece must not be moved again here)
+        board.movePiece(start, clickedPoint);
+        log("Piece state updated: New position = %s, Move count = %d", piece.getPosition(), piece.getMoveCount());
 
-        // Step 5: Check if the game is finished
+        // Step 3: Check if the game is finished
         checkGameFinished();
 
-        // Step 6: Deselect the piece
+        // Step 4: Deselect the piece
         selectedPiece = null;
-        System.out.println("Piece deselected. Ready for next action.");
+        log("Piece deselected. Ready for next action.");
+
+        // Step 5: Keep a bounded journal within its size limit
+        if (journal != null && journal.isFull()) {
+            checkpointJournal();
+        }
 
         // Rendering step (if needed):
         // Ensure rendering updates after the move if the rendering relies on board state changes.
         board.notifyObservers();
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.piece = piece.getKind().name();
+            event.from = start.toString();
+            event.to = clickedPoint.toString();
+            event.capture = captured != null;
+            event.capturedPiece = captured != null ? captured.getKind().name() : null;
+            event.piecesLeft = board.getRemainingPieces().size();
+            event.commit();
+        }
     }
 
     /**
@@ -114,72 +153,75 @@ public class Controller {
      */
     private void highlightValidMoves(Piece piece) {
         if (piece != null) {
-            List<Point> validMoves = piece.getPossibleMoves(board);
+            List<Point> validMoves = piece.getLegalMoves(board);
             for (Point move : validMoves) {
                 Tile tile = board.getTileAt(move);
                 if (tile != null) {
                     tile.setHighlighted(true); // Highlight valid moves
                 }
             }
-            System.out.println("Highlighted valid moves for the selected piece.");
+            log("Highlighted valid moves for the selected piece.");
         }
     }
 
     /**
      * Checks whether the game is finished based on Solo Chess rules.
+     * When the rules keep the king from being captured, a king on the board is necessarily
+     * the last piece standing once a single piece remains.
      */
     private void checkGameFinished() {
         List<Piece> remainingPieces = board.getRemainingPieces();
 
-        int blackPieceCount = 0;
-        boolean kingExists = false;
-
-        // Count black pieces and check for the presence of a king
-        for (Piece piece : remainingPieces) {
-            if (piece instanceof King) {
-                kingExists = true;
-            }
-            if ("Black".equalsIgnoreCase(piece.getColor())) {
-                blackPieceCount++;
-            }
-        }
-
-        // Case 1: Only the king remains (win condition)
-        if (remainingPieces.size() == 1 && kingExists) {
-            System.out.println("Game finished! The king is the last piece remaining. Congratulations!");
-            isGameFinished = true;
-        }
-        // Case 2: All remaining pieces are black (lose condition)
-        else if (blackPieceCount == remainingPieces.size()) {
-            System.out.println("Game over! All remaining pieces are black. You lost.");
+        // Case 1: A single piece remains (win condition)
+        if (remainingPieces.size() == 1) {
+            log("Game finished! Only one piece remains. Congratulations!");
             isGameFinished = true;
         }
-        // Case 3: More than one black piece remains (lose condition)
-        else if (blackPieceCount > 1) {
-            System.out.println("Game over! More than one black piece remains. You lost.");
+        // Case 2: No piece can move anymore (lose condition)
+        else if (!hasMoveAvailable(remainingPieces)) {
+            log("Game over! No move is possible anymore. You lost.");
             isGameFinished = true;
         }
-        // Case 4: Continue the game
+        // Case 3: Continue the game, warning when the tablebase knows it cannot be won anymore
         else {
-            System.out.println("Game continues. Remaining pieces: " + remainingPieces.size());
+            log("Game continues. Remaining pieces: %d", remainingPieces.size());
+            if (board.isVerbose() && isDeadPosition()) {
+                log("No solution remains from this position.");
+            }
         }
 
         if (isGameFinished) {
-            System.out.println("Game is finished. Reset the board to play again.");
+            log("Game is finished. Reset the board to play again.");
         }
     }
 
+    /**
+     * Checks whether at least one of the given pieces has a legal move available.
+     * Exhausted pieces are skipped without generating their moves.
+     *
+     * @param pieces The pieces remaining on the board.
+     * @return True if a legal move exists, otherwise false.
+     */
+    private boolean hasMoveAvailable(List<Piece> pieces) {
+        for (Piece piece : pieces) {
+            if (piece.getState() == PieceState.ACTIVE && !piece.getLegalMoves(board).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Resets the board to its initial state.
      */
     public void resetBoard() {
         board.initializeBoard(); // Reset the board
         gameState.setScore(0);   // Reset score
-        gameState.setTimer(3000); // Reset timer
-        gameState.advanceRound(); // Move to the next round
+        gameState.advanceRound(); // Move to the next round, which resets the timer and the move history
         isGameFinished = false;  // Reset game status
         selectedPiece = null;    // Clear selected piece
-        System.out.println("Board has been reset to its initial state.");
+        checkpointJournal();     // Recovery must start from the new board
+        log("Board has been reset to its initial state.");
     }
 
     /**
@@ -190,11 +232,186 @@ public class Controller {
         gameState.updateTimer(deltaTime);
 
         if (gameState.checkGameOver()) {
-            System.out.println("Time's up! Game over.");
+            log("Time's up! Game over.");
             isGameFinished = true;
         }
     }
 
+    /**
+     * Analyses the current position within a budget, e.g. to show a hint or warn about a dead
+     * position without stalling the frame. An unknown verdict can be retried on the next frame:
+     * the work already done is kept.
+     *
+     * @param budget The node, time and cancellation limits of the analysis.
+     * @return The verdict, with a winning line if one was found.
+     */
+    public SearchResult analysePosition(SearchBudget budget) {
+        return solver.search(Position.fromBoard(board), budget);
+    }
+
+    /**
+     * Uses a tablebase for the positions it covers: they are analysed by a single probe,
+     * and lost positions are reported as soon as they are reached.
+     * @param tablebase The tablebase, or null to always search.
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+        solver.setTablebase(tablebase);
+    }
+
+    /**
+     * Checks whether the tablebase proves that the current position cannot be won anymore.
+     * @return True if the position is covered by the tablebase and lost, otherwise false.
+     */
+    public boolean isDeadPosition() {
+        return tablebase != null && tablebase.probe(Position.fromBoard(board)) == SearchResult.Verdict.UNSOLVABLE;
+    }
+
+    /**
+     * Finds a winning move with the tablebase, without any search.
+     * @return The move, or null if the position is not covered by the tablebase or cannot be won.
+     */
+    public Move findHint() {
+        if (tablebase == null) {
+            return null;
+        }
+        int move = tablebase.findWinningMove(Position.fromBoard(board));
+        if (move < 0) {
+            return null;
+        }
+        int columns = board.getColumnCount();
+        Point start = new Point(Position.moveFrom(move) / columns, Position.moveFrom(move) % columns);
+        Point end = new Point(Position.moveTo(move) / columns, Position.moveTo(move) % columns);
+        return new Move(board.getPieceAt(start.x, start.y), start, end, true, false);
+    }
+
+    /**
+     * Lets an automated player make the next move through {@link #playMove(Point, Point)},
+     * so the move goes through the same checks, recording and end-of-game detection as a human move.
+     * @param player The player choosing among the legal moves of the current position.
+     * @return True if a move was played, false if the game is finished or no move is possible.
+     */
+    public boolean playMove(Player player) {
+        if (isGameFinished) {
+            return false;
+        }
+        Position position = Position.fromBoard(board);
+        int[] moves = position.newMoveBuffer();
+        int count = position.generateMoves(moves);
+        if (count == 0) {
+            return false;
+        }
+        int move = moves[player.chooseMove(position, moves, count)];
+        int columns = board.getColumnCount();
+        return playMove(new Point(Position.moveFrom(move) / columns, Position.moveFrom(move) % columns),
+            new Point(Position.moveTo(move) / columns, Position.moveTo(move) % columns));
+    }
+
+    /**
+     * Plays a move given by its squares, e.g. one received from a remote player or read from a journal.
+     * The move is made directly by the piece on the start square, whatever was selected by earlier clicks,
+     * with the same recording and end-of-game detection as a move made by clicks; any selection is dropped.
+     * @param start The position of the piece to move.
+     * @param end   The destination position.
+     * @return True if the move was played, false if the game is finished or the move is not legal.
+     */
+    public boolean playMove(Point start, Point end) {
+        if (isGameFinished || !board.isValidMove(start, end)) {
+            return false;
+        }
+        performMove(board.getPieceAt(start.x, start.y), end, board.getTileAt(end));
+        return true;
+    }
+
+    /**
+     * Indicates whether the game is over, won, lost or out of time, until the board is reset.
+     * @return True once no more moves are accepted.
+     */
+    public boolean isGameFinished() {
+        return isGameFinished;
+    }
+
+    /**
+     * Takes a snapshot of the game, e.g. to autosave it after a move or before pausing.
+     * @return The snapshot of the board and the game state.
+     */
+    public GameSnapshot snapshot() {
+        return GameSnapshot.capture(board, gameState);
+    }
+
+    /**
+     * Resumes a game saved with {@link #snapshot()}.
+     * @param snapshot The snapshot to restore; its board must have the size of this board.
+     */
+    public void restore(GameSnapshot snapshot) {
+        snapshot.restore(board, gameState);
+        selectedPiece = null;
+        isGameFinished = false;
+        checkGameFinished();
+        checkpointJournal();
+    }
+
+    /**
+     * Journals every following move so the game can be rebuilt after a crash with
+     * {@link MoveJournal#recover(java.io.File, Controller)}. The current state is checkpointed first.
+     * If a later write fails, journaling stops and the failure is kept for {@link #getJournalError()}.
+     * @param journal The journal to append to, or null to stop journaling.
+     * @throws IOException if the first checkpoint cannot be written; the journal is then not used.
+     */
+    public void setJournal(MoveJournal journal) throws IOException {
+        this.journal = null;
+        this.journalError = null;
+        if (journal != null) {
+            journal.checkpoint(snapshot());
+            this.journal = journal;
+        }
+    }
+
+    /**
+     * Gets the write failure that stopped journaling. Once a move is missing from the journal, the moves
+     * after it could not be replayed, so the journal is dropped; the caller should report the error and
+     * set a new journal to keep the game recoverable.
+     * @return The failure, or null while journaling works or no journal is set.
+     */
+    public IOException getJournalError() {
+        return journalError;
+    }
+
+    private void checkpointJournal() {
+        if (journal != null) {
+            try {
+                journal.checkpoint(snapshot());
+            } catch (IOException e) {
+                stopJournaling(e);
+            }
+        }
+    }
+
+    /**
+     * Prints a message about the game on the console, unless the board is quiet.
+     * @param format The message, formatted like {@link String#format(String, Object...)}.
+     * @param args   The values of the message.
+     */
+    private void log(String format, Object... args) {
+        if (board.isVerbose()) {
+            System.out.printf(format + "%n", args);
+        }
+    }
+
+    private void stopJournaling(IOException e) {
+        System.err.println("Journaling stopped after a write failure: " + e.getMessage());
+        journal = null;
+        journalError = e;
+    }
+
+    /**
+     * Gets the state of the game played by this controller.
+     * @return The game state, confined to the thread driving this controller.
+     */
+    public GameState getGameState() {
+        return gameState;
+    }
+
     /**
      * Checks if the game state needs an update.
      * @return True if the state has changed, otherwise false.
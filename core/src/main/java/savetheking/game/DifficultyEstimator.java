@@ -0,0 +1,74 @@
+package savetheking.game;
+
+/**
+ * Rates how hard a Solo Chess position is by how unlikely it is to be won by chance.
+ *
+ * The estimate is the exact probability that a player picking each move uniformly at random among the
+ * legal ones ends with a single piece: a solved position wins for sure, a position without moves is lost,
+ * and any other position wins with the average probability of the positions its moves lead to. As in
+ * {@link SolutionCounter}, the positions form a graph without cycles and the probabilities are memoized,
+ * so each position is expanded once, and positions {@link Solver} can prove lost are not expanded at all.
+ *
+ * The difficulty is that probability in bits, {@code -log2(p)}: 0 for a puzzle any sequence of moves wins,
+ * one more bit each time the odds of winning by chance halve, and infinite for an unsolvable puzzle.
+ * The memo is kept between calls, since neighbouring puzzles share most of their positions; call
+ * {@link #reset()} to bound it. An estimator is not thread-safe; use one instance per thread.
+ */
+public class DifficultyEstimator {
+    private final PositionMemo memo = new PositionMemo();
+
+    /**
+     * Computes the probability that random play wins a position.
+     *
+     * @param position The position.
+     * @return The winning probability, 0 if the position is unsolvable and 1 if every line wins.
+     */
+    public double getWinProbability(Position position) {
+        if (position.isSolved()) {
+            return 1;
+        }
+        long key = PositionMemo.hash(position);
+        long memoized = memo.get(key, -1); // Probabilities are never negative, so their bits never are either
+        if (memoized >= 0) {
+            return Double.longBitsToDouble(memoized);
+        }
+        double probability = 0;
+        if (!Solver.cannotBeSolved(position)) {
+            int[] moves = position.newMoveBuffer();
+            int count = position.generateMoves(moves);
+            for (int i = 0; i < count; i++) {
+                probability += getWinProbability(position.play(moves[i]));
+            }
+            probability = count > 0 ? probability / count : 0;
+        }
+        memo.put(key, Double.doubleToRawLongBits(probability));
+        return probability;
+    }
+
+    /**
+     * Rates a position.
+     *
+     * @param position The position.
+     * @return The difficulty in bits, {@link Double#POSITIVE_INFINITY} if the position is unsolvable.
+     */
+    public double getDifficulty(Position position) {
+        double probability = getWinProbability(position);
+        return probability > 0 ? -Math.log(probability) / Math.log(2) : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Gets the number of memoized positions.
+     *
+     * @return The memo size.
+     */
+    public int getMemoSize() {
+        return memo.size();
+    }
+
+    /**
+     * Clears the memo.
+     */
+    public void reset() {
+        memo.clear();
+    }
+}
@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.util.Locale;
 
 public class FENtoTMX {
+    private static final int DEFAULT_TILE_SIZE = 64;
 
     // ----------------------------------------------------------
     // Mapping from FEN character -> tile ID in ChessPieceObjects.tsx
@@ -34,17 +35,28 @@ public class FENtoTMX {
     }
 
     /**
-     * Creates a new <objectgroup> for the "Piece Layer" by parsing a given FEN.
+     * Creates a new <objectgroup> for the "Piece Layer" by parsing a given FEN, with 64-pixel tiles.
      *
      * @param fen  a standard FEN string, e.g. "3RR3/N2R4/..."
      * @return     an XML string representing the <objectgroup> with <object> elements.
      */
     public static String parseFENAndCreatePieceLayer(String fen) {
-        // We'll assume the FEN is only the "piece placement" field (before side to move, etc.)
-        // If you have a full FEN with 'w' or 'b' etc., you might need to split it by spaces.
-        String piecePlacement = fen.split(" ")[0];  // E.g. "3RR3/N2R4/..."
+        return parseFENAndCreatePieceLayer(fen, DEFAULT_TILE_SIZE);
+    }
 
-        // Split ranks (FEN has 8 parts separated by "/")
+    /**
+     * Creates a new <objectgroup> for the "Piece Layer" by parsing a given FEN.
+     * The board may have any number of ranks and files, e.g. "10/10/.../4RN4" for a 10x10 board.
+     *
+     * @param fen      a FEN string; only the piece placement (first field) is read
+     * @param tileSize the size of a tile in pixels
+     * @return         an XML string representing the <objectgroup> with <object> elements.
+     */
+    public static String parseFENAndCreatePieceLayer(String fen, int tileSize) {
+        // Only the "piece placement" field is used; side to move, move counts etc. are ignored
+        String piecePlacement = fen.trim().split("\\s+")[0];  // E.g. "3RR3/N2R4/..."
+
+        // Split ranks (one part per row, separated by "/")
         String[] ranks = piecePlacement.split("/");
 
         // Start building the <objectgroup> ...
@@ -53,19 +65,21 @@ public class FENtoTMX {
 
         int objectIdCounter = 1;
 
-        // FEN rank[0] = rank 8, rank[7] = rank 1
-        // But we want rankIndex=0 => board[0][0] => x=0, y=64
-        // We'll define a new formula so rankIndex=0 => y=64, rankIndex=1 => y=128, ..., rankIndex=7 => y=576
-        // e.g. y = (rankIndex + 1) * 64
-        // If you prefer something else, adjust as needed.
-        for (int rankIndex = 0; rankIndex < 8; rankIndex++) {
+        // FEN rank[0] is the top row. Tile objects are anchored at their bottom-left corner,
+        // with y growing downwards in Tiled, so rankIndex=0 => y=tileSize, rankIndex=1 => y=2*tileSize, ...
+        for (int rankIndex = 0; rankIndex < ranks.length; rankIndex++) {
             String rank = ranks[rankIndex];
-            int fileIndex = 0; // fileIndex goes from 0..7 (columns a..h)
+            int fileIndex = 0; // fileIndex goes from 0 to the number of columns - 1 (columns a, b, ...)
             for (int i = 0; i < rank.length(); i++) {
                 char c = rank.charAt(i);
                 if (Character.isDigit(c)) {
-                    // c is a digit => number of empty squares
-                    int emptyCount = c - '0';
+                    // A run of digits => number of empty squares, possibly more than 9 on large boards
+                    int emptyCount = 0;
+                    while (i < rank.length() && Character.isDigit(rank.charAt(i))) {
+                        emptyCount = emptyCount * 10 + (rank.charAt(i) - '0');
+                        i++;
+                    }
+                    i--;
                     fileIndex += emptyCount; // just skip those squares
                 } else {
                     // It's a piece
@@ -74,13 +88,8 @@ public class FENtoTMX {
                         // Convert tileId to GID => tileId + 3
                         int gid = tileId + 3;
 
-                        // For the bottom-left corner indexing:
-                        // x = fileIndex * 64
-                        // y = (rankIndex + 1)*64
-                        // If rankIndex=0 => y=64 => bottom row
-                        // If rankIndex=7 => y=512 => top row
-                        int x = fileIndex * 64;
-                        int y = (rankIndex + 1) * 64;
+                        int x = fileIndex * tileSize;
+                        int y = (rankIndex + 1) * tileSize;
 
                         // color => uppercase => white, lowercase => black
                         String color = Character.isUpperCase(c) ? "white" : "black";
@@ -94,7 +103,11 @@ public class FENtoTMX {
                             .append(x)
                             .append("\" y=\"")
                             .append(y)
-                            .append("\" width=\"64\" height=\"64\">\n");
+                            .append("\" width=\"")
+                            .append(tileSize)
+                            .append("\" height=\"")
+                            .append(tileSize)
+                            .append("\">\n");
 
                         sb.append("   <properties>\n");
                         sb.append("    <property name=\"type\" value=\"").append(type).append("\"/>\n");
@@ -111,6 +124,20 @@ public class FENtoTMX {
         return sb.toString();
     }
 
+    /**
+     * Converts a FEN into a complete TMX map: a checkered board layer sized after the FEN
+     * and the piece layer read by {@link Board}.
+     *
+     * @param fen      a FEN string of any board size
+     * @param tileSize the size of a tile in pixels
+     * @return         the TMX document
+     */
+    public static String toTmx(String fen, int tileSize) {
+        Position position = Position.fromFen(fen.trim().split("\\s+")[0]);
+        return generateTmxFile(parseFENAndCreatePieceLayer(fen, tileSize),
+            position.getRows(), position.getColumns(), tileSize);
+    }
+
     /**
      * Convenience method to map a single FEN character ('p','r','n','b','q','k') to type string.
      * Lowercase is black, uppercase is white, but the letter itself just indicates piece type.
@@ -137,20 +164,20 @@ public class FENtoTMX {
      *  3) Creates a TMX file (with a minimal example Board Layer)
      */
     public static void main(String[] args) {
-        String fen = "3RR3/N2R4/1N2N3/1QB1K2Q/R2N1BQ1/N1B1RN2/2BQR3/2NR2B1";
-        // If the FEN includes spaces (like "... w - - 0 1"), remove them or parse accordingly
+        // Optional arguments: the FEN (any board size) and the output file
+        String fen = args.length > 0 ? args[0] : "3RR3/N2R4/1N2N3/1QB1K2Q/R2N1BQ1/N1B1RN2/2BQR3/2NR2B1";
+        String output = args.length > 1 ? args[1] : "assets/HarderDifficulty.tmx";
+        // If the FEN includes spaces (like "... w - - 0 1"), only the placement is used
 
-        String pieceLayerXml = parseFENAndCreatePieceLayer(fen);
-
-        // Now let's produce a minimal .tmx file with a hard-coded board layer + the pieceLayerXml
-        String tmxOutput = generateTmxFile(pieceLayerXml);
+        // Produce a .tmx file with a board layer of the FEN's size + the piece layer
+        String tmxOutput = toTmx(fen, DEFAULT_TILE_SIZE);
 
         // Write to disk if desired
         FileWriter fw = null;
         try {
-            fw = new FileWriter("assets/HarderDifficulty.tmx");
+            fw = new FileWriter(output);
             fw.write(tmxOutput);
-            System.out.println("TMX file created: output.tmx");
+            System.out.println("TMX file created: " + output);
         } catch (IOException e) {
             e.printStackTrace();
         } finally {
@@ -166,30 +193,31 @@ public class FENtoTMX {
 
     /**
      * Helper method to produce a full TMX string containing:
-     *  1) The board layer (DarkGreenTileSet.tsx / LightWhiteTileSet.tsx)
+     *  1) The board layer (DarkGreenTileSet.tsx / LightWhiteTileSet.tsx), checkered with a light top-left square
      *  2) The object group for the pieces
      */
-    private static String generateTmxFile(String pieceLayerXml) {
-        // This is just a sample minimal TMX structure;
-        // you can adapt it or read from an existing template .tmx
-        // and then insert the <objectgroup> snippet before </map>
+    private static String generateTmxFile(String pieceLayerXml, int rows, int columns, int tileSize) {
+        StringBuilder data = new StringBuilder();
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                data.append((row + column) % 2 == 0 ? 2 : 1); // 2 = light, 1 = dark
+                if (row < rows - 1 || column < columns - 1) {
+                    data.append(',');
+                }
+            }
+            data.append('\n');
+        }
         return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
             "<map version=\"1.10\" tiledversion=\"1.11.0\" orientation=\"orthogonal\" " +
-            "renderorder=\"right-down\" width=\"8\" height=\"8\" tilewidth=\"64\" tileheight=\"64\" " +
+            "renderorder=\"right-down\" width=\"" + columns + "\" height=\"" + rows + "\" " +
+            "tilewidth=\"" + tileSize + "\" tileheight=\"" + tileSize + "\" " +
             "infinite=\"0\" nextlayerid=\"3\" nextobjectid=\"999\">\n" + // nextobjectid is arbitrary
             " <tileset firstgid=\"1\" source=\"DarkGreenTileSet.tsx\"/>\n" +
             " <tileset firstgid=\"2\" source=\"LightWhiteTileSet.tsx\"/>\n" +
             " <tileset firstgid=\"3\" source=\"pieces/ChessPieceObjects.tsx\"/>\n" +
-            " <layer id=\"1\" name=\"Board Layer\" width=\"8\" height=\"8\">\n" +
+            " <layer id=\"1\" name=\"Board Layer\" width=\"" + columns + "\" height=\"" + rows + "\">\n" +
             "  <data encoding=\"csv\">\n" +
-            "2,1,2,1,2,1,2,1,\n" +
-            "1,2,1,2,1,2,1,2,\n" +
-            "2,1,2,1,2,1,2,1,\n" +
-            "1,2,1,2,1,2,1,2,\n" +
-            "2,1,2,1,2,1,2,1,\n" +
-            "1,2,1,2,1,2,1,2,\n" +
-            "2,1,2,1,2,1,2,1,\n" +
-            "1,2,1,2,1,2,1,2\n" +
+            data +
             "  </data>\n" +
             " </layer>\n" +
             pieceLayerXml +
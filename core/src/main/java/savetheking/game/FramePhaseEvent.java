@@ -0,0 +1,22 @@
+package savetheking.game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of a phase of a frame, update or render, to tell which one a slow frame spent its time in.
+ * The phase is only filled in when the event is recorded, so a disabled event costs next to nothing.
+ */
+@Name("savetheking.game.FramePhase")
+@Label("Frame Phase")
+@Category({"Solo Chess", "Rendering"})
+@Description("The update or render phase of a frame")
+public class FramePhaseEvent extends jdk.jfr.Event {
+    static final String UPDATE = "update";
+    static final String RENDER = "render";
+
+    @Label("Phase")
+    String phase;
+}
@@ -0,0 +1,83 @@
+package savetheking.game;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a {@link MoveGenFuzzer} run: how many random positions were checked,
+ * and for each disagreement found, the smallest position still showing it.
+ */
+public final class FuzzResult {
+    private final long seed;
+    private final int caseCount;
+    private final long elapsedNanos;
+    private final List<Position> failingPositions;
+    private final List<String> failures;
+
+    FuzzResult(long seed, int caseCount, long elapsedNanos, List<Position> failingPositions, List<String> failures) {
+        this.seed = seed;
+        this.caseCount = caseCount;
+        this.elapsedNanos = elapsedNanos;
+        this.failingPositions = Collections.unmodifiableList(failingPositions);
+        this.failures = Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * Gets the seed the random positions were drawn from; the same seed replays the same positions.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the number of random positions checked.
+     *
+     * @return The case count.
+     */
+    public int getCaseCount() {
+        return caseCount;
+    }
+
+    /**
+     * Gets the wall-clock duration of the run, shrinking included.
+     *
+     * @return The duration in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return elapsedNanos / 1000000;
+    }
+
+    /**
+     * Checks whether every implementation agreed with the reference on every position.
+     *
+     * @return true if no failure was found.
+     */
+    public boolean isClean() {
+        return failures.isEmpty();
+    }
+
+    /**
+     * Gets the shrunk failing positions, each with its rules.
+     *
+     * @return The positions, in the order the failures were found.
+     */
+    public List<Position> getFailingPositions() {
+        return failingPositions;
+    }
+
+    /**
+     * Gets the description of each failure, in the order of {@link #getFailingPositions()}.
+     *
+     * @return The descriptions, naming the check, the position as FEN and its rules.
+     */
+    public List<String> getFailures() {
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        return caseCount + " cases in " + getElapsedMillis() + " ms (seed " + seed + "), " + failures.size() + " failure(s)";
+    }
+}
@@ -0,0 +1,177 @@
+package savetheking.game;
+
+import java.util.function.LongSupplier;
+
+/**
+ * One headless Solo Chess game: a {@link Board}, its {@link Controller} and its own {@link GameState}.
+ * A session is driven by text requests and answers each with a one-line response
+ * starting with "OK" or "ERR". Requests are:
+ * <ul>
+ *     <li>{@code click <row> <column>}: selects a piece or moves the selected one, like a click on the screen;</li>
+ *     <li>{@code move <row> <column> <row> <column>}: moves a piece, whatever was selected by earlier clicks;
+ *     refused once the game is finished;</li>
+ *     <li>{@code fen}: the current position, see {@link Position#toFen()};</li>
+ *     <li>{@code status}: whether the game is won, lost, out of time or still going, and the number of pieces left;</li>
+ *     <li>{@code hint}: a winning capture found within a few milliseconds, if any;</li>
+ *     <li>{@code reset}: restores the starting position;</li>
+ *     <li>{@code save}: a text snapshot of the game, see {@link GameSnapshot#toText()};</li>
+ *     <li>{@code load <snapshot>}: resumes a game saved with {@code save}.</li>
+ * </ul>
+ * The round timer of the {@link GameState} runs on wall-clock time: the time elapsed since the previous request
+ * is counted down when a request arrives, so a game left alone ends in {@code TIMEOUT} at its next request.
+ * Moves are not printed on the console, see {@link Board#setVerbose(boolean)}.
+ * A session is not thread-safe: {@link SessionServer} makes sure only one thread handles it at a time.
+ */
+public class GameSession {
+    private static final long HINT_TIME_MILLIS = 5;
+
+    private final long id;
+    private final Board board;
+    private final GameState gameState;
+    private final Controller controller;
+    private final LongSupplier clock; // Nanosecond clock driving the round timer
+    private long lastTickNanos; // Clock reading when the timer was last advanced
+
+    /**
+     * Creates a session playing the given puzzle.
+     *
+     * @param id       The session identifier.
+     * @param position The starting position.
+     */
+    public GameSession(long id, Position position) {
+        this(id, position, new LongSupplier() {
+            @Override
+            public long getAsLong() {
+                return System.nanoTime();
+            }
+        });
+    }
+
+    /**
+     * Creates a session whose round timer follows the given clock, e.g. a simulated one in tests.
+     *
+     * @param id       The session identifier.
+     * @param position The starting position.
+     * @param clock    A clock in nanoseconds, like {@link System#nanoTime()}.
+     */
+    GameSession(long id, Position position, LongSupplier clock) {
+        this.id = id;
+        this.clock = clock;
+        this.lastTickNanos = clock.getAsLong();
+        this.board = new Board(position);
+        this.board.setVerbose(false); // Many sessions printing every move would contend for System.out
+        this.gameState = new GameState();
+        this.controller = new Controller(board, gameState);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public GameState getGameState() {
+        return gameState;
+    }
+
+    /**
+     * Handles one request.
+     *
+     * @param request The request text, e.g. "move 0 3 0 4".
+     * @return The response, starting with "OK" or "ERR".
+     */
+    public String handle(String request) {
+        advanceTimer();
+        String[] words = request.trim().split("\\s+");
+        try {
+            String command = words[0].toLowerCase();
+            if ("click".equals(command) && words.length == 3) {
+                controller.handleInput(new Point(Integer.parseInt(words[1]), Integer.parseInt(words[2])));
+                return "OK " + status();
+            } else if ("move".equals(command) && words.length == 5) {
+                return move(new Point(Integer.parseInt(words[1]), Integer.parseInt(words[2])),
+                    new Point(Integer.parseInt(words[3]), Integer.parseInt(words[4])));
+            } else if ("fen".equals(command) && words.length == 1) {
+                return "OK " + Position.fromBoard(board).toFen();
+            } else if ("status".equals(command) && words.length == 1) {
+                return "OK " + status();
+            } else if ("hint".equals(command) && words.length == 1) {
+                return hint();
+            } else if ("reset".equals(command) && words.length == 1) {
+                controller.resetBoard();
+                return "OK " + status();
+            } else if ("save".equals(command) && words.length == 1) {
+                return "OK " + controller.snapshot().toText();
+            } else if ("load".equals(command) && words.length > 1) {
+                controller.restore(GameSnapshot.fromText(request.trim().substring(words[0].length())));
+                return "OK " + status();
+            }
+            return "ERR Unknown request: " + request;
+        } catch (NumberFormatException e) {
+            return "ERR Invalid coordinates: " + request;
+        } catch (IllegalArgumentException e) {
+            return "ERR " + e.getMessage();
+        }
+    }
+
+    /**
+     * Counts the time elapsed since the previous request down from the round timer; the controller
+     * finishes the game once the timer runs out.
+     */
+    private void advanceTimer() {
+        long now = clock.getAsLong();
+        controller.update((now - lastTickNanos) / 1e9f);
+        lastTickNanos = now;
+    }
+
+    private String move(Point start, Point end) {
+        if (controller.isGameFinished()) {
+            return "ERR Game is finished: " + status();
+        }
+        if (!controller.playMove(start, end)) {
+            return "ERR Illegal move: " + start + " -> " + end;
+        }
+        return "OK " + status();
+    }
+
+    private String hint() {
+        SearchResult result = controller.analysePosition(SearchBudget.ofMillis(HINT_TIME_MILLIS));
+        switch (result.getVerdict()) {
+            case SOLVABLE:
+                int[] solution = result.getSolution();
+                if (solution.length == 0) {
+                    return "OK solved";
+                }
+                int columns = board.getColumnCount();
+                int from = Position.moveFrom(solution[0]);
+                int to = Position.moveTo(solution[0]);
+                return "OK " + from / columns + " " + from % columns + " " + to / columns + " " + to % columns;
+            case UNSOLVABLE:
+                return "OK unsolvable";
+            default:
+                return "OK unknown";
+        }
+    }
+
+    /**
+     * Describes the state of the game, e.g. "PLAYING 7" for a game going on with 7 pieces left.
+     *
+     * @return The game status followed by the number of pieces left.
+     */
+    public String status() {
+        Position position = Position.fromBoard(board);
+        String status;
+        if (position.isSolved()) {
+            status = "WON";
+        } else if (position.generateMoves(position.newMoveBuffer()) == 0) {
+            status = "LOST";
+        } else if (gameState.checkGameOver()) {
+            status = "TIMEOUT";
+        } else {
+            status = "PLAYING";
+        }
+        return status + " " + position.getPieceCount();
+    }
+}
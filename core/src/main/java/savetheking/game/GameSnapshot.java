@@ -0,0 +1,327 @@
+package savetheking.game;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Immutable copy of everything needed to suspend and resume a game: the board with the move count
+ * and colour of every piece, the rules, the move history, the timer, the score, the round and the difficulty.
+ *
+ * A snapshot has two encodings:
+ * <ul>
+ *     <li>a compact versioned binary form ({@link #toBytes()}), a few hundred bytes for a full board,
+ *     written in microseconds so the game can be saved after every move;</li>
+ *     <li>a one-line text form ({@link #toText()}) extending the FEN syntax of {@link Position#fromFen(String)},
+ *     readable by hand and stable across versions.</li>
+ * </ul>
+ * {@link #fromBytes(byte[])} accepts both, so a text snapshot can be used wherever a binary one is expected.
+ */
+public final class GameSnapshot {
+    private static final int MAGIC = 0x53434753; // "SCGS"
+    private static final int VERSION = 2; // Version 1 had no rules: its games were played under the standard ones
+
+    // One letter per colour code; lowercase codes come from older snapshots, which kept the spelling of the colour
+    private static final String COLOR_CODES = "WwBb";
+
+    private final Position position;
+    private final byte[] colors; // Index into COLOR_CODES for each piece, in square order
+    private final long[] history;
+    private final double timeRemaining;
+    private final int score;
+    private final int round;
+    private final String difficulty;
+
+    private GameSnapshot(Position position, byte[] colors, long[] history, double timeRemaining,
+                         int score, int round, String difficulty) {
+        if (colors.length != position.getPieceCount()) {
+            throw new IllegalArgumentException("Expected " + position.getPieceCount() + " colours, got " + colors.length);
+        }
+        this.position = position;
+        this.colors = colors;
+        this.history = history;
+        this.timeRemaining = timeRemaining;
+        this.score = score;
+        this.round = round;
+        this.difficulty = difficulty;
+    }
+
+    /**
+     * Takes a snapshot of a game.
+     *
+     * @param board     The board of the game.
+     * @param gameState The state of the game.
+     * @return The snapshot.
+     */
+    public static GameSnapshot capture(Board board, GameState gameState) {
+        Position position = Position.fromBoard(board);
+        byte[] colors = new byte[position.getPieceCount()];
+        int pieceIndex = 0;
+        for (int x = 0; x < board.getRowCount(); x++) {
+            for (int y = 0; y < board.getColumnCount(); y++) {
+                Piece piece = board.getPieceAt(x, y);
+                if (piece != null) {
+                    colors[pieceIndex++] = colorCode(piece.getColor());
+                }
+            }
+        }
+        MoveHistory moves = gameState.getMoves();
+        long[] history = new long[moves.size()];
+        for (int i = 0; i < history.length; i++) {
+            history[i] = moves.get(i);
+        }
+        return new GameSnapshot(position, colors, history, gameState.getTimeRemaining(),
+            gameState.getScore(), gameState.getRound(), gameState.getDifficulty());
+    }
+
+    private static byte colorCode(PieceColor color) {
+        return (byte) (color == PieceColor.WHITE ? 0 : 2);
+    }
+
+    /**
+     * Restores the game saved in this snapshot.
+     *
+     * @param board     The board to set up; it must have the size and the rules of the saved board.
+     * @param gameState The state to overwrite.
+     * @throws IllegalArgumentException if the board does not fit the saved game.
+     */
+    public void restore(Board board, GameState gameState) {
+        if (!position.getRules().equals(board.getRuleSet())) {
+            throw new IllegalArgumentException("Snapshot was played under " + position.getRules()
+                + " but the board follows " + board.getRuleSet());
+        }
+        PieceColor[] pieceColors = new PieceColor[colors.length];
+        for (int i = 0; i < colors.length; i++) {
+            pieceColors[i] = colors[i] < 2 ? PieceColor.WHITE : PieceColor.BLACK;
+        }
+        board.loadPosition(position, pieceColors);
+        gameState.restore(timeRemaining, score, round, difficulty, history.clone());
+    }
+
+    public Position getPosition() {
+        return position;
+    }
+
+    public int getMoveCount() {
+        return history.length;
+    }
+
+    /**
+     * Gets the moves played in the saved round.
+     *
+     * @return A read-only view of a copy of the saved history.
+     */
+    public MoveHistory.View getHistory() {
+        MoveHistory copy = new MoveHistory();
+        for (long move : history) {
+            copy.append(move);
+        }
+        return copy.view();
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * Encodes this snapshot in the binary format: magic number and version, the rules as written by
+     * {@link RuleSet#writeTo(java.io.DataOutput)}, the position as written by
+     * {@link Position#writeTo(java.io.DataOutput)}, one byte per piece colour, the packed moves, then the timer, score,
+     * round and difficulty.
+     *
+     * @return The encoded snapshot.
+     */
+    public byte[] toBytes() {
+        int size = 32 + position.getSquareCount() + colors.length + 8 * history.length + difficulty.length();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(size);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            position.getRules().writeTo(out);
+            position.writeTo(out);
+            out.write(colors);
+            out.writeInt(history.length);
+            for (long move : history) {
+                out.writeLong(move);
+            }
+            out.writeDouble(timeRemaining);
+            out.writeInt(score);
+            out.writeInt(round);
+            out.writeUTF(difficulty);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write to memory", e); // ByteArrayOutputStream never fails
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a snapshot written by {@link #toBytes()}, or by {@link #toText()} as UTF-8 text.
+     *
+     * @param data The encoded snapshot.
+     * @return The snapshot.
+     * @throws IllegalArgumentException if the data is not a valid snapshot.
+     */
+    public static GameSnapshot fromBytes(byte[] data) {
+        if (data.length < 4 || readInt(data) != MAGIC) {
+            return fromText(new String(data, StandardCharsets.UTF_8));
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        try {
+            in.readInt();
+            int version = in.readUnsignedByte();
+            if (version < 1 || version > VERSION) {
+                throw new IllegalArgumentException("Unsupported snapshot version: " + version);
+            }
+            RuleSet rules = version == 1 ? RuleSet.STANDARD : RuleSet.readFrom(in);
+            Position position = Position.readFrom(in, rules);
+            byte[] colors = new byte[position.getPieceCount()];
+            in.readFully(colors);
+            for (byte color : colors) {
+                if (color < 0 || color >= COLOR_CODES.length()) {
+                    throw new IllegalArgumentException("Invalid colour in snapshot: " + color);
+                }
+            }
+            int moveCount = in.readInt();
+            if (moveCount < 0 || moveCount > in.available() / 8) {
+                throw new IllegalArgumentException("Invalid move count in snapshot: " + moveCount);
+            }
+            long[] history = new long[moveCount];
+            for (int i = 0; i < moveCount; i++) {
+                history[i] = in.readLong();
+            }
+            return new GameSnapshot(position, colors, history, in.readDouble(), in.readInt(), in.readInt(), in.readUTF());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Truncated snapshot", e);
+        }
+    }
+
+    private static int readInt(byte[] data) {
+        return (data[0] & 0xFF) << 24 | (data[1] & 0xFF) << 16 | (data[2] & 0xFF) << 8 | (data[3] & 0xFF);
+    }
+
+    /**
+     * Encodes this snapshot as one line of text: the two fields of {@link Position#toFen()}, the rules as written by
+     * {@link RuleSet#toCode()}, one colour letter per piece (W or B, with w and b read as well), the packed moves in
+     * hexadecimal, then the timer, score, round and difficulty,
+     * e.g. {@code "8/8/8/8/8/8/8/1R6 1 2kc W 1c0701 299.5 10 1 Normal"}. Empty fields are written as "-".
+     *
+     * @return The text snapshot.
+     */
+    public String toText() {
+        String[] fen = position.toFen().split(" ");
+        StringBuilder text = new StringBuilder(fen[0]).append(' ').append(fen.length > 1 ? fen[1] : "-").append(' ')
+            .append(position.getRules().toCode()).append(' ');
+        for (byte color : colors) {
+            text.append(COLOR_CODES.charAt(color));
+        }
+        if (colors.length == 0) {
+            text.append('-');
+        }
+        text.append(' ');
+        for (int i = 0; i < history.length; i++) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(Long.toHexString(history[i]));
+        }
+        if (history.length == 0) {
+            text.append('-');
+        }
+        return text.append(' ').append(timeRemaining).append(' ').append(score).append(' ').append(round)
+            .append(' ').append(difficulty).toString();
+    }
+
+    /**
+     * Decodes a snapshot written by {@link #toText()}. Snapshots written before the rules were saved, without
+     * the rules field, are read under the {@link RuleSet#STANDARD standard} rules.
+     *
+     * @param text The text snapshot.
+     * @return The snapshot.
+     * @throws IllegalArgumentException if the text is not a valid snapshot.
+     */
+    public static GameSnapshot fromText(String text) {
+        String[] fields = text.trim().split("\\s+", 9);
+        // The rules start with a digit, the colours never do
+        boolean hasRules = fields.length > 2 && Character.isDigit(fields[2].charAt(0));
+        if (!hasRules) {
+            fields = text.trim().split("\\s+", 8);
+        }
+        if (fields.length != (hasRules ? 9 : 8)) {
+            throw new IllegalArgumentException("Invalid snapshot: " + text);
+        }
+        int next = hasRules ? 3 : 2;
+        try {
+            RuleSet rules = hasRules ? RuleSet.fromCode(fields[2]) : RuleSet.STANDARD;
+            Position position = Position.fromFen(fields[0] + " " + fields[1], rules);
+            String colorField = "-".equals(fields[next]) ? "" : fields[next];
+            byte[] colors = new byte[colorField.length()];
+            for (int i = 0; i < colors.length; i++) {
+                int code = COLOR_CODES.indexOf(colorField.charAt(i));
+                if (code < 0) {
+                    throw new IllegalArgumentException("Invalid colour in snapshot: " + colorField.charAt(i));
+                }
+                colors[i] = (byte) code;
+            }
+            String[] moves = "-".equals(fields[next + 1]) ? new String[0] : fields[next + 1].split(",");
+            long[] history = new long[moves.length];
+            for (int i = 0; i < moves.length; i++) {
+                history[i] = Long.parseLong(moves[i], 16);
+            }
+            return new GameSnapshot(position, colors, history, Double.parseDouble(fields[next + 2]),
+                Integer.parseInt(fields[next + 3]), Integer.parseInt(fields[next + 4]), fields[next + 5]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in snapshot: " + text, e);
+        }
+    }
+
+    /**
+     * Writes the binary snapshot to a file, replacing it atomically where the file system allows,
+     * so a crash during an autosave never leaves a truncated save behind.
+     *
+     * @param file The file to write.
+     * @throws IOException if writing fails.
+     */
+    public void save(File file) throws IOException {
+        File temporary = new File(file.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(temporary);
+        try {
+            out.write(toBytes());
+        } finally {
+            out.close();
+        }
+        try {
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads a snapshot saved by {@link #save(File)}, or a text snapshot.
+     *
+     * @param file The file to read.
+     * @return The snapshot.
+     * @throws IOException if the file cannot be read.
+     */
+    public static GameSnapshot load(File file) throws IOException {
+        return fromBytes(Files.readAllBytes(file.toPath()));
+    }
+
+    @Override
+    public String toString() {
+        return toText();
+    }
+}
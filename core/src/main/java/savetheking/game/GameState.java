@@ -1,50 +1,45 @@
 package savetheking.game;
 
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
- * The GameState class manages the main state of the game, including the score, timer, and round progression.
+ * The GameState class manages the main state of one game, including the move history, score, timer, and round progression.
  * It is simplified for Solo Chess mode.
+ *
+ * Each game owns its own instance (see {@link Controller} and {@link GameSession}), so games can advance in parallel
+ * without sharing anything. An instance is thread-confined: it takes no locks and must only be used by the thread
+ * currently driving its game, e.g. the render thread or the task draining a session's requests.
  */
 public class GameState {
-    private static GameState instance; // Singleton instance
-    private int timer;                 // Time remaining in seconds
+    /**
+     * Time given for each round, in seconds.
+     */
+    public static final int ROUND_TIME_SECONDS = 300;
+
+    private double timeRemaining;      // Time remaining in seconds, kept fractional so frame deltas add up
     private int score;                 // Current score
     private String difficulty;         // Difficulty level of the game
     private int round;                 // Current game round
-    private List<Move> moves;          // Stores move history for the game
+    private final MoveHistory moves;   // Stores move history for the game, one packed record per move
 
     /**
-     * Private constructor to initialize the game state with default values.
+     * Creates a game state with default values for a new game.
      */
-    private GameState() {
-        this.timer = 30000; // Default timer of 5 minutes
+    public GameState() {
+        this.timeRemaining = ROUND_TIME_SECONDS; // Default timer of 5 minutes
         this.score = 0;
         this.difficulty = "Normal";
         this.round = 1;
-        this.moves = new ArrayList<Move>();
-    }
-
-    /**
-     * Provides access to the singleton instance of GameState.
-     * @return The singleton GameState instance.
-     */
-    public static GameState getInstance() {
-        if (instance == null) {
-            instance = new GameState();
-        }
-        return instance;
+        this.moves = new MoveHistory();
     }
 
     /**
      * Updates the timer based on the time delta provided.
-     * @param deltaTime The amount of time to decrement from the timer, typically in seconds.
+     * @param deltaTime The amount of time to decrement from the timer, in seconds.
      */
     public void updateTimer(float deltaTime) {
-        this.timer -= deltaTime;
-        if (this.timer < 0) this.timer = 0;
+        this.timeRemaining -= deltaTime;
+        if (this.timeRemaining < 0) this.timeRemaining = 0;
     }
 
     /**
@@ -52,7 +47,7 @@ public class GameState {
      * @return true if the game is over, false otherwise.
      */
     public boolean checkGameOver() {
-        return this.timer <= 0;
+        return this.timeRemaining <= 0;
     }
 
     /**
@@ -63,11 +58,12 @@ public class GameState {
     }
 
     /**
-     * Advances the game to the next round, resetting certain elements as necessary.
+     * Advances the game to the next round, resetting the timer and the move history.
      */
     public void advanceRound() {
         this.round++;
-        this.timer = 300; // Reset timer for the new round if required
+        this.timeRemaining = ROUND_TIME_SECONDS;
+        this.moves.clear(); // Moves of the previous round no longer apply to the board
     }
 
     /**
@@ -79,40 +75,58 @@ public class GameState {
     }
 
     /**
-     * Records a move in the move history.
+     * Records a move in the move history. Call it before the move is played on the board,
+     * so the move counts of both pieces are still the ones they had before the move.
      * @param piece The piece being moved.
      * @param start The starting position of the piece.
      * @param end The ending position of the piece.
-     * @param capture Whether this move involved capturing an opponent's piece.
+     * @param captured The piece being captured, or null if the move is not a capture.
      */
-    public void recordMove(Piece piece, Point start, Point end, boolean capture) {
-        Move move = new Move(piece, start, end, capture, false); // En passant is irrelevant in Solo Chess
-        moves.add(move); // Add move to history
+    public void recordMove(Piece piece, Point start, Point end, Piece captured) {
+        moves.append(MoveHistory.encode(piece, piece.getMoveCount(), start, end, captured));
+    }
+
+    /**
+     * Removes the last move from the move history.
+     * @return The removed move, so it can be taken back on the board.
+     * @throws IllegalStateException if no move was recorded.
+     */
+    public long undoLastMove() {
+        return moves.undo();
     }
 
     /**
      * Retrieves the last move recorded in the move history.
-     * @return The last Move object, or null if there are no moves.
+     * @return The last packed move, or {@link MoveHistory#NO_MOVE} if there are no moves.
      */
-    public Move getLastMove() {
-        return moves.isEmpty() ? null : moves.get(moves.size() - 1);
+    public long getLastMove() {
+        return moves.last();
     }
 
     /**
-     * Retrieves the move history.
-     * @return A list of Move objects representing the move history.
+     * Retrieves the move history. The history is not copied: the view follows later moves.
+     * @return A read-only view of the packed moves, see {@link MoveHistory}.
      */
-    public List<Move> getMoveHistory() {
-        return new ArrayList<Move>(moves); // Return a copy of the move history
+    public MoveHistory.View getMoveHistory() {
+        return moves.view();
     }
 
     // Getters and Setters for the GameState attributes
+
+    /**
+     * Gets the time remaining, rounded up to the second so it only reads 0 once the time is really up.
+     * @return The time remaining in seconds.
+     */
     public int getTimer() {
-        return timer;
+        return (int) Math.ceil(timeRemaining);
     }
 
+    /**
+     * Sets the time remaining.
+     * @param timer The time remaining in seconds.
+     */
     public void setTimer(int timer) {
-        this.timer = timer;
+        this.timeRemaining = timer;
     }
 
     public int getScore() {
@@ -130,4 +144,28 @@ public class GameState {
     public int getRound() {
         return round;
     }
+
+    // Exact values for snapshots, see GameSnapshot
+
+    double getTimeRemaining() {
+        return timeRemaining;
+    }
+
+    MoveHistory getMoves() {
+        return moves;
+    }
+
+    /**
+     * Restores the whole state from a snapshot.
+     */
+    void restore(double timeRemaining, int score, int round, String difficulty, long[] history) {
+        this.timeRemaining = timeRemaining;
+        this.score = score;
+        this.round = round;
+        this.difficulty = difficulty;
+        this.moves.clear();
+        for (long move : history) {
+            this.moves.append(move);
+        }
+    }
 }
@@ -0,0 +1,52 @@
+package savetheking.game;
+
+import java.util.SplittableRandom;
+
+/**
+ * Player looking one move ahead: it picks the move after which the most moves are available,
+ * keeping as many options open as it can, and breaks ties at random.
+ * A move that solves the puzzle is always taken.
+ */
+public class GreedyPlayer implements Player {
+    private final SplittableRandom random;
+    private int[] replies = new int[0]; // Buffer for the moves after each candidate, reused between calls
+
+    public GreedyPlayer(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public int chooseMove(Position position, int[] moves, int count) {
+        if (replies.length < moves.length) {
+            replies = new int[moves.length]; // The position after a move never has more pieces, so this size fits
+        }
+        int best = -1;
+        int bestMobility = -1;
+        int ties = 0;
+        for (int i = 0; i < count; i++) {
+            Position next = position.play(moves[i]);
+            if (next.isSolved()) {
+                return i;
+            }
+            int mobility = next.generateMoves(replies);
+            if (mobility > bestMobility) {
+                best = i;
+                bestMobility = mobility;
+                ties = 1;
+            } else if (mobility == bestMobility && random.nextInt(++ties) == 0) { // Reservoir sampling among ties
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public Player fork(long seed) {
+        return new GreedyPlayer(seed);
+    }
+
+    @Override
+    public String getName() {
+        return "Greedy";
+    }
+}
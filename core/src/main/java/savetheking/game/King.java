@@ -6,8 +6,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class King extends Piece {
-    public King(String color, Point position, Texture texture) {
-        super(color, position, texture);
+    private static final int[][] OFFSETS = {
+        {-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}
+    };
+
+    public King(PieceColor color, Point position, Texture texture) {
+        super(PieceKind.KING, color, position, texture);
     }
 
     @Override
@@ -29,4 +33,17 @@ public class King extends Piece {
         }
         return possibleMoves;
     }
+
+    @Override
+    protected void collectMoves(Board board, List<Point> moves, boolean quiet) {
+        collectStepMoves(board, OFFSETS, moves, quiet);
+    }
+
+    /**
+     * When the king must be the last piece standing, as in the standard rules, it can never be captured.
+     */
+    @Override
+    public boolean canBeCaptured() {
+        return !getRuleSet().isKingLast();
+    }
 }
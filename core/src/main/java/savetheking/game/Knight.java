@@ -6,9 +6,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class Knight extends Piece {
-    public Knight(String color, Point position, Texture texture) {
+    private static final int[][] OFFSETS = {
+        {-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}
+    };
 
-        super(color, position, texture);
+    public Knight(PieceColor color, Point position, Texture texture) {
+
+        super(PieceKind.KNIGHT, color, position, texture);
     }
 
     @Override
@@ -30,4 +34,9 @@ public class Knight extends Piece {
         }
         return possibleMoves;
     }
+
+    @Override
+    protected void collectMoves(Board board, List<Point> moves, boolean quiet) {
+        collectStepMoves(board, OFFSETS, moves, quiet);
+    }
 }
@@ -0,0 +1,102 @@
+package savetheking.game;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of solving a pack of positions with {@link LayeredSolver}: the verdict of every start position,
+ * and for each piece count the number of distinct positions reached and how many of them are solvable.
+ * Positions are counted once per {@link Position#canonical() canonical form}.
+ */
+public class LayeredResult {
+    private final List<Position> starts;
+    private final boolean[] solvable;
+    private final long[] layerSizes;
+    private final long[] solvableCounts;
+    private final long elapsedNanos;
+
+    public LayeredResult(List<Position> starts, boolean[] solvable, long[] layerSizes, long[] solvableCounts,
+                         long elapsedNanos) {
+        this.starts = Collections.unmodifiableList(new ArrayList<Position>(starts));
+        this.solvable = solvable;
+        this.layerSizes = layerSizes;
+        this.solvableCounts = solvableCounts;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the verdict of a start position.
+     *
+     * @param index The index of the position in the solved list.
+     * @return {@link SearchResult.Verdict#SOLVABLE} or {@link SearchResult.Verdict#UNSOLVABLE}.
+     */
+    public SearchResult.Verdict getVerdict(int index) {
+        return solvable[index] ? SearchResult.Verdict.SOLVABLE : SearchResult.Verdict.UNSOLVABLE;
+    }
+
+    /**
+     * Gets the solvable start positions.
+     *
+     * @return The solvable positions, in the order they were given.
+     */
+    public List<Position> getSolvableStarts() {
+        List<Position> result = new ArrayList<Position>();
+        for (int i = 0; i < starts.size(); i++) {
+            if (solvable[i]) {
+                result.add(starts.get(i));
+            }
+        }
+        return result;
+    }
+
+    public List<Position> getStarts() {
+        return starts;
+    }
+
+    /**
+     * Gets the largest piece count among the start positions, i.e. the first layer.
+     *
+     * @return The largest piece count.
+     */
+    public int getMaxPieceCount() {
+        return layerSizes.length - 1;
+    }
+
+    /**
+     * Gets the number of distinct positions with the given number of pieces reached from the starts.
+     *
+     * @param pieceCount The piece count of the layer.
+     * @return The layer size, 0 outside of the layers.
+     */
+    public long getLayerSize(int pieceCount) {
+        return pieceCount >= 0 && pieceCount < layerSizes.length ? layerSizes[pieceCount] : 0;
+    }
+
+    /**
+     * Gets the number of solvable positions in a layer.
+     *
+     * @param pieceCount The piece count of the layer.
+     * @return The number of solvable positions, 0 outside of the layers.
+     */
+    public long getSolvableCount(int pieceCount) {
+        return pieceCount >= 0 && pieceCount < solvableCounts.length ? solvableCounts[pieceCount] : 0;
+    }
+
+    /**
+     * Gets the number of distinct positions reached over all layers.
+     *
+     * @return The total position count.
+     */
+    public long getPositionCount() {
+        long total = 0;
+        for (long size : layerSizes) {
+            total += size;
+        }
+        return total;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
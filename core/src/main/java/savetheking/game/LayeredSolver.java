@@ -0,0 +1,200 @@
+package savetheking.game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Breadth-wise solver for packs of Solo Chess positions.
+ * Every capture removes exactly one piece, so the positions reachable from a pack form a graph without
+ * cycles, layered by piece count. Instead of searching each puzzle depth-first like {@link Solver}, this
+ * solver works one layer at a time:
+ * <ol>
+ *     <li>a forward pass expands every position of a layer into the next one, from the largest piece
+ *     count down to a single piece, deduplicating the next layer in a concurrent set of canonical positions;</li>
+ *     <li>a backward pass then marks a position solvable when one of its captures leads to a solvable
+ *     position of the layer below, from a single piece, which is solved, back up to the start positions.</li>
+ * </ol>
+ * The positions of a layer are independent of each other, so both passes split each layer between threads.
+ * Every position reachable from the pack is visited exactly once, however many puzzles reach it, and all
+ * start positions get their verdict at the end, which suits the analysis of whole puzzle packs. The price is
+ * memory: every layer is kept until the backward pass, see {@link #setMaxLayerSize(long)}.
+ *
+ * <p>Quiet moves do not remove a piece, so only positions under capture-only rules can be solved this way.</p>
+ */
+public class LayeredSolver {
+    private final int threads;
+    private long maxLayerSize = Long.MAX_VALUE;
+
+    /**
+     * Creates a solver.
+     *
+     * @param threads The number of threads sharing the work of each layer.
+     */
+    public LayeredSolver(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Limits the number of positions of a layer, so a pack reaching too many positions fails early
+     * instead of running out of memory. Unlimited by default.
+     *
+     * @param maxLayerSize The largest number of distinct positions allowed in a layer.
+     */
+    public void setMaxLayerSize(long maxLayerSize) {
+        this.maxLayerSize = maxLayerSize;
+    }
+
+    /**
+     * Solves every position of a pack.
+     *
+     * @param starts The start positions; they may have different piece counts, shapes or rules.
+     * @return The verdict of each position and the statistics of each layer.
+     * @throws IllegalArgumentException if a position allows quiet moves.
+     * @throws IllegalStateException    if a layer exceeds the size limit, or the work is interrupted or fails.
+     */
+    public LayeredResult solve(List<Position> starts) {
+        long startNanos = System.nanoTime();
+        int maxPieces = 0;
+        for (Position start : starts) {
+            if (!start.getRules().isCaptureOnly()) {
+                throw new IllegalArgumentException("Layered solving needs capture-only rules: " + start.getRules());
+            }
+            maxPieces = Math.max(maxPieces, start.getPieceCount());
+        }
+
+        List<Set<Position>> frontiers = new ArrayList<Set<Position>>(maxPieces + 1);
+        for (int pieceCount = 0; pieceCount <= maxPieces; pieceCount++) {
+            frontiers.add(ConcurrentHashMap.<Position>newKeySet());
+        }
+        for (Position start : starts) {
+            frontiers.get(start.getPieceCount()).add(start.canonical());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            // Forward pass: each layer only leads to the layer with one piece less
+            Position[][] layers = new Position[maxPieces + 1][];
+            for (int pieceCount = maxPieces; pieceCount >= 0; pieceCount--) {
+                layers[pieceCount] = frontiers.get(pieceCount).toArray(new Position[0]);
+                frontiers.set(pieceCount, null); // Let the set go once its layer is an array
+                if (pieceCount > 1) {
+                    final Set<Position> next = frontiers.get(pieceCount - 1);
+                    forEach(executor, layers[pieceCount], new LayerTask() {
+                        @Override
+                        public void process(Position position, int[] moves) {
+                            int count = position.generateMoves(moves);
+                            for (int i = 0; i < count; i++) {
+                                next.add(position.play(moves[i]).canonical());
+                            }
+                        }
+                    });
+                    if (next.size() > maxLayerSize) {
+                        throw new IllegalStateException("Layer of " + (pieceCount - 1) + " pieces exceeds "
+                            + maxLayerSize + " positions");
+                    }
+                }
+            }
+
+            // Backward pass: a position is solvable if a capture leads to a solvable position
+            long[] layerSizes = new long[maxPieces + 1];
+            long[] solvableCounts = new long[maxPieces + 1];
+            boolean[] verdicts = new boolean[starts.size()];
+            layerSizes[0] = layers[0].length;
+            Set<Position> solvableBelow = null;
+            for (int pieceCount = 1; pieceCount <= maxPieces; pieceCount++) {
+                final Set<Position> below = solvableBelow;
+                final Set<Position> solvable = ConcurrentHashMap.newKeySet();
+                if (pieceCount == 1) {
+                    for (Position position : layers[1]) {
+                        solvable.add(position);
+                    }
+                } else {
+                    forEach(executor, layers[pieceCount], new LayerTask() {
+                        @Override
+                        public void process(Position position, int[] moves) {
+                            int count = position.generateMoves(moves);
+                            for (int i = 0; i < count; i++) {
+                                if (below.contains(position.play(moves[i]).canonical())) {
+                                    solvable.add(position);
+                                    return;
+                                }
+                            }
+                        }
+                    });
+                }
+                layerSizes[pieceCount] = layers[pieceCount].length;
+                solvableCounts[pieceCount] = solvable.size();
+                layers[pieceCount - 1] = null;
+                for (int i = 0; i < starts.size(); i++) {
+                    if (starts.get(i).getPieceCount() == pieceCount) {
+                        verdicts[i] = solvable.contains(starts.get(i).canonical());
+                    }
+                }
+                solvableBelow = solvable;
+            }
+            return new LayeredResult(starts, verdicts, layerSizes, solvableCounts, System.nanoTime() - startNanos);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs a task on every position of a layer, splitting the layer between the threads.
+     */
+    private void forEach(ExecutorService executor, final Position[] layer, final LayerTask task) {
+        int chunk = Math.max(1, (layer.length + threads - 1) / threads);
+        List<Future<Void>> parts = new ArrayList<Future<Void>>();
+        for (int first = 0; first < layer.length; first += chunk) {
+            final int from = first;
+            final int to = Math.min(layer.length, first + chunk);
+            parts.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    int[] moves = null;
+                    for (int i = from; i < to; i++) {
+                        // Positions of a layer share their piece count, so the buffer fits all those of the same shape
+                        if (moves == null || layer[i].getRows() != layer[i - 1].getRows()
+                            || layer[i].getColumns() != layer[i - 1].getColumns()) {
+                            moves = layer[i].newMoveBuffer();
+                        }
+                        task.process(layer[i], moves);
+                    }
+                    return null;
+                }
+            }));
+        }
+        try {
+            for (Future<Void> part : parts) {
+                part.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Layered search interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Layered search failed", e.getCause());
+        }
+    }
+
+    /**
+     * Work done on each position of a layer.
+     */
+    private interface LayerTask {
+        /**
+         * Processes a position.
+         *
+         * @param position The position.
+         * @param moves    A move buffer large enough for the position, reused between positions.
+         */
+        void process(Position position, int[] moves);
+    }
+}
@@ -19,18 +19,28 @@ public class Main extends ApplicationAdapter {
 
     @Override
     public void create() {
-        int tileSize = 64; // Define the size of each tile
-        int boardSize = 8 * tileSize; // Total board size (8x8 board)
-
-        // Adjust the window size to match the board dimensions
-        Gdx.graphics.setWindowedMode(boardSize, boardSize);
-
         String mapPath = "ChessBoardWithPieces.tmx";
 
         try {
             // Load the Tiled map
-            TmxMapLoader mapLoader = new TmxMapLoader();
-            TiledMap tiledMap = mapLoader.load(mapPath);
+            AssetLoadEvent mapEvent = new AssetLoadEvent();
+            mapEvent.begin();
+            TiledMap tiledMap;
+            try {
+                TmxMapLoader mapLoader = new TmxMapLoader();
+                tiledMap = mapLoader.load(mapPath);
+                mapEvent.success = true;
+            } finally {
+                mapEvent.path = mapPath;
+                mapEvent.assetType = "map";
+                mapEvent.commit();
+            }
+
+            // Adjust the window size to match the board dimensions, whatever the board size
+            int tileSize = tiledMap.getProperties().get("tilewidth", Integer.class);
+            int columns = tiledMap.getProperties().get("width", Integer.class);
+            int rows = tiledMap.getProperties().get("height", Integer.class);
+            Gdx.graphics.setWindowedMode(columns * tileSize, rows * tileSize);
 
             // Initialize Renderer (before PieceFactory)
             System.out.println("Initializing Renderer...");
@@ -68,10 +78,25 @@ public class Main extends ApplicationAdapter {
             return;
         }
 
-        // Update and render the actual game state
+        // Update and render the actual game state, recording each phase for the Flight Recorder
         float deltaTime = Gdx.graphics.getDeltaTime();
+        FramePhaseEvent update = new FramePhaseEvent();
+        update.begin();
         playingState.update(deltaTime);
+        update.end();
+        if (update.shouldCommit()) {
+            update.phase = FramePhaseEvent.UPDATE;
+            update.commit();
+        }
+
+        FramePhaseEvent render = new FramePhaseEvent();
+        render.begin();
         playingState.render();
+        render.end();
+        if (render.shouldCommit()) {
+            render.phase = FramePhaseEvent.RENDER;
+            render.commit();
+        }
     }
 
     @Override
@@ -0,0 +1,35 @@
+package savetheking.game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of a move played through the {@link Controller}, lasting from the click that
+ * plays it to the board being updated, game-end check and journal included.
+ * The fields are only filled in when the event is recorded, so a disabled event costs next to nothing.
+ */
+@Name("savetheking.game.Move")
+@Label("Move")
+@Category({"Solo Chess", "Game"})
+@Description("A move played on the board")
+public class MoveEvent extends jdk.jfr.Event {
+    @Label("Piece")
+    String piece;
+
+    @Label("From")
+    String from;
+
+    @Label("To")
+    String to;
+
+    @Label("Capture")
+    boolean capture;
+
+    @Label("Captured Piece")
+    String capturedPiece;
+
+    @Label("Pieces Left")
+    int piecesLeft;
+}
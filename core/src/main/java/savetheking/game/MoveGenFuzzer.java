@@ -0,0 +1,412 @@
+package savetheking.game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+/**
+ * Checks the fast move generators against the piece objects on random positions.
+ *
+ * The reference is the object model the game is played with: the targets of
+ * {@link Piece#getPossibleMoves(Board)} of every piece that is not exhausted, keeping the pieces that may be
+ * captured and, unless the rules only allow captures, the empty squares. Each random position is then checked for:
+ * <ul>
+ *     <li>{@link Piece#getLegalMoves(Board)}, {@link Piece#getCaptureMoves(Board)} and
+ *     {@link Board#isValidMove(Point, Point)} agreeing with the reference;</li>
+ *     <li>every {@link MoveGenerator}, {@link Position#generateMoves(int[])} first, giving exactly the reference moves;</li>
+ *     <li>{@link Position#play(int)} leaving the board {@link Board#movePiece(Point, Point)} leaves;</li>
+ *     <li>the game-end checks: {@link Position#isSolved()}, the final state of
+ *     {@link Position#playout(SplittableRandom, byte[], int[])}, and {@link Solver#cannotBeSolved(Position)},
+ *     which must never reject a position the solver wins without pruning.</li>
+ * </ul>
+ * A failing position is shrunk, by removing pieces, lowering move counts, cropping empty edges and
+ * falling back to the standard rules while it still fails, so the reported FEN shows the bug and little else.
+ * Positions are drawn from the seed, so a run with the same seed replays the same cases.
+ */
+public class MoveGenFuzzer {
+    private static final int MAX_FAILURES = 10;
+    private static final int MAX_SIDE = 8;
+    private static final int MAX_PIECES = 12;
+    private static final int MAX_SOLVER_PIECES = 5; // Beyond this the exhaustive search slows the run down
+    private static final int PLAYOUTS = 8;
+
+    private final long seed;
+    private final List<MoveGenerator> generators = new ArrayList<MoveGenerator>();
+
+    /**
+     * Creates a fuzzer checking {@link Position#generateMoves(int[])}.
+     *
+     * @param seed The seed the random positions are drawn from.
+     */
+    public MoveGenFuzzer(long seed) {
+        this.seed = seed;
+        generators.add(new MoveGenerator() {
+            @Override
+            public String getName() {
+                return "Position";
+            }
+
+            @Override
+            public int generateMoves(Position position, int[] moves) {
+                return position.generateMoves(moves);
+            }
+        });
+    }
+
+    /**
+     * Adds a generator to check against the reference, alongside {@link Position#generateMoves(int[])}.
+     *
+     * @param generator The generator.
+     */
+    public void addGenerator(MoveGenerator generator) {
+        generators.add(generator);
+    }
+
+    /**
+     * Checks random positions until the time budget or the case count runs out,
+     * or {@value #MAX_FAILURES} failures have been found.
+     *
+     * @param budgetMillis The time budget in milliseconds, shrinking included.
+     * @param maxCases     The maximum number of positions to check.
+     * @return The result, with every failure shrunk.
+     */
+    public FuzzResult run(long budgetMillis, int maxCases) {
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + budgetMillis * 1000000;
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Position> failingPositions = new ArrayList<Position>();
+        List<String> failures = new ArrayList<String>();
+        int cases = 0;
+        while (cases < maxCases && System.nanoTime() < deadline && failures.size() < MAX_FAILURES) {
+            Position position = randomPosition(random);
+            cases++;
+            if (check(position) == null) {
+                continue;
+            }
+            Position minimal = shrink(position, deadline);
+            if (failingPositions.contains(minimal)) {
+                continue;
+            }
+            failingPositions.add(minimal);
+            failures.add(check(minimal) + " in " + minimal.toFen() + " (" + minimal.getRules() + "), case " + cases);
+        }
+        return new FuzzResult(seed, cases, System.nanoTime() - startNanos, failingPositions, failures);
+    }
+
+    /**
+     * Checks one position against the reference.
+     *
+     * @param position The position.
+     * @return A description of the first disagreement, or null if every implementation agrees.
+     */
+    public String check(Position position) {
+        Board board = new Board(position);
+        int columns = position.getColumns();
+        Set<Integer> reference = new TreeSet<Integer>();
+
+        for (int x = 0; x < position.getRows(); x++) {
+            for (int y = 0; y < columns; y++) {
+                Piece piece = board.getPieceAt(x, y);
+                if (piece == null) {
+                    continue;
+                }
+                Set<Integer> expected = referenceMoves(board, piece, x * columns + y, columns);
+                Set<Integer> captures = new TreeSet<Integer>();
+                for (int move : expected) {
+                    if (position.getCell(Position.moveTo(move)) != Position.EMPTY) {
+                        captures.add(move);
+                    }
+                }
+                String failure = compare("Piece.getLegalMoves", position, expected,
+                    encode(piece.getLegalMoves(board), x * columns + y, columns));
+                if (failure == null) {
+                    failure = compare("Piece.getCaptureMoves", position, captures,
+                        encode(piece.getCaptureMoves(board), x * columns + y, columns));
+                }
+                if (failure != null) {
+                    return failure;
+                }
+                for (int square = 0; square < position.getSquareCount(); square++) {
+                    int move = Position.encodeMove(x * columns + y, square);
+                    if (board.isValidMove(new Point(x, y), new Point(square / columns, square % columns)) != expected.contains(move)) {
+                        return "Board.isValidMove wrong for " + describe(position, move);
+                    }
+                }
+                reference.addAll(expected);
+            }
+        }
+
+        int[] moves = position.newMoveBuffer();
+        for (MoveGenerator generator : generators) {
+            Set<Integer> generated = new TreeSet<Integer>();
+            int count;
+            try {
+                count = generator.generateMoves(position, moves);
+            } catch (RuntimeException e) {
+                return generator.getName() + " threw " + e;
+            }
+            for (int i = 0; i < count; i++) {
+                if (!generated.add(moves[i])) {
+                    return generator.getName() + " generated " + describe(position, moves[i]) + " twice";
+                }
+            }
+            String failure = compare(generator.getName(), position, reference, generated);
+            if (failure != null) {
+                return failure;
+            }
+        }
+
+        for (int move : reference) {
+            Position next = position.play(move);
+            Board moved = new Board(position);
+            moved.setVerbose(false);
+            int from = Position.moveFrom(move);
+            int to = Position.moveTo(move);
+            moved.movePiece(new Point(from / columns, from % columns), new Point(to / columns, to % columns));
+            Position expected = Position.fromBoard(moved);
+            for (int square = 0; square < position.getSquareCount(); square++) {
+                if (next.getCell(square) != expected.getCell(square)) {
+                    return "Position.play differs from Board.movePiece on " + SanNotation.squareName(position, square)
+                        + " after " + describe(position, move);
+                }
+            }
+            if (next.isSolved() != (moved.getRemainingPieces().size() == 1)) {
+                return "Position.isSolved wrong after " + describe(position, move);
+            }
+        }
+        return checkGameEnd(position, board, reference.isEmpty());
+    }
+
+    private String checkGameEnd(Position position, Board board, boolean stuck) {
+        int pieces = board.getRemainingPieces().size();
+        if (position.isSolved() != (pieces == 1)) {
+            return "Position.isSolved wrong with " + pieces + " piece(s)";
+        }
+        boolean rejected = Solver.cannotBeSolved(position);
+        SplittableRandom random = new SplittableRandom(position.hashCode());
+        byte[] scratch = position.newPlayoutBuffer();
+        int[] moves = position.newMoveBuffer();
+        for (int i = 0; i < PLAYOUTS; i++) {
+            int left = position.playout(random, scratch, moves);
+            if (left < Math.min(1, pieces) || left > pieces || (stuck && left != pieces)) {
+                return "Position.playout ended with " + left + " of " + pieces + " piece(s)";
+            }
+            if (left == 1 && pieces > 1 && rejected) {
+                return "Solver.cannotBeSolved rejects a position a playout won";
+            }
+        }
+        if (rejected && pieces <= MAX_SOLVER_PIECES && (position.getRules().isCaptureOnly() || pieces <= 3)) {
+            Solver solver = new Solver();
+            solver.setPruning(false);
+            if (solver.isSolvable(position)) {
+                return "Solver.cannotBeSolved rejects a solvable position";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Computes the reference moves of a piece from its raw moves, see the class comment.
+     */
+    private static Set<Integer> referenceMoves(Board board, Piece piece, int from, int columns) {
+        Set<Integer> moves = new TreeSet<Integer>();
+        if (piece.isExhausted()) {
+            return moves;
+        }
+        boolean quiet = !board.getRuleSet().isCaptureOnly();
+        for (Point target : piece.getPossibleMoves(board)) {
+            Piece captured = board.getPieceAt(target.x, target.y);
+            if (captured != null ? captured.canBeCaptured() : quiet) {
+                moves.add(Position.encodeMove(from, target.x * columns + target.y));
+            }
+        }
+        return moves;
+    }
+
+    private static Set<Integer> encode(List<Point> targets, int from, int columns) {
+        Set<Integer> moves = new TreeSet<Integer>();
+        for (Point target : targets) {
+            moves.add(Position.encodeMove(from, target.x * columns + target.y));
+        }
+        return moves;
+    }
+
+    private static String compare(String name, Position position, Set<Integer> expected, Set<Integer> actual) {
+        if (expected.equals(actual)) {
+            return null;
+        }
+        StringBuilder failure = new StringBuilder(name);
+        for (int move : expected) {
+            if (!actual.contains(move)) {
+                failure.append(" misses ").append(describe(position, move));
+                return failure.toString();
+            }
+        }
+        for (int move : actual) {
+            if (!expected.contains(move)) {
+                failure.append(" adds ").append(describe(position, move));
+                break;
+            }
+        }
+        return failure.toString();
+    }
+
+    private static String describe(Position position, int move) {
+        return SanNotation.squareName(position, Position.moveFrom(move)) + "-" + SanNotation.squareName(position, Position.moveTo(move));
+    }
+
+    /**
+     * Shrinks a failing position: each simplification is kept as long as the position still fails,
+     * until none applies.
+     *
+     * @param failing A position {@link #check(Position)} reports.
+     * @return The smallest failing position found.
+     */
+    public Position shrink(Position failing) {
+        return shrink(failing, Long.MAX_VALUE);
+    }
+
+    /**
+     * Shrinks a failing position until none of the simplifications applies or the deadline passes.
+     *
+     * @param failing  A position {@link #check(Position)} reports.
+     * @param deadline The {@link System#nanoTime()} after which the smallest failing position found so far is returned.
+     * @return The smallest failing position found.
+     */
+    private Position shrink(Position failing, long deadline) {
+        Position current = failing;
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            for (Position candidate : simplifications(current)) {
+                if (System.nanoTime() >= deadline) {
+                    return current;
+                }
+                if (check(candidate) != null) {
+                    current = candidate;
+                    progress = true;
+                    break;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Lists the positions one step simpler than the given one, the biggest simplifications first.
+     */
+    private static List<Position> simplifications(Position position) {
+        int rows = position.getRows();
+        int columns = position.getColumns();
+        RuleSet rules = position.getRules();
+        byte[] cells = new byte[position.getSquareCount()];
+        int maxMoves = 0;
+        for (int square = 0; square < cells.length; square++) {
+            cells[square] = position.getCell(square);
+            maxMoves = Math.max(maxMoves, Position.moves(cells[square]));
+        }
+        List<Position> candidates = new ArrayList<Position>();
+        if (rows > 1 && isEmptyRow(cells, columns, rows - 1)) {
+            candidates.add(crop(cells, rows, columns, 0, rows - 1, 0, columns, position));
+        }
+        if (rows > 1 && isEmptyRow(cells, columns, 0)) {
+            candidates.add(crop(cells, rows, columns, 1, rows, 0, columns, position));
+        }
+        if (columns > 1 && isEmptyColumn(cells, rows, columns, columns - 1)) {
+            candidates.add(crop(cells, rows, columns, 0, rows, 0, columns - 1, position));
+        }
+        if (columns > 1 && isEmptyColumn(cells, rows, columns, 0)) {
+            candidates.add(crop(cells, rows, columns, 0, rows, 1, columns, position));
+        }
+        for (int square = 0; square < cells.length; square++) {
+            if (cells[square] != Position.EMPTY) {
+                byte[] removed = cells.clone();
+                removed[square] = Position.EMPTY;
+                candidates.add(new Position(rows, columns, removed, position.getPawnDirection(), rules));
+            }
+        }
+        for (int square = 0; square < cells.length; square++) {
+            if (Position.moves(cells[square]) > 0) {
+                byte[] lowered = cells.clone(); // One move at a time, since the failure may need a piece that moved
+                lowered[square] = Position.cell(Position.kind(cells[square]), Position.moves(cells[square]) - 1);
+                candidates.add(new Position(rows, columns, lowered, position.getPawnDirection(), rules));
+            }
+        }
+        if (!rules.equals(RuleSet.STANDARD) && maxMoves <= RuleSet.STANDARD.getMoveLimit()) {
+            candidates.add(position.withRules(RuleSet.STANDARD));
+        }
+        if (position.getPawnDirection() != -1) {
+            candidates.add(new Position(rows, columns, cells, -1, rules));
+        }
+        return candidates;
+    }
+
+    private static boolean isEmptyRow(byte[] cells, int columns, int row) {
+        for (int y = 0; y < columns; y++) {
+            if (cells[row * columns + y] != Position.EMPTY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isEmptyColumn(byte[] cells, int rows, int columns, int column) {
+        for (int x = 0; x < rows; x++) {
+            if (cells[x * columns + column] != Position.EMPTY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Position crop(byte[] cells, int rows, int columns, int firstRow, int endRow,
+                                 int firstColumn, int endColumn, Position position) {
+        int width = endColumn - firstColumn;
+        byte[] cropped = new byte[(endRow - firstRow) * width];
+        for (int x = firstRow; x < endRow; x++) {
+            System.arraycopy(cells, x * columns + firstColumn, cropped, (x - firstRow) * width, width);
+        }
+        return new Position(endRow - firstRow, width, cropped, position.getPawnDirection(), position.getRules());
+    }
+
+    /**
+     * Draws a random position: any board size up to {@value #MAX_SIDE} squares a side, any pieces with
+     * any move counts, and random rules.
+     */
+    private static Position randomPosition(SplittableRandom random) {
+        int rows = 1 + random.nextInt(MAX_SIDE);
+        int columns = 1 + random.nextInt(MAX_SIDE);
+        RuleSet rules = new RuleSet(1 + random.nextInt(3), random.nextBoolean(), random.nextBoolean());
+        byte[] cells = new byte[rows * columns];
+        int pieceCount = 1 + random.nextInt(Math.min(cells.length, MAX_PIECES));
+        for (int i = 0; i < pieceCount; i++) {
+            int square;
+            do {
+                square = random.nextInt(cells.length);
+            } while (cells[square] != Position.EMPTY);
+            int moves = random.nextInt(4) == 0 ? random.nextInt(rules.getMoveLimit() + 1) : 0;
+            cells[square] = Position.cell(Position.PAWN + random.nextInt(6), moves);
+        }
+        return new Position(rows, columns, cells, random.nextBoolean() ? 1 : -1, rules);
+    }
+
+    /**
+     * Fuzzes the move generators for a time budget.
+     * Arguments: the budget in seconds (10 by default), then optionally the seed (drawn from the clock by default).
+     * Exits with status 1 if a failure was found.
+     */
+    public static void main(String[] args) {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 10;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        FuzzResult result = new MoveGenFuzzer(seed).run(seconds * 1000, Integer.MAX_VALUE);
+        for (String failure : result.getFailures()) {
+            System.err.println("FAILURE: " + failure);
+        }
+        System.out.println(result);
+        if (!result.isClean()) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package savetheking.game;
+
+/**
+ * A move generator checked by {@link MoveGenFuzzer} against the piece objects, e.g. a faster
+ * replacement for {@link Position#generateMoves(int[])} before it is switched on.
+ */
+public interface MoveGenerator {
+
+    /**
+     * Gets the name reported when this generator disagrees with the reference.
+     *
+     * @return A short name.
+     */
+    String getName();
+
+    /**
+     * Generates every legal move of a position, in any order.
+     *
+     * @param position The position.
+     * @param moves    The buffer receiving the packed moves, from {@link Position#newMoveBuffer()}.
+     * @return The number of moves written.
+     */
+    int generateMoves(Position position, int[] moves);
+}
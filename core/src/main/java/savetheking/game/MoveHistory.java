@@ -0,0 +1,294 @@
+package savetheking.game;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Compact history of the moves of a game. Each move is packed into a single {@code long}
+ * in a growable primitive array, so recording a move allocates nothing in the common case
+ * and entries never alias the live {@link Piece}s and {@link Point}s of the board.
+ *
+ * A record holds, from the lowest bits up: the destination column and row, the starting
+ * column and row (8 bits each), the kind of the moving piece and of the captured piece
+ * (3 bits each, as in {@link Position}), the capture flag, the number of moves the moving
+ * piece had made before this move and the number of moves the captured piece had made (8 bits each).
+ * The static accessors decode a record.
+ *
+ * Appending and undoing are O(1); {@link #view()} gives a read-only view that is not a copy.
+ */
+public final class MoveHistory {
+    /**
+     * Value returned when there is no move to return.
+     */
+    public static final long NO_MOVE = -1L;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int COORDINATE_BITS = 8;
+    private static final int COORDINATE_MASK = (1 << COORDINATE_BITS) - 1;
+    private static final int TO_COLUMN_SHIFT = 0;
+    private static final int TO_ROW_SHIFT = 8;
+    private static final int FROM_COLUMN_SHIFT = 16;
+    private static final int FROM_ROW_SHIFT = 24;
+    private static final int PIECE_KIND_SHIFT = 32;
+    private static final int CAPTURED_KIND_SHIFT = 35;
+    private static final int CAPTURE_FLAG_SHIFT = 38;
+    private static final int PRIOR_MOVES_SHIFT = 39;
+    private static final int CAPTURED_MOVES_SHIFT = 47;
+    private static final int KIND_MASK = 0x7;
+    private static final int COUNT_MASK = 0xFF;
+
+    private long[] records;
+    private int size;
+    private final View readOnlyView = new View() {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        public long get(int index) {
+            return MoveHistory.this.get(index);
+        }
+
+        @Override
+        public long last() {
+            return MoveHistory.this.last();
+        }
+    };
+
+    /**
+     * Read-only access to the recorded moves. A view reflects later changes to the history it comes from.
+     */
+    public interface View {
+        /**
+         * Gets the number of recorded moves.
+         *
+         * @return The number of moves.
+         */
+        int size();
+
+        boolean isEmpty();
+
+        /**
+         * Gets a recorded move.
+         *
+         * @param index The index of the move, 0 being the first move of the game.
+         * @return The packed move.
+         * @throws IndexOutOfBoundsException if there is no move at this index.
+         */
+        long get(int index);
+
+        /**
+         * Gets the most recent move.
+         *
+         * @return The packed move, or {@link #NO_MOVE} if no move was recorded.
+         */
+        long last();
+    }
+
+    /**
+     * Creates an empty history.
+     */
+    public MoveHistory() {
+        this.records = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Packs a move into a record.
+     *
+     * @param piece         The moving piece.
+     * @param priorMoves    The number of moves the piece had made before this move.
+     * @param start         The starting square.
+     * @param end           The destination square.
+     * @param captured      The captured piece, or null for a quiet move.
+     * @return The packed move.
+     * @throws IllegalArgumentException if a coordinate or a count does not fit in the record.
+     */
+    public static long encode(Piece piece, int priorMoves, Point start, Point end, Piece captured) {
+        return encode(Position.kindOf(piece), priorMoves, start.x, start.y, end.x, end.y,
+            captured != null ? Position.kindOf(captured) : Position.EMPTY,
+            captured != null ? captured.getMoveCount() : 0);
+    }
+
+    /**
+     * Packs a move into a record.
+     *
+     * @param pieceKind     The kind of the moving piece, see {@link Position}.
+     * @param priorMoves    The number of moves the piece had made before this move.
+     * @param fromRow       The starting row.
+     * @param fromColumn    The starting column.
+     * @param toRow         The destination row.
+     * @param toColumn      The destination column.
+     * @param capturedKind  The kind of the captured piece, or {@link Position#EMPTY} for a quiet move.
+     * @param capturedMoves The number of moves the captured piece had made.
+     * @return The packed move.
+     * @throws IllegalArgumentException if a coordinate or a count does not fit in the record.
+     */
+    public static long encode(int pieceKind, int priorMoves, int fromRow, int fromColumn, int toRow, int toColumn,
+                              int capturedKind, int capturedMoves) {
+        checkRange(fromRow, COORDINATE_MASK, "row");
+        checkRange(fromColumn, COORDINATE_MASK, "column");
+        checkRange(toRow, COORDINATE_MASK, "row");
+        checkRange(toColumn, COORDINATE_MASK, "column");
+        checkRange(pieceKind, KIND_MASK, "piece kind");
+        checkRange(capturedKind, KIND_MASK, "piece kind");
+        checkRange(priorMoves, COUNT_MASK, "move count");
+        checkRange(capturedMoves, COUNT_MASK, "move count");
+        return ((long) toColumn << TO_COLUMN_SHIFT)
+            | ((long) toRow << TO_ROW_SHIFT)
+            | ((long) fromColumn << FROM_COLUMN_SHIFT)
+            | ((long) fromRow << FROM_ROW_SHIFT)
+            | ((long) pieceKind << PIECE_KIND_SHIFT)
+            | ((long) capturedKind << CAPTURED_KIND_SHIFT)
+            | ((long) (capturedKind != Position.EMPTY ? 1 : 0) << CAPTURE_FLAG_SHIFT)
+            | ((long) priorMoves << PRIOR_MOVES_SHIFT)
+            | ((long) capturedMoves << CAPTURED_MOVES_SHIFT);
+    }
+
+    private static void checkRange(int value, int max, String name) {
+        if (value < 0 || value > max) {
+            throw new IllegalArgumentException("Invalid " + name + " in move record: " + value);
+        }
+    }
+
+    public static int fromRow(long move) {
+        return (int) (move >>> FROM_ROW_SHIFT) & COORDINATE_MASK;
+    }
+
+    public static int fromColumn(long move) {
+        return (int) (move >>> FROM_COLUMN_SHIFT) & COORDINATE_MASK;
+    }
+
+    public static int toRow(long move) {
+        return (int) (move >>> TO_ROW_SHIFT) & COORDINATE_MASK;
+    }
+
+    public static int toColumn(long move) {
+        return (int) (move >>> TO_COLUMN_SHIFT) & COORDINATE_MASK;
+    }
+
+    public static int pieceKind(long move) {
+        return (int) (move >>> PIECE_KIND_SHIFT) & KIND_MASK;
+    }
+
+    public static int capturedKind(long move) {
+        return (int) (move >>> CAPTURED_KIND_SHIFT) & KIND_MASK;
+    }
+
+    public static boolean isCapture(long move) {
+        return ((move >>> CAPTURE_FLAG_SHIFT) & 1) != 0;
+    }
+
+    public static int priorMoveCount(long move) {
+        return (int) (move >>> PRIOR_MOVES_SHIFT) & COUNT_MASK;
+    }
+
+    public static int capturedMoveCount(long move) {
+        return (int) (move >>> CAPTURED_MOVES_SHIFT) & COUNT_MASK;
+    }
+
+    /**
+     * Describes a record, e.g. "R (7, 0) x N (7, 1)".
+     *
+     * @param move The packed move.
+     * @return A readable description of the move.
+     */
+    public static String describe(long move) {
+        StringBuilder text = new StringBuilder();
+        text.append(Position.fenChar(pieceKind(move)))
+            .append(" (").append(fromRow(move)).append(", ").append(fromColumn(move)).append(")");
+        if (isCapture(move)) {
+            text.append(" x ").append(Position.fenChar(capturedKind(move))).append(" ");
+        } else {
+            text.append(" - ");
+        }
+        return text.append("(").append(toRow(move)).append(", ").append(toColumn(move)).append(")").toString();
+    }
+
+    /**
+     * Appends a move, growing the array if needed.
+     *
+     * @param move The packed move.
+     */
+    public void append(long move) {
+        if (size == records.length) {
+            records = Arrays.copyOf(records, records.length * 2);
+        }
+        records[size++] = move;
+    }
+
+    /**
+     * Removes the most recent move.
+     *
+     * @return The removed move, so the caller can take it back on the board.
+     * @throws IllegalStateException if there is no move to undo.
+     */
+    public long undo() {
+        if (size == 0) {
+            throw new IllegalStateException("No move to undo.");
+        }
+        return records[--size];
+    }
+
+    /**
+     * Removes every move, keeping the allocated array.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Move " + index + " of " + size);
+        }
+        return records[index];
+    }
+
+    public long last() {
+        return size == 0 ? NO_MOVE : records[size - 1];
+    }
+
+    /**
+     * Gets a read-only view of this history that follows later appends and undos.
+     *
+     * @return The view.
+     */
+    public View view() {
+        return readOnlyView;
+    }
+
+    /**
+     * Gets the moves recorded so far as a read-only buffer over the internal array, without copying.
+     * The buffer is only valid until the next append, which may replace the array.
+     *
+     * @return The buffer holding the packed moves.
+     */
+    public LongBuffer asBuffer() {
+        return LongBuffer.wrap(records, 0, size).slice().asReadOnlyBuffer();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(describe(records[i]));
+        }
+        return text.append("]").toString();
+    }
+}
@@ -0,0 +1,384 @@
+package savetheking.game;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal of the moves of a game, so a game survives a crash or a power loss.
+ *
+ * The journal file starts with a header followed by records, each protected by a CRC32:
+ * snapshot records hold a whole {@link GameSnapshot} (the board a game starts from, or a checkpoint)
+ * and move records hold one move packed as in {@link MoveHistory}. {@link #recover(File, Controller)}
+ * restores the last snapshot and replays the moves written after it; a record torn by a crash fails
+ * its checksum and ends the journal there.
+ *
+ * Records are gathered in a buffer and written through a {@link FileChannel}, which is forced to disk
+ * every {@code syncInterval} moves. A crash loses at most the moves of the last unsynced batch:
+ * an interval of 1 makes every move durable, larger intervals trade durability for fewer disk flushes.
+ *
+ * In bounded mode the journal never grows much beyond a size limit: once it is full, the next checkpoint
+ * replaces the whole file with a fresh one holding only that snapshot, like a ring buffer overwriting its
+ * oldest entries. The replacement is written aside and renamed over the journal, so a crash at any point
+ * leaves either the old or the new journal. A snapshot may alone exceed the limit; the fresh journal then
+ * counts as having crossed it already, and is only replaced again once it has grown by the limit once more.
+ * A journal is confined to the thread driving its game, like {@link GameState}.
+ */
+public class MoveJournal implements Closeable {
+    private static final int MAGIC = 0x53434D4A; // "SCMJ"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final byte SNAPSHOT_RECORD = 1;
+    private static final byte MOVE_RECORD = 2;
+    private static final int RECORD_OVERHEAD = 1 + 4 + 4; // Type, payload length and checksum
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private final int syncInterval;
+    private final long maxBytes;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private long size; // Bytes written to the file or waiting in the buffer
+    private long compactionSize; // Size from which the next checkpoint starts a fresh journal
+    private int unsyncedMoves;
+
+    /**
+     * Opens a journal, creating it if needed. The records of an existing journal are kept and new
+     * records are appended after the last valid one; a torn record left by a crash is cut off.
+     *
+     * @param file         The journal file.
+     * @param syncInterval The number of moves between two flushes to disk, at least 1.
+     * @param maxBytes     The size above which the next checkpoint starts a fresh journal, or 0 for no limit.
+     * @throws IOException if the file cannot be opened or is not a journal.
+     */
+    public MoveJournal(File file, int syncInterval, long maxBytes) throws IOException {
+        if (syncInterval < 1 || maxBytes < 0) {
+            throw new IllegalArgumentException("Invalid journal settings: sync every " + syncInterval + " moves, " + maxBytes + " bytes");
+        }
+        this.file = file;
+        this.syncInterval = syncInterval;
+        this.maxBytes = maxBytes;
+        this.compactionSize = maxBytes;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            writeHeader(channel);
+            channel.force(true);
+            size = HEADER_SIZE;
+        } else {
+            size = scan(channel, null, null);
+            channel.truncate(size); // Drop a record torn by a crash
+        }
+        channel.position(size);
+    }
+
+    private static void writeHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+
+    /**
+     * Appends a move. It reaches the disk with the next flush, see the class description.
+     *
+     * @param move The move packed as in {@link MoveHistory}.
+     * @throws IOException if writing fails.
+     */
+    public void append(long move) throws IOException {
+        ensureOpen();
+        ByteBuffer payload = ByteBuffer.allocate(8);
+        payload.putLong(move).flip();
+        writeRecord(MOVE_RECORD, payload);
+        if (++unsyncedMoves >= syncInterval) {
+            sync();
+        }
+    }
+
+    /**
+     * Records the whole state of the game, from which recovery starts instead of replaying older moves.
+     * Called when a game starts or is restored, and whenever {@link #isFull()} says so in bounded mode.
+     * The checkpoint is flushed to disk before returning.
+     *
+     * @param snapshot The current state of the game.
+     * @throws IOException if writing fails.
+     */
+    public void checkpoint(GameSnapshot snapshot) throws IOException {
+        ensureOpen();
+        ByteBuffer payload = ByteBuffer.wrap(snapshot.toBytes());
+        if (isFull()) {
+            startFresh(payload);
+        } else {
+            writeRecord(SNAPSHOT_RECORD, payload);
+            sync();
+        }
+    }
+
+    /**
+     * Checks whether the journal reached its size limit, in which case the next checkpoint replaces it.
+     * This happens once per crossing of the limit, even if a snapshot alone exceeds it.
+     *
+     * @return true in bounded mode once the limit is reached.
+     */
+    public boolean isFull() {
+        return maxBytes > 0 && size >= compactionSize;
+    }
+
+    /**
+     * Replaces the journal with a new one holding a single snapshot record.
+     */
+    private void startFresh(ByteBuffer payload) throws IOException {
+        buffer.clear(); // Everything buffered is older than the snapshot
+        File fresh = new File(file.getPath() + ".new");
+        FileChannel freshChannel = FileChannel.open(fresh.toPath(), StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        writeHeader(freshChannel);
+        FileChannel previous = channel;
+        channel = freshChannel;
+        size = HEADER_SIZE;
+        writeRecord(SNAPSHOT_RECORD, payload);
+        sync();
+        compactionSize = size < maxBytes ? maxBytes : size + maxBytes; // Do not start afresh at every checkpoint
+        previous.close();
+        try {
+            Files.move(fresh.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(fresh.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void writeRecord(byte type, ByteBuffer payload) throws IOException {
+        int length = payload.remaining();
+        if (RECORD_OVERHEAD + length > buffer.remaining()) {
+            flush();
+        }
+        if (RECORD_OVERHEAD + length > buffer.capacity()) {
+            // Larger than the buffer: write it on its own
+            ByteBuffer record = ByteBuffer.allocate(RECORD_OVERHEAD + length);
+            putRecord(record, type, payload);
+            record.flip();
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        } else {
+            putRecord(buffer, type, payload);
+        }
+        size += RECORD_OVERHEAD + length;
+    }
+
+    private void putRecord(ByteBuffer target, byte type, ByteBuffer payload) {
+        int length = payload.remaining();
+        crc.reset();
+        crc.update(type);
+        crc.update(length >>> 24);
+        crc.update(length >>> 16);
+        crc.update(length >>> 8);
+        crc.update(length);
+        crc.update(payload.duplicate());
+        target.put(type).putInt(length).put(payload).putInt((int) crc.getValue());
+    }
+
+    /**
+     * Writes the buffered records to the file without forcing them to disk.
+     *
+     * @throws IOException if writing fails.
+     */
+    public void flush() throws IOException {
+        ensureOpen();
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes the buffered records and forces them to disk.
+     *
+     * @throws IOException if writing fails.
+     */
+    public void sync() throws IOException {
+        flush();
+        channel.force(false);
+        unsyncedMoves = 0;
+    }
+
+    /**
+     * Gets the size of the journal, including the records not written yet.
+     *
+     * @return The size in bytes.
+     */
+    public long size() {
+        return size;
+    }
+
+    private void ensureOpen() {
+        if (channel == null) {
+            throw new IllegalStateException("Journal is closed: " + file);
+        }
+    }
+
+    /**
+     * Flushes the pending records to disk and closes the journal.
+     *
+     * @throws IOException if writing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            try {
+                sync();
+            } finally {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the game saved in a journal: restores its last snapshot on the controller, then replays
+     * the moves recorded after it through {@link Controller#playMove(Point, Point)}, so each one is checked
+     * against the rules. Replaying stops at the first move that is refused, which is reported on the
+     * standard error stream; the game is left as it was before that move.
+     * The controller should not have a journal yet, or the replayed moves would be recorded again.
+     *
+     * @param file       The journal file.
+     * @param controller The controller of a board of the journaled size.
+     * @return The number of moves replayed, fewer than the journal holds if one was refused,
+     *         or -1 if the journal holds no snapshot.
+     * @throws IOException if the file cannot be read or is not a journal.
+     */
+    public static int recover(File file, Controller controller) throws IOException {
+        List<Long> moves = new ArrayList<Long>();
+        GameSnapshot[] snapshot = new GameSnapshot[1];
+        read(file, snapshot, moves);
+        if (snapshot[0] == null) {
+            return -1;
+        }
+        controller.restore(snapshot[0]);
+        int replayed = 0;
+        for (long move : moves) {
+            if (!controller.playMove(new Point(MoveHistory.fromRow(move), MoveHistory.fromColumn(move)),
+                new Point(MoveHistory.toRow(move), MoveHistory.toColumn(move)))) {
+                System.err.printf("Journal %s: move %d of %d (%s) could not be replayed, recovery stopped.%n",
+                    file, replayed + 1, moves.size(), MoveHistory.describe(move));
+                break;
+            }
+            replayed++;
+        }
+        return replayed;
+    }
+
+    /**
+     * Reads the round recorded in a journal, from the board it started on, for {@link ReplayEngine}.
+     *
+     * @param file The journal file.
+     * @return The recorded game, or null if the journal holds no snapshot.
+     * @throws IOException if the file cannot be read or is not a journal.
+     */
+    public static RecordedGame readGame(File file) throws IOException {
+        List<Long> moves = new ArrayList<Long>();
+        GameSnapshot[] snapshot = new GameSnapshot[1];
+        read(file, snapshot, moves);
+        if (snapshot[0] == null) {
+            return null;
+        }
+        MoveHistory history = new MoveHistory();
+        MoveHistory.View saved = snapshot[0].getHistory();
+        for (int i = 0; i < saved.size(); i++) {
+            history.append(saved.get(i));
+        }
+        RecordedGame before = RecordedGame.fromSnapshot(file.getName(), snapshot[0]);
+        for (long move : moves) {
+            history.append(move);
+        }
+        return RecordedGame.fromHistory(file.getName(), before.getStart(), history.view());
+    }
+
+    private static void read(File file, GameSnapshot[] snapshot, List<Long> moves) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            scan(channel, snapshot, moves);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads the records of a journal, keeping the last snapshot and the moves after it when asked to.
+     *
+     * @return The offset right after the last valid record.
+     */
+    private static long scan(FileChannel channel, GameSnapshot[] snapshot, List<Long> moves) throws IOException {
+        long fileSize = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header, 0);
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+            throw new IOException("Not a move journal");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported journal version " + version);
+        }
+
+        CRC32 crc = new CRC32();
+        ByteBuffer prefix = ByteBuffer.allocate(5);
+        ByteBuffer checksum = ByteBuffer.allocate(4);
+        long offset = HEADER_SIZE;
+        while (offset + RECORD_OVERHEAD <= fileSize) {
+            prefix.clear();
+            readFully(channel, prefix, offset);
+            prefix.flip();
+            byte type = prefix.get();
+            int length = prefix.getInt();
+            if ((type != SNAPSHOT_RECORD && type != MOVE_RECORD) || length < 0
+                || offset + RECORD_OVERHEAD + length > fileSize) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, offset + 5);
+            checksum.clear();
+            readFully(channel, checksum, offset + 5 + length);
+            prefix.flip();
+            payload.flip();
+            checksum.flip();
+            crc.reset();
+            crc.update(prefix);
+            crc.update(payload.duplicate());
+            if (checksum.getInt() != (int) crc.getValue()) {
+                break; // Torn or corrupted record: the journal ends here
+            }
+            if (type == SNAPSHOT_RECORD) {
+                if (snapshot != null) {
+                    snapshot[0] = GameSnapshot.fromBytes(payload.array());
+                    moves.clear();
+                }
+            } else if (moves != null) {
+                moves.add(payload.getLong());
+            }
+            offset += RECORD_OVERHEAD + length;
+        }
+        return offset;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer target, long offset) throws IOException {
+        while (target.hasRemaining()) {
+            int read = channel.read(target, offset);
+            if (read < 0) {
+                break;
+            }
+            offset += read;
+        }
+    }
+}
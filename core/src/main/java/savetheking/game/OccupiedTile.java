@@ -32,13 +32,13 @@ class OccupiedTile extends Tile {
     }
 
     @Override
-    public void render(SpriteBatch batch, Texture texture) {
+    public void render(SpriteBatch batch, Texture texture, int tileSize, int rowCount) {
         // Render the base tile
-        super.render(batch, texture);
+        super.render(batch, texture, tileSize, rowCount);
 
         // Render the piece on top of the tile
         if (piece != null) {
-            piece.render(batch, position);
+            piece.render(batch, position, tileSize, rowCount);
         }
     }
 }
@@ -9,10 +9,19 @@ import java.util.List;
  * La classe Pawn représente un pion dans le mode Solo Chess.
  */
 public class Pawn extends Piece {
+    private final int direction; // Sens de progression, fixé par la couleur de départ
 
-    public Pawn(String color, Point position, Texture texture) {
-
-        super(color, position, texture);
+    /**
+     * Crée un pion. Son sens de progression est fixé par sa couleur de départ
+     * et ne change plus, même quand le pion devient noir une fois épuisé.
+     *
+     * @param color    La couleur de départ du pion.
+     * @param position La position initiale du pion.
+     * @param texture  La texture du pion.
+     */
+    public Pawn(PieceColor color, Point position, Texture texture) {
+        super(PieceKind.PAWN, color, position, texture);
+        this.direction = color.getPawnDirection();
     }
 
     /**
@@ -23,7 +32,7 @@ public class Pawn extends Piece {
     @Override
     public List<Point> getPossibleMoves(Board board) {
         List<Point> possibleMoves = new ArrayList<Point>();
-        int direction = "White".equals(color) ? -1 : 1; // Blancs montent, Noirs descendent
+        int direction = getDirection();
 
         Point forward = new Point(position.x + direction, position.y);
         if (board.isWithinBounds(forward) && board.getTileAt(forward) instanceof EmptyTile) {
@@ -43,4 +52,30 @@ public class Pawn extends Piece {
 
         return possibleMoves;
     }
+
+    /**
+     * Ajoute les captures diagonales du pion ; un pion ne capture jamais en avançant tout droit.
+     * Si les déplacements sans capture sont demandés, la case devant lui est ajoutée quand elle est vide.
+     *
+     * @param board Le plateau actuel.
+     * @param moves La liste recevant les cases atteignables.
+     * @param quiet true pour ajouter aussi l'avance d'une case.
+     */
+    @Override
+    protected void collectMoves(Board board, List<Point> moves, boolean quiet) {
+        int direction = getDirection();
+        collectStepMoves(board, new int[][] {{direction, -1}, {direction, 1}}, moves, false);
+        int x = position.x + direction;
+        if (quiet && board.isWithinBounds(x, position.y) && board.getPieceAt(x, position.y) == null) {
+            moves.add(new Point(x, position.y));
+        }
+    }
+
+    /**
+     * Donne le sens de progression du pion sur l'axe des lignes.
+     * @return -1 pour un pion parti blanc (il monte), 1 sinon (il descend).
+     */
+    public int getDirection() {
+        return direction;
+    }
 }
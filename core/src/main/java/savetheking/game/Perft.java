@@ -0,0 +1,152 @@
+package savetheking.game;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the leaf nodes of the move tree of a position to a fixed depth ("perft"), to validate and time
+ * move generation: every optimization of {@link Position#generateMoves(int[])} must keep the counts of
+ * {@link #REFERENCE}, and the nodes per second tell whether it paid off.
+ *
+ * Only positions exactly at the requested depth are counted; a game that ends earlier, won or stuck,
+ * contributes nothing. In bulk mode the moves at the last ply are counted without being played,
+ * which times generation alone instead of generation and {@link Position#play(int)}.
+ */
+public class Perft {
+
+    /**
+     * Known counts of the shipped asset puzzles under the standard rules: the FEN, then the leaf counts at depths 1, 2, ...
+     */
+    static final Object[][] REFERENCE = {
+        {"Q7/Q7/8/8/8/8/Q7/8", new long[] {4, 8, 0}},                           // ChessBoardWithPieces.tmx
+        {"3RR3/N2R4/1N2N3/1QB1K2Q/R2N1BQ1/N1B1RN2/2BQR3/2NR2B1",                 // HarderDifficulty.tmx, output.tmx
+            new long[] {67, 4103, 228673, 11540850}} // perft(5) = 524388717, left out as it takes minutes without bulk counting
+    };
+
+    private final boolean bulk;
+    private int[][] buffers = new int[0][]; // One move buffer per remaining depth, reused between calls
+
+    /**
+     * Creates a counter.
+     *
+     * @param bulk true to count the moves at the last ply without playing them.
+     */
+    public Perft(boolean bulk) {
+        this.bulk = bulk;
+    }
+
+    /**
+     * Counts the positions reached after exactly the given number of moves.
+     *
+     * @param position The root position.
+     * @param depth    The number of moves, at least 0.
+     * @return The number of leaf nodes; 1 at depth 0.
+     */
+    public long count(Position position, int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Depth must not be negative: " + depth);
+        }
+        if (buffers.length <= depth || (depth > 0 && buffers[depth].length < position.newMoveBuffer().length)) {
+            buffers = new int[depth + 1][];
+            for (int d = 1; d <= depth; d++) {
+                buffers[d] = position.newMoveBuffer(); // Deeper positions never have more pieces, so these sizes fit
+            }
+        }
+        return countNodes(position, depth);
+    }
+
+    private long countNodes(Position position, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        int[] moves = buffers[depth];
+        int count = position.generateMoves(moves);
+        if (depth == 1 && bulk) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            nodes += countNodes(position.play(moves[i]), depth - 1);
+        }
+        return nodes;
+    }
+
+    /**
+     * Splits the count of a position by first move, to find which subtree differs from a reference.
+     *
+     * @param position The root position.
+     * @param depth    The number of moves, at least 1.
+     * @return The leaf count of each first move, by its algebraic notation, in generation order.
+     */
+    public Map<String, Long> divide(Position position, int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Divide needs a depth of at least 1: " + depth);
+        }
+        Map<String, Long> counts = new LinkedHashMap<String, Long>();
+        int[] moves = position.newMoveBuffer();
+        int count = position.generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            counts.put(SanNotation.format(position, moves[i]), count(position.play(moves[i]), depth - 1));
+        }
+        return counts;
+    }
+
+    /**
+     * Counts and times a position, or checks the reference table.
+     * Arguments: a FEN or a .tmx file and the depth, then optionally "bulk" and "divide";
+     * or "verify" to check every reference count.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 1 && args[0].equals("verify")) {
+            System.exit(verify() ? 0 : 1);
+        }
+        if (args.length < 2) {
+            System.err.println("Usage: Perft <fen|file.tmx> <depth> [bulk] [divide]  |  Perft verify");
+            return;
+        }
+        Position position = args[0].endsWith(".tmx") ? TmxReader.read(new File(args[0])) : Position.fromFen(args[0]);
+        int depth = Integer.parseInt(args[1]);
+        boolean bulk = false;
+        boolean divide = false;
+        for (int i = 2; i < args.length; i++) {
+            bulk |= args[i].equals("bulk");
+            divide |= args[i].equals("divide");
+        }
+        Perft perft = new Perft(bulk);
+        if (divide) {
+            for (Map.Entry<String, Long> entry : perft.divide(position, depth).entrySet()) {
+                System.out.printf("%-8s %d%n", entry.getKey(), entry.getValue());
+            }
+        }
+        for (int d = 1; d <= depth; d++) {
+            long startNanos = System.nanoTime();
+            long nodes = perft.count(position, d);
+            long nanos = Math.max(1, System.nanoTime() - startNanos);
+            System.out.printf("perft(%d) = %d in %d ms (%.0f nodes/s)%n", d, nodes, nanos / 1000000, nodes * 1e9 / nanos);
+        }
+    }
+
+    /**
+     * Checks every count of the reference table, both with and without bulk counting.
+     *
+     * @return true if all counts match.
+     */
+    static boolean verify() {
+        boolean ok = true;
+        for (Object[] entry : REFERENCE) {
+            Position position = Position.fromFen((String) entry[0]);
+            long[] expected = (long[]) entry[1];
+            for (int depth = 1; depth <= expected.length; depth++) {
+                long nodes = new Perft(false).count(position, depth);
+                long bulkNodes = new Perft(true).count(position, depth);
+                boolean match = nodes == expected[depth - 1] && bulkNodes == expected[depth - 1];
+                System.out.printf("%-56s perft(%d) = %d, expected %d%s%n", entry[0], depth, nodes, expected[depth - 1],
+                    match ? "" : "  MISMATCH (bulk " + bulkNodes + ")");
+                ok &= match;
+            }
+        }
+        return ok;
+    }
+}
@@ -0,0 +1,276 @@
+package savetheking.game;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads Solo Chess games from PGN, one game at a time. The input is scanned character by character,
+ * so a file holding many games is never loaded as a whole: each call to {@link #next()} consumes
+ * exactly one game and resolves its SAN moves against the position as they are read.
+ *
+ * <p>Since Solo Chess has no fixed starting position, every game needs a {@code FEN} tag. A standard
+ * six-field FEN is reduced to its piece placement; any other value is read as by
+ * {@link Position#fromFen(String)}, so the move counts written by {@link PgnWriter} survive. The game is
+ * played under the rules of its {@code Rules} tag, see {@link RuleSet#fromCode(String)}, or under the standard
+ * rules without one. Comments, variations and numeric annotation glyphs are skipped.</p>
+ */
+public class PgnReader implements Closeable {
+    private final PushbackReader in;
+    private final Map<String, String> tags = new LinkedHashMap<String, String>();
+    private final StringBuilder token = new StringBuilder();
+    private int gameNumber;
+
+    /**
+     * Creates a reader over PGN text.
+     *
+     * @param reader The source of the text; it is buffered if it is not already.
+     */
+    public PgnReader(Reader reader) {
+        this.in = new PushbackReader(reader instanceof BufferedReader ? reader : new BufferedReader(reader));
+    }
+
+    /**
+     * Reads the next game. When a game cannot be read, its whole text is still consumed before the
+     * exception is thrown, so the caller may skip it and go on with the next one.
+     *
+     * @return The game, or null when there are no more games.
+     * @throws IOException              if the text cannot be read.
+     * @throws IllegalArgumentException if the game has no usable FEN tag or holds an illegal or ambiguous move.
+     */
+    public RecordedGame next() throws IOException {
+        tags.clear();
+        IntBuffer moves = new IntBuffer();
+        Position start = null;
+        Position current = null;
+        ReplayResult.Outcome outcome = null;
+        String error = null;
+        boolean inMoveText = false;
+
+        while (true) {
+            int c = skipWhitespace();
+            if (c == -1) {
+                if (tags.isEmpty() && !inMoveText) {
+                    return null;
+                }
+                break;
+            }
+            if (c == '[') {
+                if (inMoveText) {
+                    in.unread(c); // The tags of the next game, after a game with no result
+                    break;
+                }
+                readTag();
+            } else if (c == '{') {
+                skipPast('}');
+            } else if (c == ';' || c == '%') {
+                skipPast('\n');
+            } else if (c == '(') {
+                skipVariation();
+            } else {
+                inMoveText = true;
+                String text = readToken(c);
+                if (c == '$' || text.isEmpty()) {
+                    continue;
+                }
+                if (isResult(text)) {
+                    outcome = toOutcome(text);
+                    break;
+                }
+                if (error != null) {
+                    continue;
+                }
+                try {
+                    if (current == null) {
+                        start = startPosition();
+                        current = start;
+                    }
+                    int move = SanNotation.parse(current, text);
+                    moves.add(move);
+                    current = current.play(move);
+                } catch (IllegalArgumentException e) {
+                    error = "Game " + (gameNumber + 1) + ", move " + (moves.size() + 1) + ": " + e.getMessage();
+                }
+            }
+        }
+
+        gameNumber++;
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+        if (start == null) {
+            try {
+                start = startPosition();
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Game " + gameNumber + ": " + e.getMessage(), e);
+            }
+        }
+        if (outcome == null && tags.containsKey("Result")) {
+            outcome = toOutcome(tags.get("Result"));
+        }
+        String event = tags.get("Event");
+        String name = event == null || event.isEmpty() || "?".equals(event) ? "game " + gameNumber : event;
+        return new RecordedGame(name, start, moves.toArray(), outcome);
+    }
+
+    /**
+     * Gets a tag of the game last returned by {@link #next()}.
+     *
+     * @param name The tag name, e.g. "Event".
+     * @return The tag value, or null if the game has no such tag.
+     */
+    public String getTag(String name) {
+        return tags.get(name);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private Position startPosition() {
+        String fen = tags.get("FEN");
+        if (fen == null) {
+            throw new IllegalArgumentException("Missing FEN tag");
+        }
+        String code = tags.get("Rules");
+        RuleSet rules = code == null ? RuleSet.STANDARD : RuleSet.fromCode(code.trim());
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length >= 2 && ("w".equals(fields[1]) || "b".equals(fields[1]))) {
+            return Position.fromFen(fields[0], rules);
+        }
+        return Position.fromFen(fen, rules);
+    }
+
+    private static boolean isResult(String text) {
+        return "1-0".equals(text) || "0-1".equals(text) || "1/2-1/2".equals(text) || "*".equals(text);
+    }
+
+    private static ReplayResult.Outcome toOutcome(String result) {
+        if ("1-0".equals(result)) {
+            return ReplayResult.Outcome.WON;
+        }
+        if ("0-1".equals(result)) {
+            return ReplayResult.Outcome.LOST;
+        }
+        return null;
+    }
+
+    /**
+     * Reads a movetext token starting with the given character, without its move number.
+     */
+    private String readToken(int first) throws IOException {
+        token.setLength(0);
+        int c = first;
+        while (c != -1 && !Character.isWhitespace(c) && "{}()[];".indexOf(c) < 0) {
+            token.append((char) c);
+            c = in.read();
+        }
+        if (c != -1) {
+            in.unread(c);
+        }
+        int i = 0;
+        while (i < token.length() && Character.isDigit(token.charAt(i))) {
+            i++;
+        }
+        if (i > 0 && i < token.length() && token.charAt(i) == '.') {
+            while (i < token.length() && token.charAt(i) == '.') {
+                i++;
+            }
+            return token.substring(i); // "12." or "12...", possibly glued to the move
+        }
+        return token.toString();
+    }
+
+    private void readTag() throws IOException {
+        int c = skipWhitespace();
+        token.setLength(0);
+        while (c != -1 && !Character.isWhitespace(c) && c != '"' && c != ']') {
+            token.append((char) c);
+            c = in.read();
+        }
+        String name = token.toString();
+        while (c != -1 && c != '"' && c != ']') {
+            c = in.read();
+        }
+        token.setLength(0);
+        if (c == '"') {
+            c = in.read();
+            while (c != -1 && c != '"') {
+                if (c == '\\') {
+                    c = in.read();
+                }
+                if (c != -1) {
+                    token.append((char) c);
+                    c = in.read();
+                }
+            }
+            skipPast(']');
+        }
+        tags.put(name, token.toString());
+    }
+
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            int c = in.read();
+            if (c == -1) {
+                return;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '{') {
+                skipPast('}');
+            } else if (c == ';') {
+                skipPast('\n');
+            }
+        }
+    }
+
+    private void skipPast(int end) throws IOException {
+        int c = in.read();
+        while (c != -1 && c != end) {
+            c = in.read();
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c = in.read();
+        while (c != -1 && Character.isWhitespace(c)) {
+            c = in.read();
+        }
+        return c;
+    }
+
+    /**
+     * A growable list of packed moves.
+     */
+    private static final class IntBuffer {
+        private int[] values = new int[32];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                int[] grown = new int[size * 2];
+                System.arraycopy(values, 0, grown, 0, size);
+                values = grown;
+            }
+            values[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            int[] result = new int[size];
+            System.arraycopy(values, 0, result, 0, size);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package savetheking.game;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes Solo Chess games as PGN, one after the other, so they can be read back by {@link PgnReader}.
+ * Each game gets the {@code Event}, {@code Result}, {@code SetUp} and {@code FEN} tags, and a {@code Rules} tag
+ * as written by {@link RuleSet#toCode()} when it is not played under the standard rules, then its moves in SAN. There is a single player, so every move gets its own number. The result is the one the
+ * moves actually lead to: "1-0" when one piece is left, "0-1" when no capture remains, "*" otherwise.
+ */
+public class PgnWriter implements Closeable, Flushable {
+    /** The longest movetext line, as recommended by the PGN standard. */
+    private static final int LINE_WIDTH = 80;
+
+    private final Writer out;
+
+    /**
+     * Creates a writer producing PGN text.
+     *
+     * @param writer The destination of the text; it is buffered if it is not already.
+     */
+    public PgnWriter(Writer writer) {
+        this.out = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer);
+    }
+
+    /**
+     * Writes a game.
+     *
+     * @param game The game to write.
+     * @throws IOException              if the text cannot be written.
+     * @throws IllegalArgumentException if one of the moves is illegal; nothing is written then.
+     */
+    public void write(RecordedGame game) throws IOException {
+        Position position = game.getStart();
+        StringBuilder moveText = new StringBuilder();
+        int lineStart = 0;
+        for (int i = 0; i < game.getMoveCount(); i++) {
+            int move = game.getMove(i);
+            String token = (i + 1) + ". " + SanNotation.format(position, move);
+            lineStart = append(moveText, token, lineStart);
+            position = position.play(move);
+        }
+        String result = result(position);
+        append(moveText, result, lineStart);
+
+        writeTag("Event", game.getName() == null ? "?" : game.getName());
+        writeTag("Result", result);
+        writeTag("SetUp", "1");
+        writeTag("FEN", game.getStart().toFen());
+        if (!RuleSet.STANDARD.equals(game.getStart().getRules())) {
+            writeTag("Rules", game.getStart().getRules().toCode());
+        }
+        out.write('\n');
+        out.write(moveText.toString());
+        out.write("\n\n");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private static String result(Position position) {
+        if (position.isSolved()) {
+            return "1-0";
+        }
+        return position.generateMoves(position.newMoveBuffer()) == 0 ? "0-1" : "*";
+    }
+
+    /**
+     * Appends a token to the movetext, starting a new line when it would grow too long.
+     *
+     * @return The index where the current line starts.
+     */
+    private static int append(StringBuilder moveText, String token, int lineStart) {
+        if (moveText.length() > lineStart) {
+            if (moveText.length() - lineStart + 1 + token.length() > LINE_WIDTH) {
+                moveText.append('\n');
+                lineStart = moveText.length();
+            } else {
+                moveText.append(' ');
+            }
+        }
+        moveText.append(token);
+        return lineStart;
+    }
+
+    private void writeTag(String name, String value) throws IOException {
+        out.write('[');
+        out.write(name);
+        out.write(" \"");
+        out.write(value.replace("\\", "\\\\").replace("\"", "\\\""));
+        out.write("\"]\n");
+    }
+}
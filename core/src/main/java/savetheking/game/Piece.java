@@ -2,50 +2,82 @@ package savetheking.game;
 
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Abstract class representing a chess piece for the Solo Chess mode.
- * Each piece has a color, position, texture, and specific movement rules.
+ * Each piece has a kind, a color, position, texture, and specific movement rules.
  */
 public abstract class Piece {
-    protected String color; // The color of the piece ("White" or "Black")
+    private final PieceKind kind; // The kind of the piece, matching its subclass
+    protected PieceColor color; // The color of the piece
     protected Point position; // The current position of the piece on the board
     protected Texture texture; // Texture for graphical rendering
     private int moveCount; // Count of moves made by this piece
+    private PieceState state = PieceState.ACTIVE; // Whether the piece may still move, kept in step with moveCount
+    private RuleSet rules = RuleSet.STANDARD; // Rules of the board the piece is placed on
+    private boolean verbose = true; // Whether moves are printed on the console, as set by the board
 
     /**
-     * Constructor to initialize a piece with a color, position, and texture.
+     * Constructor to initialize a piece with a kind, color, position, and texture.
      *
-     * @param color    The color of the piece ("White" or "Black").
+     * @param kind     The kind of the piece, given by the subclass.
+     * @param color    The color of the piece.
      * @param position The initial position of the piece on the board.
      * @param texture  The texture representing the piece.
      */
-    public Piece(String color, Point position, Texture texture) {
+    protected Piece(PieceKind kind, PieceColor color, Point position, Texture texture) {
+        if (kind == null || color == null) {
+            throw new IllegalArgumentException("Kind and color cannot be null.");
+        }
+        this.kind = kind;
         this.color = color;
         this.position = position;
         this.texture = texture;
         this.moveCount = 0;
     }
 
+    /**
+     * Gets the kind of the piece.
+     *
+     * @return The kind of the piece.
+     */
+    public PieceKind getKind() {
+        return kind;
+    }
+
     /**
      * Gets the color of the piece.
      *
-     * @return The color of the piece ("White" or "Black").
+     * @return The color of the piece.
      */
-    public String getColor() {
+    public PieceColor getColor() {
         return color;
     }
 
     /**
      * Sets the color of the piece.
      *
-     * @param color The new color ("White" or "Black").
+     * @param color The new color.
      */
-    public void setColor(String color) {
+    public void setColor(PieceColor color) {
+        if (color == null) {
+            throw new IllegalArgumentException("Color cannot be null.");
+        }
         this.color = color;
     }
 
+    /**
+     * Gets whether the piece may still move.
+     *
+     * @return {@link PieceState#EXHAUSTED} once the piece has made as many moves as the rules allow.
+     */
+    public PieceState getState() {
+        return state;
+    }
+
     /**
      * Gets the current position of the piece.
      *
@@ -65,29 +97,76 @@ public abstract class Piece {
     }
 
     /**
-     * Updates the position of the piece, increments the move count,
-     * and checks for color change after two moves.
+     * Updates the position of the piece on a square board, see {@link #move(Point, int, int)}.
      *
      * @param newPosition The target position to move the piece to.
      * @param boardSize   The size of the board.
      * @throws IllegalArgumentException if the new position is out of bounds.
      */
     public void move(Point newPosition, int boardSize) {
+        move(newPosition, boardSize, boardSize);
+    }
+
+    /**
+     * Gets the rules this piece moves under.
+     *
+     * @return The rules of the board the piece is on.
+     */
+    public RuleSet getRuleSet() {
+        return rules;
+    }
+
+    /**
+     * Sets the rules this piece moves under; called by the {@link Board} the piece is placed on.
+     *
+     * @param rules The rules of the board.
+     */
+    void setRuleSet(RuleSet rules) {
+        this.rules = rules;
+        updateState();
+    }
+
+    /**
+     * Turns the console messages about the moves of this piece on or off; called by the {@link Board} the piece is placed on.
+     *
+     * @param verbose true to print the moves.
+     */
+    void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    /**
+     * Updates the position of the piece, increments the move count,
+     * and checks for color change once the move limit is reached.
+     *
+     * @param newPosition The target position to move the piece to.
+     * @param rows        The number of rows of the board.
+     * @param columns     The number of columns of the board.
+     * @throws IllegalArgumentException if the new position is out of bounds.
+     */
+    public void move(Point newPosition, int rows, int columns) {
         // Validate if the new position is within bounds
-        if (isWithinBounds(newPosition, boardSize)) {
-            System.out.printf("Moving piece: %s from %s to %s%n", this, this.position, newPosition);
+        if (isWithinBounds(newPosition, rows, columns)) {
+            if (verbose) {
+                System.out.printf("Moving piece: %s from %s to %s%n", this, this.position, newPosition);
+            }
 
             // Update the piece's position
             this.position = newPosition;
 
             // Increment the move count
             this.moveCount++;
-            System.out.printf("Piece %s move count updated to %d%n", this, this.moveCount);
+            updateState();
+            if (verbose) {
+                System.out.printf("Piece %s move count updated to %d%n", this, this.moveCount);
+            }
 
-            // Check for color change after two moves
-            if (this.moveCount >= 2 && "White".equalsIgnoreCase(this.color)) {
-                this.color = "Black";
-                System.out.printf("Piece %s color changed to Black after %d moves%n", this, this.moveCount);
+            // Check for color change once the piece is exhausted
+            if (state == PieceState.EXHAUSTED && color == PieceColor.WHITE) {
+                this.color = PieceColor.BLACK;
+                if (verbose) {
+                    System.out.printf("Piece %s color changed to Black after %d moves%n", this, this.moveCount);
+                }
             }
         } else {
             throw new IllegalArgumentException("Position out of bounds: " + newPosition);
@@ -95,14 +174,26 @@ public abstract class Piece {
     }
 
     /**
-     * Checks whether a position is within the bounds of the board.
+     * Checks whether a position is within the bounds of a square board.
      *
      * @param point     The position to check.
      * @param boardSize The size of the board.
      * @return `true` if the position is within bounds; otherwise `false`.
      */
     protected boolean isWithinBounds(Point point, int boardSize) {
-        return point.x >= 0 && point.x < boardSize && point.y >= 0 && point.y < boardSize;
+        return isWithinBounds(point, boardSize, boardSize);
+    }
+
+    /**
+     * Checks whether a position is within the bounds of the board.
+     *
+     * @param point   The position to check.
+     * @param rows    The number of rows of the board.
+     * @param columns The number of columns of the board.
+     * @return `true` if the position is within bounds; otherwise `false`.
+     */
+    protected boolean isWithinBounds(Point point, int rows, int columns) {
+        return point.isWithinBounds(rows, columns);
     }
 
     /**
@@ -113,17 +204,139 @@ public abstract class Piece {
      */
     public abstract List<Point> getPossibleMoves(Board board);
 
+    /**
+     * Determines the captures available to this piece: a piece that has used all of its moves
+     * cannot move anymore. Unlike {@link #getPossibleMoves(Board)}, quiet moves onto empty tiles
+     * are never generated.
+     *
+     * @param board The current state of the board.
+     * @return A list of positions holding a capturable piece; empty if this piece is exhausted.
+     */
+    public List<Point> getCaptureMoves(Board board) {
+        if (isExhausted()) {
+            return Collections.emptyList();
+        }
+        List<Point> captures = new ArrayList<Point>();
+        collectMoves(board, captures, false);
+        return captures;
+    }
+
+    /**
+     * Determines the moves allowed by the rules of the board: the captures, plus the quiet moves
+     * onto empty tiles unless the rules only allow captures, as the standard Solo Chess rules do.
+     *
+     * @param board The current state of the board.
+     * @return A list of positions this piece may move to; empty if this piece is exhausted.
+     */
+    public List<Point> getLegalMoves(Board board) {
+        if (isExhausted()) {
+            return Collections.emptyList();
+        }
+        List<Point> moves = new ArrayList<Point>();
+        collectMoves(board, moves, !rules.isCaptureOnly());
+        return moves;
+    }
+
+    /**
+     * Adds the capture targets of this piece to the given list, and its quiet moves if requested.
+     * Called only for pieces that still have moves remaining.
+     *
+     * @param board The current state of the board.
+     * @param moves The list receiving the targets.
+     * @param quiet true to add the empty tiles the piece could move to as well.
+     */
+    protected abstract void collectMoves(Board board, List<Point> moves, boolean quiet);
+
+    /**
+     * Adds, for each direction, the first piece met along the ray if it can be captured,
+     * and the empty tiles before it if quiet moves are requested.
+     * Used by sliding pieces (rook, bishop, queen).
+     *
+     * @param board      The current state of the board.
+     * @param directions The ray directions as {dx, dy} pairs.
+     * @param moves      The list receiving the targets.
+     * @param quiet      true to add the empty tiles along the rays.
+     */
+    protected void collectSlidingMoves(Board board, int[][] directions, List<Point> moves, boolean quiet) {
+        for (int[] direction : directions) {
+            int x = position.x + direction[0];
+            int y = position.y + direction[1];
+            while (board.isWithinBounds(x, y)) {
+                Piece target = board.getPieceAt(x, y);
+                if (target != null) {
+                    if (target.canBeCaptured()) {
+                        moves.add(new Point(x, y));
+                    }
+                    break;
+                }
+                if (quiet) {
+                    moves.add(new Point(x, y));
+                }
+                x += direction[0];
+                y += direction[1];
+            }
+        }
+    }
+
+    /**
+     * Adds the capturable pieces found at the given offsets from this piece,
+     * and the empty tiles at those offsets if quiet moves are requested.
+     * Used by leaping pieces (king, knight, pawn).
+     *
+     * @param board   The current state of the board.
+     * @param offsets The target offsets as {dx, dy} pairs.
+     * @param moves   The list receiving the targets.
+     * @param quiet   true to add the empty tiles as well.
+     */
+    protected void collectStepMoves(Board board, int[][] offsets, List<Point> moves, boolean quiet) {
+        for (int[] offset : offsets) {
+            int x = position.x + offset[0];
+            int y = position.y + offset[1];
+            if (board.isWithinBounds(x, y)) {
+                Piece target = board.getPieceAt(x, y);
+                if (target != null ? target.canBeCaptured() : quiet) {
+                    moves.add(new Point(x, y));
+                }
+            }
+        }
+    }
+
+    /**
+     * Indicates whether this piece may be captured.
+     * The king overrides this, since the rules may require it to be the last piece standing.
+     *
+     * @return `true` if another piece may capture this one.
+     */
+    public boolean canBeCaptured() {
+        return true;
+    }
+
+    /**
+     * Indicates whether this piece has used all of its moves.
+     *
+     * @return `true` once the piece has made as many moves as the rules allow.
+     */
+    public boolean isExhausted() {
+        return state == PieceState.EXHAUSTED;
+    }
+
+    private void updateState() {
+        state = rules.isExhausted(moveCount) ? PieceState.EXHAUSTED : PieceState.ACTIVE;
+    }
+
     /**
      * Renders the piece at the specified position on the board.
      *
      * @param batch    The SpriteBatch used for rendering.
      * @param position The position where the piece should be rendered.
+     * @param tileSize The size of a tile in pixels.
+     * @param rowCount The number of rows of the board, used to flip the y-axis.
      */
-    public void render(SpriteBatch batch, Point position) {
+    public void render(SpriteBatch batch, Point position, int tileSize, int rowCount) {
         if (texture != null) {
-            int screenX = position.y * 64; // Assuming tile size = 64
-            int screenY = (8 - position.x - 1) * 64; // Flip y-axis for screen rendering
-            batch.draw(texture, screenX, screenY, 64, 64);
+            int screenX = position.y * tileSize;
+            int screenY = (rowCount - position.x - 1) * tileSize; // Flip y-axis for screen rendering
+            batch.draw(texture, screenX, screenY, tileSize, tileSize);
         }
     }
 
@@ -136,6 +349,24 @@ public abstract class Piece {
         return this.moveCount;
     }
 
+    /**
+     * Restores the number of moves made by this piece, e.g. when a board is rebuilt from a saved position.
+     * The colour change normally applied by {@link #move(Point, int)} is applied as well.
+     *
+     * @param moveCount The move count to restore.
+     * @throws IllegalArgumentException if the count is negative or above the move limit of the rules.
+     */
+    void restoreMoveCount(int moveCount) {
+        if (moveCount < 0 || moveCount > rules.getMoveLimit()) {
+            throw new IllegalArgumentException("Invalid move count: " + moveCount);
+        }
+        this.moveCount = moveCount;
+        updateState();
+        if (state == PieceState.EXHAUSTED && color == PieceColor.WHITE) {
+            this.color = PieceColor.BLACK;
+        }
+    }
+
 
     /**
      * Returns a textual representation of the piece.
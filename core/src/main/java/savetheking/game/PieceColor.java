@@ -0,0 +1,63 @@
+package savetheking.game;
+
+/**
+ * The colours of chess pieces. In Solo Chess a white piece turns black once it has used all of its moves,
+ * and the colour also gives the way pawns move: white pawns towards row 0, black pawns away from it.
+ *
+ * <p>Colour names only appear at the boundaries of the game, where {@link #fromName(String)} reads them.</p>
+ */
+public enum PieceColor {
+    WHITE("White", 'w'),
+    BLACK("Black", 'b');
+
+    private final String displayName;
+    private final char letter;
+
+    PieceColor(String displayName, char letter) {
+        this.displayName = displayName;
+        this.letter = letter;
+    }
+
+    /**
+     * Gets the lowercase letter of this colour, as used in texture file names, e.g. "pieces/wr.png".
+     *
+     * @return 'w' or 'b'.
+     */
+    public char getLetter() {
+        return letter;
+    }
+
+    /**
+     * Gets the direction pawns of this colour move in along the rows.
+     *
+     * @return -1 for white, which moves towards row 0, and 1 for black.
+     */
+    public int getPawnDirection() {
+        return this == WHITE ? -1 : 1;
+    }
+
+    /**
+     * Reads a colour name, ignoring case. The French names used by older code are accepted as well.
+     *
+     * @param name The name, e.g. "white", "Black" or "Noir".
+     * @return The colour.
+     * @throws IllegalArgumentException if the name is not a colour.
+     */
+    public static PieceColor fromName(String name) {
+        if ("white".equalsIgnoreCase(name) || "blanc".equalsIgnoreCase(name)) {
+            return WHITE;
+        }
+        if ("black".equalsIgnoreCase(name) || "noir".equalsIgnoreCase(name)) {
+            return BLACK;
+        }
+        throw new IllegalArgumentException("Invalid piece colour: " + name);
+    }
+
+    /**
+     * Returns the capitalised name of the colour, e.g. "White".
+     */
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -22,50 +22,57 @@ public class PieceFactory {
     }
 
     /**
-     * Creates a Piece based on its type, color, and position, including its texture.
+     * Creates a Piece based on its kind, color, and position, including its texture.
      *
-     * @param type     The type of the piece (e.g., "Rook", "Knight").
-     * @param color    The color of the piece ("White" or "Black").
+     * @param kind     The kind of the piece.
+     * @param color    The color of the piece.
      * @param position The position of the piece.
      * @return The created Piece object.
      */
-    public Piece createPiece(String type, String color, Point position) {
+    public Piece createPiece(PieceKind kind, PieceColor color, Point position) {
         if (DEBUG_MODE) {
             System.out.println("PieceFactory.createPiece called:");
-            System.out.println("Type: " + type + ", Color: " + color + ", Position: " + position);
+            System.out.println("Kind: " + kind + ", Color: " + color + ", Position: " + position);
         }
 
-        if (type == null || color == null || position == null) {
-            throw new IllegalArgumentException("Type, color, and position cannot be null.");
+        if (kind == null || color == null || position == null) {
+            throw new IllegalArgumentException("Kind, color, and position cannot be null.");
         }
 
-        // Load the appropriate texture based on piece type and color
-        Texture texture = loadTexture(type, color);
+        // Load the appropriate texture based on piece kind and color
+        Texture texture = loadTexture(kind, color);
 
         if (texture == null) {
-            throw new IllegalArgumentException("Failed to load texture for " + type + " (" + color + ")");
+            throw new IllegalArgumentException("Failed to load texture for " + kind + " (" + color + ")");
         }
 
         if (DEBUG_MODE) {
-            System.out.println("Texture loaded for " + type + " (" + color + ")");
+            System.out.println("Texture loaded for " + kind + " (" + color + ")");
         }
 
         // Create the piece
         Piece piece;
-        if ("rook".equalsIgnoreCase(type)) {
-            piece = new Rook(color, position, texture);
-        } else if ("knight".equalsIgnoreCase(type)) {
-            piece = new Knight(color, position, texture);
-        } else if ("bishop".equalsIgnoreCase(type)) {
-            piece = new Bishop(color, position, texture);
-        } else if ("queen".equalsIgnoreCase(type)) {
-            piece = new Queen(color, position, texture);
-        } else if ("king".equalsIgnoreCase(type)) {
-            piece = new King(color, position, texture);
-        } else if ("pawn".equalsIgnoreCase(type)) {
-            piece = new Pawn(color, position, texture);
-        } else {
-            throw new IllegalArgumentException("Invalid piece type: " + type);
+        switch (kind) {
+            case ROOK:
+                piece = new Rook(color, position, texture);
+                break;
+            case KNIGHT:
+                piece = new Knight(color, position, texture);
+                break;
+            case BISHOP:
+                piece = new Bishop(color, position, texture);
+                break;
+            case QUEEN:
+                piece = new Queen(color, position, texture);
+                break;
+            case KING:
+                piece = new King(color, position, texture);
+                break;
+            case PAWN:
+                piece = new Pawn(color, position, texture);
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid piece kind: " + kind);
         }
 
         // Notify the renderer about the new piece
@@ -75,45 +82,42 @@ public class PieceFactory {
     }
 
     /**
-     * Loads the appropriate texture for a piece based on its type and color.
+     * Creates a Piece from the type and color names found in a map or a save file.
      *
-     * @param type  The type of the piece.
+     * @param type     The type of the piece (e.g., "Rook", "Knight").
+     * @param color    The color of the piece ("White" or "Black").
+     * @param position The position of the piece.
+     * @return The created Piece object.
+     * @throws IllegalArgumentException if a name is not recognised.
+     */
+    public Piece createPiece(String type, String color, Point position) {
+        return createPiece(PieceKind.fromName(type), PieceColor.fromName(color), position);
+    }
+
+    /**
+     * Loads the appropriate texture for a piece based on its kind and color,
+     * e.g. "pieces/wn.png" for a white knight.
+     *
+     * @param kind  The kind of the piece.
      * @param color The color of the piece.
      * @return The loaded Texture.
      */
-    private Texture loadTexture(String type, String color) {
-        String typeAbbreviation = getTypeAbbreviation(type);
-        String texturePath = "pieces/" + color.toLowerCase().charAt(0) + typeAbbreviation + ".png";
+    private Texture loadTexture(PieceKind kind, PieceColor color) {
+        String texturePath = "pieces/" + color.getLetter() + Character.toLowerCase(kind.getFenChar()) + ".png";
         System.out.println("Loading texture from path: " + texturePath);
+        AssetLoadEvent event = new AssetLoadEvent();
+        event.begin();
         try {
-            return new Texture(texturePath);
+            Texture texture = new Texture(texturePath);
+            event.success = true;
+            return texture;
         } catch (Exception e) {
             System.err.println("Failed to load texture: " + e.getMessage());
             return null;
-        }
-    }
-
-    /**
-     * Maps the full type name to its corresponding abbreviation.
-     *
-     * @param type The full type name.
-     * @return The abbreviation for the type.
-     */
-    private String getTypeAbbreviation(String type) {
-        if ("knight".equalsIgnoreCase(type)) {
-            return "n"; // Use 'n' for knight
-        } else if ("king".equalsIgnoreCase(type)) {
-            return "k"; // Use 'k' for king
-        } else if ("rook".equalsIgnoreCase(type)) {
-            return "r";
-        } else if ("bishop".equalsIgnoreCase(type)) {
-            return "b";
-        } else if ("queen".equalsIgnoreCase(type)) {
-            return "q";
-        } else if ("pawn".equalsIgnoreCase(type)) {
-            return "p";
-        } else {
-            throw new IllegalArgumentException("Invalid piece type: " + type);
+        } finally {
+            event.path = texturePath;
+            event.assetType = "texture";
+            event.commit();
         }
     }
 }
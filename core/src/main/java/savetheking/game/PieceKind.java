@@ -0,0 +1,102 @@
+package savetheking.game;
+
+/**
+ * The kinds of chess pieces. Each kind carries the byte code used by {@link Position} cells,
+ * so a piece of the object model maps to its compact form without any lookup.
+ *
+ * <p>Piece names and letters only appear at the boundaries of the game: {@link #fromName(String)}
+ * reads the type names of TMX maps, {@link #fromFenChar(char)} the letters of FEN text.</p>
+ */
+public enum PieceKind {
+    PAWN(Position.PAWN, 'P', "pawn"),
+    KNIGHT(Position.KNIGHT, 'N', "knight"),
+    BISHOP(Position.BISHOP, 'B', "bishop"),
+    ROOK(Position.ROOK, 'R', "rook"),
+    QUEEN(Position.QUEEN, 'Q', "queen"),
+    KING(Position.KING, 'K', "king");
+
+    // Indexed by code; index 0 is Position.EMPTY
+    private static final PieceKind[] BY_CODE = {null, PAWN, KNIGHT, BISHOP, ROOK, QUEEN, KING};
+
+    private final byte code;
+    private final char fenChar;
+    private final String name;
+
+    PieceKind(byte code, char fenChar, String name) {
+        this.code = code;
+        this.fenChar = fenChar;
+        this.name = name;
+    }
+
+    /**
+     * Gets the code of this kind in {@link Position} cells.
+     *
+     * @return The code, from {@link Position#PAWN} to {@link Position#KING}.
+     */
+    public byte getCode() {
+        return code;
+    }
+
+    /**
+     * Gets the uppercase FEN letter of this kind.
+     *
+     * @return The FEN letter.
+     */
+    public char getFenChar() {
+        return fenChar;
+    }
+
+    /**
+     * Gets the lowercase name of this kind, as used by TMX maps, e.g. "knight".
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Maps a {@link Position} code to its kind.
+     *
+     * @param code The code.
+     * @return The kind.
+     * @throws IllegalArgumentException if the code is not a piece, e.g. {@link Position#EMPTY}.
+     */
+    public static PieceKind fromCode(int code) {
+        if (code <= 0 || code >= BY_CODE.length) {
+            throw new IllegalArgumentException("Unknown piece kind: " + code);
+        }
+        return BY_CODE[code];
+    }
+
+    /**
+     * Reads a piece type name, ignoring case.
+     *
+     * @param name The name, e.g. "Rook".
+     * @return The kind.
+     * @throws IllegalArgumentException if the name is not a piece type.
+     */
+    public static PieceKind fromName(String name) {
+        for (PieceKind kind : values()) {
+            if (kind.name.equalsIgnoreCase(name)) {
+                return kind;
+            }
+        }
+        throw new IllegalArgumentException("Invalid piece type: " + name);
+    }
+
+    /**
+     * Reads a FEN letter, ignoring case.
+     *
+     * @param fenChar The FEN letter.
+     * @return The kind.
+     * @throws IllegalArgumentException if the letter is not a piece.
+     */
+    public static PieceKind fromFenChar(char fenChar) {
+        int code = Position.kindOf(fenChar);
+        if (code == Position.EMPTY) {
+            throw new IllegalArgumentException("Invalid piece letter: " + fenChar);
+        }
+        return BY_CODE[code];
+    }
+}
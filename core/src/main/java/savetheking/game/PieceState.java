@@ -0,0 +1,10 @@
+package savetheking.game;
+
+/**
+ * Whether a piece may still move: a piece is active until it has made as many moves as its {@link RuleSet} allows,
+ * then it is exhausted for the rest of the game.
+ */
+public enum PieceState {
+    ACTIVE,
+    EXHAUSTED
+}
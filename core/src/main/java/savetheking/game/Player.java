@@ -0,0 +1,34 @@
+package savetheking.game;
+
+/**
+ * An automated Solo Chess player, used to play-test puzzles without a human.
+ * A player picks one of the legal moves of a position; the moves are those of {@link Position#generateMoves(int[])},
+ * which follow the same {@link RuleSet} as the pieces on a {@link Board}. Players may keep state between moves,
+ * e.g. a random generator or a solver, so an instance must only be used by one thread at a time; see {@link #fork(long)}.
+ */
+public interface Player {
+    /**
+     * Picks a move.
+     *
+     * @param position The current position, not solved yet.
+     * @param moves    The legal moves of the position, as generated by {@link Position#generateMoves(int[])}.
+     * @param count    The number of legal moves, at least 1.
+     * @return The index of the chosen move in the moves array.
+     */
+    int chooseMove(Position position, int[] moves, int count);
+
+    /**
+     * Creates an independent player playing the same way, e.g. for another thread.
+     *
+     * @param seed The seed of the new player's random choices, if it makes any.
+     * @return The new player.
+     */
+    Player fork(long seed);
+
+    /**
+     * Gets the name of the player, as shown in tournament reports.
+     *
+     * @return The name.
+     */
+    String getName();
+}
@@ -55,8 +55,7 @@ public class PlayingState implements GameStateInterface {
      * @return The corresponding board position as a Point, or null if outside the board.
      */
     private Point translateScreenToBoard(int screenX, int screenY) {
-        int tileSize = 64; // Assuming tiles are 64x64 pixels
-        int boardSize = board.getRowCount();
+        int tileSize = board.getTileSize();
 
         // Convert from screen coordinates to board coordinates
         int boardX = screenX / tileSize;
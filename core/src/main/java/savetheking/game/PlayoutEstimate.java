@@ -0,0 +1,92 @@
+package savetheking.game;
+
+/**
+ * Outcome of the random playouts of a puzzle run by a {@link PlayoutEstimator}: the share of games won,
+ * with Wilson score confidence intervals, which stay inside [0, 1] and remain meaningful when wins are
+ * rare, as they are on hard puzzles.
+ */
+public class PlayoutEstimate {
+    /**
+     * Normal quantile of a two-sided 95% confidence interval.
+     */
+    public static final double Z_95 = 1.959963984540054;
+
+    private final Position puzzle;
+    private final long playouts;
+    private final long wins;
+    private final long elapsedNanos;
+
+    public PlayoutEstimate(Position puzzle, long playouts, long wins, long elapsedNanos) {
+        this.puzzle = puzzle;
+        this.playouts = playouts;
+        this.wins = wins;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the estimated probability that random play wins the puzzle.
+     *
+     * @return The share of playouts won.
+     */
+    public double getWinProbability() {
+        return playouts > 0 ? (double) wins / playouts : 0;
+    }
+
+    /**
+     * Gets the lower bound of the Wilson score interval of the win probability.
+     *
+     * @param z The normal quantile of the confidence level, e.g. {@link #Z_95}.
+     * @return The lower bound.
+     */
+    public double getLowerBound(double z) {
+        return wilsonCenter(z) - wilsonHalfWidth(z);
+    }
+
+    /**
+     * Gets the upper bound of the Wilson score interval of the win probability.
+     *
+     * @param z The normal quantile of the confidence level, e.g. {@link #Z_95}.
+     * @return The upper bound.
+     */
+    public double getUpperBound(double z) {
+        return wilsonCenter(z) + wilsonHalfWidth(z);
+    }
+
+    private double wilsonCenter(double z) {
+        if (playouts == 0) {
+            return 0.5;
+        }
+        double p = getWinProbability();
+        return (p + z * z / (2 * playouts)) / (1 + z * z / playouts);
+    }
+
+    private double wilsonHalfWidth(double z) {
+        if (playouts == 0) {
+            return 0.5;
+        }
+        double p = getWinProbability();
+        return z / (1 + z * z / playouts) * Math.sqrt(p * (1 - p) / playouts + z * z / (4.0 * playouts * playouts));
+    }
+
+    public Position getPuzzle() {
+        return puzzle;
+    }
+
+    public long getPlayouts() {
+        return playouts;
+    }
+
+    public long getWins() {
+        return wins;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.4f%% [%.4f%%, %.4f%%] (%d/%d)", 100 * getWinProbability(), 100 * getLowerBound(Z_95),
+            100 * getUpperBound(Z_95), wins, playouts);
+    }
+}
@@ -0,0 +1,135 @@
+package savetheking.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Estimates how often a casual player stumbles into a win by playing random capture sequences.
+ *
+ * Where {@link DifficultyEstimator} computes the win probability of random play exactly by walking every
+ * reachable position, which gets slow past a dozen pieces, this estimator samples it: it plays many random
+ * games with {@link Position#playout(java.util.SplittableRandom, byte[], int[])}, which plays in place
+ * without allocating, and reports the share of wins with a confidence interval ({@link PlayoutEstimate}).
+ * The playouts of a puzzle are split into batches run in parallel, each with a generator split from the
+ * seed, so estimates are reproducible for a given seed whatever the thread count.
+ */
+public class PlayoutEstimator {
+    private static final int PLAYOUTS_PER_BATCH = 4096;
+
+    private final int threads;
+
+    /**
+     * Creates an estimator.
+     *
+     * @param threads The number of threads running playouts.
+     */
+    public PlayoutEstimator(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Estimates the win probability of random play on a puzzle.
+     *
+     * @param puzzle   The puzzle.
+     * @param playouts The number of random games to play.
+     * @param seed     The seed of the random choices.
+     * @return The estimate.
+     * @throws IllegalStateException if the work is interrupted or fails.
+     */
+    public PlayoutEstimate estimate(Position puzzle, long playouts, long seed) {
+        return estimate(Arrays.asList(puzzle), playouts, seed).get(0);
+    }
+
+    /**
+     * Estimates the win probability of random play on every puzzle of a pack, sharing one thread pool.
+     *
+     * @param puzzles  The puzzles.
+     * @param playouts The number of random games to play on each puzzle.
+     * @param seed     The seed of the random choices.
+     * @return The estimates, in puzzle order.
+     * @throws IllegalStateException if the work is interrupted or fails.
+     */
+    public List<PlayoutEstimate> estimate(List<Position> puzzles, long playouts, long seed) {
+        if (playouts < 0) {
+            throw new IllegalArgumentException("Playout count must not be negative: " + playouts);
+        }
+        SplittableRandom master = new SplittableRandom(seed);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<PlayoutEstimate> estimates = new ArrayList<PlayoutEstimate>();
+            for (final Position puzzle : puzzles) {
+                long startNanos = System.nanoTime();
+                List<Future<Long>> batches = new ArrayList<Future<Long>>();
+                for (long first = 0; first < playouts; first += PLAYOUTS_PER_BATCH) {
+                    final SplittableRandom random = master.split();
+                    final long count = Math.min(PLAYOUTS_PER_BATCH, playouts - first);
+                    batches.add(executor.submit(new Callable<Long>() {
+                        @Override
+                        public Long call() {
+                            return playBatch(puzzle, random, count);
+                        }
+                    }));
+                }
+                long wins = 0;
+                for (Future<Long> batch : batches) {
+                    wins += batch.get();
+                }
+                estimates.add(new PlayoutEstimate(puzzle, playouts, wins, System.nanoTime() - startNanos));
+            }
+            return estimates;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Playouts interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Playouts failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays a batch of random games; the buffers are allocated once for the whole batch.
+     *
+     * @return The number of games won.
+     */
+    private static long playBatch(Position puzzle, SplittableRandom random, long playouts) {
+        byte[] scratch = puzzle.newPlayoutBuffer();
+        int[] moves = puzzle.newMoveBuffer();
+        long wins = 0;
+        for (long i = 0; i < playouts; i++) {
+            if (puzzle.playout(random, scratch, moves) == 1) {
+                wins++;
+            }
+        }
+        return wins;
+    }
+
+    /**
+     * Estimates the win probability of random play on a set of puzzles and prints it with its 95% confidence interval.
+     * Arguments: the number of playouts per puzzle, then the puzzles as FENs; the solver corpus by default.
+     */
+    public static void main(String[] args) {
+        long playouts = args.length > 0 ? Long.parseLong(args[0]) : 100000;
+        String[] fens = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) : SolverBenchmark.CORPUS;
+        List<Position> puzzles = new ArrayList<Position>();
+        for (String fen : fens) {
+            puzzles.add(Position.fromFen(fen));
+        }
+        List<PlayoutEstimate> estimates = new PlayoutEstimator(Runtime.getRuntime().availableProcessors())
+            .estimate(puzzles, playouts, 47);
+        for (PlayoutEstimate estimate : estimates) {
+            System.out.printf("%-56s %s in %d ms%n", estimate.getPuzzle().toFen(), estimate,
+                estimate.getElapsedNanos() / 1000000);
+        }
+    }
+}
@@ -61,7 +61,18 @@ public class Point {
      * @return true si le point est dans les limites, sinon false.
      */
     public boolean isWithinBounds(int boardSize) {
-        return x >= 0 && x < boardSize && y >= 0 && y < boardSize;
+        return isWithinBounds(boardSize, boardSize);
+    }
+
+    /**
+     * Vérifie si ce point est dans les limites d'un échiquier rectangulaire.
+     *
+     * @param rows    Le nombre de lignes de l'échiquier.
+     * @param columns Le nombre de colonnes de l'échiquier.
+     * @return true si le point est dans les limites, sinon false.
+     */
+    public boolean isWithinBounds(int rows, int columns) {
+        return x >= 0 && x < rows && y >= 0 && y < columns;
     }
 
     /**
@@ -72,11 +83,24 @@ public class Point {
      * @throws IllegalArgumentException si les coordonnées sont hors des limites.
      */
     public String toChessNotation(int boardSize) {
-        if (isWithinBounds(boardSize)) {
+        return toChessNotation(boardSize, boardSize);
+    }
+
+    /**
+     * Convertit les coordonnées (x, y) en notation échiquéenne sur un échiquier rectangulaire
+     * (par exemple, a1 ou l12 sur un échiquier 12x12). La rangée 1 est la dernière ligne.
+     *
+     * @param rows    Le nombre de lignes de l'échiquier.
+     * @param columns Le nombre de colonnes de l'échiquier.
+     * @return La notation échiquéenne correspondant à ce point.
+     * @throws IllegalArgumentException si les coordonnées sont hors des limites.
+     */
+    public String toChessNotation(int rows, int columns) {
+        if (!isWithinBounds(rows, columns)) {
             throw new IllegalArgumentException("Les coordonnées (" + x + ", " + y + ") sont hors des limites de l'échiquier.");
         }
-        char file = (char) ('a' + y); // Convertit y (colonne) en lettre (a-h)
-        int rank = boardSize - x;    // Convertit x (ligne) en rangée (1-8)
+        char file = (char) ('a' + y); // Convertit y (colonne) en lettre
+        int rank = rows - x;         // Convertit x (ligne) en rangée, la dernière ligne étant la rangée 1
         return "" + file + rank;
     }
 
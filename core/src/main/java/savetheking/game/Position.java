@@ -0,0 +1,777 @@
+package savetheking.game;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compact, immutable snapshot of a Solo Chess position, used by the solver and its caches.
+ * Each square is stored in a single byte holding the piece kind in the low bits
+ * and the number of moves already made by that piece in the high bits, so two positions
+ * are equal only if they have the same pieces on the same squares with the same move counts.
+ *
+ * Squares are indexed row by row: {@code square = x * columns + y}, matching {@link Point}.
+ * Every position carries the {@link RuleSet} it is played under; positions under different
+ * rules are never equal.
+ * Internally the cells are kept in a padded mailbox, the board surrounded by off-board
+ * markers, so that move generation needs no bounds check on boards of any size.
+ */
+public final class Position {
+    public static final byte EMPTY = 0;
+    public static final byte PAWN = 1;
+    public static final byte KNIGHT = 2;
+    public static final byte BISHOP = 3;
+    public static final byte ROOK = 4;
+    public static final byte QUEEN = 5;
+    public static final byte KING = 6;
+
+    /**
+     * Upper bound on the captures a single piece can have (eight rays or eight jumps).
+     */
+    public static final int MAX_CAPTURES_PER_PIECE = 8;
+
+    private static final int KIND_MASK = 0x7;
+    private static final int MOVES_SHIFT = 3;
+    private static final String FEN_PIECES = " pnbrqk";
+
+    /**
+     * Marks the squares of the mailbox border. It is negative while every real cell is not,
+     * so a single sign test tells pieces apart from both empty and off-board squares.
+     */
+    private static final byte OFF_BOARD = -1;
+
+    private static final int[][] KNIGHT_OFFSETS = {
+        {-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}
+    };
+    private static final int[][] KING_OFFSETS = {
+        {-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}
+    };
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private final int rows;
+    private final int columns;
+    private final Mailbox mailbox;
+    private final byte[] cells; // Padded, see Mailbox
+    private final RuleSet rules;
+    private final int pawnDirection;
+    private final int pieceCount;
+    private final int hash;
+    private Position canonical; // Lazily computed; racing threads compute equal values
+
+    /**
+     * Creates a position from its raw cells. The array is owned by the new position.
+     *
+     * @param rows          The number of rows of the board.
+     * @param columns       The number of columns of the board.
+     * @param cells         One cell per square, see {@link #cell(int, int)}.
+     * @param pawnDirection The row direction pawns move towards (-1 or 1).
+     */
+    Position(int rows, int columns, byte[] cells, int pawnDirection) {
+        this(rows, columns, cells, pawnDirection, RuleSet.STANDARD);
+    }
+
+    /**
+     * Creates a position played under the given rules from its raw cells. The array is owned by the new position.
+     *
+     * @param rows          The number of rows of the board.
+     * @param columns       The number of columns of the board.
+     * @param cells         One cell per square, see {@link #cell(int, int)}.
+     * @param pawnDirection The row direction pawns move towards (-1 or 1).
+     * @param rules         The rules the position is played under.
+     */
+    Position(int rows, int columns, byte[] cells, int pawnDirection, RuleSet rules) {
+        this(Mailbox.of(rows, columns), Mailbox.of(rows, columns).pad(cells), pawnDirection, rules);
+    }
+
+    private Position(Mailbox mailbox, byte[] cells, int pawnDirection, RuleSet rules) {
+        this.rows = mailbox.rows;
+        this.columns = mailbox.columns;
+        this.mailbox = mailbox;
+        this.cells = cells;
+        this.rules = rules;
+        this.pawnDirection = pawnDirection;
+        int count = 0;
+        for (byte cell : cells) {
+            if (cell > 0) {
+                count++;
+            }
+        }
+        this.pieceCount = count;
+        this.hash = 31 * (31 * (31 * (31 * rows + columns) + pawnDirection) + rules.hashCode()) + Arrays.hashCode(cells);
+    }
+
+    /**
+     * Builds a position from the pieces currently on a board, under the rules of the board.
+     *
+     * @param board The board to snapshot.
+     * @return The corresponding position.
+     */
+    public static Position fromBoard(Board board) {
+        int rows = board.getRowCount();
+        int columns = board.getColumnCount();
+        RuleSet rules = board.getRuleSet();
+        byte[] cells = new byte[rows * columns];
+        int pawnDirection = -1;
+        boolean pawnSeen = false;
+        for (int x = 0; x < rows; x++) {
+            for (int y = 0; y < columns; y++) {
+                Piece piece = board.getPieceAt(x, y);
+                if (piece == null) {
+                    continue;
+                }
+                if (piece.getKind() == PieceKind.PAWN && !pawnSeen) {
+                    pawnDirection = ((Pawn) piece).getDirection();
+                    pawnSeen = true;
+                }
+                int moves = Math.min(piece.getMoveCount(), rules.getMoveLimit());
+                cells[x * columns + y] = cell(kindOf(piece), moves);
+            }
+        }
+        return new Position(rows, columns, cells, pawnDirection, rules);
+    }
+
+    /**
+     * Parses a position from FEN-like text. The first field is the usual piece placement,
+     * the first rank being row 0. An optional second field lists, in placement order,
+     * one digit per piece giving the number of moves it already made (all zero if absent);
+     * move limits above 9 use hexadecimal digits.
+     * Uppercase pawns move towards row 0 and lowercase pawns towards the last row;
+     * all pawns of a position are expected to move the same way.
+     *
+     * @param fen The text to parse, e.g. "3RR3/N2R4/1N2N3/1QB1K2Q/R2N1BQ1/N1B1RN2/2BQR3/2NR2B1".
+     * @return The parsed position, under the {@link RuleSet#STANDARD standard} rules.
+     * @throws IllegalArgumentException if the text is not a valid placement.
+     */
+    public static Position fromFen(String fen) {
+        return fromFen(fen, RuleSet.STANDARD);
+    }
+
+    /**
+     * Parses a position from FEN-like text, see {@link #fromFen(String)}.
+     *
+     * @param fen   The text to parse.
+     * @param rules The rules the position is played under.
+     * @return The parsed position.
+     * @throws IllegalArgumentException if the text is not a valid placement or a move count exceeds the move limit.
+     */
+    public static Position fromFen(String fen, RuleSet rules) {
+        String[] fields = fen.trim().split("\\s+");
+        String[] ranks = fields[0].split("/");
+        int rows = ranks.length;
+        int columns = rankWidth(ranks[0]);
+        byte[] cells = new byte[rows * columns];
+        String moveCounts = fields.length > 1 && !"-".equals(fields[1]) ? fields[1] : "";
+        int pawnDirection = -1;
+        boolean pawnSeen = false;
+        int pieceIndex = 0;
+
+        for (int x = 0; x < rows; x++) {
+            if (rankWidth(ranks[x]) != columns) {
+                throw new IllegalArgumentException("Rank " + (x + 1) + " of " + fen + " does not have " + columns + " squares.");
+            }
+            int y = 0;
+            for (int i = 0; i < ranks[x].length(); i++) {
+                char c = ranks[x].charAt(i);
+                if (Character.isDigit(c)) {
+                    int empty = 0;
+                    while (i < ranks[x].length() && Character.isDigit(ranks[x].charAt(i))) {
+                        empty = empty * 10 + (ranks[x].charAt(i) - '0');
+                        i++;
+                    }
+                    i--;
+                    y += empty;
+                    continue;
+                }
+                int kind = kindOf(c);
+                if (kind == EMPTY) {
+                    throw new IllegalArgumentException("Unknown piece '" + c + "' in " + fen);
+                }
+                if (kind == PAWN && !pawnSeen) {
+                    pawnDirection = Character.isUpperCase(c) ? -1 : 1;
+                    pawnSeen = true;
+                }
+                int moves = pieceIndex < moveCounts.length() ? Character.digit(moveCounts.charAt(pieceIndex), 16) : 0;
+                if (moves < 0 || moves > rules.getMoveLimit()) {
+                    throw new IllegalArgumentException("Invalid move count for piece " + (pieceIndex + 1) + " in " + fen);
+                }
+                cells[x * columns + y] = cell(kind, moves);
+                pieceIndex++;
+                y++;
+            }
+        }
+        return new Position(rows, columns, cells, pawnDirection, rules);
+    }
+
+    private static int rankWidth(String rank) {
+        int width = 0;
+        for (int i = 0; i < rank.length(); i++) {
+            char c = rank.charAt(i);
+            if (Character.isDigit(c)) {
+                int empty = 0;
+                while (i < rank.length() && Character.isDigit(rank.charAt(i))) {
+                    empty = empty * 10 + (rank.charAt(i) - '0');
+                    i++;
+                }
+                i--;
+                width += empty;
+            } else {
+                width++;
+            }
+        }
+        return width;
+    }
+
+    /**
+     * Formats this position with the syntax accepted by {@link #fromFen(String)}. The rules are not part of the text.
+     * Pieces are written in uppercase unless pawns move towards the last row;
+     * the move-count field is only written when a piece has already moved.
+     *
+     * @return The FEN-like text of this position.
+     */
+    public String toFen() {
+        StringBuilder placement = new StringBuilder();
+        StringBuilder moveCounts = new StringBuilder();
+        boolean anyMoved = false;
+        for (int x = 0; x < rows; x++) {
+            if (x > 0) {
+                placement.append('/');
+            }
+            int empty = 0;
+            for (int y = 0; y < columns; y++) {
+                byte cell = getCell(x * columns + y);
+                if (cell == EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    placement.append(empty);
+                    empty = 0;
+                }
+                char c = FEN_PIECES.charAt(kind(cell));
+                placement.append(pawnDirection < 0 ? Character.toUpperCase(c) : c);
+                moveCounts.append(Character.forDigit(moves(cell), 16));
+                anyMoved |= moves(cell) > 0;
+            }
+            if (empty > 0) {
+                placement.append(empty);
+            }
+        }
+        return anyMoved ? placement + " " + moveCounts : placement.toString();
+    }
+
+    /**
+     * Encodes a piece kind and its move count into a cell.
+     *
+     * @param kind  The piece kind, e.g. {@link #ROOK}.
+     * @param moves The number of moves already made by the piece.
+     * @return The cell value.
+     */
+    public static byte cell(int kind, int moves) {
+        return (byte) (kind | (moves << MOVES_SHIFT));
+    }
+
+    /**
+     * Gets the piece kind stored in a cell.
+     *
+     * @param cell The cell value.
+     * @return The piece kind, or {@link #EMPTY}.
+     */
+    public static int kind(byte cell) {
+        return cell & KIND_MASK;
+    }
+
+    /**
+     * Gets the move count stored in a cell.
+     *
+     * @param cell The cell value.
+     * @return The number of moves already made by the piece.
+     */
+    public static int moves(byte cell) {
+        return (cell & 0xFF) >>> MOVES_SHIFT;
+    }
+
+    /**
+     * Maps a piece of the object model to its kind.
+     *
+     * @param piece The piece.
+     * @return The piece kind.
+     */
+    public static int kindOf(Piece piece) {
+        return piece.getKind().getCode();
+    }
+
+    /**
+     * Maps a FEN letter to its piece kind, ignoring case.
+     *
+     * @param fenChar The FEN letter.
+     * @return The piece kind, or {@link #EMPTY} if the letter is not a piece.
+     */
+    public static int kindOf(char fenChar) {
+        int index = FEN_PIECES.indexOf(Character.toLowerCase(fenChar));
+        return index > 0 ? index : EMPTY;
+    }
+
+    /**
+     * Maps a piece kind to its uppercase FEN letter.
+     *
+     * @param kind The piece kind.
+     * @return The FEN letter, or a space for {@link #EMPTY}.
+     */
+    public static char fenChar(int kind) {
+        return Character.toUpperCase(FEN_PIECES.charAt(kind));
+    }
+
+    /**
+     * Packs a move into an int.
+     *
+     * @param from The square of the moving piece.
+     * @param to   The square of the captured piece.
+     * @return The packed move.
+     */
+    public static int encodeMove(int from, int to) {
+        return (from << 16) | to;
+    }
+
+    public static int moveFrom(int move) {
+        return move >>> 16;
+    }
+
+    public static int moveTo(int move) {
+        return move & 0xFFFF;
+    }
+
+    /**
+     * Generates every legal move of this position. A piece may move as long as it has moves
+     * remaining under the rules, and any piece may be captured except the king when it must be
+     * the last piece standing. Under capture-only rules, the standard ones, every move is a capture;
+     * otherwise pieces may also move to empty squares, pawns one square straight ahead.
+     *
+     * @param moves The buffer receiving the packed moves, e.g. from {@link #newMoveBuffer()}.
+     * @return The number of moves written.
+     */
+    public int generateMoves(int[] moves) {
+        return generateMoves(cells, moves);
+    }
+
+    /**
+     * Generates the legal moves of the given cells, laid out in the mailbox of this position.
+     */
+    private int generateMoves(byte[] cells, int[] moves) {
+        int[] indices = mailbox.indices;
+        int limit = rules.getMoveLimit();
+        boolean quiet = !rules.isCaptureOnly();
+        int count = 0;
+        for (int square = 0; square < indices.length; square++) {
+            int from = indices[square];
+            byte cell = cells[from];
+            if (cell == EMPTY || moves(cell) >= limit) {
+                continue;
+            }
+            switch (kind(cell)) {
+                case PAWN:
+                    int forward = from + pawnDirection * mailbox.width;
+                    count = addStep(cells, square, forward - 1, false, moves, count);
+                    count = addStep(cells, square, forward + 1, false, moves, count);
+                    if (quiet && cells[forward] == EMPTY) {
+                        moves[count++] = encodeMove(square, mailbox.squares[forward]);
+                    }
+                    break;
+                case KNIGHT:
+                    for (int step : mailbox.knightSteps) {
+                        count = addStep(cells, square, from + step, quiet, moves, count);
+                    }
+                    break;
+                case KING:
+                    for (int step : mailbox.kingSteps) {
+                        count = addStep(cells, square, from + step, quiet, moves, count);
+                    }
+                    break;
+                case BISHOP:
+                    count = addSlides(cells, square, from, mailbox.bishopSteps, quiet, moves, count);
+                    break;
+                case ROOK:
+                    count = addSlides(cells, square, from, mailbox.rookSteps, quiet, moves, count);
+                    break;
+                case QUEEN:
+                    count = addSlides(cells, square, from, mailbox.rookSteps, quiet, moves, count);
+                    count = addSlides(cells, square, from, mailbox.bishopSteps, quiet, moves, count);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return count;
+    }
+
+    private int addStep(byte[] cells, int square, int target, boolean quiet, int[] moves, int count) {
+        byte cell = cells[target];
+        if (isCapturable(cell) || (quiet && cell == EMPTY)) {
+            moves[count++] = encodeMove(square, mailbox.squares[target]);
+        }
+        return count;
+    }
+
+    private int addSlides(byte[] cells, int square, int from, int[] steps, boolean quiet, int[] moves, int count) {
+        for (int step : steps) {
+            int target = from + step;
+            while (cells[target] == EMPTY) {
+                if (quiet) {
+                    moves[count++] = encodeMove(square, mailbox.squares[target]);
+                }
+                target += step; // The border stops the ray, see OFF_BOARD
+            }
+            if (isCapturable(cells[target])) {
+                moves[count++] = encodeMove(square, mailbox.squares[target]);
+            }
+        }
+        return count;
+    }
+
+    private boolean isCapturable(byte cell) {
+        return cell > 0 && (kind(cell) != KING || !rules.isKingLast());
+    }
+
+    /**
+     * Allocates a buffer large enough for {@link #generateMoves(int[])}.
+     *
+     * @return A new move buffer.
+     */
+    public int[] newMoveBuffer() {
+        int perPiece = rules.isCaptureOnly() ? MAX_CAPTURES_PER_PIECE : Math.max(MAX_CAPTURES_PER_PIECE, 2 * (rows + columns));
+        return new int[Math.max(1, pieceCount * perPiece)];
+    }
+
+    /**
+     * Plays a move and returns the resulting position; this position is left unchanged.
+     *
+     * @param move A packed move, as produced by {@link #generateMoves(int[])}.
+     * @return The position after the move.
+     */
+    public Position play(int move) {
+        int from = mailbox.indices[moveFrom(move)];
+        int to = mailbox.indices[moveTo(move)];
+        byte mover = cells[from];
+        byte[] next = cells.clone();
+        next[from] = EMPTY;
+        next[to] = cell(kind(mover), moves(mover) + 1);
+        return new Position(mailbox, next, pawnDirection, rules);
+    }
+
+    /**
+     * Plays a game from this position picking every move uniformly at random, without allocating anything:
+     * the game is played in place on a scratch copy of the cells. Used to estimate how often a casual player
+     * stumbles into a win, see {@link PlayoutEstimator}.
+     *
+     * @param random  The source of the move choices.
+     * @param scratch A buffer from {@link #newPlayoutBuffer()}, overwritten.
+     * @param moves   A buffer from {@link #newMoveBuffer()}, overwritten.
+     * @return The number of pieces left once no move is possible or a single piece remains; 1 means the game was won.
+     */
+    public int playout(SplittableRandom random, byte[] scratch, int[] moves) {
+        System.arraycopy(cells, 0, scratch, 0, cells.length);
+        int pieces = pieceCount;
+        while (pieces > 1) {
+            int count = generateMoves(scratch, moves);
+            if (count == 0) {
+                break;
+            }
+            int move = moves[random.nextInt(count)];
+            int from = mailbox.indices[moveFrom(move)];
+            int to = mailbox.indices[moveTo(move)];
+            byte mover = scratch[from];
+            if (scratch[to] != EMPTY) {
+                pieces--;
+            }
+            scratch[to] = cell(kind(mover), moves(mover) + 1);
+            scratch[from] = EMPTY;
+        }
+        return pieces;
+    }
+
+    /**
+     * Allocates the scratch buffer of {@link #playout(SplittableRandom, byte[], int[])}.
+     * It fits every position of the same board shape.
+     *
+     * @return A new playout buffer.
+     */
+    public byte[] newPlayoutBuffer() {
+        return new byte[cells.length];
+    }
+
+    /**
+     * Checks whether this position is won, i.e. a single piece remains.
+     * The king can never be captured, so if there is one it is the piece left.
+     *
+     * @return true if the puzzle is solved.
+     */
+    public boolean isSolved() {
+        return pieceCount == 1;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getSquareCount() {
+        return mailbox.indices.length;
+    }
+
+    public int getPieceCount() {
+        return pieceCount;
+    }
+
+    public int getPawnDirection() {
+        return pawnDirection;
+    }
+
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    /**
+     * Gets the same placement played under other rules.
+     *
+     * @param rules The rules to play under.
+     * @return The position under those rules, possibly this instance.
+     */
+    public Position withRules(RuleSet rules) {
+        return rules.equals(this.rules) ? this : new Position(mailbox, cells, pawnDirection, rules); // Cells are never modified, so they can be shared
+    }
+
+    /**
+     * Checks whether a pawn is on the board.
+     *
+     * @return true if at least one square holds a pawn.
+     */
+    public boolean hasPawns() {
+        for (byte cell : cells) {
+            if (cell > 0 && kind(cell) == PAWN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the canonical representative of this position among its symmetric images.
+     * Without pawns every {@link Symmetry} keeping the board shape is used (all eight on a
+     * square board); with pawns only the left-right mirror is, since pawns have a direction.
+     * Symmetric positions share the same canonical form, which makes it the key to use
+     * for transposition tables, verdict caches and duplicate detection.
+     *
+     * @return The canonical position, possibly this instance.
+     */
+    public Position canonical() {
+        Position result = canonical;
+        if (result == null) {
+            result = computeCanonical();
+            canonical = result;
+        }
+        return result;
+    }
+
+    private Position computeCanonical() {
+        boolean pawns = hasPawns();
+        int[][] tables = Symmetry.sourceTables(rows, columns);
+        int[] best = tables[Symmetry.IDENTITY.ordinal()];
+        for (Symmetry symmetry : Symmetry.values()) {
+            int[] table = tables[symmetry.ordinal()];
+            if (table == null || (pawns && !symmetry.keepsPawnDirection())) {
+                continue;
+            }
+            if (compareImages(table, best) < 0) {
+                best = table;
+            }
+        }
+
+        int direction = pawns ? pawnDirection : -1; // Pawn direction is meaningless without pawns
+        if (best == tables[Symmetry.IDENTITY.ordinal()] && direction == pawnDirection) {
+            return this;
+        }
+        byte[] image = new byte[best.length];
+        for (int i = 0; i < image.length; i++) {
+            image[i] = getCell(best[i]);
+        }
+        Position result = new Position(rows, columns, image, direction, rules);
+        result.canonical = result;
+        return result;
+    }
+
+    /**
+     * Compares lexicographically the images of this position under two symmetries.
+     */
+    private int compareImages(int[] first, int[] second) {
+        int[] indices = mailbox.indices;
+        for (int i = 0; i < indices.length; i++) {
+            int difference = cells[indices[first[i]]] - cells[indices[second[i]]];
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the raw cell of a square.
+     *
+     * @param square The square index.
+     * @return The cell value, see {@link #cell(int, int)}.
+     */
+    public byte getCell(int square) {
+        return cells[mailbox.indices[square]];
+    }
+
+    /**
+     * Writes this position in the binary format read by {@link #readFrom(DataInput)}.
+     * The rules are not written: they belong to the game, board or cache storing the position.
+     *
+     * @param out The output to write to.
+     * @throws IOException if writing fails.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(rows);
+        out.writeByte(columns);
+        out.writeByte(pawnDirection);
+        byte[] squares = new byte[getSquareCount()];
+        for (int square = 0; square < squares.length; square++) {
+            squares[square] = getCell(square);
+        }
+        out.write(squares);
+    }
+
+    /**
+     * Reads a position written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in The input to read from.
+     * @return The position read, under the {@link RuleSet#STANDARD standard} rules.
+     * @throws IOException if reading fails.
+     */
+    public static Position readFrom(DataInput in) throws IOException {
+        return readFrom(in, RuleSet.STANDARD);
+    }
+
+    /**
+     * Reads a position written by {@link #writeTo(DataOutput)}, played under the given rules.
+     *
+     * @param in    The input to read from.
+     * @param rules The rules stored alongside the position.
+     * @return The position read.
+     * @throws IOException if reading fails.
+     */
+    public static Position readFrom(DataInput in, RuleSet rules) throws IOException {
+        int rows = in.readUnsignedByte();
+        int columns = in.readUnsignedByte();
+        int pawnDirection = in.readByte();
+        byte[] cells = new byte[rows * columns];
+        in.readFully(cells);
+        return new Position(rows, columns, cells, pawnDirection, rules);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        Position other = (Position) obj;
+        return hash == other.hash && rows == other.rows && columns == other.columns
+            && pawnDirection == other.pawnDirection && rules.equals(other.rules) && Arrays.equals(cells, other.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return toFen();
+    }
+
+    /**
+     * The layout of the padded mailbox of a board shape, shared by every position of that shape.
+     * The board is stored row by row with one extra column on each side and two extra rows above
+     * and below, all holding {@link #OFF_BOARD}. A knight jumps at most two squares; sideways it
+     * lands on the extra column of the row or on the one of the next row, which sit side by side.
+     */
+    private static final class Mailbox {
+        private static final int BORDER = 2;
+        private static final ConcurrentMap<Integer, Mailbox> SHAPES = new ConcurrentHashMap<Integer, Mailbox>();
+
+        final int rows;
+        final int columns;
+        final int width; // Mailbox index of (x, y) is (x + BORDER) * width + y + 1
+        final int[] indices; // Square -> mailbox index
+        final int[] squares; // Mailbox index -> square, -1 on the border
+        final int[] knightSteps;
+        final int[] kingSteps;
+        final int[] rookSteps;
+        final int[] bishopSteps;
+
+        private Mailbox(int rows, int columns) {
+            this.rows = rows;
+            this.columns = columns;
+            this.width = columns + 2;
+            this.indices = new int[rows * columns];
+            this.squares = new int[(rows + 2 * BORDER) * width];
+            Arrays.fill(squares, -1);
+            for (int x = 0; x < rows; x++) {
+                for (int y = 0; y < columns; y++) {
+                    int index = (x + BORDER) * width + y + 1;
+                    indices[x * columns + y] = index;
+                    squares[index] = x * columns + y;
+                }
+            }
+            this.knightSteps = steps(KNIGHT_OFFSETS);
+            this.kingSteps = steps(KING_OFFSETS);
+            this.rookSteps = steps(ROOK_DIRECTIONS);
+            this.bishopSteps = steps(BISHOP_DIRECTIONS);
+        }
+
+        static Mailbox of(int rows, int columns) {
+            if (rows <= 0 || columns <= 0 || rows > 255 || columns > 255) {
+                throw new IllegalArgumentException("Unsupported board size: " + rows + "x" + columns);
+            }
+            Integer key = rows * 1024 + columns;
+            Mailbox mailbox = SHAPES.get(key);
+            if (mailbox == null) {
+                mailbox = new Mailbox(rows, columns);
+                Mailbox previous = SHAPES.putIfAbsent(key, mailbox);
+                if (previous != null) {
+                    mailbox = previous;
+                }
+            }
+            return mailbox;
+        }
+
+        /**
+         * Copies cells given in square order into a new mailbox.
+         */
+        byte[] pad(byte[] cells) {
+            if (cells.length != indices.length) {
+                throw new IllegalArgumentException("Expected " + indices.length + " cells, got " + cells.length);
+            }
+            byte[] padded = new byte[squares.length];
+            Arrays.fill(padded, OFF_BOARD);
+            for (int square = 0; square < cells.length; square++) {
+                padded[indices[square]] = cells[square];
+            }
+            return padded;
+        }
+
+        private int[] steps(int[][] offsets) {
+            int[] steps = new int[offsets.length];
+            for (int i = 0; i < offsets.length; i++) {
+                steps[i] = offsets[i][0] * width + offsets[i][1];
+            }
+            return steps;
+        }
+    }
+}
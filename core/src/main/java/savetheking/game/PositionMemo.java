@@ -0,0 +1,107 @@
+package savetheking.game;
+
+/**
+ * Memo of one long value per position, used by the searches that walk every position reachable from a puzzle.
+ *
+ * It is an open-addressing table of primitive longs keyed by a 64-bit hash of the position, which keeps
+ * lookups to a couple of array reads instead of comparing whole positions. Two distinct positions sharing
+ * a hash would share a value; with a few million positions the odds are below one in a billion.
+ * A memo is not thread-safe.
+ */
+final class PositionMemo {
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    private long[] table = new long[2 * INITIAL_CAPACITY]; // Key then value per slot, side by side; key 0 marks a free slot
+    private int size;
+
+    /**
+     * Gets the value stored for a key.
+     *
+     * @param key    The key, from {@link #hash(Position)}.
+     * @param absent The value returned when the key is not stored.
+     * @return The stored value, or the absent value.
+     */
+    long get(long key, long absent) {
+        int slot = find(table, key);
+        return table[slot] == key ? table[slot + 1] : absent;
+    }
+
+    /**
+     * Stores the value of a key, replacing any previous value.
+     *
+     * @param key   The key, from {@link #hash(Position)}.
+     * @param value The value.
+     */
+    void put(long key, long value) {
+        if (4 * (size + 1) > table.length) { // Keep the load factor at most 1/2
+            long[] old = table;
+            table = new long[old.length * 2];
+            for (int i = 0; i < old.length; i += 2) {
+                if (old[i] != 0) {
+                    int slot = find(table, old[i]);
+                    table[slot] = old[i];
+                    table[slot + 1] = old[i + 1];
+                }
+            }
+        }
+        int slot = find(table, key);
+        if (table[slot] == 0) {
+            size++;
+        }
+        table[slot] = key;
+        table[slot + 1] = value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        table = new long[2 * INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    /**
+     * Finds the index of a key in a table, or of the free slot where it belongs.
+     * The key and its value share a cache line, so a lookup costs a single memory access.
+     */
+    private static int find(long[] table, long key) {
+        int mask = table.length - 2;
+        int slot = (int) key << 1 & mask;
+        while (table[slot] != 0 && table[slot] != key) {
+            slot = (slot + 2) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Hashes a position to 64 bits, never 0: each piece contributes a mix of its square and cell, so the hash
+     * does not depend on the order squares are visited in, then the shape, pawn direction and rules are mixed in.
+     *
+     * @param position The position.
+     * @return The key of the position.
+     */
+    static long hash(Position position) {
+        long hash = 0;
+        for (int square = 0; square < position.getSquareCount(); square++) {
+            byte cell = position.getCell(square);
+            if (cell != Position.EMPTY) {
+                hash += mix((long) square << 8 | cell);
+            }
+        }
+        long shape = ((long) position.getRows() << 40) ^ ((long) position.getColumns() << 24)
+            ^ ((long) position.getPawnDirection() << 16) ^ position.getRules().hashCode();
+        hash = mix(hash ^ mix(shape));
+        return hash != 0 ? hash : 1;
+    }
+
+    /**
+     * The SplitMix64 finalizer, spreading every input bit over the whole result.
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
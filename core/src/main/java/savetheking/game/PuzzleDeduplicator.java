@@ -0,0 +1,60 @@
+package savetheking.game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Detects puzzles that are the same position up to a board symmetry.
+ * Puzzles are keyed by their {@link Position#canonical() canonical form}, so a puzzle
+ * and its mirror or rotated image count as one. Safe to share between threads.
+ */
+public class PuzzleDeduplicator {
+    private final Set<Position> seen = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Registers a puzzle.
+     *
+     * @param position The puzzle position.
+     * @return true if no symmetric image of this puzzle was registered before.
+     */
+    public boolean add(Position position) {
+        return seen.add(position.canonical());
+    }
+
+    /**
+     * Checks whether a puzzle, or one of its symmetric images, was already registered.
+     *
+     * @param position The puzzle position.
+     * @return true if the puzzle is a duplicate.
+     */
+    public boolean contains(Position position) {
+        return seen.contains(position.canonical());
+    }
+
+    /**
+     * Filters a list of puzzles, keeping the first occurrence of each.
+     *
+     * @param fens The puzzles, in the syntax of {@link Position#fromFen(String)}.
+     * @return The puzzles that were not duplicates, in their original order.
+     */
+    public List<String> deduplicate(List<String> fens) {
+        List<String> unique = new ArrayList<String>();
+        for (String fen : fens) {
+            if (add(Position.fromFen(fen))) {
+                unique.add(fen);
+            }
+        }
+        return unique;
+    }
+
+    /**
+     * Gets the number of distinct puzzles registered.
+     *
+     * @return The number of canonical positions seen.
+     */
+    public int size() {
+        return seen.size();
+    }
+}
@@ -0,0 +1,301 @@
+package savetheking.game;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates puzzles within a band of difficulty by simulated annealing over positions.
+ *
+ * Each chain starts from a random solvable position and repeatedly mutates it: a piece is moved to an
+ * empty square, added, removed, or swapped for a piece of another kind. Every candidate is rated with a
+ * {@link DifficultyEstimator}; unsolvable candidates are rejected outright, and the others are scored by
+ * how far their difficulty lies outside the band. A candidate closer to the band is always accepted, and
+ * one further away is accepted with probability {@code exp(-increase / temperature)}, the temperature
+ * falling geometrically over the chain, so chains roam freely at first and settle into the band later.
+ * Every position a chain visits inside the band is streamed to a {@link PuzzleSink}, once per canonical
+ * form thanks to a shared {@link PuzzleDeduplicator}.
+ *
+ * <p>Chains are independent, so they run in parallel on a thread pool, each with its own estimator and a
+ * random generator split from the seed, which makes the visited positions reproducible for a given seed
+ * (the order in which chains report puzzles still depends on scheduling). The estimator expands every
+ * position reachable from a candidate, so boards with more than a dozen pieces get slow to rate.</p>
+ */
+public class PuzzleGenerator {
+    private static final int MAX_MEMO_SIZE = 1 << 20; // Positions memoized by a chain before its estimator is reset
+    private static final int MUTATION_COUNT = 4;
+
+    private final int rows;
+    private final int columns;
+    private final RuleSet rules;
+    private final int minPieces;
+    private final int maxPieces;
+    private double minDifficulty = 4;
+    private double maxDifficulty = 8;
+    private double startTemperature = 2;
+    private double endTemperature = 0.05;
+    private long seed = System.nanoTime();
+
+    /**
+     * Creates a generator.
+     *
+     * @param rows      The number of rows of the puzzles.
+     * @param columns   The number of columns of the puzzles.
+     * @param rules     The rules the puzzles are played with.
+     * @param minPieces The smallest piece count of a puzzle, at least 2.
+     * @param maxPieces The largest piece count of a puzzle.
+     */
+    public PuzzleGenerator(int rows, int columns, RuleSet rules, int minPieces, int maxPieces) {
+        if (minPieces < 2 || maxPieces < minPieces || maxPieces > rows * columns) {
+            throw new IllegalArgumentException("Invalid piece counts " + minPieces + ".." + maxPieces
+                + " for a " + rows + "x" + columns + " board");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.rules = rules;
+        this.minPieces = minPieces;
+        this.maxPieces = maxPieces;
+    }
+
+    /**
+     * Sets the band of difficulty puzzles must fall in, 4 to 8 bits by default.
+     *
+     * @param minDifficulty The lowest difficulty in bits, see {@link DifficultyEstimator#getDifficulty(Position)}.
+     * @param maxDifficulty The highest difficulty in bits.
+     */
+    public void setDifficultyBand(double minDifficulty, double maxDifficulty) {
+        if (minDifficulty < 0 || maxDifficulty < minDifficulty) {
+            throw new IllegalArgumentException("Invalid difficulty band " + minDifficulty + ".." + maxDifficulty);
+        }
+        this.minDifficulty = minDifficulty;
+        this.maxDifficulty = maxDifficulty;
+    }
+
+    /**
+     * Sets the annealing schedule: the temperature falls geometrically from the start to the end value over each chain.
+     *
+     * @param startTemperature The temperature of the first step, in bits of difficulty; 2 by default.
+     * @param endTemperature   The temperature of the last step; 0.05 by default.
+     */
+    public void setTemperatures(double startTemperature, double endTemperature) {
+        if (endTemperature <= 0 || startTemperature < endTemperature) {
+            throw new IllegalArgumentException("Invalid temperatures " + startTemperature + " -> " + endTemperature);
+        }
+        this.startTemperature = startTemperature;
+        this.endTemperature = endTemperature;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Runs annealing chains and streams the puzzles they find.
+     *
+     * @param chains        The number of independent chains.
+     * @param stepsPerChain The number of positions rated by each chain, random starting positions included.
+     * @param threads       The number of threads running chains.
+     * @param maxPuzzles    The number of puzzles after which all chains stop.
+     * @param sink          The receiver of the puzzles, called from the chain threads.
+     * @return The number of puzzles passed to the sink.
+     * @throws IllegalStateException if the work is interrupted or fails.
+     */
+    public int generate(int chains, final long stepsPerChain, int threads, final int maxPuzzles, final PuzzleSink sink) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        final PuzzleDeduplicator deduplicator = new PuzzleDeduplicator();
+        final AtomicInteger found = new AtomicInteger();
+        SplittableRandom master = new SplittableRandom(seed);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> parts = new ArrayList<Future<Void>>();
+            for (int chain = 0; chain < chains; chain++) {
+                final SplittableRandom random = master.split();
+                parts.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        runChain(random, stepsPerChain, maxPuzzles, deduplicator, found, sink);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> part : parts) {
+                part.get();
+            }
+            return Math.min(found.get(), maxPuzzles);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Puzzle generation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Puzzle generation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs one annealing chain until its steps are spent, enough puzzles were found or the thread is interrupted.
+     * Drawing the starting position counts against the steps, so a chain ends even if no start is solvable.
+     */
+    private void runChain(SplittableRandom random, long steps, int maxPuzzles, PuzzleDeduplicator deduplicator,
+                          AtomicInteger found, PuzzleSink sink) {
+        DifficultyEstimator estimator = new DifficultyEstimator();
+        Position current = null;
+        double difficulty = Double.POSITIVE_INFINITY;
+        long step = 0;
+        while (difficulty == Double.POSITIVE_INFINITY) {
+            if (step >= steps || found.get() >= maxPuzzles || Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            current = randomPosition(random, minPieces);
+            difficulty = estimator.getDifficulty(current);
+            step++;
+        }
+        double energy = distanceToBand(difficulty);
+
+        double cooling = Math.log(endTemperature / startTemperature);
+        for (; step < steps && found.get() < maxPuzzles && !Thread.currentThread().isInterrupted(); step++) {
+            Position candidate = mutate(current, random);
+            if (candidate == null) {
+                continue;
+            }
+            double candidateDifficulty = estimator.getDifficulty(candidate);
+            if (estimator.getMemoSize() > MAX_MEMO_SIZE) {
+                estimator.reset();
+            }
+            if (candidateDifficulty == Double.POSITIVE_INFINITY) {
+                continue;
+            }
+            double candidateEnergy = distanceToBand(candidateDifficulty);
+            double temperature = startTemperature * Math.exp(cooling * step / steps);
+            if (candidateEnergy <= energy || random.nextDouble() < Math.exp((energy - candidateEnergy) / temperature)) {
+                current = candidate;
+                energy = candidateEnergy;
+                if (energy == 0 && deduplicator.add(current) && found.incrementAndGet() <= maxPuzzles) {
+                    sink.accept(current, candidateDifficulty);
+                }
+            }
+        }
+    }
+
+    /**
+     * Scores a difficulty: 0 inside the band, otherwise the distance in bits to the nearest bound.
+     */
+    private double distanceToBand(double difficulty) {
+        return difficulty < minDifficulty ? minDifficulty - difficulty
+            : difficulty > maxDifficulty ? difficulty - maxDifficulty : 0;
+    }
+
+    /**
+     * Applies a random mutation to a position.
+     *
+     * @return The mutated position, or null if the drawn mutation does not apply, e.g. adding a piece to a full puzzle.
+     */
+    private Position mutate(Position position, SplittableRandom random) {
+        byte[] cells = new byte[position.getSquareCount()];
+        for (int square = 0; square < cells.length; square++) {
+            cells[square] = position.getCell(square);
+        }
+        int pieceCount = position.getPieceCount();
+        switch (random.nextInt(MUTATION_COUNT)) {
+            case 0: // Move a piece
+                if (pieceCount == cells.length) {
+                    return null;
+                }
+                int from = randomSquare(cells, random, false);
+                int to = randomSquare(cells, random, true);
+                cells[to] = cells[from];
+                cells[from] = Position.EMPTY;
+                break;
+            case 1: // Add a piece
+                if (pieceCount >= maxPieces) {
+                    return null;
+                }
+                cells[randomSquare(cells, random, true)] = randomPiece(random);
+                break;
+            case 2: // Remove a piece
+                if (pieceCount <= minPieces) {
+                    return null;
+                }
+                cells[randomSquare(cells, random, false)] = Position.EMPTY;
+                break;
+            default: // Swap a piece for one of another kind
+                int square = randomSquare(cells, random, false);
+                byte piece;
+                do {
+                    piece = randomPiece(random);
+                } while (piece == cells[square]);
+                cells[square] = piece;
+                break;
+        }
+        return new Position(rows, columns, cells, -1, rules);
+    }
+
+    private Position randomPosition(SplittableRandom random, int pieceCount) {
+        byte[] cells = new byte[rows * columns];
+        for (int i = 0; i < pieceCount; i++) {
+            cells[randomSquare(cells, random, true)] = randomPiece(random);
+        }
+        return new Position(rows, columns, cells, -1, rules);
+    }
+
+    /**
+     * Draws a random empty or occupied square; the board must have one.
+     */
+    private static int randomSquare(byte[] cells, SplittableRandom random, boolean empty) {
+        int square;
+        do {
+            square = random.nextInt(cells.length);
+        } while ((cells[square] == Position.EMPTY) != empty);
+        return square;
+    }
+
+    private static byte randomPiece(SplittableRandom random) {
+        return Position.cell(Position.PAWN + random.nextInt(Position.KING), 0);
+    }
+
+    /**
+     * Generates a pack of puzzles on an 8x8 board and writes one FEN per line.
+     * Arguments: the number of puzzles, the difficulty band in bits, then optionally the output file,
+     * the piece counts and the seed.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: PuzzleGenerator <count> <minBits> <maxBits> [pack.txt] [minPieces] [maxPieces] [seed]");
+            return;
+        }
+        int count = Integer.parseInt(args[0]);
+        PuzzleGenerator generator = new PuzzleGenerator(8, 8, RuleSet.STANDARD,
+            args.length > 4 ? Integer.parseInt(args[4]) : 4, args.length > 5 ? Integer.parseInt(args[5]) : 10);
+        generator.setDifficultyBand(Double.parseDouble(args[1]), Double.parseDouble(args[2]));
+        if (args.length > 6) {
+            generator.setSeed(Long.parseLong(args[6]));
+        }
+        final PrintWriter pack = args.length > 3 ? new PrintWriter(new FileWriter(args[3])) : new PrintWriter(System.out);
+        int threads = Runtime.getRuntime().availableProcessors();
+        long startNanos = System.nanoTime();
+        try {
+            int generated = generator.generate(4 * threads, 20000, threads, count, new PuzzleSink() {
+                @Override
+                public synchronized void accept(Position puzzle, double difficulty) {
+                    pack.println(puzzle.toFen());
+                    pack.flush();
+                    System.err.printf("%s (%.2f bits)%n", puzzle.toFen(), difficulty);
+                }
+            });
+            System.err.printf("Generated %d puzzles in %d ms%n", generated, (System.nanoTime() - startNanos) / 1000000);
+        } finally {
+            pack.close();
+        }
+    }
+}
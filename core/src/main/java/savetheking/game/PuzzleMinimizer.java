@@ -0,0 +1,216 @@
+package savetheking.game;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Removes the pieces a puzzle does not need.
+ * Hand-made puzzles often carry pieces that do not matter to the solution. The minimizer repeatedly tries
+ * removing each piece and keeps a removal only if the puzzle stays solvable, and optionally keeps a single
+ * winning line (see {@link SolutionCounter}). It stops once no single piece can be removed, so the result is
+ * minimal in that sense, though removing several pieces at once might still succeed.
+ *
+ * <p>The candidate removals of a round are independent, so they are checked in parallel, one {@link Solver}
+ * per task sharing a {@link VerdictCache}: a candidate rejected in one round is answered from the cache when
+ * it comes back in the next. Among the accepted candidates, the one removing the first piece in square order
+ * is kept, so the result does not depend on the thread count.</p>
+ */
+public class PuzzleMinimizer {
+    private static final int DEFAULT_CACHE_CAPACITY = 1 << 16;
+    private static final int DEFAULT_TILE_SIZE = 64;
+
+    private final int threads;
+    private final VerdictCache verdictCache;
+    private boolean uniqueSolution;
+    private int minPieceCount = 2;
+    private long candidateCount;
+
+    /**
+     * Creates a minimizer with its own verdict cache.
+     *
+     * @param threads The number of threads checking candidate removals.
+     */
+    public PuzzleMinimizer(int threads) {
+        this(threads, new VerdictCache(DEFAULT_CACHE_CAPACITY));
+    }
+
+    /**
+     * Creates a minimizer sharing a verdict cache, e.g. with a puzzle generator.
+     *
+     * @param threads      The number of threads checking candidate removals.
+     * @param verdictCache The cache of solvability verdicts.
+     */
+    public PuzzleMinimizer(int threads, VerdictCache verdictCache) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        this.threads = threads;
+        this.verdictCache = verdictCache;
+    }
+
+    /**
+     * Requires the minimized puzzle to keep a single winning line. Off by default.
+     *
+     * @param uniqueSolution true to only keep removals after which exactly one sequence of moves wins.
+     */
+    public void setUniqueSolution(boolean uniqueSolution) {
+        this.uniqueSolution = uniqueSolution;
+    }
+
+    /**
+     * Sets the piece count at which removals stop. Most solvable puzzles can be whittled down to a trivial
+     * capture, so a puzzle author may rather keep a given number of pieces. Two by default.
+     *
+     * @param minPieceCount The smallest piece count of a minimized puzzle, at least 2.
+     */
+    public void setMinPieceCount(int minPieceCount) {
+        if (minPieceCount < 2) {
+            throw new IllegalArgumentException("A puzzle needs at least two pieces: " + minPieceCount);
+        }
+        this.minPieceCount = minPieceCount;
+    }
+
+    /**
+     * Removes pieces from a puzzle for as long as it stays acceptable.
+     *
+     * @param puzzle The puzzle to minimize.
+     * @return The minimized puzzle, with at least the minimum piece count; the puzzle itself if no piece can be removed.
+     * @throws IllegalArgumentException if the puzzle is not solvable, or has several winning lines when a unique one is required.
+     * @throws IllegalStateException    if the work is interrupted or fails.
+     */
+    public Position minimize(Position puzzle) {
+        if (!isAcceptable(puzzle, new Solver(verdictCache))) {
+            throw new IllegalArgumentException((uniqueSolution ? "Puzzle has no unique solution: " : "Puzzle is not solvable: ")
+                + puzzle.toFen());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Position current = puzzle;
+            while (current.getPieceCount() > minPieceCount) {
+                Position next = removeOnePiece(executor, current);
+                if (next == null) {
+                    break;
+                }
+                current = next;
+            }
+            return current;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks every single-piece removal of a puzzle in parallel.
+     *
+     * @return The acceptable candidate removing the first piece in square order, or null if there is none.
+     */
+    private Position removeOnePiece(ExecutorService executor, Position puzzle) {
+        List<Future<Boolean>> verdicts = new ArrayList<Future<Boolean>>();
+        List<Position> candidates = new ArrayList<Position>();
+        for (int square = 0; square < puzzle.getSquareCount(); square++) {
+            if (puzzle.getCell(square) == Position.EMPTY) {
+                continue;
+            }
+            final Position candidate = without(puzzle, square);
+            candidates.add(candidate);
+            verdicts.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return isAcceptable(candidate, new Solver(verdictCache));
+                }
+            }));
+        }
+        candidateCount += candidates.size();
+        try {
+            for (int i = 0; i < candidates.size(); i++) {
+                if (verdicts.get(i).get()) {
+                    for (int j = i + 1; j < verdicts.size(); j++) {
+                        verdicts.get(j).cancel(true);
+                    }
+                    return candidates.get(i);
+                }
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Minimization interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Minimization failed", e.getCause());
+        }
+    }
+
+    /**
+     * Checks a puzzle against the requirements; solvability is checked first since it is cached and much cheaper than counting.
+     */
+    private boolean isAcceptable(Position puzzle, Solver solver) {
+        if (!solver.isSolvable(puzzle)) {
+            return false;
+        }
+        return !uniqueSolution || new SolutionCounter().hasUniqueSolution(puzzle);
+    }
+
+    /**
+     * Copies a position without the piece on a square.
+     */
+    private static Position without(Position position, int square) {
+        byte[] cells = new byte[position.getSquareCount()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = i == square ? Position.EMPTY : position.getCell(i);
+        }
+        return new Position(position.getRows(), position.getColumns(), cells, position.getPawnDirection(), position.getRules());
+    }
+
+    /**
+     * Gets the number of candidate removals checked since the minimizer was created.
+     *
+     * @return The candidate count.
+     */
+    public long getCandidateCount() {
+        return candidateCount;
+    }
+
+    public VerdictCache getVerdictCache() {
+        return verdictCache;
+    }
+
+    /**
+     * Minimizes a puzzle given as a FEN and prints the result, optionally writing it as a TMX map.
+     * Arguments: the FEN, then optionally "unique" to require a single winning line, then an output .tmx file.
+     * The system property "minPieces" sets the piece count at which removals stop.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: PuzzleMinimizer <fen> [unique] [output.tmx]");
+            return;
+        }
+        Position puzzle = Position.fromFen(args[0]);
+        boolean unique = args.length > 1 && args[1].equals("unique");
+        String output = args.length > (unique ? 2 : 1) ? args[unique ? 2 : 1] : null;
+
+        PuzzleMinimizer minimizer = new PuzzleMinimizer(Runtime.getRuntime().availableProcessors());
+        minimizer.setUniqueSolution(unique);
+        minimizer.setMinPieceCount(Integer.getInteger("minPieces", 2));
+        long startNanos = System.nanoTime();
+        Position minimized = minimizer.minimize(puzzle);
+        System.out.printf("%s -> %s (%d -> %d pieces, %d candidates, %d ms)%n", puzzle.toFen(), minimized.toFen(),
+            puzzle.getPieceCount(), minimized.getPieceCount(), minimizer.getCandidateCount(),
+            (System.nanoTime() - startNanos) / 1000000);
+        if (output != null) {
+            Writer writer = new FileWriter(output);
+            try {
+                writer.write(FENtoTMX.toTmx(minimized.toFen(), DEFAULT_TILE_SIZE));
+            } finally {
+                writer.close();
+            }
+            System.out.println("TMX file created: " + output);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package savetheking.game;
+
+/**
+ * Receives the puzzles found by a {@link PuzzleGenerator} as soon as they are found.
+ * Generator chains run on several threads, so implementations must be thread-safe.
+ */
+public interface PuzzleSink {
+    /**
+     * Accepts a new puzzle.
+     *
+     * @param puzzle     The puzzle, never a symmetric image of a puzzle accepted before.
+     * @param difficulty Its difficulty in bits, see {@link DifficultyEstimator#getDifficulty(Position)}.
+     */
+    void accept(Position puzzle, double difficulty);
+}
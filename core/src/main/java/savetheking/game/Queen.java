@@ -10,17 +10,20 @@ import java.util.List;
  */
 public class Queen extends Piece {
 
-    private int moveCount = 0; // Movement counter for Solo Chess rules
+    private static final int[][] DIRECTIONS = {
+        {1, 0}, {-1, 0}, {0, 1}, {0, -1},
+        {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
+    };
 
     /**
      * Constructor for the Queen class.
      *
-     * @param color    The color of the queen ("White" or "Black").
+     * @param color    The color of the queen.
      * @param position The initial position of the queen.
      * @param texture  The texture representing the queen.
      */
-    public Queen(String color, Point position, Texture texture) {
-        super(color, position, texture); // Pass the Texture object directly
+    public Queen(PieceColor color, Point position, Texture texture) {
+        super(PieceKind.QUEEN, color, position, texture); // Pass the Texture object directly
     }
 
     @Override
@@ -45,7 +48,7 @@ public class Queen extends Piece {
                 Point newPoint = new Point(newX, newY);
 
                 // Check if the new point is within bounds
-                if (!newPoint.isWithinBounds(board.getRowCount())) {
+                if (!board.isWithinBounds(newPoint)) {
                     System.out.printf("Out of bounds: %s%n", newPoint);
                     break;
                 }
@@ -85,15 +88,7 @@ public class Queen extends Piece {
     }
 
     @Override
-    public void move(Point newPosition, int boardSize) {
-        if (isWithinBounds(newPosition, boardSize)) {
-            this.position = newPosition;
-            moveCount++;
-            if (moveCount >= 2) {
-                this.color = "Black";
-            }
-        } else {
-            throw new IllegalArgumentException("Position out of bounds: " + newPosition);
-        }
+    protected void collectMoves(Board board, List<Point> moves, boolean quiet) {
+        collectSlidingMoves(board, DIRECTIONS, moves, quiet);
     }
 }
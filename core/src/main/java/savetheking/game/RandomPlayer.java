@@ -0,0 +1,30 @@
+package savetheking.game;
+
+import java.util.SplittableRandom;
+
+/**
+ * Player picking each move uniformly at random among the legal ones, like a player who does not look ahead at all.
+ * Its win rate over many games is the probability estimated by {@link DifficultyEstimator}.
+ */
+public class RandomPlayer implements Player {
+    private final SplittableRandom random;
+
+    public RandomPlayer(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public int chooseMove(Position position, int[] moves, int count) {
+        return random.nextInt(count);
+    }
+
+    @Override
+    public Player fork(long seed) {
+        return new RandomPlayer(seed);
+    }
+
+    @Override
+    public String getName() {
+        return "Random";
+    }
+}
@@ -0,0 +1,216 @@
+package savetheking.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A game as recorded: the position it started from and the moves played, packed as in
+ * {@link Position#encodeMove(int, int)}. Recorded games come from a move history, a snapshot,
+ * a journal or a text record, and are re-simulated by {@link ReplayEngine}.
+ */
+public final class RecordedGame {
+    private final String name;
+    private final Position start;
+    private final int[] moves;
+    private final ReplayResult.Outcome expectedOutcome;
+
+    /**
+     * Creates a recorded game.
+     *
+     * @param name            A label used in reports, e.g. the file or session it comes from.
+     * @param start           The starting position.
+     * @param moves           The packed moves, in order.
+     * @param expectedOutcome The outcome the game is known to have, or null if unknown.
+     */
+    public RecordedGame(String name, Position start, int[] moves, ReplayResult.Outcome expectedOutcome) {
+        this.name = name;
+        this.start = start;
+        this.moves = moves.clone();
+        this.expectedOutcome = expectedOutcome;
+    }
+
+    /**
+     * Converts a move history into a recorded game.
+     *
+     * @param name    A label used in reports.
+     * @param start   The position the history starts from.
+     * @param history The moves packed as in {@link MoveHistory}.
+     * @return The recorded game.
+     */
+    public static RecordedGame fromHistory(String name, Position start, MoveHistory.View history) {
+        int[] moves = new int[history.size()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = toPositionMove(history.get(i), start.getColumns());
+        }
+        return new RecordedGame(name, start, moves, null);
+    }
+
+    /**
+     * Rebuilds the game leading to a snapshot. The starting position is found by taking the moves of
+     * the history back one by one, which the packed records allow exactly since they keep the kinds
+     * and move counts of both pieces.
+     *
+     * @param name     A label used in reports.
+     * @param snapshot The snapshot of the game.
+     * @return The recorded game, ending on the position of the snapshot.
+     * @throws IllegalArgumentException if the history does not lead to the snapshot position.
+     */
+    public static RecordedGame fromSnapshot(String name, GameSnapshot snapshot) {
+        return leadingTo(name, snapshot.getPosition(), snapshot.getHistory());
+    }
+
+    /**
+     * Rebuilds the game that reached a position through the given history, see {@link #fromSnapshot(String, GameSnapshot)}.
+     */
+    static RecordedGame leadingTo(String name, Position current, MoveHistory.View history) {
+        int columns = current.getColumns();
+        byte[] cells = new byte[current.getSquareCount()];
+        for (int square = 0; square < cells.length; square++) {
+            cells[square] = current.getCell(square);
+        }
+        for (int i = history.size() - 1; i >= 0; i--) {
+            long move = history.get(i);
+            int from = MoveHistory.fromRow(move) * columns + MoveHistory.fromColumn(move);
+            int to = MoveHistory.toRow(move) * columns + MoveHistory.toColumn(move);
+            byte mover = cells[to];
+            if (Position.kind(mover) != MoveHistory.pieceKind(move) || cells[from] != Position.EMPTY) {
+                throw new IllegalArgumentException("Move " + (i + 1) + " (" + MoveHistory.describe(move)
+                    + ") does not lead to the recorded position");
+            }
+            cells[from] = Position.cell(MoveHistory.pieceKind(move), MoveHistory.priorMoveCount(move));
+            cells[to] = MoveHistory.isCapture(move)
+                ? Position.cell(MoveHistory.capturedKind(move), MoveHistory.capturedMoveCount(move))
+                : Position.EMPTY;
+        }
+        Position start = new Position(current.getRows(), columns, cells, current.getPawnDirection(), current.getRules());
+        return fromHistory(name, start, history);
+    }
+
+    /**
+     * Converts a move packed as in {@link MoveHistory} into the packing of {@link Position}.
+     *
+     * @param move    The packed history record.
+     * @param columns The number of columns of the board.
+     * @return The packed move.
+     */
+    public static int toPositionMove(long move, int columns) {
+        return Position.encodeMove(MoveHistory.fromRow(move) * columns + MoveHistory.fromColumn(move),
+            MoveHistory.toRow(move) * columns + MoveHistory.toColumn(move));
+    }
+
+    /**
+     * Parses a game written as a starting FEN followed by moves in coordinate notation, e.g.
+     * {@code "8/8/8/8/8/8/8/RNB5 | 1. a1xb1 2. b1xc1 1-0"}. Move numbers, results and comments
+     * in braces are ignored; the capture sign is optional. A variant game gives its rules, as written by
+     * {@link RuleSet#toCode()}, after the move counts of the FEN, e.g. {@code "8/8/8/8/8/8/8/RNB5 - 4kc | ..."};
+     * other games are played under the {@link RuleSet#STANDARD standard} rules.
+     *
+     * @param name A label used in reports.
+     * @param text The game record.
+     * @return The recorded game.
+     * @throws IllegalArgumentException if the record cannot be parsed.
+     */
+    public static RecordedGame parse(String name, String text) {
+        int separator = text.indexOf('|');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Missing '|' between the position and the moves: " + text);
+        }
+        String[] fen = text.substring(0, separator).trim().split("\\s+");
+        RuleSet rules = fen.length > 2 ? RuleSet.fromCode(fen[2]) : RuleSet.STANDARD;
+        Position start = Position.fromFen(fen.length > 1 ? fen[0] + " " + fen[1] : fen[0], rules);
+        String moveText = text.substring(separator + 1).replaceAll("\\{[^}]*\\}", " ");
+        List<Integer> moves = new ArrayList<Integer>();
+        ReplayResult.Outcome expected = null;
+        for (String token : moveText.trim().split("\\s+")) {
+            if (token.isEmpty() || token.matches("\\d+\\.+")) {
+                continue;
+            }
+            if ("1-0".equals(token)) {
+                expected = ReplayResult.Outcome.WON;
+            } else if ("0-1".equals(token)) {
+                expected = ReplayResult.Outcome.LOST;
+            } else if (!"*".equals(token)) {
+                moves.add(parseCoordinateMove(token, start.getRows(), start.getColumns()));
+            }
+        }
+        int[] packed = new int[moves.size()];
+        for (int i = 0; i < packed.length; i++) {
+            packed[i] = moves.get(i);
+        }
+        return new RecordedGame(name, start, packed, expected);
+    }
+
+    private static int parseCoordinateMove(String token, int rows, int columns) {
+        String squares = token.replace("x", "").replace("-", "");
+        int split = 1;
+        while (split < squares.length() && Character.isDigit(squares.charAt(split))) {
+            split++;
+        }
+        if (split >= squares.length()) {
+            throw new IllegalArgumentException("Invalid move: " + token);
+        }
+        return Position.encodeMove(parseSquare(squares.substring(0, split), rows, columns),
+            parseSquare(squares.substring(split), rows, columns));
+    }
+
+    private static int parseSquare(String square, int rows, int columns) {
+        try {
+            int column = square.charAt(0) - 'a';
+            int row = rows - Integer.parseInt(square.substring(1)); // Rank 1 is the last row
+            if (column < 0 || column >= columns || row < 0 || row >= rows) {
+                throw new IllegalArgumentException("Square out of the board: " + square);
+            }
+            return row * columns + column;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid square: " + square, e);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Position getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the moves of the game.
+     *
+     * @return A copy of the packed moves.
+     */
+    public int[] getMoves() {
+        return moves.clone();
+    }
+
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    int getMove(int index) {
+        return moves[index];
+    }
+
+    public ReplayResult.Outcome getExpectedOutcome() {
+        return expectedOutcome;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + start.toFen() + ", " + moves.length + " moves)";
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        RecordedGame other = (RecordedGame) obj;
+        return start.equals(other.start) && Arrays.equals(moves, other.moves);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * start.hashCode() + Arrays.hashCode(moves);
+    }
+}
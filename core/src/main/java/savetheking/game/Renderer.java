@@ -32,13 +32,33 @@ public class Renderer {
         this.board = board;
         this.tileSize = tileSize;
         this.batch = new SpriteBatch();
-        this.darkSquareTexture = new Texture("dark-green.png");
-        this.lightSquareTexture = new Texture("light-white.png");
+        this.darkSquareTexture = loadTexture("dark-green.png");
+        this.lightSquareTexture = loadTexture("light-white.png");
         this.pieceTextures = new HashMap<Point, Texture>();
         this.boardDebugMode = false; // Enable board debug mode for troubleshooting
         this.pieceDebugMode = false; // Enable piece debug mode for troubleshooting
     }
 
+    /**
+     * Loads a tile texture, recording an {@link AssetLoadEvent}.
+     *
+     * @param path The internal path of the texture.
+     * @return The loaded texture.
+     */
+    private static Texture loadTexture(String path) {
+        AssetLoadEvent event = new AssetLoadEvent();
+        event.begin();
+        try {
+            Texture texture = new Texture(path);
+            event.success = true;
+            return texture;
+        } finally {
+            event.path = path;
+            event.assetType = "texture";
+            event.commit();
+        }
+    }
+
     /**
      * Renders the entire game: board and pieces.
      */
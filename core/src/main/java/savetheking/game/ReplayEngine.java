@@ -0,0 +1,125 @@
+package savetheking.game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Re-simulates recorded games, e.g. to reproduce a bug report or check a whole archive after a rule change.
+ *
+ * {@link #replay(RecordedGame)} works on {@link Position}s: each move is checked against the captures the
+ * position generates and applied to a copy of a few dozen bytes, so a game replays in microseconds.
+ * {@link #replayOnBoard(RecordedGame)} goes through a headless {@link Board} and its {@link Controller}
+ * instead, exactly like a player would, to check the game logic itself.
+ * Replaying is deterministic: the same game always gives the same result.
+ */
+public class ReplayEngine {
+
+    /**
+     * Replays a game on positions, stopping at the first illegal move.
+     *
+     * @param game The recorded game.
+     * @return The outcome and the position reached.
+     */
+    public ReplayResult replay(RecordedGame game) {
+        Position position = game.getStart();
+        int[] captures = position.newMoveBuffer();
+        int moveCount = game.getMoveCount();
+        for (int i = 0; i < moveCount; i++) {
+            int move = game.getMove(i);
+            if (!contains(captures, position.generateMoves(captures), move)) {
+                return new ReplayResult(game, ReplayResult.Outcome.ILLEGAL, i, position);
+            }
+            position = position.play(move);
+        }
+        return new ReplayResult(game, outcomeOf(position, captures), moveCount, position);
+    }
+
+    /**
+     * Replays a game on a headless board, playing each move through {@link Controller#handleInput(Point)}.
+     *
+     * @param game The recorded game.
+     * @return The outcome and the position reached.
+     */
+    public ReplayResult replayOnBoard(RecordedGame game) {
+        Board board = new Board(game.getStart());
+        board.setVerbose(false);
+        Controller controller = new Controller(board);
+        MoveHistory.View history = controller.getGameState().getMoveHistory();
+        int columns = board.getColumnCount();
+        int moveCount = game.getMoveCount();
+        for (int i = 0; i < moveCount; i++) {
+            int move = game.getMove(i);
+            int from = Position.moveFrom(move);
+            int to = Position.moveTo(move);
+            controller.handleInput(new Point(from / columns, from % columns));
+            controller.handleInput(new Point(to / columns, to % columns));
+            if (history.size() != i + 1) {
+                return new ReplayResult(game, ReplayResult.Outcome.ILLEGAL, i, Position.fromBoard(board));
+            }
+        }
+        Position position = Position.fromBoard(board);
+        return new ReplayResult(game, outcomeOf(position, position.newMoveBuffer()), moveCount, position);
+    }
+
+    /**
+     * Replays many games in parallel. Games are independent, so they are simply split between the threads.
+     *
+     * @param games   The recorded games.
+     * @param threads The number of threads to use.
+     * @return The results, in the order of the games.
+     * @throws IllegalStateException if a replay fails unexpectedly.
+     */
+    public List<ReplayResult> replayAll(final List<RecordedGame> games, int threads) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final int chunk = Math.max(1, (games.size() + threads - 1) / threads);
+            List<Future<List<ReplayResult>>> parts = new ArrayList<Future<List<ReplayResult>>>();
+            for (int first = 0; first < games.size(); first += chunk) {
+                final List<RecordedGame> part = games.subList(first, Math.min(games.size(), first + chunk));
+                parts.add(executor.submit(new Callable<List<ReplayResult>>() {
+                    @Override
+                    public List<ReplayResult> call() {
+                        List<ReplayResult> results = new ArrayList<ReplayResult>(part.size());
+                        for (RecordedGame game : part) {
+                            results.add(replay(game));
+                        }
+                        return results;
+                    }
+                }));
+            }
+            List<ReplayResult> results = new ArrayList<ReplayResult>(games.size());
+            for (Future<List<ReplayResult>> part : parts) {
+                results.addAll(part.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Replay interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Replay failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static boolean contains(int[] moves, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ReplayResult.Outcome outcomeOf(Position position, int[] captures) {
+        if (position.isSolved()) {
+            return ReplayResult.Outcome.WON;
+        }
+        return position.generateMoves(captures) == 0 ? ReplayResult.Outcome.LOST : ReplayResult.Outcome.UNFINISHED;
+    }
+}
@@ -0,0 +1,82 @@
+package savetheking.game;
+
+/**
+ * Outcome of re-simulating a {@link RecordedGame} with {@link ReplayEngine}.
+ */
+public class ReplayResult {
+
+    /**
+     * How a replayed game ended.
+     */
+    public enum Outcome {
+        /** A single piece remains. */
+        WON,
+        /** Several pieces remain and none can capture. */
+        LOST,
+        /** Every recorded move was legal but the game can go on. */
+        UNFINISHED,
+        /** A recorded move is not legal in the position it was played in. */
+        ILLEGAL
+    }
+
+    private final RecordedGame game;
+    private final Outcome outcome;
+    private final int movesApplied;
+    private final Position finalPosition;
+
+    public ReplayResult(RecordedGame game, Outcome outcome, int movesApplied, Position finalPosition) {
+        this.game = game;
+        this.outcome = outcome;
+        this.movesApplied = movesApplied;
+        this.finalPosition = finalPosition;
+    }
+
+    public RecordedGame getGame() {
+        return game;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Gets the number of moves played before the replay stopped. For an {@link Outcome#ILLEGAL} game,
+     * this is the index of the offending move.
+     *
+     * @return The number of legal moves applied.
+     */
+    public int getMovesApplied() {
+        return movesApplied;
+    }
+
+    /**
+     * Gets the position reached, i.e. the one in which an illegal move was attempted if any.
+     *
+     * @return The last position reached.
+     */
+    public Position getFinalPosition() {
+        return finalPosition;
+    }
+
+    /**
+     * Checks the replay against the outcome recorded with the game.
+     *
+     * @return true if the game has no expected outcome or ended as expected.
+     */
+    public boolean matchesExpectation() {
+        return game.getExpectedOutcome() == null || game.getExpectedOutcome() == outcome;
+    }
+
+    @Override
+    public String toString() {
+        String text = game.getName() + ": " + outcome + " after " + movesApplied + "/" + game.getMoveCount() + " moves";
+        if (outcome == Outcome.ILLEGAL) {
+            int move = game.getMove(movesApplied);
+            text += ", illegal move " + Position.moveFrom(move) + "->" + Position.moveTo(move) + " in " + finalPosition.toFen();
+        }
+        if (!matchesExpectation()) {
+            text += " (expected " + game.getExpectedOutcome() + ")";
+        }
+        return text;
+    }
+}
@@ -10,16 +10,17 @@ import java.util.List;
  * La tour peut se déplacer horizontalement ou verticalement jusqu'à rencontrer un obstacle.
  */
 public class Rook extends Piece {
+    private static final int[][] DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
 
     /**
      * Constructeur pour initialiser une tour avec une couleur et une position.
      *
-     * @param color    La couleur de la tour ("Blanc").
+     * @param color    La couleur de la tour.
      * @param position La position initiale de la tour sur le plateau.
      * @param texture
      */
-    public Rook(String color, Point position, Texture texture) {
-        super(color, position, texture);
+    public Rook(PieceColor color, Point position, Texture texture) {
+        super(PieceKind.ROOK, color, position, texture);
     }
 
     /**
@@ -50,7 +51,7 @@ public class Rook extends Piece {
                 Point newPoint = new Point(newX, newY);
 
                 // Vérifie si la position est dans les limites du plateau
-                if (!isWithinBounds(newPoint, board.getRowCount())) {
+                if (!board.isWithinBounds(newPoint)) {
                     break;
                 }
 
@@ -61,31 +62,39 @@ public class Rook extends Piece {
                 } else if (tile instanceof OccupiedTile) {
                     Piece pieceOnTile = ((OccupiedTile) tile).getPiece();
                     if (pieceOnTile != null) {
-                        break; // Arrête si la case est occupée par une pièce alliée
+                        possibleMoves.add(newPoint); // Peut capturer la première pièce rencontrée
                     }
-                    possibleMoves.add(newPoint); // Peut capturer une pièce ennemie
-                    break;
+                    break; // La tour ne saute pas par-dessus les pièces
                 }
             }
         }
 
-        // Si la pièce est noire (après 2 déplacements), elle ne peut plus se déplacer
-        if ("Noir".equals(this.color)) {
-            possibleMoves.clear();
-        }
-
         return possibleMoves;
     }
 
+    /**
+     * Ajoute les captures de la tour : la première pièce rencontrée sur chaque ligne ou colonne,
+     * ainsi que les cases vides qui la précèdent si les déplacements sans capture sont demandés.
+     *
+     * @param board L'état actuel du plateau.
+     * @param moves La liste recevant les cases atteignables.
+     * @param quiet true pour ajouter aussi les cases vides.
+     */
+    @Override
+    protected void collectMoves(Board board, List<Point> moves, boolean quiet) {
+        collectSlidingMoves(board, DIRECTIONS, moves, quiet);
+    }
+
     /**
      * Déplace la tour vers une nouvelle position et gère les règles de Solo Chess.
      *
      * @param newPosition La nouvelle position cible.
-     * @param boardSize   La taille du plateau.
+     * @param rows        Le nombre de lignes du plateau.
+     * @param columns     Le nombre de colonnes du plateau.
      */
     @Override
-    public void move(Point newPosition, int boardSize) {
-        super.move(newPosition, boardSize); // Utilise la logique définie dans la classe parente
+    public void move(Point newPosition, int rows, int columns) {
+        super.move(newPosition, rows, columns); // Utilise la logique définie dans la classe parente
     }
 
     /**
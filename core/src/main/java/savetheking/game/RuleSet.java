@@ -0,0 +1,176 @@
+package savetheking.game;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The rules a game of Solo Chess is played under. The standard rules let each piece move twice,
+ * forbid capturing the king, which must therefore be the last piece standing, and only allow
+ * captures. Variants change these parameters; the win condition, a single piece left, and the
+ * loss condition, no legal move left, stay the same.
+ *
+ * <p>A rule set is immutable. It is attached to every {@link Position} and to the pieces of a
+ * {@link Board}, so move generation reads plain fields instead of looking the rules up.</p>
+ */
+public final class RuleSet {
+    /**
+     * The largest move limit a {@link Position} cell can record.
+     */
+    public static final int MAX_MOVE_LIMIT = 15;
+
+    /**
+     * The standard Solo Chess rules: two moves per piece, king last, captures only.
+     */
+    public static final RuleSet STANDARD = new RuleSet(2, true, true);
+
+    private final int moveLimit;
+    private final boolean kingLast;
+    private final boolean captureOnly;
+
+    /**
+     * Creates a rule set.
+     *
+     * @param moveLimit   The number of moves each piece may make, from 1 to {@link #MAX_MOVE_LIMIT}.
+     * @param kingLast    true if the king cannot be captured, so it must be the last piece standing.
+     * @param captureOnly true if every move must be a capture; otherwise pieces may also move to empty squares.
+     * @throws IllegalArgumentException if the move limit is out of range.
+     */
+    public RuleSet(int moveLimit, boolean kingLast, boolean captureOnly) {
+        if (moveLimit < 1 || moveLimit > MAX_MOVE_LIMIT) {
+            throw new IllegalArgumentException("Move limit must be between 1 and " + MAX_MOVE_LIMIT + ": " + moveLimit);
+        }
+        this.moveLimit = moveLimit;
+        this.kingLast = kingLast;
+        this.captureOnly = captureOnly;
+    }
+
+    /**
+     * Creates a copy of these rules with another move limit.
+     *
+     * @param moveLimit The number of moves each piece may make.
+     * @return The new rule set.
+     */
+    public RuleSet withMoveLimit(int moveLimit) {
+        return new RuleSet(moveLimit, kingLast, captureOnly);
+    }
+
+    /**
+     * Gets the number of moves each piece may make before it becomes exhausted.
+     *
+     * @return The move limit.
+     */
+    public int getMoveLimit() {
+        return moveLimit;
+    }
+
+    /**
+     * Checks whether the king cannot be captured.
+     *
+     * @return true if the king must be the last piece standing.
+     */
+    public boolean isKingLast() {
+        return kingLast;
+    }
+
+    /**
+     * Checks whether every move must be a capture.
+     *
+     * @return true if moves to empty squares are forbidden.
+     */
+    public boolean isCaptureOnly() {
+        return captureOnly;
+    }
+
+    /**
+     * Checks whether a piece that made the given number of moves may not move anymore.
+     *
+     * @param moveCount The number of moves made by the piece.
+     * @return true once the move limit is reached.
+     */
+    public boolean isExhausted(int moveCount) {
+        return moveCount >= moveLimit;
+    }
+
+    /**
+     * Checks whether a piece of the given kind may be captured.
+     *
+     * @param kind The piece kind, as in {@link Position}.
+     * @return false for the king when it must be the last piece standing, true otherwise.
+     */
+    public boolean canBeCaptured(int kind) {
+        return kind != Position.KING || !kingLast;
+    }
+
+    /**
+     * Formats these rules as a short code: the move limit, followed by "k" when the king must be the last
+     * piece standing and "c" when only captures are allowed, e.g. "2kc" for the standard rules.
+     *
+     * @return The code, read back by {@link #fromCode(String)}.
+     */
+    public String toCode() {
+        return moveLimit + (kingLast ? "k" : "") + (captureOnly ? "c" : "");
+    }
+
+    /**
+     * Parses rules written by {@link #toCode()}.
+     *
+     * @param code The code, e.g. "4kc".
+     * @return The rule set.
+     * @throws IllegalArgumentException if the code is invalid or its move limit out of range.
+     */
+    public static RuleSet fromCode(String code) {
+        if (!code.matches("\\d{1,2}k?c?")) {
+            throw new IllegalArgumentException("Invalid rules: " + code);
+        }
+        String flags = code.replaceAll("\\d", "");
+        return new RuleSet(Integer.parseInt(code.substring(0, code.length() - flags.length())),
+            flags.indexOf('k') >= 0, flags.indexOf('c') >= 0);
+    }
+
+    /**
+     * Writes these rules in three bytes: the move limit, then whether the king must be last and whether only
+     * captures are allowed.
+     *
+     * @param out The output to write to.
+     * @throws IOException if writing fails.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(moveLimit);
+        out.writeBoolean(kingLast);
+        out.writeBoolean(captureOnly);
+    }
+
+    /**
+     * Reads rules written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in The input to read from.
+     * @return The rule set.
+     * @throws IOException              if reading fails.
+     * @throws IllegalArgumentException if the move limit read is out of range.
+     */
+    public static RuleSet readFrom(DataInput in) throws IOException {
+        int moveLimit = in.readUnsignedByte();
+        boolean kingLast = in.readBoolean();
+        boolean captureOnly = in.readBoolean();
+        return new RuleSet(moveLimit, kingLast, captureOnly);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        RuleSet other = (RuleSet) obj;
+        return moveLimit == other.moveLimit && kingLast == other.kingLast && captureOnly == other.captureOnly;
+    }
+
+    @Override
+    public int hashCode() {
+        return (moveLimit * 2 + (kingLast ? 1 : 0)) * 2 + (captureOnly ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return "RuleSet(moves=" + moveLimit + (kingLast ? ", king last" : "") + (captureOnly ? ", captures only" : "") + ")";
+    }
+}
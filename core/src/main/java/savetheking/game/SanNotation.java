@@ -0,0 +1,218 @@
+package savetheking.game;
+
+/**
+ * Standard Algebraic Notation for Solo Chess moves. Every move is a capture, so a move is written
+ * as the piece letter (none for a pawn, which gives its file instead), the file and/or rank of the
+ * moving piece when another piece of the same kind could make the same capture, "x" and the target
+ * square, e.g. "Rxb1", "Nbxd2" or "exd5". Under a {@link RuleSet} allowing quiet moves, a move to an
+ * empty square has no "x" and a pawn moving forward only gives its target square, e.g. "Rb1" or "d3".
+ * Files are lettered from the left and ranks counted from the bottom row, as in
+ * {@link Point#toChessNotation(int)}.
+ */
+public final class SanNotation {
+
+    private SanNotation() {
+    }
+
+    /**
+     * Writes a capture in SAN.
+     *
+     * @param position The position the capture is played in.
+     * @param move     The capture, packed as in {@link Position#encodeMove(int, int)}.
+     * @return The SAN text.
+     * @throws IllegalArgumentException if the move is not legal in the position.
+     */
+    public static String format(Position position, int move) {
+        int[] captures = position.newMoveBuffer();
+        int count = position.generateMoves(captures);
+        if (!contains(captures, count, move)) {
+            throw new IllegalArgumentException("Illegal move " + Position.moveFrom(move) + "->" + Position.moveTo(move)
+                + " in " + position.toFen());
+        }
+        int from = Position.moveFrom(move);
+        int to = Position.moveTo(move);
+        int kind = Position.kind(position.getCell(from));
+        boolean capture = position.getCell(to) != Position.EMPTY;
+        StringBuilder san = new StringBuilder();
+        if (kind == Position.PAWN) {
+            if (capture) {
+                san.append(fileOf(position, from));
+            }
+        } else {
+            san.append(Position.fenChar(kind));
+            boolean ambiguous = false;
+            boolean sameFile = false;
+            boolean sameRank = false;
+            for (int i = 0; i < count; i++) {
+                int other = Position.moveFrom(captures[i]);
+                if (other != from && Position.moveTo(captures[i]) == to && Position.kind(position.getCell(other)) == kind) {
+                    ambiguous = true;
+                    sameFile |= other % position.getColumns() == from % position.getColumns();
+                    sameRank |= other / position.getColumns() == from / position.getColumns();
+                }
+            }
+            if (ambiguous) {
+                if (!sameFile) {
+                    san.append(fileOf(position, from));
+                } else if (!sameRank) {
+                    san.append(rankOf(position, from));
+                } else {
+                    san.append(fileOf(position, from)).append(rankOf(position, from));
+                }
+            }
+        }
+        if (capture) {
+            san.append('x');
+        }
+        return san.append(squareName(position, to)).toString();
+    }
+
+    /**
+     * Reads a capture written in SAN. Check and annotation suffixes ("+", "#", "!", "?") are ignored,
+     * the capture sign is optional and coordinate moves such as "a1b1" are accepted as well.
+     *
+     * @param position The position the capture is played in.
+     * @param san      The SAN text.
+     * @return The capture, packed as in {@link Position#encodeMove(int, int)}.
+     * @throws IllegalArgumentException if the text is not a legal capture, or is ambiguous.
+     */
+    public static int parse(Position position, String san) {
+        String text = san.replaceAll("[+#!?]+$", "").replace("x", "").replace(":", "");
+        if (text.length() < 2) {
+            throw new IllegalArgumentException("Invalid move: " + san);
+        }
+        int kind = Character.isUpperCase(text.charAt(0)) ? Position.kindOf(text.charAt(0)) : Position.PAWN;
+        if (kind == Position.EMPTY) {
+            throw new IllegalArgumentException("Unknown piece in move: " + san);
+        }
+        String rest = Character.isUpperCase(text.charAt(0)) ? text.substring(1) : text;
+        int split = lastSquareStart(rest);
+        int to = parseSquare(position, rest.substring(split));
+        String origin = rest.substring(0, split);
+        int fromFile = -1;
+        int fromRank = -1;
+        if (origin.length() > 0 && Character.isLetter(origin.charAt(0))) {
+            fromFile = origin.charAt(0) - 'a';
+            origin = origin.substring(1);
+        }
+        if (origin.length() > 0) {
+            try {
+                fromRank = Integer.parseInt(origin);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid move: " + san, e);
+            }
+        }
+
+        // A pawn never needs its rank, so a pawn move with a full origin square is a coordinate move
+        boolean anyKind = kind == Position.PAWN && fromFile >= 0 && fromRank >= 0;
+
+        int[] captures = position.newMoveBuffer();
+        int count = position.generateMoves(captures);
+        int found = -1;
+        for (int i = 0; i < count; i++) {
+            int from = Position.moveFrom(captures[i]);
+            if (Position.moveTo(captures[i]) != to
+                || (!anyKind && Position.kind(position.getCell(from)) != kind)
+                || (fromFile >= 0 && from % position.getColumns() != fromFile)
+                || (fromRank >= 0 && position.getRows() - from / position.getColumns() != fromRank)) {
+                continue;
+            }
+            if (found >= 0) {
+                throw new IllegalArgumentException("Ambiguous move " + san + " in " + position.toFen());
+            }
+            found = captures[i];
+        }
+        if (found < 0) {
+            throw new IllegalArgumentException("Illegal move " + san + " in " + position.toFen());
+        }
+        return found;
+    }
+
+    /**
+     * Resolves a SAN capture on a board.
+     *
+     * @param board The board the capture is played on.
+     * @param san   The SAN text.
+     * @return The move, with the moving piece and its start and end squares.
+     * @throws IllegalArgumentException if the text is not a legal capture on this board.
+     */
+    public static Move toMove(Board board, String san) {
+        int move = parse(Position.fromBoard(board), san);
+        int columns = board.getColumnCount();
+        Point start = new Point(Position.moveFrom(move) / columns, Position.moveFrom(move) % columns);
+        Point end = new Point(Position.moveTo(move) / columns, Position.moveTo(move) % columns);
+        return new Move(board.getPieceAt(start.x, start.y), start, end, true, false);
+    }
+
+    /**
+     * Writes a move played on a board in SAN.
+     *
+     * @param board The board before the move.
+     * @param move  The move.
+     * @return The SAN text.
+     */
+    public static String format(Board board, Move move) {
+        int columns = board.getColumnCount();
+        return format(Position.fromBoard(board), Position.encodeMove(move.getStart().x * columns + move.getStart().y,
+            move.getEnd().x * columns + move.getEnd().y));
+    }
+
+    /**
+     * Names a square, e.g. "a1" for the bottom-left square.
+     *
+     * @param position The position giving the board size.
+     * @param square   The square index.
+     * @return The square name.
+     */
+    public static String squareName(Position position, int square) {
+        return "" + fileOf(position, square) + rankOf(position, square);
+    }
+
+    private static char fileOf(Position position, int square) {
+        return (char) ('a' + square % position.getColumns());
+    }
+
+    private static int rankOf(Position position, int square) {
+        return position.getRows() - square / position.getColumns();
+    }
+
+    private static int parseSquare(Position position, String name) {
+        if (name.length() < 2 || !Character.isLetter(name.charAt(0))) {
+            throw new IllegalArgumentException("Invalid square: " + name);
+        }
+        int column = name.charAt(0) - 'a';
+        int row;
+        try {
+            row = position.getRows() - Integer.parseInt(name.substring(1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid square: " + name, e);
+        }
+        if (column < 0 || column >= position.getColumns() || row < 0 || row >= position.getRows()) {
+            throw new IllegalArgumentException("Square out of the board: " + name);
+        }
+        return row * position.getColumns() + column;
+    }
+
+    /**
+     * Finds where the target square starts: the last letter followed only by digits.
+     */
+    private static int lastSquareStart(String text) {
+        int i = text.length() - 1;
+        while (i >= 0 && Character.isDigit(text.charAt(i))) {
+            i--;
+        }
+        if (i < 0 || i == text.length() - 1) {
+            throw new IllegalArgumentException("Missing target square: " + text);
+        }
+        return i;
+    }
+
+    private static boolean contains(int[] moves, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
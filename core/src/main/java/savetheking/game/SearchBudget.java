@@ -0,0 +1,102 @@
+package savetheking.game;
+
+/**
+ * Limits how much work a single {@link Solver#search(Position, SearchBudget)} call may do.
+ * A budget bounds the number of visited positions and/or the wall-clock time, and can be
+ * cancelled from another thread; the search notices it cooperatively and returns an
+ * {@link SearchResult.Verdict#UNKNOWN} result instead of an exact verdict.
+ *
+ * The clock starts when the search starts, so a budget can be created ahead of time.
+ * A budget is meant for one search at a time.
+ */
+public class SearchBudget {
+    private static final long UNLIMITED = Long.MAX_VALUE;
+    private static final int CLOCK_CHECK_INTERVAL = 1024; // Nodes between two reads of the clock
+
+    private final long maxNodes;
+    private final long timeLimitNanos;
+    private volatile boolean cancelled;
+    private long deadline;
+    private boolean exhausted;
+
+    /**
+     * Creates a budget.
+     *
+     * @param maxNodes        The maximum number of positions to visit, or {@code Long.MAX_VALUE}.
+     * @param timeLimitMillis The maximum search time in milliseconds, or {@code Long.MAX_VALUE}.
+     */
+    public SearchBudget(long maxNodes, long timeLimitMillis) {
+        if (maxNodes <= 0 || timeLimitMillis < 0) {
+            throw new IllegalArgumentException("Invalid budget: " + maxNodes + " nodes, " + timeLimitMillis + " ms");
+        }
+        this.maxNodes = maxNodes;
+        this.timeLimitNanos = timeLimitMillis == UNLIMITED ? UNLIMITED : timeLimitMillis * 1000000L;
+    }
+
+    /**
+     * Creates a budget that only stops on cancellation, for offline jobs.
+     *
+     * @return A new unlimited budget.
+     */
+    public static SearchBudget unlimited() {
+        return new SearchBudget(UNLIMITED, UNLIMITED);
+    }
+
+    /**
+     * Creates a wall-clock budget, e.g. a few milliseconds for a hint computed in the render loop.
+     *
+     * @param timeLimitMillis The maximum search time in milliseconds.
+     * @return A new budget.
+     */
+    public static SearchBudget ofMillis(long timeLimitMillis) {
+        return new SearchBudget(UNLIMITED, timeLimitMillis);
+    }
+
+    /**
+     * Creates a node budget, which gives reproducible results regardless of the machine.
+     *
+     * @param maxNodes The maximum number of positions to visit.
+     * @return A new budget.
+     */
+    public static SearchBudget ofNodes(long maxNodes) {
+        return new SearchBudget(maxNodes, UNLIMITED);
+    }
+
+    /**
+     * Asks the search using this budget to stop as soon as possible. Safe to call from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Starts the clock. Called by the solver when a search begins.
+     */
+    void start() {
+        long now = System.nanoTime();
+        deadline = timeLimitNanos == UNLIMITED || now + timeLimitNanos < now ? UNLIMITED : now + timeLimitNanos;
+        exhausted = false;
+    }
+
+    /**
+     * Checks whether the search must stop. The clock and the cancellation flag are only read
+     * every {@value #CLOCK_CHECK_INTERVAL} nodes to keep the check cheap.
+     *
+     * @param nodes The number of positions visited by the current search.
+     * @return true once the budget is spent or cancelled; stays true until the next start.
+     */
+    boolean isExhausted(long nodes) {
+        if (!exhausted) {
+            if (nodes >= maxNodes) {
+                exhausted = true;
+            } else if (nodes % CLOCK_CHECK_INTERVAL == 0) {
+                exhausted = cancelled || (deadline != UNLIMITED && System.nanoTime() >= deadline);
+            }
+        }
+        return exhausted;
+    }
+}
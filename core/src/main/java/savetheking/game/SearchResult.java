@@ -0,0 +1,90 @@
+package savetheking.game;
+
+/**
+ * Outcome of a budgeted search, with the statistics gathered while searching.
+ * When the budget ran out the verdict is {@link Verdict#UNKNOWN} and the statistics
+ * describe the partial search.
+ */
+public class SearchResult {
+
+    /**
+     * The answer of a search.
+     */
+    public enum Verdict {
+        SOLVABLE,
+        UNSOLVABLE,
+        UNKNOWN
+    }
+
+    private final Verdict verdict;
+    private final int[] solution;
+    private final long nodeCount;
+    private final long transpositionHits;
+    private final long prunedCount;
+    private final int maxDepth;
+    private final long elapsedNanos;
+
+    public SearchResult(Verdict verdict, int[] solution, long nodeCount, long transpositionHits,
+                        long prunedCount, int maxDepth, long elapsedNanos) {
+        this.verdict = verdict;
+        this.solution = solution;
+        this.nodeCount = nodeCount;
+        this.transpositionHits = transpositionHits;
+        this.prunedCount = prunedCount;
+        this.maxDepth = maxDepth;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public Verdict getVerdict() {
+        return verdict;
+    }
+
+    /**
+     * Checks whether the search reached an exact verdict.
+     *
+     * @return true unless the budget ran out first.
+     */
+    public boolean isExact() {
+        return verdict != Verdict.UNKNOWN;
+    }
+
+    /**
+     * Gets the winning line found.
+     *
+     * @return The packed moves of the solution, or null unless the verdict is {@link Verdict#SOLVABLE}.
+     */
+    public int[] getSolution() {
+        return solution;
+    }
+
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    public long getTranspositionHits() {
+        return transpositionHits;
+    }
+
+    public long getPrunedCount() {
+        return prunedCount;
+    }
+
+    /**
+     * Gets the deepest ply reached, i.e. the longest capture sequence explored.
+     *
+     * @return The maximum depth.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (nodes=%d, ttHits=%d, pruned=%d, depth=%d, %.3f ms)",
+            verdict, nodeCount, transpositionHits, prunedCount, maxDepth, elapsedNanos / 1e6);
+    }
+}
@@ -0,0 +1,279 @@
+package savetheking.game;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts many headless {@link GameSession}s at once, without LibGDX.
+ *
+ * Each session has a mailbox of pending requests. When a request arrives on an idle session, a task
+ * draining its mailbox is started, so a session is handled by one thread at a time, its requests
+ * are answered in order and its state never needs a lock. Sessions waiting for requests hold no
+ * thread at all, which keeps tens of thousands of them cheap.
+ *
+ * Tasks run on virtual threads when the runtime has them (Java 21 and later), otherwise on a
+ * pool of platform threads. Requests are submitted in-process with {@link #submit(long, String)},
+ * or as text lines over a loopback socket opened with {@link #listen(int)}.
+ */
+public class SessionServer {
+    private final Map<Long, Mailbox> sessions = new ConcurrentHashMap<Long, Mailbox>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final ExecutorService executor;
+    private volatile ServerSocket serverSocket;
+
+    /**
+     * Creates a server running sessions on virtual threads when available.
+     */
+    public SessionServer() {
+        this(newExecutor());
+    }
+
+    /**
+     * Creates a server running sessions on the given executor.
+     *
+     * @param executor The executor running the session tasks; it must be able to block on socket reads.
+     */
+    public SessionServer(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor if the runtime supports it, otherwise a cached thread pool.
+     * Looked up reflectively so the game still compiles and runs on older runtimes.
+     *
+     * @return The executor.
+     */
+    static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Opens a session on a puzzle.
+     *
+     * @param position The starting position.
+     * @return The identifier of the new session.
+     */
+    public long openSession(Position position) {
+        long id = nextId.getAndIncrement();
+        sessions.put(id, new Mailbox(new GameSession(id, position)));
+        return id;
+    }
+
+    /**
+     * Closes a session. Requests already submitted are still answered.
+     *
+     * @param id The session identifier.
+     * @return true if the session existed.
+     */
+    public boolean closeSession(long id) {
+        return sessions.remove(id) != null;
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Sends a request to a session, see {@link GameSession} for the syntax.
+     *
+     * @param id      The session identifier.
+     * @param request The request text.
+     * @return The response, completed once the session has handled the request, or completed exceptionally with a
+     *         {@link RejectedExecutionException} if the executor refused to run the session, e.g. after a shutdown.
+     */
+    public CompletableFuture<String> submit(long id, String request) {
+        Mailbox mailbox = sessions.get(id);
+        if (mailbox == null) {
+            return CompletableFuture.completedFuture("ERR Unknown session: " + id);
+        }
+        return mailbox.submit(request);
+    }
+
+    /**
+     * Starts accepting connections on the loopback interface. Each connection sends one request per line:
+     * {@code open <fen>} answers the new session identifier, {@code close <id>} closes a session, and
+     * {@code <id> <request>} forwards a request to a session. Each response is one line.
+     *
+     * @param port The port to listen on, or 0 for any free port.
+     * @return The port actually bound.
+     * @throws IOException if the socket cannot be opened.
+     */
+    public int listen(int port) throws IOException {
+        if (serverSocket != null) {
+            throw new IllegalStateException("Server is already listening on port " + serverSocket.getLocalPort());
+        }
+        final ServerSocket socket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        serverSocket = socket;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                acceptConnections(socket);
+            }
+        });
+        return socket.getLocalPort();
+    }
+
+    private void acceptConnections(ServerSocket socket) {
+        while (!socket.isClosed()) {
+            try {
+                final Socket connection = socket.accept();
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        serveConnection(connection);
+                    }
+                });
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    System.err.println("Failed to accept connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serveConnection(Socket connection) {
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(connection.getOutputStream(), true);
+            String line;
+            while ((line = in.readLine()) != null) {
+                out.println(handleLine(line.trim()));
+            }
+        } catch (IOException e) {
+            System.err.println("Connection failed: " + e.getMessage());
+        } finally {
+            try {
+                connection.close();
+            } catch (IOException ignored) {
+                // Nothing left to release
+            }
+        }
+    }
+
+    /**
+     * Handles one line of the socket protocol, waiting for the session to answer.
+     */
+    String handleLine(String line) {
+        int space = line.indexOf(' ');
+        String head = space < 0 ? line : line.substring(0, space);
+        String rest = space < 0 ? "" : line.substring(space + 1).trim();
+        try {
+            if ("open".equalsIgnoreCase(head)) {
+                return "OK " + openSession(Position.fromFen(rest));
+            } else if ("close".equalsIgnoreCase(head)) {
+                return closeSession(Long.parseLong(rest)) ? "OK" : "ERR Unknown session: " + rest;
+            }
+            return submit(Long.parseLong(head), rest).join();
+        } catch (CompletionException e) {
+            return "ERR Session could not run: " + e.getCause();
+        } catch (NumberFormatException e) {
+            return "ERR Invalid session: " + head;
+        } catch (IllegalArgumentException e) {
+            return "ERR " + e.getMessage();
+        }
+    }
+
+    /**
+     * Stops listening, closes every session and waits for running tasks to finish.
+     *
+     * @param timeoutMillis The maximum time to wait.
+     * @return true if every task finished in time.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean shutdown(long timeoutMillis) throws InterruptedException {
+        ServerSocket socket = serverSocket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // The acceptor stops either way
+            }
+        }
+        sessions.clear();
+        executor.shutdown();
+        return executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Pending requests of one session, drained by at most one task at a time.
+     */
+    private final class Mailbox implements Runnable {
+        private final GameSession session;
+        private final Queue<Request> requests = new ConcurrentLinkedQueue<Request>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Mailbox(GameSession session) {
+            this.session = session;
+        }
+
+        CompletableFuture<String> submit(String text) {
+            Request request = new Request(text);
+            requests.add(request);
+            schedule();
+            return request.response;
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // Nothing will drain the requests already queued: fail them, and let a later request try again
+                    scheduled.set(false);
+                    Request request;
+                    while ((request = requests.poll()) != null) {
+                        request.response.completeExceptionally(e);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            Request request;
+            while ((request = requests.poll()) != null) {
+                try {
+                    request.response.complete(session.handle(request.text));
+                } catch (RuntimeException e) {
+                    request.response.complete("ERR " + e);
+                }
+            }
+            scheduled.set(false);
+            // A request may have arrived after the last poll but before the flag was cleared
+            if (!requests.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    private static final class Request {
+        final String text;
+        final CompletableFuture<String> response = new CompletableFuture<String>();
+
+        Request(String text) {
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package savetheking.game;
+
+/**
+ * Counts the distinct winning lines of Solo Chess positions, e.g. to tell a puzzle with a single
+ * solution from one that can be won almost any way.
+ *
+ * Two lines are distinct when their sequences of moves differ, even if they only play the same
+ * captures in another order. Every move spends one of the limited moves of a piece, so a position
+ * never comes back and the lines form a graph without cycles: the number of lines from a position
+ * is the sum of the numbers of lines from the positions its moves lead to, and a solved position has
+ * exactly one. Counts are memoized, so each position is expanded once however many lines reach it:
+ * the work grows with the number of distinct positions, not with the number of lines.
+ *
+ * The memo is keyed by a 64-bit hash of the position (see {@link PositionMemo}), so a hash collision
+ * would make two positions share a count; with a few million positions the odds are below one in a
+ * billion. Counts saturate at {@link Long#MAX_VALUE} instead of overflowing.
+ *
+ * Positions the {@link Solver} can prove lost without search count zero lines and are not expanded.
+ * A counter is not thread-safe; use one instance per thread.
+ */
+public class SolutionCounter {
+    private final PositionMemo memo = new PositionMemo();
+    private long nodeCount;
+
+    /**
+     * Counts the winning lines of a position.
+     *
+     * @param position The position.
+     * @return The number of move sequences leading to a single piece, 1 if the position is already solved,
+     * or {@link Long#MAX_VALUE} if there are at least that many.
+     */
+    public long count(Position position) {
+        nodeCount++;
+        if (position.isSolved()) {
+            return 1;
+        }
+        long key = PositionMemo.hash(position);
+        long memoized = memo.get(key, -1);
+        if (memoized >= 0) {
+            return memoized;
+        }
+        long total = 0;
+        if (!Solver.cannotBeSolved(position)) {
+            int[] moves = position.newMoveBuffer();
+            int count = position.generateMoves(moves);
+            for (int i = 0; i < count; i++) {
+                long lines = count(position.play(moves[i]));
+                total = total > Long.MAX_VALUE - lines ? Long.MAX_VALUE : total + lines;
+            }
+        }
+        memo.put(key, total);
+        return total;
+    }
+
+    /**
+     * Checks whether a position has exactly one winning line.
+     *
+     * @param position The position.
+     * @return true if a single sequence of moves wins.
+     */
+    public boolean hasUniqueSolution(Position position) {
+        return count(position) == 1;
+    }
+
+    /**
+     * Gets the number of positions counted so far, i.e. the size of the memo.
+     *
+     * @return The number of memoized positions.
+     */
+    public int getMemoSize() {
+        return memo.size();
+    }
+
+    /**
+     * Gets the number of positions visited since the last reset, memo hits included.
+     *
+     * @return The node count.
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Clears the memo and the statistics.
+     */
+    public void reset() {
+        memo.clear();
+        nodeCount = 0;
+    }
+}
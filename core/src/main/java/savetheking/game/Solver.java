@@ -0,0 +1,500 @@
+package savetheking.game;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Depth-first solver for Solo Chess positions.
+ * Positions already proven unsolvable are kept in a transposition table keyed by their
+ * {@link Position#canonical() canonical form}, so a position reached through different
+ * capture orders, or a mirror image of it, is only searched once.
+ *
+ * Captures are tried in a heuristic order and positions that provably cannot be won
+ * are cut off before their moves are generated; both can be switched off to measure
+ * their effect (see {@link SolverBenchmark}).
+ *
+ * {@link #search(Position, SearchBudget)} is the anytime entry point: it stops when its
+ * budget is spent and reports an unknown verdict. Only complete proofs enter the
+ * transposition table, so calling it again on the same position resumes the work,
+ * which lets the render loop spend a few milliseconds per frame on the same question
+ * that an offline job answers in one unlimited call. Each call walks back down through
+ * the proven positions before reaching new ones, so a slice must be large enough to
+ * cover that walk: a few hundred nodes, or a millisecond, is plenty.
+ * Positions are solved under their own {@link RuleSet}. With a {@link Tablebase}, positions it covers are
+ * answered by a probe instead: lost ones are cut off at once, and the captures out of a solvable one
+ * are probed in turn, so the winning line is found without branching.
+ * The transposition table is bounded: once it holds {@link #DEFAULT_TABLE_CAPACITY} positions, or the capacity
+ * set with {@link #setTableCapacity(int)}, it is cleared and refilled, so a long-lived solver does not keep growing.
+ * A solver is not thread-safe; use one instance per thread and share a {@link VerdictCache}.
+ */
+public class Solver {
+    private static final int WIN = 1;
+    private static final int LOSS = 0;
+    private static final int ABORTED = -1;
+
+    /** The default number of lost positions kept in the transposition table. */
+    public static final int DEFAULT_TABLE_CAPACITY = 1 << 18;
+
+    private final Set<Position> deadPositions = new HashSet<Position>(); // Transposition table of lost positions
+    private int tableCapacity = DEFAULT_TABLE_CAPACITY;
+    private final VerdictCache verdictCache; // Optional cache of verdicts for root positions
+    private Tablebase tablebase; // Optional exact verdicts of the positions with few pieces
+    private boolean moveOrdering = true;
+    private boolean pruning = true;
+    private long nodeCount;
+    private long transpositionHits;
+    private long prunedCount;
+    private long tablebaseHits;
+
+    // State of the current search
+    private SearchBudget budget;
+    private long searchStartNodes;
+    private int maxDepth;
+    private int winDepth; // Length of the winning line once one is found
+
+    /**
+     * Creates a solver without a verdict cache.
+     */
+    public Solver() {
+        this(null);
+    }
+
+    /**
+     * Creates a solver that looks up and stores root verdicts in the given cache.
+     *
+     * @param verdictCache The shared cache, or null to always search.
+     */
+    public Solver(VerdictCache verdictCache) {
+        this.verdictCache = verdictCache;
+    }
+
+    /**
+     * Checks whether a position can be reduced to a single piece.
+     *
+     * @param position The position to solve.
+     * @return true if a winning sequence of captures exists.
+     */
+    public boolean isSolvable(Position position) {
+        if (verdictCache != null) {
+            Boolean cached = verdictCache.get(position);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return search(position, SearchBudget.unlimited()).getVerdict() == SearchResult.Verdict.SOLVABLE;
+    }
+
+    /**
+     * Finds a winning sequence of captures.
+     *
+     * @param position The position to solve.
+     * @return The packed moves of a solution, in order, or null if the position is unsolvable.
+     */
+    public int[] findSolution(Position position) {
+        return search(position, SearchBudget.unlimited()).getSolution();
+    }
+
+    /**
+     * Searches a position within a budget. Exact verdicts are stored in the verdict cache.
+     *
+     * @param position The position to solve.
+     * @param budget   The node, time and cancellation limits of this search.
+     * @return The verdict, with the solution if one was found, and the search statistics.
+     */
+    public SearchResult search(Position position, SearchBudget budget) {
+        SolverBatchEvent event = new SolverBatchEvent();
+        event.begin();
+        long startNanos = System.nanoTime();
+        long startTablebaseHits = tablebaseHits;
+        long startTranspositionHits = transpositionHits;
+        long startPruned = prunedCount;
+        this.budget = budget;
+        this.searchStartNodes = nodeCount;
+        this.maxDepth = 0;
+        budget.start();
+
+        int[] line = new int[maxLineLength(position)];
+        int outcome = search(position, line, 0);
+        SearchResult.Verdict verdict = outcome == WIN ? SearchResult.Verdict.SOLVABLE
+            : outcome == LOSS ? SearchResult.Verdict.UNSOLVABLE : SearchResult.Verdict.UNKNOWN;
+        if (verdictCache != null && outcome != ABORTED) {
+            verdictCache.put(position, outcome == WIN);
+        }
+        this.budget = null;
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.pieces = position.getPieceCount();
+            event.verdict = verdict.name();
+            event.nodes = nodeCount - searchStartNodes;
+            event.transpositionHits = transpositionHits - startTranspositionHits;
+            event.pruned = prunedCount - startPruned;
+            event.tablebaseHits = tablebaseHits - startTablebaseHits;
+            event.maxDepth = maxDepth;
+            event.commit();
+        }
+        return new SearchResult(verdict, outcome == WIN ? Arrays.copyOf(line, winDepth) : null, nodeCount - searchStartNodes,
+            transpositionHits - startTranspositionHits, prunedCount - startPruned, maxDepth,
+            System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Searches a position depth-first, filling the winning line.
+     * A position is only recorded as lost once all its captures were refuted,
+     * never when the search was aborted midway.
+     *
+     * @return {@link #WIN}, {@link #LOSS} or {@link #ABORTED}.
+     */
+    private int search(Position position, int[] line, int depth) {
+        nodeCount++;
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+        if (position.isSolved()) {
+            winDepth = depth;
+            return WIN;
+        }
+        if (budget.isExhausted(nodeCount - searchStartNodes)) {
+            return ABORTED;
+        }
+        if (tablebase != null) {
+            SearchResult.Verdict verdict = tablebase.probe(position);
+            if (verdict != SearchResult.Verdict.UNKNOWN) {
+                tablebaseHits++;
+                if (verdict == SearchResult.Verdict.UNSOLVABLE) {
+                    return LOSS;
+                }
+            }
+        }
+        Position key = position.canonical();
+        if (deadPositions.contains(key)) {
+            transpositionHits++;
+            return LOSS;
+        }
+        if (pruning && cannotBeSolved(position)) {
+            prunedCount++;
+            addDeadPosition(key);
+            return LOSS;
+        }
+        int[] moves = position.newMoveBuffer();
+        int count = position.generateMoves(moves);
+        if (moveOrdering) {
+            orderMoves(position, moves, count);
+        }
+        for (int i = 0; i < count; i++) {
+            int outcome = search(position.play(moves[i]), line, depth + 1);
+            if (outcome == WIN) {
+                line[depth] = moves[i];
+                return WIN;
+            }
+            if (outcome == ABORTED) {
+                return ABORTED;
+            }
+        }
+        addDeadPosition(key);
+        return LOSS;
+    }
+
+    /**
+     * Records a lost position, clearing the table first when it is full. Only the work saved by the
+     * table is lost: every entry is a proven loss, so the verdicts do not depend on what is kept.
+     */
+    private void addDeadPosition(Position key) {
+        if (deadPositions.size() >= tableCapacity) {
+            deadPositions.clear();
+        }
+        deadPositions.add(key);
+    }
+
+    /**
+     * Bounds the length of a winning line: every capture removes a piece, and when quiet moves
+     * are allowed a line cannot be longer than the moves the pieces have left.
+     */
+    private static int maxLineLength(Position position) {
+        RuleSet rules = position.getRules();
+        if (rules.isCaptureOnly()) {
+            return Math.max(0, position.getPieceCount() - 1);
+        }
+        int movesLeft = 0;
+        for (int square = 0; square < position.getSquareCount(); square++) {
+            byte cell = position.getCell(square);
+            if (cell != Position.EMPTY) {
+                movesLeft += Math.max(0, rules.getMoveLimit() - Position.moves(cell));
+            }
+        }
+        return movesLeft;
+    }
+
+    /**
+     * Sorts moves so the most promising are tried first:
+     * captures by pieces that keep a move afterwards, then captures of pieces that could
+     * still capture themselves, and king moves last when the king has to survive.
+     */
+    private static void orderMoves(Position position, int[] moves, int count) {
+        int[] scores = new int[count];
+        for (int i = 0; i < count; i++) {
+            scores[i] = scoreMove(position, moves[i]);
+        }
+        // Insertion sort: there are rarely more than a few dozen captures
+        for (int i = 1; i < count; i++) {
+            int move = moves[i];
+            int score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                moves[j + 1] = moves[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            moves[j + 1] = move;
+            scores[j + 1] = score;
+        }
+    }
+
+    private static int scoreMove(Position position, int move) {
+        RuleSet rules = position.getRules();
+        byte mover = position.getCell(Position.moveFrom(move));
+        byte target = position.getCell(Position.moveTo(move));
+        if (Position.kind(mover) == Position.KING && rules.isKingLast()) {
+            return -1;
+        }
+        int score = 0;
+        if (Position.moves(mover) + 1 < rules.getMoveLimit()) {
+            score += 2;
+        }
+        if (target != Position.EMPTY && Position.moves(target) < rules.getMoveLimit()) {
+            score += 1;
+        }
+        return score;
+    }
+
+    /**
+     * Detects positions that cannot be won whatever is played. Both tests are sound:
+     * <ul>
+     *     <li>each capture spends one move and removes one piece, so the pieces must have
+     *     at least {@code pieceCount - 1} moves left between them;</li>
+     *     <li>pieces are grouped with every square they could ever land on. Groups never
+     *     interact and each keeps at least one piece, so the position is lost as soon as
+     *     there are two groups. A piece that can neither capture nor be captured is such a
+     *     group on its own.</li>
+     * </ul>
+     * Pieces only ever land on squares occupied now, so a piece reaches a square if it can get
+     * there within its remaining moves hopping between currently occupied squares. Blockers are
+     * ignored, which can only make more squares reachable and keeps the test sound.
+     * The second test only holds when every move is a capture, so it is skipped otherwise.
+     */
+    static boolean cannotBeSolved(Position position) {
+        RuleSet rules = position.getRules();
+        int limit = rules.getMoveLimit();
+        int squareCount = position.getSquareCount();
+        int[] squares = new int[position.getPieceCount()];
+        int pieceCount = 0;
+        int movesLeft = 0;
+        for (int square = 0; square < squareCount; square++) {
+            byte cell = position.getCell(square);
+            if (cell != Position.EMPTY) {
+                squares[pieceCount++] = square;
+                movesLeft += Math.max(0, limit - Position.moves(cell));
+            }
+        }
+        if (pieceCount - 1 > movesLeft) {
+            return true;
+        }
+        if (!rules.isCaptureOnly()) {
+            return false;
+        }
+
+        // Union-find over piece indexes: a piece joins every piece whose square it can reach
+        int[] group = new int[pieceCount];
+        for (int i = 0; i < pieceCount; i++) {
+            group[i] = i;
+        }
+        int groups = pieceCount;
+        for (int i = 0; i < pieceCount; i++) {
+            byte cell = position.getCell(squares[i]);
+            int remaining = limit - Position.moves(cell);
+            if (remaining > 0) {
+                groups -= joinReachable(position, Position.kind(cell), i, remaining, squares, pieceCount, group);
+            }
+        }
+        return groups > 1;
+    }
+
+    /**
+     * Joins the group of a piece with the groups of the pieces it can reach within its remaining moves,
+     * by a breadth-first search over the occupied squares. Each square is visited at most once, so the
+     * cost is bounded by the number of pieces squared, whatever the move limit.
+     *
+     * @return The number of groups merged away.
+     */
+    private static int joinReachable(Position position, int kind, int piece, int moves,
+                                     int[] squares, int pieceCount, int[] group) {
+        boolean[] visited = new boolean[pieceCount];
+        int[] frontier = new int[pieceCount];
+        int[] next = new int[pieceCount];
+        visited[piece] = true;
+        frontier[0] = piece;
+        int frontierSize = 1;
+        int merged = 0;
+        for (int depth = 0; depth < moves && frontierSize > 0; depth++) {
+            int nextSize = 0;
+            for (int f = 0; f < frontierSize; f++) {
+                int from = squares[frontier[f]];
+                for (int j = 0; j < pieceCount; j++) {
+                    int to = squares[j];
+                    if (visited[j] || !position.getRules().canBeCaptured(Position.kind(position.getCell(to)))
+                        || !attacks(position, kind, from, to)) {
+                        continue;
+                    }
+                    visited[j] = true;
+                    next[nextSize++] = j;
+                    int rootPiece = root(group, piece);
+                    int rootTarget = root(group, j);
+                    if (rootPiece != rootTarget) {
+                        group[rootTarget] = rootPiece;
+                        merged++;
+                    }
+                }
+            }
+            int[] swap = frontier;
+            frontier = next;
+            next = swap;
+            frontierSize = nextSize;
+        }
+        return merged;
+    }
+
+    private static int root(int[] group, int i) {
+        while (group[i] != i) {
+            group[i] = group[group[i]];
+            i = group[i];
+        }
+        return i;
+    }
+
+    /**
+     * Checks whether a piece of the given kind could move from one square to another on an empty board.
+     */
+    static boolean attacks(Position position, int kind, int from, int to) {
+        int columns = position.getColumns();
+        int dx = to / columns - from / columns;
+        int dy = to % columns - from % columns;
+        int rowDistance = Math.abs(dx);
+        int columnDistance = Math.abs(dy);
+        switch (kind) {
+            case Position.KING:
+                return Math.max(rowDistance, columnDistance) == 1;
+            case Position.KNIGHT:
+                return rowDistance * columnDistance == 2;
+            case Position.ROOK:
+                return rowDistance == 0 || columnDistance == 0;
+            case Position.BISHOP:
+                return rowDistance == columnDistance;
+            case Position.QUEEN:
+                return rowDistance == 0 || columnDistance == 0 || rowDistance == columnDistance;
+            case Position.PAWN:
+                return dx == position.getPawnDirection() && columnDistance == 1;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Enables or disables move ordering. Enabled by default.
+     *
+     * @param moveOrdering true to try the most promising captures first.
+     */
+    public void setMoveOrdering(boolean moveOrdering) {
+        this.moveOrdering = moveOrdering;
+    }
+
+    /**
+     * Enables or disables the pruning of hopeless positions. Enabled by default.
+     *
+     * @param pruning true to cut off positions that cannot be won.
+     */
+    public void setPruning(boolean pruning) {
+        this.pruning = pruning;
+    }
+
+    /**
+     * Sets the number of lost positions kept in the transposition table, {@link #DEFAULT_TABLE_CAPACITY} by default.
+     *
+     * @param tableCapacity The maximum number of positions in the table.
+     * @throws IllegalArgumentException if the capacity is not positive.
+     */
+    public void setTableCapacity(int tableCapacity) {
+        if (tableCapacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + tableCapacity);
+        }
+        this.tableCapacity = tableCapacity;
+        if (deadPositions.size() > tableCapacity) {
+            deadPositions.clear();
+        }
+    }
+
+    /**
+     * Gets the number of lost positions in the transposition table.
+     *
+     * @return The table size, at most the table capacity.
+     */
+    public int getTableSize() {
+        return deadPositions.size();
+    }
+
+    /**
+     * Sets the tablebase probed for the positions it covers.
+     *
+     * @param tablebase The tablebase, or null to always search.
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Gets the number of positions answered by the tablebase since the last reset.
+     *
+     * @return The tablebase hit count.
+     */
+    public long getTablebaseHits() {
+        return tablebaseHits;
+    }
+
+    /**
+     * Gets the number of positions cut off by pruning since the last reset.
+     *
+     * @return The pruned position count.
+     */
+    public long getPrunedCount() {
+        return prunedCount;
+    }
+
+    /**
+     * Gets the number of positions visited since the last reset.
+     *
+     * @return The node count.
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Gets the number of positions answered by the transposition table since the last reset.
+     *
+     * @return The transposition hit count.
+     */
+    public long getTranspositionHits() {
+        return transpositionHits;
+    }
+
+    /**
+     * Clears the transposition table and the statistics.
+     */
+    public void reset() {
+        deadPositions.clear();
+        nodeCount = 0;
+        transpositionHits = 0;
+        prunedCount = 0;
+        tablebaseHits = 0;
+    }
+}
@@ -0,0 +1,38 @@
+package savetheking.game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of one call to {@link Solver#search(Position, SearchBudget)}: an unlimited solve,
+ * or one budgeted slice of the analysis the render loop spreads over frames.
+ * The fields are only filled in when the event is recorded, so a disabled event costs next to nothing.
+ */
+@Name("savetheking.game.SolverBatch")
+@Label("Solver Batch")
+@Category({"Solo Chess", "Solver"})
+@Description("A budgeted search of the solver")
+public class SolverBatchEvent extends jdk.jfr.Event {
+    @Label("Pieces")
+    int pieces;
+
+    @Label("Verdict")
+    String verdict;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Transposition Hits")
+    long transpositionHits;
+
+    @Label("Pruned")
+    long pruned;
+
+    @Label("Tablebase Hits")
+    long tablebaseHits;
+
+    @Label("Max Depth")
+    int maxDepth;
+}
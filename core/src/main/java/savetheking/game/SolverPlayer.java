@@ -0,0 +1,54 @@
+package savetheking.game;
+
+/**
+ * Perfect player: it picks the first move leading to a solvable position, so it wins every solvable puzzle.
+ * In a lost position any move loses, and the first one is played.
+ * Forks share the verdict cache, so the positions a puzzle leads to are only solved once per tournament,
+ * and each player also remembers the verdicts it looked up by exact position, which spares it the canonical
+ * forms the cache is keyed by when the same puzzle is played over and over.
+ */
+public class SolverPlayer implements Player {
+    private final VerdictCache verdictCache;
+    private final Solver solver;
+    private final PositionMemo verdicts = new PositionMemo(); // 1 if solvable, 0 if not
+
+    /**
+     * Creates a solver-backed player.
+     *
+     * @param verdictCache The verdict cache shared with its forks, or null to always search.
+     */
+    public SolverPlayer(VerdictCache verdictCache) {
+        this.verdictCache = verdictCache;
+        this.solver = new Solver(verdictCache);
+    }
+
+    @Override
+    public int chooseMove(Position position, int[] moves, int count) {
+        for (int i = 0; i < count; i++) {
+            if (isSolvable(position.play(moves[i]))) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private boolean isSolvable(Position position) {
+        long key = PositionMemo.hash(position);
+        long verdict = verdicts.get(key, -1);
+        if (verdict < 0) {
+            verdict = solver.isSolvable(position) ? 1 : 0;
+            verdicts.put(key, verdict);
+        }
+        return verdict == 1;
+    }
+
+    @Override
+    public Player fork(long seed) {
+        return new SolverPlayer(verdictCache);
+    }
+
+    @Override
+    public String getName() {
+        return "Solver";
+    }
+}
@@ -0,0 +1,105 @@
+package savetheking.game;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The eight symmetries of a square board (the dihedral group of order 8).
+ * Solo Chess has no side to move, so a position and its image under a symmetry
+ * are equally solvable, provided the symmetry keeps the board shape and, when pawns
+ * are present, the direction pawns move in.
+ */
+public enum Symmetry {
+    IDENTITY(false, true),
+    ROTATE_90(true, false),
+    ROTATE_180(false, false),
+    ROTATE_270(true, false),
+    MIRROR_COLUMNS(false, true), // Left-right mirror: pawns keep moving along the same rows
+    MIRROR_ROWS(false, false),
+    TRANSPOSE(true, false),
+    ANTI_TRANSPOSE(true, false);
+
+    private static final ConcurrentMap<Integer, int[][]> PERMUTATIONS = new ConcurrentHashMap<Integer, int[][]>();
+
+    private final boolean swapsDimensions;
+    private final boolean keepsPawnDirection;
+
+    Symmetry(boolean swapsDimensions, boolean keepsPawnDirection) {
+        this.swapsDimensions = swapsDimensions;
+        this.keepsPawnDirection = keepsPawnDirection;
+    }
+
+    /**
+     * Checks whether this symmetry maps a board of the given shape onto itself.
+     *
+     * @param rows    The number of rows.
+     * @param columns The number of columns.
+     * @return true unless the symmetry swaps rows and columns on a rectangular board.
+     */
+    public boolean appliesTo(int rows, int columns) {
+        return !swapsDimensions || rows == columns;
+    }
+
+    /**
+     * Checks whether this symmetry can be applied to a position containing pawns.
+     *
+     * @return true if pawns keep their direction of travel.
+     */
+    public boolean keepsPawnDirection() {
+        return keepsPawnDirection;
+    }
+
+    /**
+     * Computes the image of a square.
+     *
+     * @param x       The row of the square.
+     * @param y       The column of the square.
+     * @param rows    The number of rows.
+     * @param columns The number of columns.
+     * @return The index of the image square on the (same shaped) board.
+     */
+    public int apply(int x, int y, int rows, int columns) {
+        int lastRow = rows - 1;
+        int lastColumn = columns - 1;
+        switch (this) {
+            case ROTATE_90: return y * columns + (lastRow - x);
+            case ROTATE_180: return (lastRow - x) * columns + (lastColumn - y);
+            case ROTATE_270: return (lastColumn - y) * columns + x;
+            case MIRROR_COLUMNS: return x * columns + (lastColumn - y);
+            case MIRROR_ROWS: return (lastRow - x) * columns + y;
+            case TRANSPOSE: return y * columns + x;
+            case ANTI_TRANSPOSE: return (lastColumn - y) * columns + (lastRow - x);
+            default: return x * columns + y;
+        }
+    }
+
+    /**
+     * Gets, for every symmetry, the table mapping each target square to its source square,
+     * so that {@code image[i] = cells[table[i]]}. Tables are computed once per board shape.
+     *
+     * @param rows    The number of rows.
+     * @param columns The number of columns.
+     * @return The tables, indexed by {@link #ordinal()}; null for symmetries that do not apply.
+     */
+    static int[][] sourceTables(int rows, int columns) {
+        Integer key = rows * 1024 + columns;
+        int[][] tables = PERMUTATIONS.get(key);
+        if (tables == null) {
+            tables = new int[values().length][];
+            for (Symmetry symmetry : values()) {
+                if (!symmetry.appliesTo(rows, columns)) {
+                    continue;
+                }
+                int[] table = new int[rows * columns];
+                for (int x = 0; x < rows; x++) {
+                    for (int y = 0; y < columns; y++) {
+                        table[symmetry.apply(x, y, rows, columns)] = x * columns + y;
+                    }
+                }
+                tables[symmetry.ordinal()] = table;
+            }
+            PERMUTATIONS.putIfAbsent(key, tables);
+        }
+        return tables;
+    }
+}
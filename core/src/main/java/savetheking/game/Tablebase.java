@@ -0,0 +1,514 @@
+package savetheking.game;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Endgame tablebase: the verdict of every position with at most a few pieces, for one board shape and one set
+ * of capture-only rules. Once a game gets down to that many pieces, probing the tablebase answers in constant
+ * time what the {@link Solver} would otherwise search for.
+ *
+ * <p>Positions are grouped by material signature: the sorted cells of their pieces, kind and move count
+ * together, plus the pawn direction when there are pawns. Each signature has one table holding one bit per
+ * placement, addressed by the squares of its pieces in signature order, so a probe reads a single bit.
+ * Identical pieces are only stored in increasing square order; the other bits of their table stay clear.</p>
+ *
+ * <p>Every capture removes a piece, so the positions of one piece count only depend on positions with one
+ * piece less and the tables are built layer by layer, from a single piece up. The tables of a layer are
+ * independent of each other and are built in parallel. For the same reason a solvable position is always
+ * solved in exactly one capture less than its piece count, which is why a verdict bit is all a table needs.</p>
+ *
+ * <p>The file is memory-mapped when opened, so only the tables actually probed are read from disk.
+ * Tables grow with the number of squares to the power of the piece count: three pieces on an 8x8 board
+ * take about 50 MB, a fourth piece multiplies that by the number of squares.</p>
+ */
+public final class Tablebase {
+    /** The number of pieces a tablebase covers unless told otherwise. */
+    public static final int DEFAULT_MAX_PIECES = 3;
+
+    private static final int MAX_PIECES = 7; // One signature byte per piece, plus one for the pawn flag and piece count
+    private static final int FILE_MAGIC = 0x53435442; // "SCTB"
+    private static final int FILE_VERSION = 1;
+    private static final int HEADER_SIZE = 8 * 4;
+    private static final int ENTRY_SIZE = 8 + 4;
+
+    private final int rows;
+    private final int columns;
+    private final int maxPieces;
+    private final RuleSet rules;
+    private final Map<Long, Integer> offsets; // Start of each table in the file, by signature key
+    private final MappedByteBuffer data;
+
+    private Tablebase(int rows, int columns, int maxPieces, RuleSet rules, Map<Long, Integer> offsets,
+                      MappedByteBuffer data) {
+        this.rows = rows;
+        this.columns = columns;
+        this.maxPieces = maxPieces;
+        this.rules = rules;
+        this.offsets = offsets;
+        this.data = data;
+    }
+
+    /**
+     * Builds the tablebase of every position with up to the given number of pieces and saves it.
+     *
+     * @param file      The file to write.
+     * @param rows      The number of rows of the board.
+     * @param columns   The number of columns of the board.
+     * @param maxPieces The largest number of pieces covered.
+     * @param rules     The rules the positions are played under; they must only allow captures.
+     * @param threads   The number of threads building the tables of a layer.
+     * @throws IOException              if the file cannot be written.
+     * @throws IllegalArgumentException if the rules allow quiet moves or the tables would be too large.
+     * @throws IllegalStateException    if the build is interrupted or fails unexpectedly.
+     */
+    public static void generate(File file, final int rows, final int columns, int maxPieces, final RuleSet rules, int threads)
+            throws IOException {
+        if (!rules.isCaptureOnly()) {
+            throw new IllegalArgumentException("Tablebases need capture-only rules: " + rules);
+        }
+        if (maxPieces < 1 || maxPieces > MAX_PIECES) {
+            throw new IllegalArgumentException("Piece count must be between 1 and " + MAX_PIECES + ": " + maxPieces);
+        }
+        if (tableBytes(rows * columns, maxPieces) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Tables of " + maxPieces + " pieces on a " + rows + "x" + columns
+                + " board are too large");
+        }
+
+        Map<Long, long[]> tables = new HashMap<Long, long[]>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int pieceCount = 1; pieceCount <= maxPieces; pieceCount++) {
+                long startNanos = System.nanoTime();
+                List<Signature> signatures = signatures(pieceCount, rules.getMoveLimit());
+                List<Future<long[]>> parts = new ArrayList<Future<long[]>>(signatures.size());
+                final Map<Long, long[]> lower = tables; // Complete and no longer modified while this layer is built
+                for (final Signature signature : signatures) {
+                    parts.add(executor.submit(new Callable<long[]>() {
+                        @Override
+                        public long[] call() {
+                            return buildTable(signature, rows, columns, rules, lower);
+                        }
+                    }));
+                }
+                long wins = 0;
+                Map<Long, long[]> layer = new HashMap<Long, long[]>();
+                for (int i = 0; i < signatures.size(); i++) {
+                    long[] bits = parts.get(i).get();
+                    for (long word : bits) {
+                        wins += Long.bitCount(word);
+                    }
+                    layer.put(signatures.get(i).key, bits);
+                }
+                tables.putAll(layer); // Only once every table of the layer is built, since they all read the lower layers
+                System.out.printf("Tablebase layer %d: %d tables, %d solvable positions in %d ms%n", pieceCount,
+                    signatures.size(), wins, (System.nanoTime() - startNanos) / 1000000);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tablebase build interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tablebase build failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        write(file, rows, columns, maxPieces, rules, tables);
+    }
+
+    /**
+     * Opens a tablebase saved by {@link #generate(File, int, int, int, RuleSet, int)}.
+     * The file is memory-mapped and must not be modified while the tablebase is in use.
+     *
+     * @param file The file to read.
+     * @return The tablebase.
+     * @throws IOException              if the file cannot be read.
+     * @throws IllegalArgumentException if the file is not a tablebase.
+     */
+    public static Tablebase open(File file) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            if (in.length() < HEADER_SIZE || in.length() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Not a tablebase: " + file);
+            }
+            MappedByteBuffer data = in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, in.length());
+            if (data.getInt(0) != FILE_MAGIC) {
+                throw new IllegalArgumentException("Not a tablebase: " + file);
+            }
+            if (data.getInt(4) != FILE_VERSION) {
+                throw new IllegalArgumentException("Unsupported tablebase version: " + data.getInt(4));
+            }
+            int rows = data.getInt(8);
+            int columns = data.getInt(12);
+            int maxPieces = data.getInt(16);
+            RuleSet rules = new RuleSet(data.getInt(20), data.getInt(24) != 0, true);
+            int tableCount = data.getInt(28);
+            if (tableCount < 0 || HEADER_SIZE + (long) tableCount * ENTRY_SIZE > data.capacity()) {
+                throw new IllegalArgumentException("Corrupt tablebase: " + file);
+            }
+            Map<Long, Integer> offsets = new HashMap<Long, Integer>(tableCount * 2);
+            for (int i = 0; i < tableCount; i++) {
+                int entry = HEADER_SIZE + i * ENTRY_SIZE;
+                long key = data.getLong(entry);
+                int offset = data.getInt(entry + 8);
+                if (offset < 0 || offset + tableBytes(rows * columns, pieceCount(key)) > data.capacity()) {
+                    throw new IllegalArgumentException("Corrupt tablebase: " + file);
+                }
+                offsets.put(key, offset);
+            }
+            return new Tablebase(rows, columns, maxPieces, rules, offsets, data);
+        } finally {
+            in.close(); // The mapping stays valid once the file is closed
+        }
+    }
+
+    /**
+     * Checks whether this tablebase holds the verdict of a position: same board shape and rules,
+     * and at most {@link #getMaxPieces()} pieces.
+     *
+     * @param position The position.
+     * @return true if {@link #probe(Position)} gives an exact verdict.
+     */
+    public boolean covers(Position position) {
+        return position.getRows() == rows && position.getColumns() == columns && position.getRules().equals(rules)
+            && position.getPieceCount() > 0 && position.getPieceCount() <= maxPieces;
+    }
+
+    /**
+     * Looks up the verdict of a position.
+     *
+     * @param position The position.
+     * @return {@link SearchResult.Verdict#SOLVABLE} or {@link SearchResult.Verdict#UNSOLVABLE},
+     * or {@link SearchResult.Verdict#UNKNOWN} if the position is not covered.
+     */
+    public SearchResult.Verdict probe(Position position) {
+        if (!covers(position)) {
+            return SearchResult.Verdict.UNKNOWN;
+        }
+        int pieceCount = position.getPieceCount();
+        byte[] pieceCells = new byte[pieceCount];
+        int[] pieceSquares = new int[pieceCount];
+        collectPieces(position, pieceCells, pieceSquares);
+        Integer offset = offsets.get(signatureKey(pieceCells, pawnFlag(position)));
+        if (offset == null) {
+            return SearchResult.Verdict.UNKNOWN;
+        }
+        long index = placementIndex(pieceSquares, position.getSquareCount());
+        boolean solvable = (data.get(offset + (int) (index >>> 3)) & (1 << (index & 7))) != 0;
+        return solvable ? SearchResult.Verdict.SOLVABLE : SearchResult.Verdict.UNSOLVABLE;
+    }
+
+    /**
+     * Gets the number of captures left to win a position.
+     *
+     * @param position The position.
+     * @return The piece count minus one if the position is solvable, or -1 if it is lost or not covered.
+     */
+    public int getDistanceToSolution(Position position) {
+        return probe(position) == SearchResult.Verdict.SOLVABLE ? position.getPieceCount() - 1 : -1;
+    }
+
+    /**
+     * Finds a capture keeping a covered position solvable, e.g. to give a hint.
+     *
+     * @param position The position.
+     * @return The packed move, or -1 if the position is lost, already solved or not covered.
+     */
+    public int findWinningMove(Position position) {
+        if (probe(position) != SearchResult.Verdict.SOLVABLE) {
+            return -1;
+        }
+        int[] moves = position.newMoveBuffer();
+        int count = position.generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            Position next = position.play(moves[i]);
+            if (next.isSolved() || probe(next) == SearchResult.Verdict.SOLVABLE) {
+                return moves[i];
+            }
+        }
+        return -1;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getMaxPieces() {
+        return maxPieces;
+    }
+
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    /**
+     * Builds the table of one signature from the tables of one piece less.
+     */
+    private static long[] buildTable(Signature signature, int rows, int columns, RuleSet rules, Map<Long, long[]> lower) {
+        int squareCount = rows * columns;
+        int pieceCount = signature.cells.length;
+        long size = pow(squareCount, pieceCount);
+        long[] bits = new long[(int) ((size + 63) >>> 6)];
+
+        // A capture needs a piece with a move left, and a win needs one capture per piece but one
+        int movesLeft = 0;
+        for (byte cell : signature.cells) {
+            movesLeft += rules.getMoveLimit() - Position.moves(cell);
+        }
+        if (pieceCount > 1 && movesLeft < pieceCount - 1) {
+            return bits;
+        }
+
+        int pawnDirection = signature.pawnFlag == 2 ? 1 : -1;
+        int[] squares = new int[pieceCount];
+        int[] moves = null;
+        for (long index = 0; index < size; index++) {
+            long rest = index;
+            for (int i = 0; i < pieceCount; i++) {
+                squares[i] = (int) (rest % squareCount);
+                rest /= squareCount;
+            }
+            if (!isStoredPlacement(signature.cells, squares)) {
+                continue;
+            }
+            if (pieceCount == 1) {
+                bits[(int) (index >>> 6)] |= 1L << index;
+                continue;
+            }
+            byte[] cells = new byte[squareCount];
+            for (int i = 0; i < pieceCount; i++) {
+                cells[squares[i]] = signature.cells[i];
+            }
+            Position position = new Position(rows, columns, cells, pawnDirection, rules);
+            if (moves == null) {
+                moves = position.newMoveBuffer();
+            }
+            int count = position.generateMoves(moves);
+            for (int i = 0; i < count; i++) {
+                if (isSolvable(position.play(moves[i]), lower)) {
+                    bits[(int) (index >>> 6)] |= 1L << index;
+                    break;
+                }
+            }
+        }
+        return bits;
+    }
+
+    private static boolean isSolvable(Position position, Map<Long, long[]> tables) {
+        int pieceCount = position.getPieceCount();
+        byte[] pieceCells = new byte[pieceCount];
+        int[] pieceSquares = new int[pieceCount];
+        collectPieces(position, pieceCells, pieceSquares);
+        long[] bits = tables.get(signatureKey(pieceCells, pawnFlag(position)));
+        long index = placementIndex(pieceSquares, position.getSquareCount());
+        return (bits[(int) (index >>> 6)] & (1L << index)) != 0;
+    }
+
+    /**
+     * Checks that the pieces of a placement are on distinct squares, identical pieces in increasing square order.
+     */
+    private static boolean isStoredPlacement(byte[] cells, int[] squares) {
+        for (int i = 0; i < squares.length; i++) {
+            for (int j = i + 1; j < squares.length; j++) {
+                if (squares[i] == squares[j] || (cells[i] == cells[j] && squares[i] > squares[j])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lists the pieces of a position sorted by cell value; identical pieces stay in square order.
+     */
+    private static void collectPieces(Position position, byte[] pieceCells, int[] pieceSquares) {
+        int found = 0;
+        for (int square = 0; square < position.getSquareCount() && found < pieceCells.length; square++) {
+            byte cell = position.getCell(square);
+            if (cell == Position.EMPTY) {
+                continue;
+            }
+            int i = found++;
+            while (i > 0 && pieceCells[i - 1] > cell) {
+                pieceCells[i] = pieceCells[i - 1];
+                pieceSquares[i] = pieceSquares[i - 1];
+                i--;
+            }
+            pieceCells[i] = cell;
+            pieceSquares[i] = square;
+        }
+    }
+
+    /**
+     * Gives the pawn part of a signature: 0 without pawns, 1 for pawns moving towards row 0, 2 otherwise.
+     */
+    private static int pawnFlag(Position position) {
+        if (!position.hasPawns()) {
+            return 0;
+        }
+        return position.getPawnDirection() < 0 ? 1 : 2;
+    }
+
+    /**
+     * Packs a signature: the pawn flag and the piece count in the top byte, then one byte per cell.
+     */
+    private static long signatureKey(byte[] cells, int pawnFlag) {
+        long key = 0;
+        for (byte cell : cells) {
+            key = key << 8 | cell;
+        }
+        return (long) (pawnFlag << 3 | cells.length) << 56 | key;
+    }
+
+    private static int pieceCount(long key) {
+        return (int) (key >>> 56) & 0x7;
+    }
+
+    private static long placementIndex(int[] squares, int squareCount) {
+        long index = 0;
+        for (int i = squares.length - 1; i >= 0; i--) {
+            index = index * squareCount + squares[i];
+        }
+        return index;
+    }
+
+    private static long pow(int base, int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= base;
+        }
+        return result;
+    }
+
+    private static long tableBytes(int squareCount, int pieceCount) {
+        return (pow(squareCount, pieceCount) + 7) >>> 3;
+    }
+
+    /**
+     * Lists the signatures of a piece count: every sorted combination of cells, twice when it holds pawns.
+     */
+    private static List<Signature> signatures(int pieceCount, int moveLimit) {
+        List<Byte> cellValues = new ArrayList<Byte>();
+        for (int kind = Position.PAWN; kind <= Position.KING; kind++) {
+            for (int moves = 0; moves <= moveLimit; moves++) {
+                cellValues.add(Position.cell(kind, moves));
+            }
+        }
+        Collections.sort(cellValues);
+        List<Signature> signatures = new ArrayList<Signature>();
+        addSignatures(cellValues, new byte[pieceCount], 0, 0, signatures);
+        return signatures;
+    }
+
+    private static void addSignatures(List<Byte> cellValues, byte[] cells, int depth, int first, List<Signature> signatures) {
+        if (depth == cells.length) {
+            boolean pawns = false;
+            for (byte cell : cells) {
+                pawns |= Position.kind(cell) == Position.PAWN;
+            }
+            if (pawns) {
+                signatures.add(new Signature(cells.clone(), 1));
+                signatures.add(new Signature(cells.clone(), 2));
+            } else {
+                signatures.add(new Signature(cells.clone(), 0));
+            }
+            return;
+        }
+        for (int i = first; i < cellValues.size(); i++) {
+            cells[depth] = cellValues.get(i);
+            addSignatures(cellValues, cells, depth + 1, i, signatures);
+        }
+    }
+
+    private static void write(File file, int rows, int columns, int maxPieces, RuleSet rules, Map<Long, long[]> tables)
+            throws IOException {
+        List<Long> keys = new ArrayList<Long>(tables.keySet());
+        Collections.sort(keys);
+        long offset = HEADER_SIZE + (long) keys.size() * ENTRY_SIZE;
+        long[] offsets = new long[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            offsets[i] = offset;
+            offset += tableBytes(rows * columns, pieceCount(keys.get(i)));
+        }
+        if (offset > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Tablebase too large: " + offset + " bytes");
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeInt(rows);
+            out.writeInt(columns);
+            out.writeInt(maxPieces);
+            out.writeInt(rules.getMoveLimit());
+            out.writeInt(rules.isKingLast() ? 1 : 0);
+            out.writeInt(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                out.writeLong(keys.get(i));
+                out.writeInt((int) offsets[i]);
+            }
+            for (Long key : keys) {
+                long[] bits = tables.get(key);
+                long byteCount = tableBytes(rows * columns, pieceCount(key));
+                for (int i = 0; i < byteCount; i++) {
+                    out.write((int) (bits[i >>> 3] >>> ((i & 7) * 8)));
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Builds a tablebase for the standard rules.
+     * Arguments: the output file, then optionally the number of pieces, rows and columns.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: Tablebase <file> [pieces] [rows] [columns]");
+            return;
+        }
+        int maxPieces = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_PIECES;
+        int rows = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int columns = args.length > 3 ? Integer.parseInt(args[3]) : rows;
+        long startNanos = System.nanoTime();
+        generate(new File(args[0]), rows, columns, maxPieces, RuleSet.STANDARD, Runtime.getRuntime().availableProcessors());
+        System.out.printf("Wrote %s (%d bytes) in %d ms%n", args[0], new File(args[0]).length(),
+            (System.nanoTime() - startNanos) / 1000000);
+    }
+
+    /**
+     * The material of a table: the sorted cells of its pieces and its pawn flag.
+     */
+    private static final class Signature {
+        final byte[] cells;
+        final int pawnFlag;
+        final long key;
+
+        Signature(byte[] cells, int pawnFlag) {
+            this.cells = cells;
+            this.pawnFlag = pawnFlag;
+            this.key = signatureKey(cells, pawnFlag);
+        }
+    }
+}
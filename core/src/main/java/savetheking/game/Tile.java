@@ -103,15 +103,17 @@ public abstract class Tile {
     /**
      * Renders the tile using the specified texture.
      *
-     * @param batch   The SpriteBatch used for rendering.
-     * @param texture The texture to render for this tile.
+     * @param batch    The SpriteBatch used for rendering.
+     * @param texture  The texture to render for this tile.
+     * @param tileSize The size of a tile in pixels.
+     * @param rowCount The number of rows of the board, used to flip the y-axis.
      */
-    public void render(SpriteBatch batch, Texture texture) {
-        int screenX = position.y * 64; // Assuming tile size = 64
-        int screenY = (8 - position.x - 1) * 64; // Flip y-axis for screen rendering
+    public void render(SpriteBatch batch, Texture texture, int tileSize, int rowCount) {
+        int screenX = position.y * tileSize;
+        int screenY = (rowCount - position.x - 1) * tileSize; // Flip y-axis for screen rendering
 
         // Draw the tile texture
-        batch.draw(texture, screenX, screenY, 64, 64);
+        batch.draw(texture, screenX, screenY, tileSize, tileSize);
 
         // Apply highlight overlay if the tile is highlighted
         if (isHighlighted) {
@@ -119,7 +121,7 @@ public abstract class Tile {
             ShapeRenderer shapeRenderer = new ShapeRenderer();
             shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
             shapeRenderer.setColor(new Color(1, 1, 0, 0.4f)); // Yellow with transparency
-            shapeRenderer.rect(screenX, screenY, 64, 64);
+            shapeRenderer.rect(screenX, screenY, tileSize, tileSize);
             shapeRenderer.end();
             batch.begin(); // Restart the batch for further rendering
         }
@@ -0,0 +1,141 @@
+package savetheking.game;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the starting position of a TMX map without LibGDX, e.g. for command-line tools.
+ * The board size comes from the map, and each object of the "Piece Layer" gives a piece through its
+ * "type" and "color" properties, as written by {@link FENtoTMX}. Tile objects are anchored at their
+ * bottom-left corner with y growing downwards, so an object at y = (x + 1) * tileSize stands on row x,
+ * the same square {@link Board} puts it on.
+ */
+public class TmxReader {
+
+    /**
+     * Reads the position of a TMX file.
+     *
+     * @param file The TMX file.
+     * @return The position, under the standard rules.
+     * @throws IOException if the file cannot be read or is not a valid map.
+     */
+    public static Position read(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            return read(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads the position of a TMX document.
+     *
+     * @param in The TMX document.
+     * @return The position, under the standard rules. Pawns move in the direction of the colour of the first pawn.
+     * @throws IOException if the document cannot be read, is not a valid map or declares a DOCTYPE.
+     */
+    public static Position read(InputStream in) throws IOException {
+        Document document;
+        try {
+            document = newDocumentBuilder().parse(in);
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException("No XML parser available", e);
+        } catch (SAXException e) {
+            throw new IOException("Invalid TMX document: " + e.getMessage(), e);
+        }
+        Element map = document.getDocumentElement();
+        int rows = Integer.parseInt(map.getAttribute("height"));
+        int columns = Integer.parseInt(map.getAttribute("width"));
+        int tileSize = Integer.parseInt(map.getAttribute("tileheight"));
+
+        byte[] cells = new byte[rows * columns];
+        int pawnDirection = -1;
+        boolean pawnSeen = false;
+        NodeList groups = map.getElementsByTagName("objectgroup");
+        for (int g = 0; g < groups.getLength(); g++) {
+            Element group = (Element) groups.item(g);
+            if (!"Piece Layer".equals(group.getAttribute("name"))) {
+                continue;
+            }
+            NodeList objects = group.getElementsByTagName("object");
+            for (int i = 0; i < objects.getLength(); i++) {
+                Element object = (Element) objects.item(i);
+                int row = Math.round(Float.parseFloat(object.getAttribute("y")) / tileSize) - 1;
+                int column = Math.round(Float.parseFloat(object.getAttribute("x")) / tileSize);
+                if (row < 0 || row >= rows || column < 0 || column >= columns) {
+                    throw new IOException("Piece outside the board at " + object.getAttribute("x") + ", "
+                        + object.getAttribute("y"));
+                }
+                String type = property(object, "type");
+                if (type == null) {
+                    throw new IOException("Piece without a type property at row " + row + ", column " + column);
+                }
+                PieceKind kind = PieceKind.fromName(type);
+                if (kind == PieceKind.PAWN && !pawnSeen) {
+                    String color = property(object, "color");
+                    pawnDirection = color != null ? PieceColor.fromName(color).getPawnDirection() : -1;
+                    pawnSeen = true;
+                }
+                cells[row * columns + column] = Position.cell(kind.getCode(), 0);
+            }
+            return new Position(rows, columns, cells, pawnDirection);
+        }
+        throw new IOException("Piece Layer not found in the map");
+    }
+
+    /**
+     * Creates a parser that refuses DOCTYPE declarations and external entities, since maps never need them,
+     * and that reports errors through exceptions instead of printing them on the standard error stream.
+     */
+    private static DocumentBuilder newDocumentBuilder() throws ParserConfigurationException {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+        factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        factory.setXIncludeAware(false);
+        factory.setExpandEntityReferences(false);
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        builder.setErrorHandler(new ErrorHandler() {
+            @Override
+            public void warning(SAXParseException exception) {
+            }
+
+            @Override
+            public void error(SAXParseException exception) throws SAXException {
+                throw exception;
+            }
+
+            @Override
+            public void fatalError(SAXParseException exception) throws SAXException {
+                throw exception;
+            }
+        });
+        return builder;
+    }
+
+    private static String property(Element object, String name) {
+        NodeList properties = object.getElementsByTagName("property");
+        for (int i = 0; i < properties.getLength(); i++) {
+            Element property = (Element) properties.item(i);
+            if (name.equals(property.getAttribute("name"))) {
+                return property.getAttribute("value");
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,95 @@
+package savetheking.game;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a {@link TournamentRunner} run: how many of its games each player won on each puzzle.
+ */
+public class TournamentResult {
+    private final List<Position> puzzles;
+    private final List<String> playerNames;
+    private final long[][] wins; // Indexed by puzzle, then player
+    private final long gamesPerPuzzle;
+    private final long elapsedNanos;
+
+    public TournamentResult(List<Position> puzzles, List<String> playerNames, long[][] wins, long gamesPerPuzzle,
+                            long elapsedNanos) {
+        this.puzzles = Collections.unmodifiableList(new ArrayList<Position>(puzzles));
+        this.playerNames = Collections.unmodifiableList(new ArrayList<String>(playerNames));
+        this.wins = wins;
+        this.gamesPerPuzzle = gamesPerPuzzle;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the number of games a player won on a puzzle.
+     *
+     * @param puzzle The index of the puzzle.
+     * @param player The index of the player.
+     * @return The number of wins.
+     */
+    public long getWins(int puzzle, int player) {
+        return wins[puzzle][player];
+    }
+
+    /**
+     * Gets the share of games a player won on a puzzle.
+     *
+     * @param puzzle The index of the puzzle.
+     * @param player The index of the player.
+     * @return The win rate, between 0 and 1.
+     */
+    public double getWinRate(int puzzle, int player) {
+        return gamesPerPuzzle > 0 ? (double) wins[puzzle][player] / gamesPerPuzzle : 0;
+    }
+
+    /**
+     * Lists the puzzles a player wins at least as often as the given rate, e.g. the puzzles that are
+     * accidentally easy because even random play solves them.
+     *
+     * @param player  The index of the player.
+     * @param winRate The lowest win rate.
+     * @return The puzzles, in tournament order.
+     */
+    public List<Position> getPuzzlesWonAtLeast(int player, double winRate) {
+        List<Position> result = new ArrayList<Position>();
+        for (int puzzle = 0; puzzle < puzzles.size(); puzzle++) {
+            if (getWinRate(puzzle, player) >= winRate) {
+                result.add(puzzles.get(puzzle));
+            }
+        }
+        return result;
+    }
+
+    public List<Position> getPuzzles() {
+        return puzzles;
+    }
+
+    public List<String> getPlayerNames() {
+        return playerNames;
+    }
+
+    /**
+     * Gets the number of games each player played on each puzzle.
+     *
+     * @return The number of games per puzzle and player.
+     */
+    public long getGamesPerPuzzle() {
+        return gamesPerPuzzle;
+    }
+
+    /**
+     * Gets the number of games played in the whole tournament.
+     *
+     * @return The total game count.
+     */
+    public long getGameCount() {
+        return gamesPerPuzzle * puzzles.size() * playerNames.size();
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
@@ -0,0 +1,162 @@
+package savetheking.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays many headless games of each puzzle with automated players and reports their win rates,
+ * showing e.g. which puzzles are accidentally easy for naive play.
+ *
+ * Games are played on {@link Position}s, which follow the rules of the puzzle exactly as a {@link Board} driven
+ * by a {@link Controller} does, without the allocations and console output of the interactive game: a game is
+ * won once a single piece remains and lost once no move is possible. The games of each puzzle and player are
+ * split into batches run in parallel, each batch with its own {@link Player#fork(long) fork} of the player,
+ * seeded from the tournament seed so a tournament can be replayed.
+ */
+public class TournamentRunner {
+    private static final int GAMES_PER_BATCH = 10000;
+
+    private final int threads;
+
+    /**
+     * Creates a runner.
+     *
+     * @param threads The number of threads playing games.
+     */
+    public TournamentRunner(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Lets every player play every puzzle a number of times.
+     *
+     * @param puzzles        The puzzles.
+     * @param players        The players; each is only used to create forks.
+     * @param gamesPerPuzzle The number of games each player plays on each puzzle.
+     * @param seed           The seed the random choices of the players derive from.
+     * @return The wins of each player on each puzzle.
+     * @throws IllegalStateException if the work is interrupted or fails.
+     */
+    public TournamentResult run(List<Position> puzzles, List<Player> players, long gamesPerPuzzle, long seed) {
+        long startNanos = System.nanoTime();
+        SplittableRandom master = new SplittableRandom(seed);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long[][] wins = new long[puzzles.size()][players.size()];
+            List<Future<Long>> batches = new ArrayList<Future<Long>>();
+            List<int[]> owners = new ArrayList<int[]>(); // Puzzle and player of each batch
+            for (int puzzle = 0; puzzle < puzzles.size(); puzzle++) {
+                for (int player = 0; player < players.size(); player++) {
+                    for (long first = 0; first < gamesPerPuzzle; first += GAMES_PER_BATCH) {
+                        final Position start = puzzles.get(puzzle);
+                        final Player fork = players.get(player).fork(master.nextLong());
+                        final long games = Math.min(GAMES_PER_BATCH, gamesPerPuzzle - first);
+                        batches.add(executor.submit(new Callable<Long>() {
+                            @Override
+                            public Long call() {
+                                return playGames(start, fork, games);
+                            }
+                        }));
+                        owners.add(new int[] {puzzle, player});
+                    }
+                }
+            }
+            for (int i = 0; i < batches.size(); i++) {
+                wins[owners.get(i)[0]][owners.get(i)[1]] += batches.get(i).get();
+            }
+            List<String> names = new ArrayList<String>();
+            for (Player player : players) {
+                names.add(player.getName());
+            }
+            return new TournamentResult(puzzles, names, wins, gamesPerPuzzle, System.nanoTime() - startNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tournament interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tournament failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays games of a puzzle.
+     *
+     * @return The number of games won.
+     */
+    private static long playGames(Position start, Player player, long games) {
+        int[] moves = start.newMoveBuffer(); // Later positions never have more pieces, so the buffer fits the whole game
+        long won = 0;
+        for (long game = 0; game < games; game++) {
+            if (play(start, player, moves)) {
+                won++;
+            }
+        }
+        return won;
+    }
+
+    /**
+     * Plays one game of a puzzle.
+     *
+     * @param start  The puzzle.
+     * @param player The player.
+     * @param moves  A move buffer large enough for the puzzle.
+     * @return true if the game ends with a single piece.
+     */
+    static boolean play(Position start, Player player, int[] moves) {
+        Position position = start;
+        while (!position.isSolved()) {
+            int count = position.generateMoves(moves);
+            if (count == 0) {
+                return false;
+            }
+            position = position.play(moves[player.chooseMove(position, moves, count)]);
+        }
+        return true;
+    }
+
+    /**
+     * Runs a tournament of the random, greedy and solver players on a set of puzzles and prints the win rates.
+     * Arguments: the number of games per puzzle and player, then the puzzles as FENs; the solver corpus by default.
+     */
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100000;
+        String[] fens = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) : SolverBenchmark.CORPUS;
+        List<Position> puzzles = new ArrayList<Position>();
+        for (String fen : fens) {
+            puzzles.add(Position.fromFen(fen));
+        }
+        List<Player> players = Arrays.<Player>asList(new RandomPlayer(0), new GreedyPlayer(0),
+            new SolverPlayer(new VerdictCache(1 << 16)));
+
+        TournamentResult result = new TournamentRunner(Runtime.getRuntime().availableProcessors())
+            .run(puzzles, players, games, 46);
+        System.out.printf("%-56s", "Puzzle");
+        for (String name : result.getPlayerNames()) {
+            System.out.printf(" %9s", name);
+        }
+        System.out.println();
+        for (int puzzle = 0; puzzle < puzzles.size(); puzzle++) {
+            System.out.printf("%-56s", puzzles.get(puzzle).toFen());
+            for (int player = 0; player < players.size(); player++) {
+                System.out.printf(" %8.3f%%", 100 * result.getWinRate(puzzle, player));
+            }
+            System.out.println();
+        }
+        double seconds = result.getElapsedNanos() / 1e9;
+        System.out.printf("%d games in %.1f s (%.0f games/s)%n", result.getGameCount(), seconds, result.getGameCount() / seconds);
+        for (Position puzzle : result.getPuzzlesWonAtLeast(0, 0.01)) {
+            System.out.println("Accidentally easy (random play wins 1% or more): " + puzzle.toFen());
+        }
+    }
+}
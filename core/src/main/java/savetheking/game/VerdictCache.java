@@ -0,0 +1,240 @@
+package savetheking.game;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, thread-safe cache of solvability verdicts keyed by canonical position.
+ * Symmetric positions share one entry (see {@link Position#canonical()}), while positions
+ * that only differ by how often a piece has moved are cached separately.
+ *
+ * The cache is split into segments, each an access-ordered map evicting its least recently
+ * used entry when full, so concurrent lookups only contend when they hit the same segment.
+ * It can be saved to disk and loaded back, so a restart does not have to solve everything again.
+ */
+public class VerdictCache {
+    private static final int FILE_MAGIC = 0x53435643; // "SCVC"
+    private static final int FILE_VERSION = 2; // Version 2 stores the rules of each position
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final int capacity;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacity The maximum number of verdicts kept.
+     */
+    public VerdictCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        int segmentCount = Math.min(MAX_SEGMENTS, Integer.highestOneBit(capacity));
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            int segmentCapacity = capacity / segmentCount + (i < capacity % segmentCount ? 1 : 0);
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * Looks up the verdict of a position.
+     *
+     * @param position The position.
+     * @return true or false if the verdict is cached, otherwise null.
+     */
+    public Boolean get(Position position) {
+        Position key = position.canonical();
+        Segment segment = segmentFor(key);
+        Boolean verdict;
+        synchronized (segment) {
+            verdict = segment.get(key);
+        }
+        (verdict != null ? hits : misses).incrementAndGet();
+        return verdict;
+    }
+
+    /**
+     * Stores the verdict of a position, evicting the least recently used entry of its segment if needed.
+     *
+     * @param position The position.
+     * @param solvable Whether the position is solvable.
+     */
+    public void put(Position position, boolean solvable) {
+        Position key = position.canonical();
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, solvable);
+        }
+    }
+
+    private Segment segmentFor(Position position) {
+        int h = position.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (segments.length - 1)];
+    }
+
+    /**
+     * Gets the number of verdicts currently cached.
+     *
+     * @return The cache size.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Gets the fraction of lookups answered by the cache.
+     *
+     * @return The hit rate between 0 and 1, or 0 if nothing was looked up.
+     */
+    public double getHitRate() {
+        long lookups = hits.get() + misses.get();
+        return lookups == 0 ? 0 : (double) hits.get() / lookups;
+    }
+
+    /**
+     * Removes every verdict. Statistics are kept.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes every cached verdict to a file, least recently used first, each position with its rules.
+     *
+     * @param file The file to write.
+     * @throws IOException if writing fails.
+     */
+    public void save(File file) throws IOException {
+        List<Position> positions = new ArrayList<Position>();
+        List<Boolean> verdicts = new ArrayList<Boolean>();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                for (Map.Entry<Position, Boolean> entry : segment.entrySet()) {
+                    positions.add(entry.getKey());
+                    verdicts.add(entry.getValue());
+                }
+            }
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeInt(positions.size());
+            for (int i = 0; i < positions.size(); i++) {
+                Position position = positions.get(i);
+                position.writeTo(out);
+                position.getRules().writeTo(out);
+                out.writeBoolean(verdicts.get(i));
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Loads the verdicts saved by {@link #save(File)} into this cache.
+     * Entries beyond the capacity evict the oldest ones, as with {@link #put(Position, boolean)}.
+     *
+     * @param file The file to read.
+     * @return The number of verdicts read.
+     * @throws IOException if the file cannot be read or is not a verdict cache file of the current version.
+     */
+    public int load(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("Not a verdict cache file: " + file);
+            }
+            int version = in.readInt();
+            if (version != FILE_VERSION) {
+                throw new IOException("Unsupported verdict cache version " + version + " in " + file);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Position position = Position.readFrom(in);
+                try {
+                    position = position.withRules(RuleSet.readFrom(in));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Invalid rules in " + file + ": " + e.getMessage(), e);
+                }
+                put(position, in.readBoolean());
+            }
+            return count;
+        } finally {
+            in.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("VerdictCache(size=%d/%d, hits=%d, misses=%d, evictions=%d)",
+            size(), capacity, getHitCount(), getMissCount(), getEvictionCount());
+    }
+
+    /**
+     * One LRU segment of the cache, guarded by its own monitor.
+     */
+    private final class Segment extends LinkedHashMap<Position, Boolean> {
+        private static final long serialVersionUID = 1L;
+
+        private final int segmentCapacity;
+
+        Segment(int segmentCapacity) {
+            super(16, 0.75f, true); // Access order, so iteration starts at the least recently used entry
+            this.segmentCapacity = segmentCapacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Position, Boolean> eldest) {
+            if (size() > segmentCapacity) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
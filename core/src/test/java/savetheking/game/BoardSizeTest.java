@@ -0,0 +1,82 @@
+package savetheking.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suite de tests pour les plateaux de taille quelconque.
+ * Vérifie que le générateur de coups de {@link Position} et le modèle objet du plateau
+ * s'accordent sur des plateaux rectangulaires et grands, et que les parties s'y jouent jusqu'au bout.
+ */
+public class BoardSizeTest {
+
+    /**
+     * Teste que les captures générées par la position sont celles des pièces du plateau, sur plusieurs tailles.
+     */
+    @Test
+    public void testCapturesMatchBoardOnAnySize() {
+        Random random = new Random(38);
+        int[][] sizes = {{8, 8}, {10, 10}, {12, 12}, {5, 11}, {11, 3}, {1, 9}};
+        for (int[] size : sizes) {
+            for (int i = 0; i < 50; i++) {
+                Position position = randomPosition(random, size[0], size[1]);
+                Board board = new Board(position);
+
+                Set<Integer> expected = new HashSet<Integer>();
+                for (int x = 0; x < size[0]; x++) {
+                    for (int y = 0; y < size[1]; y++) {
+                        Piece piece = board.getPieceAt(x, y);
+                        if (piece != null) {
+                            for (Point target : piece.getCaptureMoves(board)) {
+                                expected.add(Position.encodeMove(x * size[1] + y, target.x * size[1] + target.y));
+                            }
+                        }
+                    }
+                }
+                int[] moves = position.newMoveBuffer();
+                int count = position.generateMoves(moves);
+                Set<Integer> actual = new HashSet<Integer>();
+                for (int m = 0; m < count; m++) {
+                    actual.add(moves[m]);
+                }
+                assertEquals(expected, actual, "Captures différentes sur " + size[0] + "x" + size[1] + " : " + position.toFen());
+            }
+        }
+    }
+
+    /**
+     * Teste qu'une partie se joue sur un plateau rectangulaire, coin compris.
+     */
+    @Test
+    public void testGameOnRectangularBoard() {
+        Position start = Position.fromFen("R2N/4/4/4/4/R3");
+        assertEquals(6, start.getRows(), "Le plateau doit avoir six lignes.");
+        assertEquals(4, start.getColumns(), "Le plateau doit avoir quatre colonnes.");
+        assertTrue(new Solver().isSolvable(start), "Le puzzle doit être soluble.");
+
+        Controller controller = new Controller(new Board(start));
+        controller.handleInput(new Point(5, 0));
+        controller.handleInput(new Point(0, 0));
+        controller.handleInput(new Point(0, 0));
+        controller.handleInput(new Point(0, 3));
+        assertTrue(controller.snapshot().getPosition().isSolved(), "La tour doit finir seule en d6.");
+        assertEquals("d6", new Point(0, 3).toChessNotation(6, 4), "Le coin supérieur droit est d6.");
+        assertEquals("a1", new Point(5, 0).toChessNotation(6, 4), "Le coin inférieur gauche est a1.");
+    }
+
+    private static Position randomPosition(Random random, int rows, int columns) {
+        String kinds = "PNBRQK";
+        byte[] cells = new byte[rows * columns];
+        for (int square = 0; square < cells.length; square++) {
+            if (random.nextInt(100) < 30) {
+                cells[square] = Position.cell(Position.kindOf(kinds.charAt(random.nextInt(kinds.length()))), random.nextInt(3));
+            }
+        }
+        return new Position(rows, columns, cells, random.nextBoolean() ? -1 : 1);
+    }
+}
@@ -0,0 +1,66 @@
+package savetheking.game;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suite de tests pour le contrôleur : seules les captures sont jouées, et la partie se termine
+ * quand une seule pièce reste ou qu'aucune capture n'est possible.
+ */
+public class ControllerTest {
+
+    /**
+     * Teste qu'une capture déplace la pièce une seule fois et que la dernière pièce restante gagne.
+     */
+    @Test
+    public void testCaptureMovesPieceOnce() {
+        Board board = new Board(Position.fromFen("8/8/8/8/8/8/8/RN6"));
+        Controller controller = new Controller(board);
+        controller.handleInput(new Point(7, 0));
+        controller.handleInput(new Point(7, 1));
+
+        Piece rook = board.getPieceAt(7, 1);
+        assertEquals(PieceKind.ROOK, rook.getKind(), "La tour doit avoir pris le cavalier.");
+        assertEquals(1, rook.getMoveCount(), "La tour ne doit être déplacée qu'une fois.");
+        assertNull(board.getPieceAt(7, 0), "La case de départ doit être vide.");
+        assertTrue(controller.isGameFinished(), "Une seule pièce reste : la partie est gagnée.");
+    }
+
+    /**
+     * Teste que les déplacements sans capture sont refusés et que la partie est perdue quand aucune capture ne reste.
+     */
+    @Test
+    public void testLossWhenNoCaptureLeft() {
+        Board board = new Board(Position.fromFen("7K/8/8/8/8/8/8/RN6"));
+        Controller controller = new Controller(board);
+        controller.handleInput(new Point(7, 0));
+        controller.handleInput(new Point(6, 0));
+        assertEquals(PieceKind.ROOK, board.getPieceAt(7, 0).getKind(), "Un déplacement sans capture doit être refusé.");
+        assertFalse(controller.isGameFinished(), "La tour peut encore prendre le cavalier.");
+
+        controller.handleInput(new Point(7, 0));
+        controller.handleInput(new Point(7, 1));
+        assertEquals(2, board.getRemainingPieces().size(), "La tour et le roi restent.");
+        assertTrue(controller.isGameFinished(), "Le roi ne peut pas être pris : la partie est perdue.");
+        controller.handleInput(new Point(7, 1));
+        controller.handleInput(new Point(0, 7));
+        assertEquals(PieceKind.KING, board.getPieceAt(0, 7).getKind(), "Aucun coup n'est joué une fois la partie finie.");
+    }
+
+    /**
+     * Teste qu'un coup joué par ses cases ne dépend pas de la sélection et la retire.
+     */
+    @Test
+    public void testPlayMoveDropsSelection() {
+        Board board = new Board(Position.fromFen("8/8/8/8/8/8/8/RR1R4"));
+        Controller controller = new Controller(board);
+        controller.handleInput(new Point(7, 3));
+        assertTrue(controller.playMove(new Point(7, 0), new Point(7, 1)), "La tour de a1 doit pouvoir prendre.");
+        assertEquals(PieceKind.ROOK, board.getPieceAt(7, 3).getKind(), "La tour sélectionnée ne doit pas avoir bougé.");
+
+        controller.handleInput(new Point(7, 1));
+        assertEquals(2, board.getRemainingPieces().size(), "Le clic suivant doit sélectionner, pas jouer l'ancienne sélection.");
+        assertFalse(controller.playMove(new Point(7, 3), new Point(6, 3)), "Un déplacement sans capture est refusé.");
+    }
+}
@@ -0,0 +1,90 @@
+package savetheking.game;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suite de tests pour les événements du Flight Recorder.
+ * Vérifie que les coups joués et les recherches du solveur sont enregistrés avec leurs statistiques.
+ */
+public class FlightRecorderEventsTest {
+
+    /**
+     * Teste qu'un coup joué par le contrôleur produit un événement décrivant la prise.
+     */
+    @Test
+    public void testMoveEvent() throws IOException {
+        List<RecordedEvent> events;
+        Recording recording = new Recording();
+        try {
+            recording.enable(MoveEvent.class);
+            recording.start();
+            Controller controller = new Controller(new Board(Position.fromFen("8/8/8/8/8/8/8/RN1R4")));
+            controller.handleInput(new Point(7, 0));
+            controller.handleInput(new Point(7, 1));
+            recording.stop();
+            events = read(recording, "savetheking.game.Move");
+        } finally {
+            recording.close();
+        }
+        assertEquals(1, events.size(), "Un seul coup a été joué.");
+        RecordedEvent move = events.get(0);
+        assertEquals("ROOK", move.getString("piece"), "La pièce jouée est la tour.");
+        assertTrue(move.getBoolean("capture"), "Le coup est une prise.");
+        assertEquals("KNIGHT", move.getString("capturedPiece"), "Le cavalier a été pris.");
+        assertEquals(2, move.getInt("piecesLeft"), "Deux pièces restent après la prise.");
+    }
+
+    /**
+     * Teste qu'une tranche de recherche du solveur produit un événement avec les statistiques du résultat.
+     */
+    @Test
+    public void testSolverBatchEvent() throws IOException {
+        Position puzzle = Position.fromFen("3RR3/N2R4/1N2N3/1QB1K2Q/R2N1BQ1/N1B1RN2/2BQR3/2NR2B1");
+        List<RecordedEvent> events;
+        SearchResult result;
+        Recording recording = new Recording();
+        try {
+            recording.enable(SolverBatchEvent.class);
+            recording.start();
+            result = new Solver().search(puzzle, SearchBudget.ofNodes(100));
+            recording.stop();
+            events = read(recording, "savetheking.game.SolverBatch");
+        } finally {
+            recording.close();
+        }
+        assertEquals(1, events.size(), "Une recherche donne un événement.");
+        RecordedEvent batch = events.get(0);
+        assertEquals(result.getNodeCount(), batch.getLong("nodes"), "Les nœuds doivent être ceux du résultat.");
+        assertEquals(result.getTranspositionHits(), batch.getLong("transpositionHits"), "Les accès à la table doivent correspondre.");
+        assertEquals(result.getVerdict().name(), batch.getString("verdict"), "Le verdict doit correspondre.");
+        assertEquals(puzzle.getPieceCount(), batch.getInt("pieces"), "Le nombre de pièces doit être celui du puzzle.");
+    }
+
+    private static List<RecordedEvent> read(Recording recording, String name) throws IOException {
+        Path file = Files.createTempFile("events", ".jfr");
+        try {
+            recording.dump(file);
+            List<RecordedEvent> events = new ArrayList<RecordedEvent>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (event.getEventType().getName().equals(name)) {
+                    events.add(event);
+                }
+            }
+            return events;
+        } finally {
+            new File(file.toString()).delete();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package savetheking.game;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suite de tests pour l'état de jeu.
+ * Vérifie que chaque partie a son propre état et que le chronomètre décompte correctement les images.
+ */
+public class GameStateTest {
+
+    /**
+     * Teste que de petites durées d'image s'additionnent au lieu d'être tronquées.
+     */
+    @Test
+    public void testTimerAccumulatesFrameDeltas() {
+        GameState state = new GameState();
+        state.setTimer(2);
+
+        for (int i = 0; i < 60; i++) {
+            state.updateTimer(1f / 60);
+        }
+        assertEquals(1, state.getTimer(), "Une seconde d'images doit retirer une seconde.");
+        assertFalse(state.checkGameOver(), "La partie ne doit pas être finie avant la fin du temps.");
+
+        for (int i = 0; i < 61; i++) {
+            state.updateTimer(1f / 60);
+        }
+        assertEquals(0, state.getTimer(), "Le temps ne doit pas devenir négatif.");
+        assertTrue(state.checkGameOver(), "La partie doit être finie quand le temps est écoulé.");
+    }
+
+    /**
+     * Teste que chaque contrôleur possède son propre état et que changer de manche l'efface.
+     */
+    @Test
+    public void testControllersOwnTheirState() {
+        Controller first = new Controller(new Board(Position.fromFen("8/8/8/8/8/8/8/RR6")));
+        Controller second = new Controller(new Board(Position.fromFen("8/8/8/8/8/8/8/RR6")));
+
+        first.handleInput(new Point(7, 0));
+        first.handleInput(new Point(7, 1));
+        assertEquals(1, first.getGameState().getMoveHistory().size(), "Le coup doit être enregistré.");
+        assertTrue(second.getGameState().getMoveHistory().isEmpty(), "L'autre partie ne doit pas voir le coup.");
+
+        first.resetBoard();
+        assertEquals(2, first.getGameState().getRound(), "La remise à zéro passe à la manche suivante.");
+        assertTrue(first.getGameState().getMoveHistory().isEmpty(), "L'historique repart de zéro.");
+        assertEquals(GameState.ROUND_TIME_SECONDS, first.getGameState().getTimer(), "Le chronomètre est remis à zéro.");
+    }
+
+    /**
+     * Teste que l'historique compacte chaque coup sans perdre d'information et que l'annulation le retire.
+     */
+    @Test
+    public void testMoveHistoryPacksMoves() {
+        Controller controller = new Controller(new Board(Position.fromFen("8/8/8/8/8/8/8/RN1R4 1")));
+        MoveHistory.View history = controller.getGameState().getMoveHistory();
+
+        controller.handleInput(new Point(7, 3));
+        controller.handleInput(new Point(7, 1));
+        assertEquals(1, history.size(), "La vue doit suivre les coups joués sans être recopiée.");
+
+        long move = history.last();
+        assertEquals(Position.ROOK, MoveHistory.pieceKind(move), "La pièce jouée doit être une tour.");
+        assertEquals(Position.KNIGHT, MoveHistory.capturedKind(move), "La pièce prise doit être un cavalier.");
+        assertTrue(MoveHistory.isCapture(move), "Le coup doit être une prise.");
+        assertEquals(7, MoveHistory.fromRow(move), "Ligne de départ incorrecte.");
+        assertEquals(3, MoveHistory.fromColumn(move), "Colonne de départ incorrecte.");
+        assertEquals(7, MoveHistory.toRow(move), "Ligne d'arrivée incorrecte.");
+        assertEquals(1, MoveHistory.toColumn(move), "Colonne d'arrivée incorrecte.");
+        assertEquals(0, MoveHistory.priorMoveCount(move), "La tour n'avait pas encore joué.");
+        assertEquals(0, MoveHistory.capturedMoveCount(move), "Le cavalier n'avait pas encore joué.");
+        assertEquals("R (7, 3) x N (7, 1)", MoveHistory.describe(move), "Description du coup incorrecte.");
+
+        assertEquals(move, controller.getGameState().undoLastMove(), "L'annulation doit rendre le dernier coup.");
+        assertTrue(history.isEmpty(), "L'historique doit être vide après l'annulation.");
+        assertEquals(MoveHistory.NO_MOVE, history.last(), "Il n'y a plus de dernier coup.");
+    }
+
+    /**
+     * Teste qu'une partie sauvegardée puis restaurée reprend exactement où elle en était,
+     * avec l'encodage binaire comme avec l'encodage texte.
+     */
+    @Test
+    public void testSnapshotRoundTrip() {
+        Controller controller = new Controller(new Board(Position.fromFen("8/8/8/8/8/8/8/RN1R4")));
+        controller.handleInput(new Point(7, 0));
+        controller.handleInput(new Point(7, 1));
+        controller.getGameState().incrementScore();
+        controller.update(1.5f);
+        GameSnapshot snapshot = controller.snapshot();
+
+        for (GameSnapshot saved : new GameSnapshot[] {
+            GameSnapshot.fromBytes(snapshot.toBytes()), GameSnapshot.fromText(snapshot.toText())}) {
+            Controller resumed = new Controller(new Board(Position.fromFen("8/8/8/8/8/8/8/RN1R4")));
+            resumed.restore(saved);
+            GameState state = resumed.getGameState();
+
+            assertEquals("8/8/8/8/8/8/8/1R1R4 10", resumed.snapshot().getPosition().toFen(),
+                "Le plateau et les compteurs de coups doivent être restaurés.");
+            assertEquals(snapshot.toText(), resumed.snapshot().toText(), "La partie restaurée doit être identique.");
+            assertEquals(10, state.getScore(), "Le score doit être restauré.");
+            assertEquals(GameState.ROUND_TIME_SECONDS - 1, state.getTimer(), "Le chronomètre doit être restauré.");
+            assertEquals(1, state.getMoveHistory().size(), "L'historique doit être restauré.");
+        }
+    }
+
+    /**
+     * Teste qu'une partie jouée sous d'autres règles les retrouve à la restauration, et qu'une
+     * sauvegarde écrite avant l'enregistrement des règles est relue sous les règles standard.
+     */
+    @Test
+    public void testSnapshotKeepsRules() {
+        RuleSet rules = new RuleSet(4, true, true);
+        Controller controller = new Controller(new Board(Position.fromFen("8/8/8/8/8/8/8/RN1R4 300", rules)));
+        controller.handleInput(new Point(7, 0));
+        controller.handleInput(new Point(7, 1));
+        GameSnapshot snapshot = controller.snapshot();
+
+        for (GameSnapshot saved : new GameSnapshot[] {
+            GameSnapshot.fromBytes(snapshot.toBytes()), GameSnapshot.fromText(snapshot.toText())}) {
+            assertEquals(rules, saved.getPosition().getRules(), "Les règles doivent être sauvegardées.");
+            assertEquals("8/8/8/8/8/8/8/1R1R4 40", saved.getPosition().toFen(), "Les compteurs au-delà de 2 doivent être relus.");
+            Controller resumed = new Controller(new Board(Position.fromFen("8/8/8/8/8/8/8/RN1R4", rules)));
+            resumed.restore(saved);
+            assertEquals(snapshot.toText(), resumed.snapshot().toText(), "La partie restaurée doit être identique.");
+            assertThrows(IllegalArgumentException.class,
+                () -> new Controller(new Board(Position.fromFen("8/8/8/8/8/8/8/RN1R4"))).restore(saved),
+                "Un plateau aux règles standard ne doit pas reprendre la partie.");
+        }
+
+        GameSnapshot old = GameSnapshot.fromText("8/8/8/8/8/8/8/1R6 1 W 1c0701 299.5 10 1 Normal");
+        assertEquals(RuleSet.STANDARD, old.getPosition().getRules(), "Une ancienne sauvegarde suit les règles standard.");
+        assertEquals("Normal", old.toText().substring(old.toText().lastIndexOf(' ') + 1), "Les autres champs doivent être relus.");
+    }
+}
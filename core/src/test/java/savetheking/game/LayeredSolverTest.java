@@ -0,0 +1,76 @@
+package savetheking.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suite de tests pour le solveur par couches.
+ * Vérifie que ses verdicts sont ceux du solveur en profondeur et que les couches sont comptées sans doublons.
+ */
+public class LayeredSolverTest {
+
+    /**
+     * Teste que tous les puzzles d'un paquet reçoivent le verdict du solveur en profondeur.
+     */
+    @Test
+    public void testVerdictsMatchSolver() {
+        Random random = new Random(42);
+        List<Position> pack = new ArrayList<Position>();
+        for (int n = 0; n < 150; n++) {
+            pack.add(TestPositions.random(random, 4, 4, 2 + random.nextInt(6), 2, false));
+        }
+        pack.add(Position.fromFen("Q7/Q7/8/8/8/8/Q7/8"));
+
+        LayeredResult result = new LayeredSolver(2).solve(pack);
+        int solvableCount = 0;
+        for (int i = 0; i < pack.size(); i++) {
+            boolean solvable = new Solver().isSolvable(pack.get(i));
+            assertEquals(solvable ? SearchResult.Verdict.SOLVABLE : SearchResult.Verdict.UNSOLVABLE, result.getVerdict(i),
+                "Verdict différent pour " + pack.get(i).toFen());
+            if (solvable) {
+                solvableCount++;
+            }
+        }
+        assertEquals(solvableCount, result.getSolvableStarts().size(), "Chaque puzzle résoluble doit être listé.");
+        assertTrue(result.getSolvableCount(1) == result.getLayerSize(1), "Une seule pièce est toujours une victoire.");
+        assertEquals(7, result.getMaxPieceCount(), "La première couche est celle du plus grand puzzle.");
+    }
+
+    /**
+     * Teste que chaque couche compte les positions distinctes, symétries comprises.
+     */
+    @Test
+    public void testLayersAreDeduplicated() {
+        Position start = Position.fromFen("8/8/8/8/8/8/8/RRR5");
+        Position mirror = Position.fromFen("8/8/8/8/8/8/8/5RRR");
+        LayeredResult result = new LayeredSolver(1).solve(Arrays.asList(start, mirror));
+
+        assertEquals(1, result.getLayerSize(3), "Les deux puzzles symétriques forment une seule position.");
+        Set<Position> children = new HashSet<Position>();
+        int[] moves = start.newMoveBuffer();
+        int count = start.generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            children.add(start.play(moves[i]).canonical());
+        }
+        assertEquals(children.size(), result.getLayerSize(2), "La couche suivante doit compter les prises distinctes.");
+        assertEquals(Arrays.asList(start, mirror), result.getSolvableStarts(), "Les deux puzzles sont résolubles.");
+    }
+
+    /**
+     * Teste que les coups sans prise sont refusés, puisqu'ils ne retirent aucune pièce.
+     */
+    @Test
+    public void testQuietMovesRejected() {
+        Position position = Position.fromFen("8/8/8/8/8/8/8/RR6", new RuleSet(2, true, false));
+        assertThrows(IllegalArgumentException.class, () -> new LayeredSolver(1).solve(Arrays.asList(position)),
+            "Les coups sans prise cassent les couches.");
+    }
+}
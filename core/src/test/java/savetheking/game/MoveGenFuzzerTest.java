@@ -0,0 +1,97 @@
+package savetheking.game;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suite de tests pour le fuzzer différentiel des générateurs de coups.
+ * Vérifie que les générateurs actuels sont conformes au modèle objet et qu'un générateur fautif est repéré et réduit.
+ */
+public class MoveGenFuzzerTest {
+
+    /**
+     * Teste que le générateur de la position et les tests de fin de partie sont d'accord avec les pièces.
+     */
+    @Test
+    public void testCurrentImplementationsAgree() {
+        FuzzResult result = new MoveGenFuzzer(49).run(60000, 500);
+        assertTrue(result.isClean(), "Aucun désaccord attendu : " + result.getFailures());
+        assertEquals(500, result.getCaseCount(), "Tous les cas doivent être vérifiés dans le budget.");
+        assertNull(new MoveGenFuzzer(1).check(Position.fromFen("3RR3/N2R4/1N2N3/1QB1K2Q/R2N1BQ1/N1B1RN2/2BQR3/2NR2B1")),
+            "Le puzzle fourni doit être conforme.");
+    }
+
+    /**
+     * Teste qu'un générateur oubliant les coups des pièces ayant déjà joué est repéré,
+     * et que le cas est réduit à deux pièces dont l'une a joué.
+     */
+    @Test
+    public void testBuggyGeneratorIsShrunk() {
+        MoveGenFuzzer fuzzer = new MoveGenFuzzer(7);
+        fuzzer.addGenerator(new MoveGenerator() {
+            @Override
+            public String getName() {
+                return "Oublieux";
+            }
+
+            @Override
+            public int generateMoves(Position position, int[] moves) {
+                int count = position.generateMoves(moves);
+                int kept = 0;
+                for (int i = 0; i < count; i++) {
+                    if (Position.moves(position.getCell(Position.moveFrom(moves[i]))) == 0) {
+                        moves[kept++] = moves[i];
+                    }
+                }
+                return kept;
+            }
+        });
+        FuzzResult result = fuzzer.run(60000, 2000);
+        assertFalse(result.isClean(), "Le générateur fautif doit être repéré.");
+        for (int i = 0; i < result.getFailures().size(); i++) {
+            Position minimal = result.getFailingPositions().get(i);
+            assertTrue(result.getFailures().get(i).startsWith("Oublieux misses"), "Le désaccord doit nommer le générateur.");
+            assertNotNull(fuzzer.check(minimal), "La position réduite doit encore échouer.");
+            assertTrue(minimal.getPieceCount() <= 2, "Le cas réduit ne garde que les pièces utiles : " + minimal.toFen());
+            int moved = 0;
+            for (int square = 0; square < minimal.getSquareCount(); square++) {
+                moved += Position.moves(minimal.getCell(square));
+            }
+            assertEquals(1, moved, "Un seul coup déjà joué suffit à montrer le défaut : " + minimal.toFen());
+        }
+    }
+
+    /**
+     * Teste qu'un générateur qui lève une exception est signalé au lieu d'interrompre la campagne,
+     * et que les cas tirés ne dépendent que de la graine.
+     */
+    @Test
+    public void testThrowingGeneratorAndSeed() {
+        MoveGenFuzzer fuzzer = new MoveGenFuzzer(11);
+        fuzzer.addGenerator(new MoveGenerator() {
+            @Override
+            public String getName() {
+                return "Cassé";
+            }
+
+            @Override
+            public int generateMoves(Position position, int[] moves) {
+                if (position.hasPawns()) {
+                    throw new IllegalStateException("pions non gérés");
+                }
+                return position.generateMoves(moves);
+            }
+        });
+        String failure = fuzzer.check(Position.fromFen("8/8/8/8/8/8/P7/1R6"));
+        assertNotNull(failure, "L'exception doit être rapportée.");
+        assertTrue(failure.startsWith("Cassé threw"), "Le désaccord doit nommer le générateur : " + failure);
+        Position minimal = fuzzer.shrink(Position.fromFen("8/8/8/8/8/8/P7/1R6"));
+        assertEquals("P", minimal.toFen(), "Un pion seul sur une case suffit.");
+
+        FuzzResult first = new MoveGenFuzzer(3).run(60000, 50);
+        FuzzResult second = new MoveGenFuzzer(3).run(60000, 50);
+        assertEquals(first.getCaseCount(), second.getCaseCount(), "Une même graine doit tirer les mêmes cas.");
+        assertTrue(first.isClean() && second.isClean(), "Aucun désaccord attendu.");
+    }
+}
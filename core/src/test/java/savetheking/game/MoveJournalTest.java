@@ -0,0 +1,175 @@
+package savetheking.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suite de tests pour le journal des coups.
+ * Vérifie qu'une partie interrompue est reconstruite à partir du journal,
+ * qu'un enregistrement tronqué est ignoré et que le mode borné limite la taille du fichier.
+ */
+public class MoveJournalTest {
+    private static final String PUZZLE = "8/8/8/8/8/8/8/RNBR4";
+
+    /**
+     * Teste que la récupération rejoue les coups journalisés, même après une écriture interrompue.
+     */
+    @Test
+    public void testRecoveryAfterCrash() throws IOException {
+        File file = File.createTempFile("journal", ".bin");
+        file.delete();
+        try {
+            Controller controller = new Controller(new Board(Position.fromFen(PUZZLE)));
+            MoveJournal journal = new MoveJournal(file, 1, 0);
+            controller.setJournal(journal);
+            controller.handleInput(new Point(7, 0));
+            controller.handleInput(new Point(7, 1));
+            controller.handleInput(new Point(7, 3));
+            controller.handleInput(new Point(7, 2));
+            String expected = controller.snapshot().toText();
+
+            // Simule une coupure pendant l'écriture d'un enregistrement, sans fermer le journal
+            FileOutputStream out = new FileOutputStream(file, true);
+            out.write(new byte[] {2, 0, 0, 0, 8, 1, 2});
+            out.close();
+
+            Controller recovered = new Controller(new Board(Position.fromFen(PUZZLE)));
+            assertEquals(2, MoveJournal.recover(file, recovered), "Les deux coups doivent être rejoués.");
+            assertEquals(expected, recovered.snapshot().toText(), "La partie reconstruite doit être identique.");
+
+            // Le journal rouvert ignore la fin tronquée et continue après le dernier enregistrement valide
+            MoveJournal reopened = new MoveJournal(file, 1, 0);
+            recovered.setJournal(reopened);
+            recovered.handleInput(new Point(7, 1));
+            recovered.handleInput(new Point(7, 2));
+            reopened.close();
+            Controller last = new Controller(new Board(Position.fromFen(PUZZLE)));
+            assertEquals(1, MoveJournal.recover(file, last), "Seul le coup joué après le point de reprise doit être rejoué.");
+            assertTrue(last.snapshot().getPosition().isSolved(), "La partie terminée doit être retrouvée.");
+
+            RecordedGame game = MoveJournal.readGame(file);
+            assertEquals(Position.fromFen(PUZZLE), game.getStart(), "La partie lue doit partir du puzzle.");
+            assertEquals(ReplayResult.Outcome.WON, new ReplayEngine().replay(game).getOutcome(),
+                "La partie journalisée doit se rejouer jusqu'à la victoire.");
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Teste que la reprise s'arrête au premier coup refusé sans laisser de pièce sélectionnée.
+     */
+    @Test
+    public void testRecoveryStopsAtRefusedMove() throws IOException {
+        File file = File.createTempFile("journal", ".bin");
+        file.delete();
+        try {
+            MoveJournal journal = new MoveJournal(file, 1, 0);
+            journal.checkpoint(new Controller(new Board(Position.fromFen(PUZZLE))).snapshot());
+            // La tour de a1 ne peut pas sauter par-dessus le cavalier
+            journal.append(MoveHistory.encode(Position.ROOK, 0, 7, 0, 7, 2, Position.BISHOP, 0));
+            journal.append(MoveHistory.encode(Position.ROOK, 0, 7, 0, 7, 1, Position.KNIGHT, 0));
+            journal.close();
+
+            Controller recovered = new Controller(new Board(Position.fromFen(PUZZLE)));
+            assertEquals(0, MoveJournal.recover(file, recovered), "La reprise doit s'arrêter au coup refusé.");
+            recovered.handleInput(new Point(7, 1));
+            assertEquals(4, recovered.snapshot().getPosition().getPieceCount(),
+                "Le clic suivant doit sélectionner le cavalier, pas jouer la tour du coup refusé.");
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Teste que le mode borné repart d'un journal neuf une fois la limite atteinte.
+     */
+    @Test
+    public void testBoundedJournalStaysSmall() throws IOException {
+        File file = File.createTempFile("journal", ".bin");
+        file.delete();
+        try {
+            MoveJournal journal = new MoveJournal(file, 4, 200);
+            Controller controller = new Controller(new Board(Position.fromFen(PUZZLE)));
+            controller.setJournal(journal);
+            for (int round = 0; round < 20; round++) {
+                controller.handleInput(new Point(7, 0));
+                controller.handleInput(new Point(7, 1));
+                controller.resetBoard();
+                assertTrue(journal.size() < 400, "Le journal ne doit pas dépasser sa limite de plus d'un instantané.");
+            }
+            controller.handleInput(new Point(7, 0));
+            controller.handleInput(new Point(7, 1));
+            String expected = controller.snapshot().toText();
+            journal.close();
+
+            Controller recovered = new Controller(new Board(Position.fromFen(PUZZLE)));
+            assertTrue(MoveJournal.recover(file, recovered) >= 0, "Le journal borné doit rester lisible.");
+            assertEquals(expected, recovered.snapshot().toText(), "La partie doit être reconstruite malgré la rotation.");
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Teste qu'un instantané plus grand que la limite ne fait pas repartir le journal à chaque coup.
+     */
+    @Test
+    public void testOversizedSnapshotCompactsOnce() throws IOException {
+        File file = File.createTempFile("journal", ".bin");
+        file.delete();
+        try {
+            MoveJournal journal = new MoveJournal(file, 1, 20);
+            Controller controller = new Controller(new Board(Position.fromFen(PUZZLE)));
+            controller.setJournal(journal);
+            controller.handleInput(new Point(7, 0));
+            controller.handleInput(new Point(7, 1));
+            long compacted = journal.size();
+            assertFalse(journal.isFull(), "Le journal neuf a déjà franchi la limite et ne doit pas repartir aussitôt.");
+            controller.handleInput(new Point(7, 3));
+            controller.handleInput(new Point(7, 2));
+            assertTrue(journal.size() > compacted, "Le coup suivant doit être ajouté au journal, pas le remplacer.");
+            String expected = controller.snapshot().toText();
+            journal.close();
+
+            Controller recovered = new Controller(new Board(Position.fromFen(PUZZLE)));
+            assertEquals(1, MoveJournal.recover(file, recovered), "Le coup écrit après le point de reprise doit être rejoué.");
+            assertEquals(expected, recovered.snapshot().toText(), "La partie doit être reconstruite.");
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Teste qu'un échec d'écriture arrête la journalisation et est signalé par le contrôleur.
+     */
+    @Test
+    public void testWriteFailureIsReported() throws IOException {
+        File file = File.createTempFile("journal", ".bin");
+        file.delete();
+        try {
+            MoveJournal journal = new MoveJournal(file, 1, 0) {
+                @Override
+                public void append(long move) throws IOException {
+                    throw new IOException("disque plein");
+                }
+            };
+            Controller controller = new Controller(new Board(Position.fromFen(PUZZLE)));
+            controller.setJournal(journal);
+            assertNull(controller.getJournalError(), "Aucune erreur avant le premier coup.");
+            controller.handleInput(new Point(7, 0));
+            controller.handleInput(new Point(7, 1));
+            assertNotNull(controller.getJournalError(), "L'échec d'écriture doit être signalé.");
+            assertEquals("disque plein", controller.getJournalError().getMessage(), "L'erreur d'origine doit être conservée.");
+            assertEquals(1, controller.getGameState().getMoveHistory().size(), "Le coup doit être joué malgré l'échec.");
+            journal.close();
+        } finally {
+            file.delete();
+        }
+    }
+}
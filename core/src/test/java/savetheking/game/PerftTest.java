@@ -0,0 +1,84 @@
+package savetheking.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suite de tests pour le compteur de nœuds perft et la lecture des cartes TMX.
+ */
+public class PerftTest {
+
+    /**
+     * Teste les comptes de référence des puzzles fournis, avec et sans comptage groupé au dernier coup.
+     */
+    @Test
+    public void testReferenceCounts() {
+        for (Object[] entry : Perft.REFERENCE) {
+            Position position = Position.fromFen((String) entry[0]);
+            long[] expected = (long[]) entry[1];
+            for (int depth = 1; depth <= Math.min(3, expected.length); depth++) {
+                assertEquals(expected[depth - 1], new Perft(false).count(position, depth),
+                    "perft(" + depth + ") différent pour " + entry[0]);
+                assertEquals(expected[depth - 1], new Perft(true).count(position, depth),
+                    "Le comptage groupé doit donner le même nombre de nœuds.");
+            }
+        }
+        assertEquals(1, new Perft(true).count(Position.fromFen("8/8/8/8/8/8/8/RR6"), 0), "La racine seule à la profondeur 0.");
+    }
+
+    /**
+     * Teste que perft compte les coups du plateau au premier niveau et que la division par coup retombe sur le total.
+     */
+    @Test
+    public void testDivideAndBoardAgreement() {
+        Random random = new Random(48);
+        Perft perft = new Perft(true);
+        for (int n = 0; n < 100; n++) {
+            Position position = TestPositions.random(random, 5, 6, 3 + random.nextInt(8));
+            Board board = new Board(position);
+            List<Piece> pieces = board.getRemainingPieces();
+            int boardMoves = 0;
+            for (Piece piece : pieces) {
+                boardMoves += piece.getLegalMoves(board).size();
+            }
+            assertEquals(position.getPieceCount(), pieces.size(), "Le plateau doit avoir les pièces de la position.");
+            assertEquals(boardMoves, perft.count(position, 1), "perft(1) doit compter les coups des pièces : " + position.toFen());
+
+            long total = 0;
+            for (long count : perft.divide(position, 3).values()) {
+                total += count;
+            }
+            assertEquals(perft.count(position, 3), total, "La division doit retomber sur le total : " + position.toFen());
+        }
+        Map<String, Long> divide = perft.divide(Position.fromFen("Q7/Q7/8/8/8/8/Q7/8"), 2);
+        assertEquals(4, divide.size(), "Chaque prise de départ doit être listée.");
+        assertEquals(Long.valueOf(2), divide.get("Qxa2"), "Après Dxa2, deux prises finissent le puzzle.");
+    }
+
+    /**
+     * Teste que la lecture d'une carte TMX rend la position dont elle a été écrite.
+     */
+    @Test
+    public void testTmxRoundTrip() throws IOException {
+        String[] fens = {"3RR3/N2R4/1N2N3/1QB1K2Q/R2N1BQ1/N1B1RN2/2BQR3/2NR2B1", "Q7/Q7/8/8/8/8/Q7/8", "6/2p3/1r4/6/4pk/6/6/q5/6/6"};
+        for (String fen : fens) {
+            String tmx = FENtoTMX.toTmx(fen, 32);
+            Position position = TmxReader.read(new ByteArrayInputStream(tmx.getBytes(StandardCharsets.UTF_8)));
+            assertEquals(Position.fromFen(fen), position, "La carte doit redonner " + fen);
+        }
+        assertThrows(IOException.class, () -> TmxReader.read(new ByteArrayInputStream("<map".getBytes(StandardCharsets.UTF_8))),
+            "Un document invalide doit être refusé.");
+        String entity = "<?xml version=\"1.0\"?><!DOCTYPE map [<!ENTITY size SYSTEM \"file:///etc/hostname\">]>"
+            + "<map width=\"8\" height=\"8\" tileheight=\"32\">&size;</map>";
+        assertThrows(IOException.class, () -> TmxReader.read(new ByteArrayInputStream(entity.getBytes(StandardCharsets.UTF_8))),
+            "Les déclarations DOCTYPE doivent être refusées.");
+    }
+}
@@ -0,0 +1,108 @@
+package savetheking.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suite de tests pour la lecture et l'écriture des parties en PGN.
+ * Vérifie la notation SAN des captures, l'aller-retour entre les parties et le texte PGN,
+ * et la lecture d'un fichier contenant plusieurs parties, commentaires et variantes.
+ */
+public class PgnTest {
+
+    /**
+     * Teste que la notation SAN précise la colonne ou la rangée de départ seulement en cas d'ambiguïté.
+     */
+    @Test
+    public void testSanDisambiguation() {
+        Position position = Position.fromFen("8/8/8/8/8/R7/8/N1R5");
+        int fromC1 = Position.encodeMove(7 * 8 + 2, 7 * 8);
+        int fromA3 = Position.encodeMove(5 * 8, 7 * 8);
+
+        assertEquals("Rcxa1", SanNotation.format(position, fromC1), "La tour c1 doit être désignée par sa colonne.");
+        assertEquals("Raxa1", SanNotation.format(position, fromA3), "La colonne suffit à désigner la tour a3.");
+        assertEquals(fromC1, SanNotation.parse(position, "Rcxa1+"), "Le coup doit être retrouvé malgré l'échec.");
+        assertEquals(fromA3, SanNotation.parse(position, "a3a1"), "La notation par coordonnées doit être acceptée.");
+        assertThrows(IllegalArgumentException.class, () -> SanNotation.parse(position, "Rxa1"),
+            "Un coup ambigu doit être refusé.");
+        assertThrows(IllegalArgumentException.class, () -> SanNotation.parse(position, "Nxc1"),
+            "Un coup illégal doit être refusé.");
+        assertEquals("a1", new Point(7, 0).toChessNotation(8), "Le coin inférieur gauche est a1.");
+    }
+
+    /**
+     * Teste que des parties écrites en PGN sont relues à l'identique, l'une après l'autre.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        RecordedGame won = RecordedGame.parse("victoire", "8/8/8/8/8/8/8/RNB5 | a1xb1 b1xc1");
+        RecordedGame unfinished = RecordedGame.parse("en \"cours\"", "8/8/8/8/8/8/8/RNB1R3 | a1xb1");
+
+        StringWriter text = new StringWriter();
+        PgnWriter writer = new PgnWriter(text);
+        writer.write(won);
+        writer.write(unfinished);
+        writer.close();
+        assertTrue(text.toString().contains("1. Rxb1 2. Rxc1 1-0"), "Les coups doivent être écrits en SAN.");
+
+        PgnReader reader = new PgnReader(new StringReader(text.toString()));
+        RecordedGame first = reader.next();
+        assertEquals(won, first, "La première partie doit être relue à l'identique.");
+        assertEquals(ReplayResult.Outcome.WON, first.getExpectedOutcome(), "Le résultat doit être relu.");
+        RecordedGame second = reader.next();
+        assertEquals(unfinished, second, "La seconde partie doit être relue à l'identique.");
+        assertEquals("en \"cours\"", second.getName(), "Le nom doit survivre à l'échappement.");
+        assertNull(reader.next(), "Il ne doit pas y avoir de troisième partie.");
+        reader.close();
+    }
+
+    /**
+     * Teste qu'une partie jouée sous d'autres règles les garde dans le texte et en PGN.
+     */
+    @Test
+    public void testRulesRoundTrip() throws IOException {
+        RecordedGame variant = RecordedGame.parse("variante", "8/8/8/8/8/8/8/RN6 3 4kc | a1xb1");
+        assertEquals(new RuleSet(4, true, true), variant.getStart().getRules(), "Les règles doivent être lues après la FEN.");
+
+        StringWriter text = new StringWriter();
+        PgnWriter writer = new PgnWriter(text);
+        writer.write(variant);
+        writer.close();
+        assertTrue(text.toString().contains("[Rules \"4kc\"]"), "Les règles doivent être écrites dans un tag.");
+
+        PgnReader reader = new PgnReader(new StringReader(text.toString()));
+        RecordedGame read = reader.next();
+        assertEquals(variant, read, "La partie doit être relue sous ses règles.");
+        assertEquals(ReplayResult.Outcome.WON, new ReplayEngine().replay(read).getOutcome(), "La tour peut encore prendre.");
+        reader.close();
+        assertThrows(IllegalArgumentException.class, () -> RecordedGame.parse("variante", "8/8/8/8/8/8/8/RN6 3 | a1xb1"),
+            "Sans les règles, le compteur de coups dépasse la limite standard.");
+    }
+
+    /**
+     * Teste que les commentaires, variantes et annotations sont ignorés, et qu'une partie invalide
+     * n'empêche pas de lire la suivante.
+     */
+    @Test
+    public void testReaderSkipsAnnotationsAndBadGames() throws IOException {
+        String pgn = "[Event \"annotée\"]\n[FEN \"8/8/8/8/8/8/8/RNB5 w - - 0 1\"]\n\n"
+            + "1. Rxb1 {seul coup} (1. Rxc1? ; impossible\n) $1 2... Rxc1! 1-0\n\n"
+            + "[FEN \"8/8/8/8/8/8/8/RNB5\"]\n\n1. Bxa1 *\n\n"
+            + "[FEN \"8/8/8/8/8/8/8/R1N5\"]\n1.Rxc1\n";
+        PgnReader reader = new PgnReader(new StringReader(pgn));
+
+        RecordedGame first = reader.next();
+        assertEquals("annotée", first.getName(), "Le nom doit venir de l'événement.");
+        assertEquals(ReplayResult.Outcome.WON, new ReplayEngine().replay(first).getOutcome(), "La partie doit être gagnée.");
+        assertThrows(IllegalArgumentException.class, reader::next, "Le coup du fou est illégal.");
+        RecordedGame third = reader.next();
+        assertEquals("game 3", third.getName(), "Une partie sans événement doit être numérotée.");
+        assertEquals(1, third.getMoveCount(), "La partie sans résultat doit être lue jusqu'à la fin du texte.");
+        assertNull(reader.next(), "Le texte doit être entièrement lu.");
+    }
+}
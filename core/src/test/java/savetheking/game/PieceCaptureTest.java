@@ -0,0 +1,94 @@
+package savetheking.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suite de tests pour la génération des seules captures par chaque type de pièce.
+ * Les positions sont lues en notation FEN : la ligne 0 est la première rangée du texte.
+ */
+public class PieceCaptureTest {
+
+    /** Pièces autour de la case (4, 4), laissée libre pour la pièce testée. */
+    private static final String AROUND_CENTER = "8/8/8/3P4/1N2%s1NN/8/6R1/4B2Q";
+
+    /**
+     * Teste que les pièces glissantes prennent la première pièce de chaque ligne, sans jamais aller sur une case vide.
+     */
+    @Test
+    public void testSlidingCaptures() {
+        assertEquals(points(4, 1, 4, 6, 7, 4), captures(String.format(AROUND_CENTER, "R"), 4, 4),
+            "La tour prend la première pièce de chaque ligne et colonne.");
+        assertEquals(points(3, 3, 6, 6), captures(String.format(AROUND_CENTER, "B"), 4, 4),
+            "Le fou prend la première pièce de chaque diagonale.");
+        assertEquals(points(4, 1, 4, 6, 7, 4, 3, 3, 6, 6), captures(String.format(AROUND_CENTER, "Q"), 4, 4),
+            "La dame prend comme la tour et le fou réunis.");
+
+        Board board = new Board(Position.fromFen(String.format(AROUND_CENTER, "R")));
+        Set<Point> raw = new HashSet<Point>(board.getPieceAt(4, 4).getPossibleMoves(board));
+        assertTrue(raw.containsAll(points(4, 1, 4, 6, 7, 4)), "Les déplacements bruts de la tour incluent ses captures.");
+        assertFalse(raw.contains(new Point(4, 7)), "La tour ne saute pas par-dessus la pièce prise.");
+    }
+
+    /**
+     * Teste les captures des pièces qui sautent d'une case à l'autre : cavalier, roi et pion.
+     */
+    @Test
+    public void testStepCaptures() {
+        assertEquals(points(5, 2, 5, 6), captures("8/8/8/3P4/4N3/2B3R1/8/8", 4, 4),
+            "Le cavalier ne prend que sur ses cases d'arrivée.");
+        assertEquals(points(3, 3), captures(String.format(AROUND_CENTER, "K"), 4, 4),
+            "Le roi ne prend que les pièces voisines.");
+        assertEquals(points(3, 3, 3, 5), captures("8/8/8/3NRB2/4P3/8/8/8", 4, 4),
+            "Le pion prend en diagonale vers l'avant, jamais droit devant.");
+        assertEquals(points(5, 3, 5, 5), captures("8/8/8/3NRB2/4p3/3Q1Q2/8/8", 4, 4),
+            "Un pion noir avance vers le bas du plateau.");
+    }
+
+    /**
+     * Teste que le roi ne peut être pris que si les règles ne l'obligent pas à rester le dernier.
+     */
+    @Test
+    public void testKingCapture() {
+        assertEquals(points(), captures("8/8/8/8/R3K3/8/8/8", 4, 0), "Le roi doit rester la dernière pièce.");
+        Board board = new Board(Position.fromFen("8/8/8/8/R3K3/8/8/8", new RuleSet(2, false, true)));
+        assertTrue(board.getPieceAt(4, 4).canBeCaptured(), "Sans la règle du roi, le roi peut être pris.");
+        assertEquals(points(4, 4), new HashSet<Point>(board.getPieceAt(4, 0).getCaptureMoves(board)),
+            "La tour doit pouvoir prendre le roi.");
+    }
+
+    /**
+     * Teste qu'une pièce épuisée ne prend plus rien et que les déplacements sans capture ne sont jamais des captures.
+     */
+    @Test
+    public void testExhaustionAndQuietMoves() {
+        assertEquals(points(4, 4), captures("8/8/8/8/R3N3/8/8/8 10", 4, 0), "Un seul coup joué : la tour peut encore prendre.");
+        assertEquals(points(), captures("8/8/8/8/R3N3/8/8/8 20", 4, 0), "Deux coups joués : la tour est épuisée.");
+
+        Board board = new Board(Position.fromFen("8/8/8/8/R3N3/8/8/8", new RuleSet(2, true, false)));
+        Piece rook = board.getPieceAt(4, 0);
+        assertEquals(points(4, 4), new HashSet<Point>(rook.getCaptureMoves(board)), "Seule la prise est une capture.");
+        assertEquals(11, rook.getLegalMoves(board).size(), "Les cases vides s'ajoutent sans la règle des captures seules.");
+        Board standard = new Board(Position.fromFen("8/8/8/8/R3N3/8/8/8"));
+        assertEquals(standard.getPieceAt(4, 0).getCaptureMoves(standard), standard.getPieceAt(4, 0).getLegalMoves(standard),
+            "Avec les règles standard, les coups légaux sont les captures.");
+    }
+
+    private static Set<Point> captures(String fen, int x, int y) {
+        Board board = new Board(Position.fromFen(fen));
+        return new HashSet<Point>(board.getPieceAt(x, y).getCaptureMoves(board));
+    }
+
+    private static Set<Point> points(int... coordinates) {
+        Point[] points = new Point[coordinates.length / 2];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new Point(coordinates[2 * i], coordinates[2 * i + 1]);
+        }
+        return new HashSet<Point>(Arrays.asList(points));
+    }
+}
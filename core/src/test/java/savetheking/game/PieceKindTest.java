@@ -0,0 +1,61 @@
+package savetheking.game;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suite de tests pour l'identité des pièces.
+ * Vérifie que les genres, couleurs et états des pièces correspondent aux codes de la position compacte
+ * et que les noms ne sont lus qu'aux frontières.
+ */
+public class PieceKindTest {
+
+    /**
+     * Teste que chaque genre correspond à son code, à sa lettre FEN et à son nom.
+     */
+    @Test
+    public void testKindsMatchPositionCodes() {
+        for (PieceKind kind : PieceKind.values()) {
+            assertSame(kind, PieceKind.fromCode(kind.getCode()), "Le code doit redonner le genre.");
+            assertEquals(Position.fenChar(kind.getCode()), kind.getFenChar(), "La lettre doit être celle de la FEN.");
+            assertSame(kind, PieceKind.fromFenChar(Character.toLowerCase(kind.getFenChar())), "La lettre doit redonner le genre.");
+            assertSame(kind, PieceKind.fromName(kind.getName().toUpperCase()), "Le nom doit être lu sans tenir compte de la casse.");
+        }
+        assertThrows(IllegalArgumentException.class, () -> PieceKind.fromCode(Position.EMPTY), "Une case vide n'est pas une pièce.");
+        assertThrows(IllegalArgumentException.class, () -> PieceKind.fromName("dragon"), "Un nom inconnu doit être refusé.");
+        assertSame(PieceColor.BLACK, PieceColor.fromName("Noir"), "Le nom français doit être accepté.");
+        assertSame(PieceColor.WHITE, PieceColor.fromName("white"), "Le nom en minuscules doit être accepté.");
+    }
+
+    /**
+     * Teste que le plateau donne à chaque pièce le genre et l'état de sa case.
+     */
+    @Test
+    public void testBoardPiecesCarryKindAndState() {
+        Position position = Position.fromFen("8/8/8/8/8/8/8/RNBQK3 20000");
+        Board board = new Board(position);
+        for (int y = 0; y < 5; y++) {
+            Piece piece = board.getPieceAt(7, y);
+            assertEquals(Position.kind(position.getCell(7 * 8 + y)), piece.getKind().getCode(), "Le genre doit suivre la case.");
+        }
+        assertSame(PieceState.EXHAUSTED, board.getPieceAt(7, 0).getState(), "La tour a épuisé ses coups.");
+        assertSame(PieceColor.BLACK, board.getPieceAt(7, 0).getColor(), "Une pièce épuisée devient noire.");
+        assertSame(PieceState.ACTIVE, board.getPieceAt(7, 1).getState(), "Le cavalier peut encore jouer.");
+        assertEquals(position, Position.fromBoard(board), "Le plateau doit redonner la position.");
+    }
+
+    /**
+     * Teste qu'un pion garde son sens de progression quand il devient noir.
+     */
+    @Test
+    public void testPawnKeepsDirectionWhenExhausted() {
+        Pawn pawn = new Pawn(PieceColor.WHITE, new Point(6, 3), null);
+        pawn.restoreMoveCount(RuleSet.STANDARD.getMoveLimit());
+        assertSame(PieceColor.BLACK, pawn.getColor(), "Le pion épuisé doit devenir noir.");
+        assertEquals(-1, pawn.getDirection(), "Le pion doit continuer à monter.");
+
+        Position position = Position.fromFen("8/8/8/8/8/8/3P4/2R5 20");
+        assertEquals(position, Position.fromBoard(new Board(position)), "Le sens des pions doit survivre au plateau.");
+    }
+}
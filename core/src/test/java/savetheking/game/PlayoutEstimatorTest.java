@@ -0,0 +1,86 @@
+package savetheking.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suite de tests pour l'estimation par parties aléatoires.
+ * Vérifie que les estimations encadrent la probabilité exacte et que les parties jouées sur place respectent les règles.
+ */
+public class PlayoutEstimatorTest {
+    private static final double Z_999 = 3.290526731491926; // Intervalle à 99,9 %
+
+    /**
+     * Teste que l'intervalle de confiance contient la probabilité exacte de gagner au hasard.
+     */
+    @Test
+    public void testEstimateMatchesExactProbability() {
+        Random random = new Random(47);
+        List<Position> puzzles = new ArrayList<Position>();
+        puzzles.add(Position.fromFen("7B/5BB1/B1R5/B7/1BR5/1RRNK3/8/8"));
+        for (int n = 0; n < 10; n++) {
+            puzzles.add(TestPositions.random(random, 4, 4, 4 + random.nextInt(4)));
+        }
+        List<PlayoutEstimate> estimates = new PlayoutEstimator(2).estimate(puzzles, 20000, 47);
+        DifficultyEstimator exact = new DifficultyEstimator();
+        for (PlayoutEstimate estimate : estimates) {
+            double probability = exact.getWinProbability(estimate.getPuzzle());
+            assertTrue(estimate.getLowerBound(Z_999) <= probability && probability <= estimate.getUpperBound(Z_999),
+                "L'intervalle " + estimate + " doit contenir " + probability + " pour " + estimate.getPuzzle().toFen());
+            assertEquals(20000, estimate.getPlayouts(), "Toutes les parties doivent être jouées.");
+        }
+    }
+
+    /**
+     * Teste qu'une partie jouée sur place ne modifie pas la position et ne gagne que les puzzles résolubles,
+     * et que les estimations ne dépendent que de la graine.
+     */
+    @Test
+    public void testPlayoutsFollowRules() {
+        Random random = new Random(48);
+        SplittableRandom choices = new SplittableRandom(48);
+        for (int n = 0; n < 200; n++) {
+            Position puzzle = TestPositions.random(random, 4, 4, 2 + random.nextInt(6));
+            String fen = puzzle.toFen();
+            byte[] scratch = puzzle.newPlayoutBuffer();
+            int[] moves = puzzle.newMoveBuffer();
+            boolean solvable = new Solver().isSolvable(puzzle);
+            for (int game = 0; game < 20; game++) {
+                int left = puzzle.playout(choices, scratch, moves);
+                assertTrue(left >= 1 && left <= puzzle.getPieceCount(), "Nombre de pièces restantes invalide.");
+                assertTrue(left > 1 || solvable, "Un puzzle insoluble ne peut pas être gagné : " + fen);
+            }
+            assertEquals(fen, puzzle.toFen(), "La position ne doit pas être modifiée.");
+        }
+
+        Position puzzle = Position.fromFen("3Q4/1Q6/8/3R4/3QR3/1N1RR3/2Q1RQ2/2N1N3");
+        PlayoutEstimate first = new PlayoutEstimator(1).estimate(puzzle, 10000, 5);
+        PlayoutEstimate second = new PlayoutEstimator(3).estimate(puzzle, 10000, 5);
+        assertEquals(first.getWins(), second.getWins(), "Une même graine doit donner les mêmes parties.");
+    }
+
+    /**
+     * Teste les bornes de l'intervalle de Wilson dans les cas extrêmes.
+     */
+    @Test
+    public void testWilsonInterval() {
+        PlayoutEstimate none = new PlayoutEstimate(Position.fromFen("8/8/8/8/8/8/8/N6N"), 1000, 0, 0);
+        assertEquals(0, none.getLowerBound(PlayoutEstimate.Z_95), 1e-12, "Aucune victoire : la borne basse est nulle.");
+        assertTrue(none.getUpperBound(PlayoutEstimate.Z_95) > 0, "La borne haute doit rester positive.");
+
+        PlayoutEstimate all = new PlayoutEstimate(Position.fromFen("8/8/8/8/8/8/8/RR6"), 1000, 1000, 0);
+        assertEquals(1, all.getUpperBound(PlayoutEstimate.Z_95), 1e-12, "Que des victoires : la borne haute vaut 1.");
+        assertTrue(all.getLowerBound(PlayoutEstimate.Z_95) < 1, "La borne basse doit rester sous 1.");
+
+        PlayoutEstimate half = new PlayoutEstimate(Position.fromFen("8/8/8/8/8/8/8/RR6"), 100, 50, 0);
+        assertEquals(0.5, half.getWinProbability(), 1e-12, "La moitié des parties est gagnée.");
+        assertEquals(0.4038, half.getLowerBound(PlayoutEstimate.Z_95), 1e-4, "Borne basse de Wilson pour 50/100.");
+        assertEquals(0.5962, half.getUpperBound(PlayoutEstimate.Z_95), 1e-4, "Borne haute de Wilson pour 50/100.");
+    }
+}
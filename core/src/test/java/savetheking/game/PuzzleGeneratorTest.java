@@ -0,0 +1,115 @@
+package savetheking.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suite de tests pour le générateur de puzzles par recuit simulé et pour l'estimation de difficulté.
+ */
+public class PuzzleGeneratorTest {
+
+    /**
+     * Teste que la probabilité de gagner au hasard est celle d'un parcours complet des coups.
+     */
+    @Test
+    public void testWinProbabilityMatchesEnumeration() {
+        DifficultyEstimator estimator = new DifficultyEstimator();
+        Random random = new Random(46);
+        for (int n = 0; n < 200; n++) {
+            Position position = TestPositions.random(random, 4, 4, 2 + random.nextInt(6));
+            double expected = enumerate(position);
+            assertEquals(expected, estimator.getWinProbability(position), 1e-12, "Probabilité différente pour " + position.toFen());
+            assertEquals(new Solver().isSolvable(position), estimator.getDifficulty(position) < Double.POSITIVE_INFINITY,
+                "Seules les positions insolubles sont infiniment difficiles : " + position.toFen());
+        }
+        assertEquals(0, estimator.getDifficulty(Position.fromFen("8/8/8/8/8/8/8/RR6")), 1e-12, "Chaque prise gagne.");
+        assertEquals(Double.POSITIVE_INFINITY, estimator.getDifficulty(Position.fromFen("8/8/8/8/8/8/8/N6N")),
+            "Deux cavaliers éloignés ne peuvent pas se prendre.");
+        estimator.reset();
+        assertEquals(0, estimator.getMemoSize(), "Le cache doit être vidé.");
+    }
+
+    /**
+     * Teste que les puzzles générés sont dans la bande de difficulté, résolubles et distincts.
+     */
+    @Test
+    public void testPuzzlesFallInBand() {
+        PuzzleGenerator generator = new PuzzleGenerator(4, 4, RuleSet.STANDARD, 3, 7);
+        generator.setDifficultyBand(3, 5);
+        generator.setSeed(45);
+        final List<Position> puzzles = new ArrayList<Position>();
+        int generated = generator.generate(4, 5000, 2, 25, (puzzle, difficulty) -> {
+            synchronized (puzzles) {
+                puzzles.add(puzzle);
+            }
+            assertTrue(difficulty >= 3 && difficulty <= 5, "Difficulté hors de la bande : " + difficulty);
+        });
+
+        assertEquals(25, generated, "Le nombre de puzzles demandé doit être atteint.");
+        assertEquals(25, puzzles.size(), "Chaque puzzle doit être transmis.");
+        DifficultyEstimator estimator = new DifficultyEstimator();
+        Set<Position> canonical = new HashSet<Position>();
+        for (Position puzzle : puzzles) {
+            double difficulty = estimator.getDifficulty(puzzle);
+            assertTrue(difficulty >= 3 && difficulty <= 5, "Difficulté hors de la bande pour " + puzzle.toFen());
+            assertTrue(new Solver().isSolvable(puzzle), "Le puzzle doit être résoluble : " + puzzle.toFen());
+            assertTrue(puzzle.getPieceCount() >= 3 && puzzle.getPieceCount() <= 7, "Nombre de pièces hors limites.");
+            assertTrue(canonical.add(puzzle.canonical()), "Les puzzles symétriques ne doivent être transmis qu'une fois.");
+        }
+    }
+
+    /**
+     * Teste qu'une même graine donne les mêmes puzzles, et le refus des réglages invalides.
+     */
+    @Test
+    public void testSeedReproducibilityAndValidation() {
+        List<String> first = generateFens(7);
+        assertFalse(first.isEmpty(), "Des puzzles doivent être trouvés.");
+        assertEquals(first, generateFens(7), "Une même graine doit donner les mêmes puzzles.");
+
+        assertThrows(IllegalArgumentException.class, () -> new PuzzleGenerator(4, 4, RuleSet.STANDARD, 1, 5),
+            "Un puzzle a au moins deux pièces.");
+        assertThrows(IllegalArgumentException.class, () -> new PuzzleGenerator(2, 2, RuleSet.STANDARD, 2, 5),
+            "Les pièces doivent tenir sur le plateau.");
+        PuzzleGenerator generator = new PuzzleGenerator(4, 4, RuleSet.STANDARD, 2, 5);
+        assertThrows(IllegalArgumentException.class, () -> generator.setDifficultyBand(5, 3), "Bande inversée.");
+        assertThrows(IllegalArgumentException.class, () -> generator.setTemperatures(1, 0), "La température doit rester positive.");
+
+        // Le tirage des départs compte dans le budget de pas : une chaîne s'arrête même sans départ résoluble
+        assertEquals(0, generator.generate(2, 0, 1, 5, (puzzle, difficulty) -> fail("Aucune position ne doit être notée.")),
+            "Sans pas, aucune chaîne ne démarre.");
+        PuzzleGenerator cramped = new PuzzleGenerator(1, 2, RuleSet.STANDARD, 2, 2);
+        cramped.setSeed(3);
+        assertEquals(0, cramped.generate(4, 50, 2, 5, (puzzle, difficulty) -> fail("Aucun puzzle n'est assez difficile.")),
+            "Les chaînes doivent s'arrêter une fois leur budget épuisé.");
+    }
+
+    private static List<String> generateFens(long seed) {
+        PuzzleGenerator generator = new PuzzleGenerator(4, 4, RuleSet.STANDARD, 3, 6);
+        generator.setDifficultyBand(2, 4);
+        generator.setSeed(seed);
+        final List<String> fens = new ArrayList<String>();
+        generator.generate(1, 2000, 1, 10, (puzzle, difficulty) -> fens.add(puzzle.toFen()));
+        return fens;
+    }
+
+    private static double enumerate(Position position) {
+        if (position.isSolved()) {
+            return 1;
+        }
+        int[] moves = position.newMoveBuffer();
+        int count = position.generateMoves(moves);
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            total += enumerate(position.play(moves[i]));
+        }
+        return count > 0 ? total / count : 0;
+    }
+}
@@ -0,0 +1,102 @@
+package savetheking.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suite de tests pour le réducteur de puzzles.
+ * Vérifie que les puzzles réduits restent résolubles, ne perdent que des pièces et ne peuvent plus être réduits.
+ */
+public class PuzzleMinimizerTest {
+
+    /**
+     * Teste qu'un puzzle réduit reste résoluble, qu'aucune pièce ne peut plus en être retirée
+     * et que le résultat ne dépend pas du nombre de threads.
+     */
+    @Test
+    public void testMinimizedPuzzlesAreSolvableAndMinimal() {
+        Random random = new Random(44);
+        PuzzleMinimizer minimizer = new PuzzleMinimizer(2);
+        PuzzleMinimizer sequential = new PuzzleMinimizer(1);
+        int minimized = 0;
+        while (minimized < 20) {
+            Position puzzle = TestPositions.random(random, 4, 4, 4 + random.nextInt(4), 1, false);
+            if (!new Solver().isSolvable(puzzle)) {
+                continue;
+            }
+            Position result = minimizer.minimize(puzzle);
+            assertSubset(puzzle, result);
+            assertTrue(new Solver().isSolvable(result), "Le puzzle réduit doit rester résoluble : " + result.toFen());
+            if (result.getPieceCount() > 2) {
+                for (int square = 0; square < result.getSquareCount(); square++) {
+                    if (result.getCell(square) != Position.EMPTY) {
+                        assertFalse(new Solver().isSolvable(without(result, square)),
+                            "Aucune pièce ne doit plus pouvoir être retirée de " + result.toFen());
+                    }
+                }
+            }
+            assertEquals(result, sequential.minimize(puzzle), "Le résultat ne doit pas dépendre du nombre de threads.");
+            minimized++;
+        }
+        assertTrue(minimizer.getCandidateCount() > 0, "Des retraits doivent avoir été essayés.");
+    }
+
+    /**
+     * Teste que l'exigence d'une solution unique est conservée par la réduction.
+     */
+    @Test
+    public void testUniqueSolutionIsKept() {
+        Random random = new Random(45);
+        SolutionCounter counter = new SolutionCounter();
+        PuzzleMinimizer minimizer = new PuzzleMinimizer(2);
+        minimizer.setUniqueSolution(true);
+        int minimized = 0;
+        while (minimized < 10) {
+            Position puzzle = TestPositions.random(random, 4, 4, 3 + random.nextInt(3), 1, false);
+            if (!counter.hasUniqueSolution(puzzle)) {
+                continue;
+            }
+            Position result = minimizer.minimize(puzzle);
+            assertSubset(puzzle, result);
+            assertEquals(1, counter.count(result), "Le puzzle réduit doit garder une seule solution : " + result.toFen());
+            minimized++;
+        }
+        assertThrows(IllegalArgumentException.class, () -> minimizer.minimize(Position.fromFen("8/8/8/8/8/8/8/RR6")),
+            "Deux tours qui peuvent se prendre l'une l'autre ont deux solutions.");
+    }
+
+    /**
+     * Teste le refus des puzzles insolubles et le nombre minimal de pièces.
+     */
+    @Test
+    public void testLimits() {
+        PuzzleMinimizer minimizer = new PuzzleMinimizer(1);
+        assertThrows(IllegalArgumentException.class, () -> minimizer.minimize(Position.fromFen("8/8/8/8/8/8/8/N6N")),
+            "Un puzzle insoluble ne peut pas être réduit.");
+        assertThrows(IllegalArgumentException.class, () -> minimizer.setMinPieceCount(1),
+            "Un puzzle doit garder au moins deux pièces.");
+
+        Position puzzle = Position.fromFen("8/8/8/8/8/8/8/RRRR4");
+        assertEquals(2, minimizer.minimize(puzzle).getPieceCount(), "Les tours en trop doivent être retirées.");
+        minimizer.setMinPieceCount(3);
+        assertEquals(3, minimizer.minimize(puzzle).getPieceCount(), "La réduction doit s'arrêter au minimum demandé.");
+    }
+
+    private static void assertSubset(Position puzzle, Position result) {
+        for (int square = 0; square < puzzle.getSquareCount(); square++) {
+            assertTrue(result.getCell(square) == Position.EMPTY || result.getCell(square) == puzzle.getCell(square),
+                "Le puzzle réduit ne doit que perdre des pièces : " + result.toFen());
+        }
+    }
+
+    private static Position without(Position position, int square) {
+        byte[] cells = new byte[position.getSquareCount()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = i == square ? Position.EMPTY : position.getCell(i);
+        }
+        return new Position(position.getRows(), position.getColumns(), cells, position.getPawnDirection());
+    }
+}
@@ -0,0 +1,101 @@
+package savetheking.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suite de tests pour le rejeu des parties enregistrées.
+ * Vérifie la lecture des parties, la détection des coups illégaux, la reconstruction
+ * d'une partie depuis un instantané et le rejeu en parallèle.
+ */
+public class ReplayEngineTest {
+    private final ReplayEngine engine = new ReplayEngine();
+
+    /**
+     * Teste qu'une partie gagnée est rejouée jusqu'au bout, sur les positions comme sur le plateau.
+     */
+    @Test
+    public void testReplayWonGame() {
+        RecordedGame game = RecordedGame.parse("victoire", "8/8/8/8/8/8/8/RNB5 | 1. a1xb1 2. b1xc1 1-0");
+
+        ReplayResult fast = engine.replay(game);
+        assertEquals(ReplayResult.Outcome.WON, fast.getOutcome(), "La partie doit être gagnée.");
+        assertTrue(fast.matchesExpectation(), "Le résultat doit correspondre à celui enregistré.");
+        assertEquals("8/8/8/8/8/8/8/2R5 2", fast.getFinalPosition().toFen(), "La tour doit finir en c1.");
+
+        ReplayResult board = engine.replayOnBoard(game);
+        assertEquals(fast.getOutcome(), board.getOutcome(), "Le plateau doit donner le même résultat.");
+        assertEquals(fast.getFinalPosition(), board.getFinalPosition(), "Le plateau doit finir dans la même position.");
+    }
+
+    /**
+     * Teste qu'un coup illégal arrête le rejeu à l'endroit exact.
+     */
+    @Test
+    public void testReplayStopsAtIllegalMove() {
+        RecordedGame game = RecordedGame.parse("illégal", "8/8/8/8/8/8/8/RNB5 | a1xb1 b1xc1 c1xd1");
+
+        ReplayResult result = engine.replay(game);
+        assertEquals(ReplayResult.Outcome.ILLEGAL, result.getOutcome(), "Le troisième coup est illégal.");
+        assertEquals(2, result.getMovesApplied(), "Deux coups doivent avoir été joués.");
+        assertEquals(ReplayResult.Outcome.ILLEGAL, engine.replayOnBoard(game).getOutcome(), "Le plateau doit aussi le refuser.");
+    }
+
+    /**
+     * Teste qu'une partie sauvegardée est reconstruite depuis sa position de départ.
+     */
+    @Test
+    public void testGameRebuiltFromSnapshot() {
+        Position start = Position.fromFen("8/8/8/8/8/8/8/RNB1R3");
+        Controller controller = new Controller(new Board(start));
+        controller.handleInput(new Point(7, 0));
+        controller.handleInput(new Point(7, 1));
+        controller.handleInput(new Point(7, 4));
+        controller.handleInput(new Point(7, 2));
+
+        RecordedGame game = RecordedGame.fromSnapshot("instantané", controller.snapshot());
+        assertEquals(start, game.getStart(), "La position de départ doit être retrouvée.");
+        assertEquals(ReplayResult.Outcome.UNFINISHED, engine.replay(game).getOutcome(), "La partie n'est pas finie.");
+        assertEquals(controller.snapshot().getPosition(), engine.replay(game).getFinalPosition(),
+            "Le rejeu doit retrouver la position sauvegardée.");
+    }
+
+    /**
+     * Teste qu'une partie sauvegardée sous d'autres règles est reconstruite sous ces règles.
+     */
+    @Test
+    public void testVariantGameRebuiltFromSnapshot() {
+        Position start = Position.fromFen("8/8/8/8/8/8/8/RNB5 200", new RuleSet(4, true, true));
+        Controller controller = new Controller(new Board(start));
+        controller.handleInput(new Point(7, 0));
+        controller.handleInput(new Point(7, 1));
+
+        RecordedGame game = RecordedGame.fromSnapshot("variante", controller.snapshot());
+        assertEquals(start, game.getStart(), "La position de départ doit garder ses règles.");
+        assertEquals(ReplayResult.Outcome.UNFINISHED, engine.replay(game).getOutcome(), "La tour peut encore prendre.");
+    }
+
+    /**
+     * Teste que le rejeu parallèle rend les résultats dans l'ordre des parties.
+     */
+    @Test
+    public void testParallelReplayKeepsOrder() {
+        List<RecordedGame> games = new ArrayList<RecordedGame>();
+        for (int i = 0; i < 100; i++) {
+            String moves = i % 2 == 0 ? "a1xb1 b1xc1" : "a1xc1";
+            games.add(RecordedGame.parse("partie " + i, "8/8/8/8/8/8/8/RNB5 | " + moves));
+        }
+
+        List<ReplayResult> results = engine.replayAll(games, 4);
+        assertEquals(games.size(), results.size(), "Chaque partie doit avoir un résultat.");
+        for (int i = 0; i < games.size(); i++) {
+            assertSame(games.get(i), results.get(i).getGame(), "Les résultats doivent suivre l'ordre des parties.");
+            assertEquals(i % 2 == 0 ? ReplayResult.Outcome.WON : ReplayResult.Outcome.ILLEGAL, results.get(i).getOutcome(),
+                "Résultat incorrect pour la partie " + i);
+        }
+    }
+}
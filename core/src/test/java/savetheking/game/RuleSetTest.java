@@ -0,0 +1,101 @@
+package savetheking.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suite de tests pour les variantes de règles.
+ * Vérifie que la limite de coups, la capture du roi et les coups sans prise
+ * sont appliqués de la même façon par le plateau, la position compacte et le solveur.
+ */
+public class RuleSetTest {
+
+    /**
+     * Teste qu'une limite de trois coups laisse une pièce jouer une troisième fois.
+     */
+    @Test
+    public void testMoveLimitOfThree() {
+        String puzzle = "8/8/8/8/8/8/8/RNNN4";
+        assertFalse(new Solver().isSolvable(Position.fromFen(puzzle)),
+            "Avec deux coups par pièce, la tour seule ne peut pas tout prendre.");
+
+        RuleSet rules = RuleSet.STANDARD.withMoveLimit(3);
+        Position position = Position.fromFen(puzzle, rules);
+        assertEquals(rules, position.getRules(), "La position doit garder ses règles.");
+        assertTrue(new Solver().isSolvable(position),
+            "Avec trois coups par pièce, le puzzle doit avoir une solution.");
+
+        Board board = new Board(position);
+        Piece rook = board.getPieceAt(7, 0);
+        board.movePiece(new Point(7, 0), new Point(7, 1));
+        board.movePiece(new Point(7, 1), new Point(7, 2));
+        assertFalse(rook.isExhausted(), "La tour doit pouvoir jouer une troisième fois.");
+        assertTrue(board.isValidMove(new Point(7, 2), new Point(7, 3)), "La troisième prise doit être permise.");
+    }
+
+    /**
+     * Teste que le roi peut être pris quand il n'a pas à finir seul.
+     */
+    @Test
+    public void testKingCanBeCaptured() {
+        String puzzle = "8/8/8/8/8/8/8/RK6";
+        assertEquals(1, generate(Position.fromFen(puzzle)).size(), "Seul le roi doit pouvoir prendre selon les règles standard.");
+
+        RuleSet rules = new RuleSet(2, false, true);
+        Position position = Position.fromFen(puzzle, rules);
+        assertEquals(2, generate(position).size(), "La tour et le roi doivent pouvoir se prendre mutuellement.");
+        assertTrue(new Solver().isSolvable(position),
+            "Le puzzle doit se résoudre en prenant le roi.");
+        assertTrue(new Board(position).isValidMove(new Point(7, 0), new Point(7, 1)), "Le plateau doit autoriser la prise du roi.");
+    }
+
+    /**
+     * Teste que les coups sans prise sont les mêmes sur le plateau et dans la position compacte.
+     */
+    @Test
+    public void testQuietMovesMatchBoard() {
+        RuleSet rules = new RuleSet(2, true, false);
+        Position position = Position.fromFen("8/8/3p4/8/2N5/8/1B6/R3K3", rules);
+        Board board = new Board(position);
+        int columns = position.getColumns();
+
+        List<Integer> expected = new ArrayList<Integer>();
+        for (Piece piece : board.getRemainingPieces()) {
+            Point from = piece.getPosition();
+            for (Point to : piece.getLegalMoves(board)) {
+                expected.add(Position.encodeMove(from.x * columns + from.y, to.x * columns + to.y));
+            }
+        }
+        List<Integer> actual = generate(position);
+        Collections.sort(expected);
+        Collections.sort(actual);
+        assertEquals(expected, actual, "Le plateau et la position doivent proposer les mêmes coups.");
+        assertTrue(actual.contains(Position.encodeMove(2 * columns + 3, 3 * columns + 3)),
+            "Le pion doit pouvoir avancer sur une case vide.");
+
+        int quiet = Position.encodeMove(7 * columns, 6 * columns);
+        assertEquals("Ra2", SanNotation.format(position, quiet), "Un coup sans prise s'écrit sans « x ».");
+        assertEquals(quiet, SanNotation.parse(position, "Ra2"), "Le coup sans prise doit être relu.");
+
+        // Les cavaliers ne se prennent pas directement : il faut d'abord un coup sans prise
+        assertFalse(new Solver().isSolvable(Position.fromFen("8/8/8/8/8/8/8/N1N5")), "Sans coup libre, le puzzle est perdu.");
+        int[] solution = new Solver().findSolution(Position.fromFen("8/8/8/8/8/8/8/N1N5", rules));
+        assertNotNull(solution, "Avec les coups libres, le puzzle doit avoir une solution.");
+        assertEquals(2, solution.length, "La solution doit compter le coup libre et la prise.");
+    }
+
+    private static List<Integer> generate(Position position) {
+        int[] moves = position.newMoveBuffer();
+        int count = position.generateMoves(moves);
+        List<Integer> list = new ArrayList<Integer>();
+        for (int i = 0; i < count; i++) {
+            list.add(moves[i]);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,198 @@
+package savetheking.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suite de tests pour les parties sans interface graphique et le serveur de sessions.
+ * Vérifie qu'une session se joue avec des requêtes texte, que chaque session garde son
+ * propre état et que les requêtes d'une même session sont traitées dans l'ordre.
+ */
+public class SessionServerTest {
+
+    /**
+     * Teste qu'une session se joue jusqu'à la victoire et refuse les coups illégaux.
+     */
+    @Test
+    public void testSessionPlaysToVictory() {
+        GameSession session = new GameSession(1, Position.fromFen("8/8/8/8/8/8/8/RR1R4"));
+
+        assertEquals("OK PLAYING 3", session.handle("status"), "La partie doit commencer avec trois pièces.");
+        assertTrue(session.handle("move 7 0 7 3").startsWith("ERR"), "Une tour ne peut pas sauter par-dessus une pièce.");
+        assertEquals("OK PLAYING 2", session.handle("move 7 0 7 1"), "La capture doit retirer une pièce.");
+        assertEquals("OK WON 1", session.handle("move 7 3 7 1"), "La dernière capture doit gagner la partie.");
+        assertEquals("OK 8/8/8/8/8/8/8/1R6 1", session.handle("fen"), "La position finale doit garder le nombre de coups.");
+
+        session.handle("reset");
+        assertEquals("OK 8/8/8/8/8/8/8/RR1R4", session.handle("fen"), "La remise à zéro doit rétablir le puzzle.");
+    }
+
+    /**
+     * Teste qu'un coup joue la pièce de sa case de départ malgré une sélection laissée par un clic,
+     * et qu'il est refusé une fois la partie terminée.
+     */
+    @Test
+    public void testMoveIgnoresSelectionAndFinishedGame() {
+        GameSession session = new GameSession(1, Position.fromFen("8/8/8/8/8/8/8/RR1R4"));
+
+        session.handle("click 7 3");
+        assertEquals("OK PLAYING 2", session.handle("move 7 0 7 1"), "La tour de a1 doit prendre, pas celle sélectionnée.");
+        assertEquals("OK 8/8/8/8/8/8/8/1R1R4 10", session.handle("fen"), "La tour de d1 ne doit pas avoir bougé.");
+        assertEquals("OK WON 1", session.handle("move 7 3 7 1"), "La dernière capture doit gagner la partie.");
+        assertTrue(session.handle("move 7 1 7 0").startsWith("ERR"), "Aucun coup n'est accepté après la victoire.");
+    }
+
+    /**
+     * Teste qu'une session joue sans rien écrire sur la console, contrairement au plateau affiché.
+     */
+    @Test
+    public void testSessionsDoNotPrint() {
+        PrintStream console = System.out;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output, true));
+        try {
+            GameSession session = new GameSession(1, Position.fromFen("8/8/8/8/8/8/8/RR1R4"));
+            session.handle("click 7 0");
+            session.handle("click 7 1");
+            session.handle("move 7 3 7 1");
+            session.handle("reset");
+            session.handle("move 7 0 7 1");
+            assertEquals(0, output.size(), "Une session ne doit rien écrire : " + output);
+
+            Board board = new Board(Position.fromFen("8/8/8/8/8/8/8/RR6"));
+            new Controller(board).playMove(new Point(7, 0), new Point(7, 1));
+            assertTrue(output.size() > 0, "Un plateau affiché décrit ses coups.");
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    /**
+     * Teste que le temps écoulé entre deux requêtes est décompté et qu'une partie hors délai refuse les coups.
+     */
+    @Test
+    public void testSessionTimesOut() {
+        final long[] now = {0};
+        GameSession session = new GameSession(1, Position.fromFen("8/8/8/8/8/8/8/RR1R4"), () -> now[0]);
+
+        now[0] = 100_000_000_000L;
+        assertEquals("OK PLAYING 3", session.handle("status"), "Il reste du temps après 100 secondes.");
+        assertEquals(GameState.ROUND_TIME_SECONDS - 100, session.getGameState().getTimer(), "Le temps écoulé doit être décompté.");
+        now[0] += (GameState.ROUND_TIME_SECONDS - 100) * 1_000_000_000L;
+        assertEquals("OK TIMEOUT 3", session.handle("status"), "Le temps de la manche est écoulé.");
+        assertTrue(session.handle("move 7 0 7 1").startsWith("ERR Game is finished"), "Aucun coup après la fin du temps.");
+
+        session.handle("reset");
+        assertEquals("OK PLAYING 3", session.handle("status"), "Une nouvelle manche remet le chronomètre à zéro.");
+    }
+
+    /**
+     * Teste que chaque session possède son propre état de jeu.
+     */
+    @Test
+    public void testSessionsDoNotShareState() {
+        GameSession first = new GameSession(1, Position.fromFen("8/8/8/8/8/8/8/RR6"));
+        GameSession second = new GameSession(2, Position.fromFen("8/8/8/8/8/8/8/RR6"));
+
+        first.handle("move 7 0 7 1");
+
+        assertNotSame(first.getGameState(), second.getGameState(), "Les sessions ne doivent pas partager leur état.");
+        assertEquals(1, first.getGameState().getMoveHistory().size(), "Le coup doit être enregistré dans la première session.");
+        assertTrue(second.getGameState().getMoveHistory().isEmpty(), "La seconde session ne doit voir aucun coup.");
+        assertEquals("OK PLAYING 2", second.handle("status"), "La seconde session doit rester intacte.");
+    }
+
+    /**
+     * Teste que le serveur traite de nombreuses sessions en parallèle, chacune dans l'ordre de ses requêtes.
+     */
+    @Test
+    public void testServerHandlesManySessions() throws Exception {
+        SessionServer server = new SessionServer();
+        List<Long> ids = new ArrayList<Long>();
+        for (int i = 0; i < 200; i++) {
+            ids.add(server.openSession(Position.fromFen("8/8/8/8/8/8/8/RR1R4")));
+        }
+        List<CompletableFuture<String>> responses = new ArrayList<CompletableFuture<String>>();
+        for (long id : ids) {
+            server.submit(id, "move 7 0 7 1");
+            responses.add(server.submit(id, "move 7 3 7 1"));
+        }
+        for (CompletableFuture<String> response : responses) {
+            assertEquals("OK WON 1", response.join(), "Les deux coups doivent être joués dans l'ordre.");
+        }
+
+        assertTrue(server.closeSession(ids.get(0)), "La session doit pouvoir être fermée.");
+        assertTrue(server.submit(ids.get(0), "status").join().startsWith("ERR"), "Une session fermée ne répond plus.");
+        assertEquals("OK 201", server.handleLine("open 8/8/8/8/8/8/8/RR6"), "Le protocole texte doit ouvrir une session.");
+        assertTrue(server.shutdown(5000), "Le serveur doit s'arrêter proprement.");
+    }
+
+    /**
+     * Teste qu'une tâche refusée par l'exécuteur fait échouer les requêtes en attente sans bloquer la session.
+     */
+    @Test
+    public void testRejectedTaskDoesNotStallSession() {
+        RejectingExecutor executor = new RejectingExecutor();
+        SessionServer server = new SessionServer(executor);
+        long id = server.openSession(Position.fromFen("8/8/8/8/8/8/8/RR1R4"));
+
+        executor.rejecting = true;
+        CompletableFuture<String> refused = server.submit(id, "status");
+        assertTrue(refused.isCompletedExceptionally(), "La requête doit échouer si la tâche est refusée.");
+        assertThrows(CompletionException.class, refused::join, "L'échec doit être transmis à l'appelant.");
+        assertTrue(server.handleLine(id + " status").startsWith("ERR"), "Le protocole texte doit répondre par une erreur.");
+
+        executor.rejecting = false;
+        assertEquals("OK PLAYING 3", server.submit(id, "status").join(), "La session doit pouvoir être relancée.");
+    }
+
+    /**
+     * Exécuteur synchrone qui refuse les tâches à la demande, comme un exécuteur arrêté.
+     */
+    private static final class RejectingExecutor extends AbstractExecutorService {
+        volatile boolean rejecting;
+
+        @Override
+        public void execute(Runnable command) {
+            if (rejecting) {
+                throw new RejectedExecutionException("Exécuteur arrêté");
+            }
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return new ArrayList<Runnable>();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
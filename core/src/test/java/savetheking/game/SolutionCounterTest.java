@@ -0,0 +1,71 @@
+package savetheking.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suite de tests pour le compteur de solutions.
+ * Vérifie que le comptage mémoïsé donne le même nombre de lignes qu'une énumération complète.
+ */
+public class SolutionCounterTest {
+
+    /**
+     * Teste que le compteur trouve autant de lignes gagnantes qu'une énumération coup par coup.
+     */
+    @Test
+    public void testCountMatchesEnumeration() {
+        Random random = new Random(43);
+        SolutionCounter counter = new SolutionCounter();
+        for (int n = 0; n < 300; n++) {
+            Position position = TestPositions.random(random, 4, 4, 2 + random.nextInt(6));
+            assertEquals(enumerate(position), counter.count(position), "Nombre de lignes différent pour " + position.toFen());
+            assertEquals(new Solver().isSolvable(position), counter.count(position) > 0,
+                "Une position est résoluble si et seulement si elle a une ligne gagnante : " + position.toFen());
+        }
+    }
+
+    /**
+     * Teste la détection d'une solution unique.
+     */
+    @Test
+    public void testUniqueSolution() {
+        SolutionCounter counter = new SolutionCounter();
+        assertTrue(counter.hasUniqueSolution(Position.fromFen("8/8/8/8/8/8/8/R2N4")), "Seule la tour peut prendre le cavalier.");
+        assertEquals(1, counter.count(Position.fromFen("8/8/8/8/8/8/8/7K")), "Une position résolue a une seule ligne.");
+        assertEquals(0, counter.count(Position.fromFen("8/8/8/8/8/8/8/N6N")), "Deux cavaliers éloignés ne peuvent pas se prendre.");
+        assertFalse(counter.hasUniqueSolution(Position.fromFen("8/8/8/8/8/8/8/RR6")), "Chaque tour peut prendre l'autre.");
+    }
+
+    /**
+     * Teste qu'une position aux millions de lignes est comptée par sa mémoïsation et que reset vide le cache.
+     */
+    @Test
+    public void testLargeCountAndReset() {
+        SolutionCounter counter = new SolutionCounter();
+        Position position = Position.fromFen("7B/5BB1/B1R5/B7/1BR5/1RRNK3/8/8");
+        assertEquals(2439413, counter.count(position), "Nombre de lignes inattendu.");
+        assertTrue(counter.getMemoSize() > 0, "Les positions intermédiaires doivent être mémorisées.");
+        assertTrue(counter.getMemoSize() < 2439413, "La mémoïsation doit éviter d'énumérer les lignes.");
+
+        counter.reset();
+        assertEquals(0, counter.getMemoSize(), "Le cache doit être vidé.");
+        assertEquals(0, counter.getNodeCount(), "Les statistiques doivent être remises à zéro.");
+        assertEquals(2439413, counter.count(position), "Le compte doit être le même après une remise à zéro.");
+    }
+
+    private static long enumerate(Position position) {
+        if (position.isSolved()) {
+            return 1;
+        }
+        long total = 0;
+        int[] moves = position.newMoveBuffer();
+        int count = position.generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            total += enumerate(position.play(moves[i]));
+        }
+        return total;
+    }
+}
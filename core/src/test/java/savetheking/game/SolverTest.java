@@ -0,0 +1,252 @@
+package savetheking.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suite de tests pour le solveur et le cache de verdicts.
+ * Vérifie la génération des captures, la recherche de solutions, la forme canonique
+ * des positions et le comportement du cache (éviction, statistiques, persistance).
+ */
+public class SolverTest {
+
+    /**
+     * Teste qu'une tour peut capturer la tour voisine pour gagner.
+     */
+    @Test
+    public void testTwoRooksSolvable() {
+        Position position = Position.fromFen("8/8/8/8/8/8/8/RR6");
+        Solver solver = new Solver();
+
+        assertTrue(solver.isSolvable(position), "Deux tours voisines doivent être résolubles.");
+        int[] solution = solver.findSolution(position);
+        assertNotNull(solution, "Une solution doit être trouvée.");
+        assertEquals(1, solution.length, "La solution doit contenir une seule capture.");
+    }
+
+    /**
+     * Teste que le roi ne peut pas être capturé : il doit rester la dernière pièce.
+     */
+    @Test
+    public void testKingCannotBeCaptured() {
+        Position position = Position.fromFen("KR6/8/8/8/8/8/8/8");
+        int[] moves = position.newMoveBuffer();
+        int count = position.generateMoves(moves);
+
+        assertEquals(1, count, "Seul le roi doit pouvoir capturer.");
+        assertEquals(0, Position.moveFrom(moves[0]), "La capture doit partir du roi en a8.");
+        assertTrue(new Solver().isSolvable(position), "Le roi doit pouvoir capturer la tour.");
+    }
+
+    /**
+     * Teste qu'une pièce ayant déjà joué deux fois ne peut plus capturer.
+     */
+    @Test
+    public void testExhaustedPiecesCannotMove() {
+        Position position = Position.fromFen("RR6/8/8/8/8/8/8/8 22");
+
+        assertEquals(0, position.generateMoves(position.newMoveBuffer()), "Les pièces épuisées ne doivent pas bouger.");
+        assertFalse(new Solver().isSolvable(position), "La position doit être perdue.");
+    }
+
+    /**
+     * Teste une solution en plusieurs coups et la conservation des compteurs de coups.
+     */
+    @Test
+    public void testLongerSolutionKeepsMoveCounts() {
+        Position position = Position.fromFen("RNB5/8/8/8/8/8/8/8");
+        int[] solution = new Solver().findSolution(position);
+
+        assertNotNull(solution, "La position doit être résoluble.");
+        Position end = position;
+        for (int move : solution) {
+            end = end.play(move);
+        }
+        assertTrue(end.isSolved(), "La solution doit laisser une seule pièce.");
+        assertEquals("2R5/8/8/8/8/8/8/8 2", end.toFen(), "La tour doit avoir joué deux fois.");
+    }
+
+    /**
+     * Teste l'éviction LRU et les statistiques du cache de verdicts.
+     */
+    @Test
+    public void testVerdictCacheEviction() {
+        VerdictCache cache = new VerdictCache(1);
+        Position first = Position.fromFen("RR6/8/8/8/8/8/8/8");
+        Position second = Position.fromFen("RN6/8/8/8/8/8/8/8");
+
+        cache.put(first, true);
+        cache.put(second, true);
+
+        assertNull(cache.get(first), "La première position doit avoir été évincée.");
+        assertEquals(Boolean.TRUE, cache.get(second), "La seconde position doit être en cache.");
+        assertEquals(1, cache.getEvictionCount(), "Une éviction doit être comptée.");
+        assertEquals(1, cache.getHitCount(), "Un succès doit être compté.");
+        assertEquals(1, cache.getMissCount(), "Un échec doit être compté.");
+    }
+
+    /**
+     * Teste que le solveur réutilise le cache et que celui-ci survit à une sauvegarde.
+     */
+    @Test
+    public void testVerdictCachePersistence() throws IOException {
+        VerdictCache cache = new VerdictCache(100);
+        Position position = Position.fromFen("RNB5/8/8/8/8/8/8/8");
+        new Solver(cache).isSolvable(position);
+        Solver cachedSolver = new Solver(cache);
+
+        assertTrue(cachedSolver.isSolvable(position), "Le verdict doit être lu dans le cache.");
+        assertEquals(0, cachedSolver.getNodeCount(), "Aucune recherche ne doit avoir lieu.");
+
+        File file = File.createTempFile("verdicts", ".bin");
+        file.deleteOnExit();
+        cache.save(file);
+        VerdictCache restored = new VerdictCache(100);
+
+        assertEquals(1, restored.load(file), "Un verdict doit être relu.");
+        assertEquals(Boolean.TRUE, restored.get(position), "Le verdict relu doit être identique.");
+
+        // Le même placement sous d'autres règles a son propre verdict, qui doit survivre à la sauvegarde
+        Position variant = position.withRules(new RuleSet(1, false, true));
+        restored.put(variant, false);
+        restored.save(file);
+        VerdictCache reloaded = new VerdictCache(100);
+        assertEquals(2, reloaded.load(file), "Les deux verdicts doivent être relus.");
+        assertEquals(Boolean.TRUE, reloaded.get(position), "Le verdict des règles standard doit être conservé.");
+        assertEquals(Boolean.FALSE, reloaded.get(variant), "Le verdict de la variante doit garder ses règles.");
+    }
+
+    /**
+     * Teste que les images d'une position par rotation et symétrie ont la même forme canonique.
+     */
+    @Test
+    public void testCanonicalFormWithoutPawns() {
+        Position position = Position.fromFen("RN6/8/8/8/8/8/8/8");
+        Position rotated = Position.fromFen("7R/7N/8/8/8/8/8/8");
+        Position mirrored = Position.fromFen("8/8/8/8/8/8/8/6NR");
+
+        assertEquals(position.canonical(), rotated.canonical(), "Une rotation doit donner la même forme canonique.");
+        assertEquals(position.canonical(), mirrored.canonical(), "Une symétrie doit donner la même forme canonique.");
+        assertTrue(new PuzzleDeduplicator().deduplicate(java.util.Arrays.asList(
+            position.toFen(), rotated.toFen(), mirrored.toFen())).size() == 1, "Les trois puzzles sont identiques.");
+    }
+
+    /**
+     * Teste qu'en présence de pions seule la symétrie gauche-droite est utilisée.
+     */
+    @Test
+    public void testCanonicalFormWithPawns() {
+        Position position = Position.fromFen("8/8/8/8/8/8/1N6/P7");
+        Position mirrored = Position.fromFen("8/8/8/8/8/8/6N1/7P");
+        Position flipped = Position.fromFen("P7/1N6/8/8/8/8/8/8");
+
+        assertEquals(position.canonical(), mirrored.canonical(), "Le miroir gauche-droite conserve le sens des pions.");
+        assertNotEquals(position.canonical(), flipped.canonical(), "Retourner le plateau change le sens des pions.");
+    }
+
+    /**
+     * Teste que l'ordre des coups et l'élagage ne changent jamais le verdict.
+     */
+    @Test
+    public void testHeuristicsKeepVerdicts() {
+        String[] fens = {
+            "5B2/8/3N2BQ/2B5/1R6/RR6/2N4N/1Q6",
+            "3Q4/1Q6/8/3R4/3QR3/1N1RR3/2Q1RQ2/2N1N3",
+            "8/4R3/8/6RB/4N1N1/4BQBB/5KNR/1Q3B2",
+            "K7/8/8/8/8/8/8/6BB",
+            "B7/8/8/8/8/8/1R6/R7 200"
+        };
+        for (String fen : fens) {
+            Position position = Position.fromFen(fen);
+            Solver plain = new Solver();
+            plain.setMoveOrdering(false);
+            plain.setPruning(false);
+
+            assertEquals(plain.isSolvable(position), new Solver().isSolvable(position),
+                "Les heuristiques ne doivent pas changer le verdict de " + fen);
+        }
+    }
+
+    /**
+     * Teste qu'une recherche interrompue par son budget répond "inconnu",
+     * puis qu'elle reprend le travail déjà fait jusqu'au verdict exact.
+     */
+    @Test
+    public void testBudgetedSearchResumes() {
+        Position position = Position.fromFen("8/1NN1RB2/8/R1NN4/R1B1Q2B/RN6/3B4/3R4");
+        Solver solver = new Solver();
+
+        SearchResult partial = solver.search(position, SearchBudget.ofNodes(50));
+        assertEquals(SearchResult.Verdict.UNKNOWN, partial.getVerdict(), "Le budget est trop petit pour conclure.");
+        assertNull(partial.getSolution(), "Aucune solution sans verdict exact.");
+        assertEquals(50, partial.getNodeCount(), "La recherche doit s'arrêter au budget.");
+
+        SearchResult result = partial;
+        for (int i = 0; i < 1000 && !result.isExact(); i++) {
+            result = solver.search(position, SearchBudget.ofNodes(500));
+        }
+        assertEquals(SearchResult.Verdict.SOLVABLE, result.getVerdict(), "Les tranches successives doivent conclure.");
+        assertEquals(position.getPieceCount() - 1, result.getSolution().length, "La solution capture toutes les pièces sauf une.");
+    }
+
+    /**
+     * Teste que l'élagage reste rapide et sûr avec une limite de coups élevée.
+     */
+    @Test
+    public void testPruningWithHighMoveLimit() {
+        RuleSet longGame = new RuleSet(RuleSet.MAX_MOVE_LIMIT, true, true);
+        Position queens = Position.fromFen("QQQQ4/QQQQ4/QQQQ4/QQQQ4/8/8/8/8", longGame);
+        assertFalse(Solver.cannotBeSolved(queens), "Seize dames groupées peuvent toutes se rejoindre.");
+        assertTrue(Solver.cannotBeSolved(Position.fromFen("8/8/8/8/8/8/8/N6N", longGame)),
+            "Deux cavaliers qui ne peuvent pas s'atteindre restent séparés.");
+
+        Random random = new Random(39);
+        for (int n = 0; n < 300; n++) {
+            Position position = TestPositions.random(random, 4, 4, 2 + random.nextInt(5))
+                .withRules(new RuleSet(1 + random.nextInt(5), random.nextBoolean(), true));
+            if (Solver.cannotBeSolved(position)) {
+                Solver plain = new Solver();
+                plain.setPruning(false);
+                assertFalse(plain.isSolvable(position), "L'élagage a rejeté une position résoluble : " + position.toFen());
+            }
+        }
+    }
+
+    /**
+     * Teste que la table de transposition reste bornée sans changer les verdicts.
+     */
+    @Test
+    public void testTranspositionTableIsBounded() {
+        Position position = Position.fromFen("3Q4/1Q6/8/3R4/3QR3/1N1RR3/2Q1RQ2/2N1N3");
+        Solver unbounded = new Solver();
+        boolean expected = unbounded.isSolvable(position);
+        assertTrue(unbounded.getTableSize() > 64, "La recherche doit remplir la table.");
+
+        Solver bounded = new Solver();
+        bounded.setTableCapacity(64);
+        assertEquals(expected, bounded.isSolvable(position), "Vider la table ne doit pas changer le verdict.");
+        assertTrue(bounded.getTableSize() <= 64, "La table ne doit pas dépasser sa capacité.");
+        assertThrows(IllegalArgumentException.class, () -> bounded.setTableCapacity(0), "La capacité doit être positive.");
+    }
+
+    /**
+     * Teste qu'une recherche annulée s'arrête et ne met rien dans le cache.
+     */
+    @Test
+    public void testCancelledSearchIsUnknown() {
+        VerdictCache cache = new VerdictCache(16);
+        Position position = Position.fromFen("3RR3/N2R4/1N2N3/1QB1K2Q/R2N1BQ1/N1B1RN2/2BQR3/2NR2B1");
+        SearchBudget budget = SearchBudget.unlimited();
+        budget.cancel();
+
+        SearchResult result = new Solver(cache).search(position, budget);
+        assertEquals(SearchResult.Verdict.UNKNOWN, result.getVerdict(), "Une recherche annulée ne conclut pas.");
+        assertTrue(result.getNodeCount() <= 1024, "L'annulation doit être vue rapidement.");
+        assertEquals(0, cache.size(), "Un verdict inconnu ne doit pas être mis en cache.");
+    }
+}
@@ -0,0 +1,93 @@
+package savetheking.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suite de tests pour la table de finales.
+ * Vérifie que les verdicts de la table sont ceux du solveur et que le solveur et le contrôleur l'interrogent.
+ */
+public class TablebaseTest {
+
+    /**
+     * Teste que la table donne le même verdict que le solveur pour des positions tirées au hasard.
+     */
+    @Test
+    public void testVerdictsMatchSolver() throws IOException {
+        File file = File.createTempFile("tablebase", ".bin");
+        try {
+            Tablebase.generate(file, 3, 4, 3, RuleSet.STANDARD, 2);
+            Tablebase tablebase = Tablebase.open(file);
+            Random random = new Random(41);
+            for (int n = 0; n < 2000; n++) {
+                Position position = TestPositions.random(random, 3, 4, 1 + random.nextInt(3), 3, true);
+                assertTrue(tablebase.covers(position), "La position doit être couverte : " + position.toFen());
+                boolean solvable = new Solver().isSolvable(position);
+                assertEquals(solvable ? SearchResult.Verdict.SOLVABLE : SearchResult.Verdict.UNSOLVABLE,
+                    tablebase.probe(position), "Verdict différent pour " + position.toFen());
+                assertEquals(solvable ? position.getPieceCount() - 1 : -1, tablebase.getDistanceToSolution(position),
+                    "La distance doit être d'une prise par pièce en trop.");
+            }
+
+            Position large = Position.fromFen("4/4/RRRR");
+            assertFalse(tablebase.covers(large), "Quatre pièces dépassent la table.");
+            assertEquals(SearchResult.Verdict.UNKNOWN, tablebase.probe(large), "Une position non couverte est inconnue.");
+            assertEquals(SearchResult.Verdict.UNKNOWN, tablebase.probe(Position.fromFen("8/8/8/8/8/8/8/RR6")),
+                "Une autre taille de plateau n'est pas couverte.");
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Teste que le solveur et le contrôleur s'appuient sur la table une fois peu de pièces restantes.
+     */
+    @Test
+    public void testSolverAndControllerProbe() throws IOException {
+        File file = File.createTempFile("tablebase", ".bin");
+        try {
+            Tablebase.generate(file, 8, 8, 2, RuleSet.STANDARD, 2);
+            Tablebase tablebase = Tablebase.open(file);
+
+            Position position = Position.fromFen("8/8/8/8/8/8/8/RNB5");
+            Solver solver = new Solver();
+            solver.setTablebase(tablebase);
+            int[] solution = solver.findSolution(position);
+            assertNotNull(solution, "Le puzzle doit être résolu.");
+            assertTrue(solver.getTablebaseHits() > 0, "Le solveur doit avoir interrogé la table.");
+            for (int move : solution) {
+                position = position.play(move);
+            }
+            assertTrue(position.isSolved(), "La solution doit mener à une seule pièce.");
+
+            Controller controller = new Controller(new Board(Position.fromFen("8/8/8/8/8/8/8/R2N4")));
+            controller.setTablebase(tablebase);
+            Move hint = controller.findHint();
+            assertNotNull(hint, "Un coup gagnant doit être proposé.");
+            assertEquals(new Point(7, 0), hint.getStart(), "Seule la tour peut prendre le cavalier.");
+            assertFalse(controller.isDeadPosition(), "La position est gagnable.");
+
+            Controller lost = new Controller(new Board(Position.fromFen("8/8/8/8/8/8/8/N6N")));
+            lost.setTablebase(tablebase);
+            assertTrue(lost.isDeadPosition(), "Deux cavaliers éloignés ne peuvent pas se prendre.");
+            assertNull(lost.findHint(), "Aucun coup gagnant n'existe.");
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Teste qu'une table ne peut pas être construite si les coups sans prise sont permis.
+     */
+    @Test
+    public void testQuietMovesRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> Tablebase.generate(new File("unused.bin"), 3, 3, 2, new RuleSet(2, true, false), 1),
+            "Les coups sans prise rendent la table impossible à construire couche par couche.");
+    }
+}
@@ -0,0 +1,48 @@
+package savetheking.game;
+
+import java.util.Random;
+
+/**
+ * Positions aléatoires partagées par les suites de tests.
+ */
+final class TestPositions {
+
+    private TestPositions() {
+    }
+
+    /**
+     * Tire une position aléatoire dont les pièces ont joué zéro ou un coup et dont les pions vont dans un sens tiré au hasard.
+     *
+     * @param random     La source aléatoire.
+     * @param rows       Le nombre de lignes.
+     * @param columns    Le nombre de colonnes.
+     * @param pieceCount Le nombre de pièces, au plus le nombre de cases.
+     * @return La position, sous les règles standard.
+     */
+    static Position random(Random random, int rows, int columns, int pieceCount) {
+        return random(random, rows, columns, pieceCount, 2, true);
+    }
+
+    /**
+     * Tire une position aléatoire : des pièces de tout type sur des cases distinctes.
+     *
+     * @param random            La source aléatoire.
+     * @param rows              Le nombre de lignes.
+     * @param columns           Le nombre de colonnes.
+     * @param pieceCount        Le nombre de pièces, au plus le nombre de cases.
+     * @param moveBound         La borne exclue du nombre de coups déjà joués par chaque pièce ; 1 pour des pièces neuves.
+     * @param anyPawnDirection  true pour tirer le sens des pions, false pour qu'ils montent vers la ligne 0.
+     * @return La position, sous les règles standard.
+     */
+    static Position random(Random random, int rows, int columns, int pieceCount, int moveBound, boolean anyPawnDirection) {
+        byte[] cells = new byte[rows * columns];
+        for (int i = 0; i < pieceCount; i++) {
+            int square;
+            do {
+                square = random.nextInt(cells.length);
+            } while (cells[square] != Position.EMPTY);
+            cells[square] = Position.cell(Position.PAWN + random.nextInt(6), moveBound > 1 ? random.nextInt(moveBound) : 0);
+        }
+        return new Position(rows, columns, cells, anyPawnDirection && random.nextBoolean() ? 1 : -1);
+    }
+}
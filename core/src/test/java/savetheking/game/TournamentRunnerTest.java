@@ -0,0 +1,85 @@
+package savetheking.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Suite de tests pour les joueurs automatiques et le tournoi.
+ */
+public class TournamentRunnerTest {
+
+    /**
+     * Teste que le joueur aléatoire gagne aussi souvent que prévu et que le solveur gagne tout puzzle résoluble.
+     */
+    @Test
+    public void testWinRates() {
+        Position puzzle = Position.fromFen("7B/5BB1/B1R5/B7/1BR5/1RRNK3/8/8");
+        Position lost = Position.fromFen("8/8/8/8/8/8/8/N6N");
+        List<Player> players = Arrays.<Player>asList(new RandomPlayer(1), new GreedyPlayer(1), new SolverPlayer(null));
+        TournamentResult result = new TournamentRunner(2).run(Arrays.asList(puzzle, lost), players, 20000, 46);
+
+        double expected = new DifficultyEstimator().getWinProbability(puzzle);
+        double tolerance = 4 * Math.sqrt(expected * (1 - expected) / 20000);
+        assertEquals(expected, result.getWinRate(0, 0), tolerance, "Le joueur aléatoire doit gagner au hasard.");
+        assertEquals(1.0, result.getWinRate(0, 2), "Le solveur gagne tout puzzle résoluble.");
+        for (int player = 0; player < players.size(); player++) {
+            assertEquals(0, result.getWins(1, player), "Personne ne gagne un puzzle insoluble.");
+        }
+        assertEquals(120000, result.getGameCount(), "Chaque joueur joue chaque puzzle.");
+        assertEquals(Arrays.asList("Random", "Greedy", "Solver"), result.getPlayerNames());
+        assertEquals(Arrays.asList(puzzle), result.getPuzzlesWonAtLeast(2, 0.5), "Seul le puzzle résoluble est gagné.");
+    }
+
+    /**
+     * Teste qu'un tournoi rejoué avec la même graine donne les mêmes victoires, quel que soit le nombre de threads,
+     * et que le joueur glouton prend toujours la prise gagnante.
+     */
+    @Test
+    public void testReproducibleAndGreedy() {
+        List<Position> puzzles = Arrays.asList(Position.fromFen("3Q4/1Q6/8/3R4/3QR3/1N1RR3/2Q1RQ2/2N1N3"),
+            Position.fromFen("5B2/8/3N2BQ/2B5/1R6/RR6/2N4N/1Q6"));
+        List<Player> players = Arrays.<Player>asList(new RandomPlayer(0), new GreedyPlayer(0));
+        TournamentResult first = new TournamentRunner(1).run(puzzles, players, 25000, 7);
+        TournamentResult second = new TournamentRunner(3).run(puzzles, players, 25000, 7);
+        for (int puzzle = 0; puzzle < puzzles.size(); puzzle++) {
+            for (int player = 0; player < players.size(); player++) {
+                assertEquals(first.getWins(puzzle, player), second.getWins(puzzle, player),
+                    "Une même graine doit donner les mêmes parties.");
+            }
+        }
+
+        Position position = puzzles.get(0);
+        int[] moves = position.newMoveBuffer();
+        int[] replies = position.newMoveBuffer();
+        int count = position.generateMoves(moves);
+        int chosen = new GreedyPlayer(0).chooseMove(position, moves, count);
+        int chosenMobility = position.play(moves[chosen]).generateMoves(replies);
+        for (int i = 0; i < count; i++) {
+            assertTrue(position.play(moves[i]).generateMoves(replies) <= chosenMobility,
+                "Le glouton doit laisser le plus de coups possibles.");
+        }
+    }
+
+    /**
+     * Teste qu'un joueur automatique peut jouer une partie complète à travers le contrôleur.
+     */
+    @Test
+    public void testPlayerDrivesController() {
+        Position puzzle = Position.fromFen("7B/5BB1/B1R5/B7/1BR5/1RRNK3/8/8");
+        Board board = new Board(puzzle);
+        Controller controller = new Controller(board);
+        Player player = new SolverPlayer(null);
+        int played = 0;
+        while (controller.playMove(player)) {
+            played++;
+        }
+        assertEquals(puzzle.getPieceCount() - 1, played, "Chaque coup doit prendre une pièce.");
+        assertEquals(1, board.getRemainingPieces().size(), "Le solveur doit gagner la partie.");
+        assertFalse(controller.needsUpdate(), "La partie doit être terminée.");
+        assertFalse(controller.playMove(player), "Aucun coup après la fin de la partie.");
+    }
+}